@@ -0,0 +1,29 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A metric that counts occurrences or amounts, like the amount of frames written.
+ * Updating a counter does not allocate any objects, so it can be used on the hot path of the mixer.
+ */
+public class Counter {
+
+    private final AtomicLong count;
+
+    public Counter() {
+        this.count = new AtomicLong();
+    }
+
+    public void increment() {
+        this.count.incrementAndGet();
+    }
+
+    public void add(long amount) {
+        this.count.addAndGet(amount);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+}
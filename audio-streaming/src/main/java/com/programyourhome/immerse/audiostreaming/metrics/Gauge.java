@@ -0,0 +1,12 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+/**
+ * A metric that reports a value at the moment it is read, like the fill level of a buffer.
+ * A gauge is only evaluated when a snapshot of the metrics is taken, so never on the hot path of the mixer.
+ */
+@FunctionalInterface
+public interface Gauge {
+
+    double getValue();
+
+}
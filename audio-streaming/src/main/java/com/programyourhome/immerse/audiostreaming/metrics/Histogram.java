@@ -0,0 +1,76 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric that records the distribution of (non-negative) values, like the duration of a mixer step in micros.
+ * Recording a value does not allocate any objects, so it can be used on the hot path of the mixer.
+ *
+ * The values are counted in buckets with power of 2 boundaries: bucket 0 contains the value 0, bucket n contains the values
+ * from 2^(n-1) up to (but not including) 2^n. Finding the bucket of a value is a single bit operation.
+ * Percentiles are estimated by the upper boundary of the bucket they fall in, so they are at most a factor 2 too high.
+ * That is more than precise enough to spot trends and outliers, which is what these metrics are for.
+ */
+public class Histogram {
+
+    // Bucket 0 for the value 0 and one bucket for every bit of a positive long.
+    private static final int AMOUNT_OF_BUCKETS = 64;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    public Histogram() {
+        this.buckets = new AtomicLongArray(AMOUNT_OF_BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long positiveValue = Math.max(0, value);
+        this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(positiveValue));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(positiveValue);
+        this.max.accumulateAndGet(positiveValue, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getSum() {
+        return this.sum.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public double getMean() {
+        long count = this.getCount();
+        return count == 0 ? 0 : this.getSum() / (double) count;
+    }
+
+    /**
+     * Estimate the value below which the given percentage (0 - 100) of the recorded values fall.
+     */
+    public long getPercentile(double percentage) {
+        long amountBelow = (long) Math.ceil(this.getCount() * percentage / 100.0);
+        long amountCounted = 0;
+        for (int bucket = 0; bucket < AMOUNT_OF_BUCKETS; bucket++) {
+            amountCounted += this.buckets.get(bucket);
+            if (amountCounted >= amountBelow) {
+                // The upper boundary of the bucket, but never more than the max recorded value.
+                return Math.min(bucket == 0 ? 0 : (1L << bucket) - 1, this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+}
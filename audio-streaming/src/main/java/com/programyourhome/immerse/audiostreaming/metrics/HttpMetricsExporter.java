@@ -0,0 +1,58 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exposes the metrics of a registry as plain text on the path '/metrics' of a simple HTTP server on the given port.
+ * Uses the HTTP server that is built into the JDK, so no extra dependencies are needed.
+ * The response contains one line per metric with the name and value separated by a space, see MetricsSnapshot.toText.
+ */
+public class HttpMetricsExporter {
+
+    public static final String PATH = "/metrics";
+
+    private final MetricsRegistry metricsRegistry;
+    private final int port;
+    private HttpServer httpServer;
+
+    public HttpMetricsExporter(MetricsRegistry metricsRegistry, int port) {
+        this.metricsRegistry = metricsRegistry;
+        this.port = port;
+    }
+
+    /**
+     * Start the HTTP server. Requests will be handled by the single dispatcher thread of the server.
+     */
+    public void start() {
+        try {
+            this.httpServer = HttpServer.create(new InetSocketAddress(this.port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception during creation of metrics HTTP server on port " + this.port, e);
+        }
+        this.httpServer.createContext(PATH, this::handle);
+        this.httpServer.start();
+    }
+
+    /**
+     * Stop the HTTP server, without waiting for requests in progress.
+     */
+    public void stop() {
+        this.httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] response = this.metricsRegistry.snapshot().toText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * Exposes the metrics of a registry as a JMX MBean, with one read only attribute per metric value.
+ * The attributes are determined at the moment the MBean info is requested, since metrics can come and go (like for scenarios in playback).
+ */
+public class JmxMetricsExporter implements DynamicMBean {
+
+    private final MetricsRegistry metricsRegistry;
+    private final ObjectName objectName;
+
+    public JmxMetricsExporter(MetricsRegistry metricsRegistry, String name) {
+        this.metricsRegistry = metricsRegistry;
+        try {
+            this.objectName = new ObjectName("com.programyourhome.immerse:type=Metrics,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid metrics name: " + name, e);
+        }
+    }
+
+    /**
+     * Register the MBean with the platform MBean server.
+     */
+    public void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.objectName);
+        } catch (JMException e) {
+            // Metrics are not essential for the mixer, so do not fail, but do report.
+            Logger.warn(e, "Exception during registration of metrics MBean");
+        }
+    }
+
+    /**
+     * Unregister the MBean from the platform MBean server.
+     */
+    public void stop() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (JMException e) {
+            Logger.warn(e, "Exception during unregistration of metrics MBean");
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double value = this.metricsRegistry.snapshot().getValue(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No metric found with name " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> values = this.metricsRegistry.snapshot().getValues();
+        AttributeList attributeList = new AttributeList();
+        for (String attribute : attributes) {
+            if (values.containsKey(attribute)) {
+                attributeList.add(new Attribute(attribute, values.get(attribute)));
+            }
+        }
+        return attributeList;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        // Metrics are read only, so no attributes are set.
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("No operations available on metrics");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] attributeInfos = this.metricsRegistry.snapshot().getValues().keySet().stream()
+                .map(name -> new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(this.getClass().getName(), "Immerse mixer metrics", attributeInfos, null, null, null);
+    }
+
+}
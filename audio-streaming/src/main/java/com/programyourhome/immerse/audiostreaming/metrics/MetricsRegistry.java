@@ -0,0 +1,83 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of all metrics of one mixer, by name.
+ * Metrics are registered once (typically at setup) and then updated directly through the metric object,
+ * so the registry itself is not involved on the hot path.
+ *
+ * Metric names are lower case, dot separated words, like 'step.duration.micros'. Include the unit in the name where applicable.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Counter> counters;
+    private final Map<String, Histogram> histograms;
+    private final Map<String, Gauge> gauges;
+
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the counter with the given name, creating it if not present yet.
+     */
+    public Counter counter(String name) {
+        return this.counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Get the histogram with the given name, creating it if not present yet.
+     */
+    public Histogram histogram(String name) {
+        return this.histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Register an existing histogram with the given name, replacing any histogram with the same name.
+     */
+    public void register(String name, Histogram histogram) {
+        this.histograms.put(name, histogram);
+    }
+
+    /**
+     * Register a gauge with the given name, replacing any gauge with the same name.
+     */
+    public void gauge(String name, Gauge gauge) {
+        this.gauges.put(name, gauge);
+    }
+
+    /**
+     * Remove the metric with the given name, for metrics of things that stop to exist (like a scenario in playback).
+     */
+    public void remove(String name) {
+        this.counters.remove(name);
+        this.histograms.remove(name);
+        this.gauges.remove(name);
+    }
+
+    /**
+     * Take a snapshot of the current values of all metrics.
+     * Histograms are summarized as several values: count, mean, max and the 50th, 99th and 99.9th percentile.
+     */
+    public MetricsSnapshot snapshot() {
+        SortedMap<String, Double> values = new TreeMap<>();
+        this.counters.forEach((name, counter) -> values.put(name, (double) counter.getCount()));
+        this.histograms.forEach((name, histogram) -> {
+            values.put(name + ".count", (double) histogram.getCount());
+            values.put(name + ".mean", histogram.getMean());
+            values.put(name + ".max", (double) histogram.getMax());
+            values.put(name + ".p50", (double) histogram.getPercentile(50));
+            values.put(name + ".p99", (double) histogram.getPercentile(99));
+            values.put(name + ".p999", (double) histogram.getPercentile(99.9));
+        });
+        this.gauges.forEach((name, gauge) -> values.put(name, gauge.getValue()));
+        return new MetricsSnapshot(System.currentTimeMillis(), values);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.programyourhome.immerse.audiostreaming.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.SortedMap;
+
+import com.programyourhome.immerse.domain.Serialization;
+
+/**
+ * An immutable snapshot of the values of all metrics of a mixer at a certain moment, by metric name.
+ * Serializable, so it can be sent over the network.
+ */
+public class MetricsSnapshot implements Serializable {
+
+    private static final long serialVersionUID = Serialization.VERSION;
+
+    private final long timestamp;
+    private final SortedMap<String, Double> values;
+
+    public MetricsSnapshot(long timestamp, SortedMap<String, Double> values) {
+        this.timestamp = timestamp;
+        this.values = Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * The moment the snapshot was taken, in millis since epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * All metric values, sorted by name.
+     */
+    public SortedMap<String, Double> getValues() {
+        return this.values;
+    }
+
+    /**
+     * The value of the metric with the given name, or null if not present.
+     */
+    public Double getValue(String name) {
+        return this.values.get(name);
+    }
+
+    /**
+     * Render the snapshot as plain text: one line per metric with the name and value separated by a space.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        this.values.forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot [timestamp=" + this.timestamp + ", values=" + this.values + "]";
+    }
+
+}
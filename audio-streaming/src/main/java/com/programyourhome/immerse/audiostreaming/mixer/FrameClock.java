@@ -0,0 +1,47 @@
+package com.programyourhome.immerse.audiostreaming.mixer;
+
+/**
+ * A mixer clock based on the amount of audio frames mixed so far, instead of the system clock.
+ * The time of this clock is the position in the mixed audio: at the start of a step, it is the time of the first frame that step mixes.
+ * So all dynamic data and playbacks are evaluated in exact sample time, without a mismatch between the audio and the timers,
+ * and without being affected by jumps in the system clock. Since the clock only depends on the mixed audio, it works the same
+ * for a real time mixer and an offline renderer.
+ *
+ * The clock is advanced by the thread that runs the mixer steps, but can be read from any thread.
+ */
+public class FrameClock implements MixerClock {
+
+    private final int framesPerSecond;
+    private volatile long frames;
+
+    public FrameClock(int framesPerSecond) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frames per second must be positive");
+        }
+        this.framesPerSecond = framesPerSecond;
+        this.frames = 0;
+    }
+
+    /**
+     * The amount of frames mixed so far.
+     */
+    public long getCurrentFrames() {
+        return this.frames;
+    }
+
+    @Override
+    public long getCurrentMillis() {
+        return this.frames * 1000 / this.framesPerSecond;
+    }
+
+    /**
+     * Advance the clock with the given amount of frames, after they are mixed.
+     */
+    public void advance(long amountOfFrames) {
+        if (amountOfFrames < 0) {
+            throw new IllegalArgumentException("Cannot advance the clock with a negative amount of frames");
+        }
+        this.frames += amountOfFrames;
+    }
+
+}
@@ -1,10 +1,11 @@
 package com.programyourhome.immerse.audiostreaming.mixer;
 
-import static com.programyourhome.immerse.audiostreaming.mixer.ActiveImmerseSettings.getTechnicalSettings;
 import static com.programyourhome.immerse.audiostreaming.util.LogUtil.logExceptions;
-import static com.programyourhome.immerse.domain.format.ImmerseAudioFormat.fromJavaAudioFormat;
 
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -13,11 +14,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
@@ -27,24 +31,40 @@ import org.pmw.tinylog.Configurator;
 import org.pmw.tinylog.Level;
 import org.pmw.tinylog.Logger;
 
+import com.programyourhome.immerse.audiostreaming.metrics.Histogram;
+import com.programyourhome.immerse.audiostreaming.metrics.HttpMetricsExporter;
+import com.programyourhome.immerse.audiostreaming.metrics.JmxMetricsExporter;
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsRegistry;
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsSnapshot;
 import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
+import com.programyourhome.immerse.audiostreaming.mixer.scheduler.AdaptiveBufferController;
+import com.programyourhome.immerse.audiostreaming.mixer.scheduler.DeadlineStepScheduler;
+import com.programyourhome.immerse.audiostreaming.mixer.scheduler.SleepStepScheduler;
+import com.programyourhome.immerse.audiostreaming.mixer.scheduler.StepScheduler;
+import com.programyourhome.immerse.audiostreaming.mixer.scheduler.StepSchedulerStatistics;
 import com.programyourhome.immerse.audiostreaming.mixer.scenario.ScenarioPlaybackListener;
 import com.programyourhome.immerse.audiostreaming.mixer.step.MixerStep;
+import com.programyourhome.immerse.audiostreaming.mixer.step.SoundCardBuffers;
 import com.programyourhome.immerse.audiostreaming.mixer.warmup.CoverAllSettingsWarmupScenarioGenerator;
 import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardDetector;
 import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.audiostreaming.soundcard.UnderrunEvent;
+import com.programyourhome.immerse.audiostreaming.soundcard.UnderrunListener;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.JavaSoundOutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.NullOutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.OutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.OutputBackendFactory;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.PipeOutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.TcpOutputBackend;
 import com.programyourhome.immerse.audiostreaming.util.AsyncUtil;
-import com.programyourhome.immerse.audiostreaming.util.AudioUtil;
 import com.programyourhome.immerse.audiostreaming.util.MemoryUtil;
 import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.ImmerseSettings.TechnicalSettings;
+import com.programyourhome.immerse.domain.OutputBackendType;
 import com.programyourhome.immerse.domain.Scenario;
-import com.programyourhome.immerse.domain.audio.resource.AudioResource;
-import com.programyourhome.immerse.domain.audio.resource.StreamConfig;
 import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
-import com.programyourhome.immerse.toolbox.util.StreamUtil;
-
-import one.util.streamex.EntryStream;
-import one.util.streamex.StreamEx;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
 
 /**
  * The Immerse Mixer is the 'player' of the Immerse system.
@@ -59,24 +79,51 @@ import one.util.streamex.StreamEx;
  */
 public class ImmerseMixer {
 
-    // A name to differentiate the main and warmup mixer in the logs.
-    private String name;
+    // The logging configuration is global, so keep track of the mixers warming up to only restore the logging level after the last one.
+    private static final AtomicInteger AMOUNT_OF_WARMUPS = new AtomicInteger();
+    private static Level configuredLoggingLevel;
+    // The max amount of commands to execute in one step, so a burst of commands cannot delay a step too much.
+    private static final int MAX_COMMANDS_PER_STEP = 64;
+
+    // A name to differentiate mixers (like the main and warmup mixer) in the logs.
+    private final String name;
     // The Immerse system settings to use during this Mixer's 'lifetime'.
     private final ImmerseSettings settings;
-    // The code to reset the ActiveSystemSettings after this Mixer stops.
-    private UUID settingsResetCode;
+    // The clock of this mixer, based on the amount of frames mixed.
+    private final FrameClock clock;
+    // The context of this mixer, to pass on to the parts of the mixer.
+    private final MixerContext context;
     // Listeners for the mixer state changes.
     private final Set<MixerStateListener> stateListeners;
     // Listeners for the scenario playback changes.
     private final Set<ScenarioPlaybackListener> playbackListeners;
+    // Listeners for underruns of the sound card streams.
+    private final Set<UnderrunListener> underrunListeners;
     // The collection of sound card streams to write audio data to.
     private final Set<SoundCardStream> soundCardStreams;
-    // Scenarios that should be activated in the next step.
-    private final Set<ActiveScenario> scenariosToActivate;
-    // Scenarios that should be stopped in the next step.
-    private final Set<UUID> scenariosToStop;
-    // Scenarios that are being played by this mixer, whether currently active or not (e.g. (re)starting, stopping)
-    private final Set<ActiveScenario> scenariosInPlayback;
+    // The sound card writers that write the audio data to the sound card streams, one for each stream.
+    private final List<SoundCardWriter> soundCardWriters;
+    // The mixer step that performs the mixing algorithm, reused for every step.
+    private MixerStep mixerStep;
+    // The scheduler that decides when the next step should start.
+    private final StepScheduler stepScheduler;
+    // The controller that adapts the sound card buffer at runtime (null if not configured).
+    private final AdaptiveBufferController bufferController;
+    // The metrics of this mixer.
+    private final MetricsRegistry metricsRegistry;
+    // The distribution of the step durations, recorded every step.
+    private final Histogram stepDurationHistogram;
+    // The exporters of the metrics, only used by the main mixer (the HTTP exporter is optional).
+    private JmxMetricsExporter jmxMetricsExporter;
+    private HttpMetricsExporter httpMetricsExporter;
+    // The amount of active scenarios after the last step, to be read by the metrics.
+    private volatile int amountOfActiveScenarios;
+    // Commands from the 'outside' world (activate, stop, fade out), to be executed by the worker thread in the next step.
+    private final Queue<MixerCommand> commandQueue;
+    // Scenarios that are being played by this mixer, whether currently active or not (e.g. (re)starting, stopping), by playback id.
+    private final Map<UUID, ActiveScenario> scenariosInPlayback;
+    // The handles of the scenarios in playback, by playback id.
+    private final Map<UUID, PlaybackHandle> playbackHandles;
     // Scenarios that are currently active: their audio should be processed in the next step.
     private final Map<UUID, ActiveScenario> activeScenarios;
     // A sound card detector for getting the right mixer info objects.
@@ -87,38 +134,140 @@ public class ImmerseMixer {
     private MixerState state;
     // Whether this is the warmup mixer or not.
     private boolean warmupMixer;
+    // The type of output backend for the sound card streams.
+    private OutputBackendType outputBackendType;
+    // Optional factory for custom output backends, overrides the output backend type.
+    private OutputBackendFactory outputBackendFactory;
 
+    /**
+     * Create a mixer with the default name.
+     */
     public ImmerseMixer(ImmerseSettings settings) {
+        this(settings, "Main mixer");
+    }
+
+    /**
+     * Create a mixer with the given name. Multiple mixers can run next to each other in the same JVM,
+     * as long as they have different names and use different sound cards.
+     */
+    public ImmerseMixer(ImmerseSettings settings, String name) {
         if (settings.getSoundCards().isEmpty()) {
             throw new IllegalArgumentException("There should at least be one sound card");
         }
         if (!settings.getOutputFormat().isOutput()) {
             throw new IllegalArgumentException("The provided output audio format should be marked as output");
         }
-        this.name = "Main mixer";
+        this.name = name;
         this.settings = settings;
         this.soundCardStreams = new HashSet<>();
+        this.soundCardWriters = new ArrayList<>();
         this.activeScenarios = new HashMap<>();
         this.soundCardDetector = new SoundCardDetector();
+        this.stepScheduler = this.createStepScheduler(settings.getTechnicalSettings());
+        this.bufferController = this.createBufferController(settings.getTechnicalSettings());
+        this.metricsRegistry = new MetricsRegistry();
+        this.clock = new FrameClock(settings.getOutputFormat().getNumberOfFramesPerSecond());
+        this.context = new MixerContext(name, settings, this.metricsRegistry, this.clock, true);
+        this.stepDurationHistogram = this.metricsRegistry.histogram("step.duration.micros");
         // Prepare the worker thread (but do not start it yet).
-        this.workerThread = new Thread(() -> logExceptions(this::run), "Main Mixer Worker");
+        this.workerThread = new Thread(() -> logExceptions(this::run), name + " worker");
         this.state = MixerState.NEW;
         // Default to 'standard' mixer. Property is only settable from inside this class, since warmup is no 'external feature'.
         this.warmupMixer = false;
+        this.outputBackendType = settings.getTechnicalSettings().getOutputBackendType();
 
         // Explicitly synchronize these sets, because they are the 'overlapping' part between the mixer internals and the 'outside' world
         // and are susceptible for ConcurrentModificationException.
         this.stateListeners = Collections.synchronizedSet(new HashSet<>());
         this.playbackListeners = Collections.synchronizedSet(new HashSet<>());
-        this.scenariosToActivate = Collections.synchronizedSet(new HashSet<>());
-        this.scenariosToStop = Collections.synchronizedSet(new HashSet<>());
-        this.scenariosInPlayback = Collections.synchronizedSet(new HashSet<>());
+        this.underrunListeners = Collections.synchronizedSet(new HashSet<>());
+        // The command queue and scenarios in playback are lock free: any thread can add to them without blocking the worker thread.
+        this.commandQueue = new ConcurrentLinkedQueue<>();
+        this.scenariosInPlayback = new ConcurrentHashMap<>();
+        this.playbackHandles = new ConcurrentHashMap<>();
+        this.registerMetrics();
+    }
+
+    /**
+     * Register the metrics that are available from the start of the mixer (the sound card metrics are registered at initialization).
+     */
+    private void registerMetrics() {
+        StepSchedulerStatistics statistics = this.stepScheduler.getStatistics();
+        this.metricsRegistry.register("step.sleep.overshoot.micros", statistics.getJitterMicrosHistogram());
+        this.metricsRegistry.gauge("step.overruns", statistics::getAmountOfOverruns);
+        this.metricsRegistry.gauge("step.skipped", statistics::getAmountOfSkippedSteps);
+        this.metricsRegistry.gauge("soundcard.buffer.millis", () -> this.bufferController != null
+                ? this.bufferController.getBufferMillis() : this.settings.getTechnicalSettings().getSoundCardBufferMillis());
+        this.metricsRegistry.gauge("scenarios.active", () -> this.amountOfActiveScenarios);
+        this.metricsRegistry.gauge("scenarios.in.playback", this.scenariosInPlayback::size);
+        this.metricsRegistry.gauge("async.threads", AsyncUtil::getAmountOfThreads);
+        this.metricsRegistry.gauge("async.threads.active", AsyncUtil::getAmountOfActiveThreads);
+        this.metricsRegistry.gauge("async.tasks.queued", AsyncUtil::getAmountOfQueuedTasks);
+        this.metricsRegistry.gauge("async.tasks.completed", AsyncUtil::getAmountOfCompletedTasks);
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String gcName = "gc." + garbageCollector.getName().toLowerCase().replace(' ', '.');
+            this.metricsRegistry.gauge(gcName + ".count", garbageCollector::getCollectionCount);
+            this.metricsRegistry.gauge(gcName + ".time.millis", garbageCollector::getCollectionTime);
+        }
+    }
+
+    /**
+     * Create the step scheduler as configured in the technical settings.
+     */
+    private StepScheduler createStepScheduler(TechnicalSettings technicalSettings) {
+        switch (technicalSettings.getStepScheduling()) {
+        case SLEEP:
+            return new SleepStepScheduler(technicalSettings.getStepPaceMillis());
+        case DEADLINE:
+            return new DeadlineStepScheduler(technicalSettings.getStepPaceMillis());
+        default:
+            throw new IllegalArgumentException("Unknown step scheduling: " + technicalSettings.getStepScheduling());
+        }
+    }
+
+    /**
+     * Create the adaptive buffer controller if configured in the technical settings, otherwise return null.
+     */
+    private AdaptiveBufferController createBufferController(TechnicalSettings technicalSettings) {
+        if (!technicalSettings.isAdaptiveSoundCardBuffer()) {
+            return null;
+        }
+        return new AdaptiveBufferController(technicalSettings.getSoundCardBufferMillis(), technicalSettings.getMinSoundCardBufferMillis(),
+                technicalSettings.getMaxSoundCardBufferMillis(), technicalSettings.getStepPaceMillis());
     }
 
     public ImmerseSettings getSettings() {
         return this.settings;
     }
 
+    /**
+     * The sound card writers of this mixer, to inspect their statistics.
+     */
+    public List<SoundCardWriter> getSoundCardWriters() {
+        return Collections.unmodifiableList(this.soundCardWriters);
+    }
+
+    /**
+     * The metrics registry of this mixer, to inspect or add metrics.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metricsRegistry;
+    }
+
+    /**
+     * A snapshot of the current values of all metrics of this mixer.
+     */
+    public MetricsSnapshot getMetrics() {
+        return this.metricsRegistry.snapshot();
+    }
+
+    /**
+     * The statistics of the step scheduler of this mixer.
+     */
+    public StepSchedulerStatistics getStepSchedulerStatistics() {
+        return this.stepScheduler.getStatistics();
+    }
+
     public void addStateListener(MixerStateListener listener) {
         this.stateListeners.add(listener);
     }
@@ -135,6 +284,25 @@ public class ImmerseMixer {
         this.playbackListeners.remove(listener);
     }
 
+    /**
+     * Set a factory for custom output backends, to use instead of the output backend type of the settings.
+     * Should be called before initialization. The warmup mixer will not use the factory, but discard the warmup audio.
+     */
+    public void setOutputBackendFactory(OutputBackendFactory outputBackendFactory) {
+        if (this.state != MixerState.NEW) {
+            throw new IllegalStateException("Output backend factory can only be set in state NEW");
+        }
+        this.outputBackendFactory = outputBackendFactory;
+    }
+
+    public void addUnderrunListener(UnderrunListener listener) {
+        this.underrunListeners.add(listener);
+    }
+
+    public void removeUnderrunListener(UnderrunListener listener) {
+        this.underrunListeners.remove(listener);
+    }
+
     /**
      * Whether or not this mixer has scenarios in playback.
      */
@@ -146,15 +314,21 @@ public class ImmerseMixer {
      * Get all playback id's of all scenarios in playback.
      */
     public Map<UUID, ActiveScenario> getScenariosInPlayback() {
-        return StreamEx.of(this.scenariosInPlayback.toArray(new ActiveScenario[0]))
-                .toMap(activeScenario -> activeScenario.getId(), as -> as);
+        return new HashMap<>(this.scenariosInPlayback);
     }
 
     /**
      * Whether or not the provided playback id is still in playback.
      */
     public boolean isScenarioInPlayback(UUID playbackId) {
-        return this.getScenariosInPlayback().containsKey(playbackId);
+        return this.scenariosInPlayback.containsKey(playbackId);
+    }
+
+    /**
+     * Get the handle of the playback with the provided playback id, if still in playback.
+     */
+    public Optional<PlaybackHandle> getPlaybackHandle(UUID playbackId) {
+        return Optional.ofNullable(this.playbackHandles.get(playbackId));
     }
 
     /**
@@ -171,9 +345,11 @@ public class ImmerseMixer {
         return Arrays.asList(this.playbackListeners.toArray(new ScenarioPlaybackListener[0]));
     }
 
-    private Optional<ActiveScenario> optionalGetActiveScenario(UUID playbackId) {
-        return StreamEx.of(this.scenariosInPlayback)
-                .findFirst(scenario -> scenario.getId().equals(playbackId));
+    /**
+     * Get an atomically created copy of the underrun listeners, to loop over without possible concurrent modification issues.
+     */
+    private List<UnderrunListener> getUnderrunListenersCopy() {
+        return Arrays.asList(this.underrunListeners.toArray(new UnderrunListener[0]));
     }
 
     /**
@@ -186,8 +362,21 @@ public class ImmerseMixer {
             throw new IllegalStateException("Should be in state NEW to initialize");
         }
         try {
-            this.soundCardDetector.detectSoundCards();
+            if (this.outputBackendType == OutputBackendType.JAVA_SOUND) {
+                this.soundCardDetector.detectSoundCards();
+            }
             this.initializeSoundCardStreams(this.settings.getSoundCards());
+            this.soundCardStreams.forEach(soundCardStream -> this.soundCardWriters.add(
+                    new SoundCardWriter(soundCardStream, this.settings.getTechnicalSettings().getSoundCardWriteQueueSize())));
+            this.soundCardWriters.forEach(soundCardWriter -> {
+                String soundCardName = "soundcard." + soundCardWriter.getSoundCardStream().getSoundCard().getId();
+                this.metricsRegistry.gauge(soundCardName + ".frames.written", soundCardWriter.getSoundCardStream()::getFramesWritten);
+                this.metricsRegistry.gauge(soundCardName + ".write.queue.depth", soundCardWriter::getQueueDepth);
+                this.metricsRegistry.gauge(soundCardName + ".underruns", soundCardWriter.getSoundCardStream()::getAmountOfUnderruns);
+                this.metricsRegistry.gauge(soundCardName + ".near.underruns", soundCardWriter.getSoundCardStream()::getAmountOfNearUnderruns);
+                this.metricsRegistry.gauge(soundCardName + ".underrun.millis", soundCardWriter.getSoundCardStream()::getTotalUnderrunMillis);
+            });
+            this.mixerStep = new MixerStep(this.context, this.soundCardWriters);
         } catch (IOException | LineUnavailableException e) {
             throw new IllegalStateException("Exception during initialization", e);
         }
@@ -198,39 +387,75 @@ public class ImmerseMixer {
             // ... and set the state to initialized so warmup scenarios can start playing.
             this.updateState(MixerState.INITIALIZED);
         } else {
-            // As main mixer, we should initialize the active immerse settings, for all code to have static access to the settings.
-            this.settingsResetCode = ActiveImmerseSettings.init(this.settings);
             // If we are not the warmup mixer (so the main mixer), we should initiate warmup (asynchronously).
-            new Thread(() -> logExceptions(() -> this.warmup()), "Warmup Mixer Executor").start();
+            new Thread(() -> logExceptions(() -> this.warmup()), this.name + " warmup executor").start();
         }
     }
 
     /**
-     * Initialize the sound card streams by getting the mixer info for each sound card and
-     * then trying to acquire a data line in the right audio format.
-     * This might fail if a mixer info cannot be found or a sound card is already in use by another process.
+     * Initialize the sound card streams by creating an output backend for each sound card.
      */
     private void initializeSoundCardStreams(Set<SoundCard> soundCards) throws LineUnavailableException {
         for (SoundCard soundCard : soundCards) {
-            SourceDataLine outputLine;
-            Mixer.Info mixerInfo = this.soundCardDetector.getMixerInfo(soundCard.getPhysicalPort());
-            if (mixerInfo == null) {
-                throw new IllegalArgumentException("No mixer found for soundcard: " + soundCard);
+            SoundCardStream soundCardStream = new SoundCardStream(soundCard, this.createOutputBackend(soundCard),
+                    this.settings.getTechnicalSettings().getNearUnderrunMillis());
+            soundCardStream.setUnderrunListener(this::underrunDetected);
+            if (this.bufferController != null) {
+                // Make sure the line buffer has room to grow the adaptive buffer up to it's upper bound (with some room to spare).
+                soundCardStream.setLineBufferMillis(this.settings.getTechnicalSettings().getMaxSoundCardBufferMillis() * 2);
             }
-            try {
-                outputLine = AudioSystem.getSourceDataLine(this.settings.getOutputFormatJava(), mixerInfo);
-            } catch (IllegalArgumentException e) {
-                // This exception is a 'known issue' of Java Sound when targeting the system default audio device.
-                // As a workaround use the default audio device by setting the mixer info to 'null'.
-                // Will show up in the logs for the main mixer, so do not log again in case of the warmup mixer.
-                Logger.info("Exception for mixer info: '" + mixerInfo.getName() + "'. "
-                        + "Known Java Sound API issue, falling back to default audio device.");
-                outputLine = AudioSystem.getSourceDataLine(this.settings.getOutputFormatJava(), null);
-            }
-            this.soundCardStreams.add(new SoundCardStream(soundCard, outputLine));
+            this.soundCardStreams.add(soundCardStream);
         }
     }
 
+    /**
+     * Create the output backend for the given sound card, with the custom factory if set,
+     * otherwise of the type as configured in the technical settings.
+     * The physical port of the sound card is used as the address of the output and the output format has the number of channels of the sound card.
+     */
+    private OutputBackend createOutputBackend(SoundCard soundCard) throws LineUnavailableException {
+        ImmerseAudioFormat outputFormat = this.settings.getOutputFormat(soundCard);
+        if (this.outputBackendFactory != null) {
+            return this.outputBackendFactory.create(soundCard, outputFormat);
+        }
+        switch (this.outputBackendType) {
+        case JAVA_SOUND:
+            return this.createJavaSoundOutputBackend(soundCard, outputFormat);
+        case NULL:
+            return new NullOutputBackend(outputFormat);
+        case PIPE:
+            return new PipeOutputBackend(outputFormat, soundCard.getPhysicalPort());
+        case TCP:
+            return TcpOutputBackend.forAddress(outputFormat, soundCard.getPhysicalPort());
+        default:
+            throw new IllegalArgumentException("Unknown output backend type: " + this.outputBackendType);
+        }
+    }
+
+    /**
+     * Create a Java Sound output backend by getting the mixer info for the sound card and
+     * then trying to acquire a data line in the right audio format.
+     * This might fail if a mixer info cannot be found or a sound card is already in use by another process.
+     */
+    private OutputBackend createJavaSoundOutputBackend(SoundCard soundCard, ImmerseAudioFormat outputFormat) throws LineUnavailableException {
+        SourceDataLine outputLine;
+        Mixer.Info mixerInfo = this.soundCardDetector.getMixerInfo(soundCard.getPhysicalPort());
+        if (mixerInfo == null) {
+            throw new IllegalArgumentException("No mixer found for soundcard: " + soundCard);
+        }
+        try {
+            outputLine = AudioSystem.getSourceDataLine(outputFormat.toJavaAudioFormat(), mixerInfo);
+        } catch (IllegalArgumentException e) {
+            // This exception is a 'known issue' of Java Sound when targeting the system default audio device.
+            // As a workaround use the default audio device by setting the mixer info to 'null'.
+            // Will show up in the logs for the main mixer, so do not log again in case of the warmup mixer.
+            Logger.info("Exception for mixer info: '" + mixerInfo.getName() + "'. "
+                    + "Known Java Sound API issue, falling back to default audio device.");
+            outputLine = AudioSystem.getSourceDataLine(outputFormat.toJavaAudioFormat(), null);
+        }
+        return new JavaSoundOutputBackend(outputLine);
+    }
+
     /**
      * Perform JVM warmup to optimize performance of the first scenario. Without warmup, there will be hickups in
      * playback for all code that is ran for the first time: both step logic and different types of scenarios.
@@ -241,14 +466,15 @@ public class ImmerseMixer {
         long start = System.nanoTime();
 
         // Temporarily set the logging level to ERROR, so warmup doesn't generate too much logging.
-        Level configuredLoggingLevel = Logger.getLevel();
-        Configurator.currentConfig().level(Level.ERROR).activate();
+        startQuietLogging();
         // Create a new mixer with the same configuration as this one.
-        ImmerseMixer warmupMixer = new ImmerseMixer(this.settings);
+        ImmerseMixer warmupMixer = new ImmerseMixer(this.settings, this.name + " warmup");
         // Set that mixer to be the warmup mixer.
         warmupMixer.warmupMixer = true;
-        warmupMixer.name = "Warmup mixer";
-        warmupMixer.workerThread.setName("Warmup Mixer Worker");
+        if (this.outputBackendType != OutputBackendType.JAVA_SOUND || this.outputBackendFactory != null) {
+            // Other output backends cannot be opened twice (or would forward the warmup audio), so let the warmup mixer discard the audio.
+            warmupMixer.outputBackendType = OutputBackendType.NULL;
+        }
 
         warmupMixer.initialize();
         warmupMixer.start();
@@ -265,7 +491,7 @@ public class ImmerseMixer {
         // Warmup is done, stop the warmup mixer.
         warmupMixer.stop();
         // Set logging back to it's original level.
-        Configurator.currentConfig().level(configuredLoggingLevel).activate();
+        stopQuietLogging();
         // This mixer, the 'main' mixer is now initialized and ready to play 'real' scenarios.
         this.updateState(MixerState.INITIALIZED);
 
@@ -273,6 +499,29 @@ public class ImmerseMixer {
         Logger.info("Warmup completed in {0.000} seconds", (end - start) / 1_000_000_000.0);
     }
 
+    /**
+     * Set the (global) logging level to ERROR, if not already done by another mixer that is warming up at the same time.
+     */
+    private static void startQuietLogging() {
+        synchronized (AMOUNT_OF_WARMUPS) {
+            if (AMOUNT_OF_WARMUPS.getAndIncrement() == 0) {
+                configuredLoggingLevel = Logger.getLevel();
+                Configurator.currentConfig().level(Level.ERROR).activate();
+            }
+        }
+    }
+
+    /**
+     * Set the (global) logging level back to it's original level, if no other mixer is still warming up.
+     */
+    private static void stopQuietLogging() {
+        synchronized (AMOUNT_OF_WARMUPS) {
+            if (AMOUNT_OF_WARMUPS.decrementAndGet() == 0) {
+                Configurator.currentConfig().level(configuredLoggingLevel).activate();
+            }
+        }
+    }
+
     /**
      * Start the mixer. That means start a separate thread that will run the mixer and keep the audio buffers full.
      * After this method call is completed, scenarios can start playing.
@@ -285,6 +534,12 @@ public class ImmerseMixer {
         this.waitFor(() -> this.state == MixerState.INITIALIZED);
         // Open (lock) the sound cards streams so we can write data to them.
         this.soundCardStreams.forEach(SoundCardStream::open);
+        // Start the writers that will write the audio data to the sound card streams.
+        this.soundCardWriters.forEach(SoundCardWriter::start);
+        // Expose the metrics of the main mixer.
+        if (!this.warmupMixer) {
+            this.startMetricsExporters();
+        }
         // Start the thread that will run the mixer.
         this.workerThread.start();
     }
@@ -294,79 +549,138 @@ public class ImmerseMixer {
      * When the state changes to not running, gracefully quit the run loop and stop all sound card streams.
      */
     private void run() {
+        this.stepScheduler.start();
         while (this.state.isRunning()) {
             long start = System.nanoTime();
 
+            // Adapt the sound card buffer to the latest circumstances, if configured.
+            if (this.bufferController != null) {
+                this.bufferController.update(start);
+                this.mixerStep.setSoundCardBufferMillis(this.bufferController.getBufferMillis());
+            }
             // Handle any 'waiting' scenarios.
             this.handleScenarios();
             // Update the audio buffers.
             this.updateBuffers();
 
             long end = System.nanoTime();
+            this.stepDurationHistogram.record((end - start) / 1000);
 
             double stepMillis = (end - start) / 1_000_000.0;
-            int stepPaceMillis = getTechnicalSettings().getStepPaceMillis();
+            int stepPaceMillis = this.settings.getTechnicalSettings().getStepPaceMillis();
             if (stepMillis > stepPaceMillis) {
                 Logger.warn("Risk for hickups in playback: actual step millis {} was bigger than the step pace millis {}.", stepMillis, stepPaceMillis);
-            } else {
+            } else if (MemoryUtil.getFreeEdenSpaceInKB() < this.settings.getTechnicalSettings().getTriggerMinorGcThresholdKb()) {
                 // If we are almost running out of Eden space, trigger a minor GC in a controlled manner.
-                // Otherwise, sleep for however long is left of the step pace.
                 // NB: only do this if the current step was not slower than the pace, to not trigger an extra delay on an already slow step.
-                if (MemoryUtil.getFreeEdenSpaceInKB() < getTechnicalSettings().getTriggerMinorGcThresholdKb()) {
-                    // Allocate the right amount of bytes to just go over the limit, so a minor GC is triggered.
-                    byte[] triggerBuffer = new byte[getTechnicalSettings().getTriggerMinorGcThresholdKb() * 1024];
-                    // Do 'something' with the array or the JIT might just 'optimize it away'.
-                    // In fact, that 'something' is just printing an empty String, but hopefully enough to forever fool JIT ;).
-                    System.out.print(triggerBuffer.length > 0 ? "" : "0");
-                } else {
-                    // Sleep for the step pace millis - the time it took to run the step logic.
-                    this.sleep(stepPaceMillis - (int) Math.round(stepMillis));
-                }
+                // Allocate the right amount of bytes to just go over the limit, so a minor GC is triggered.
+                byte[] triggerBuffer = new byte[this.settings.getTechnicalSettings().getTriggerMinorGcThresholdKb() * 1024];
+                // Do 'something' with the array or the JIT might just 'optimize it away'.
+                // In fact, that 'something' is just printing an empty String, but hopefully enough to forever fool JIT ;).
+                System.out.print(triggerBuffer.length > 0 ? "" : "0");
             }
+            // Wait for however long is left until the next step should start.
+            this.stepScheduler.waitForNextStep();
         }
-        // First, reset the settings to make sure they are ready for a possible next Mixer.
-        ActiveImmerseSettings.reset(this.settingsResetCode);
+        Logger.debug("{} step scheduling: {}", this.name, this.stepScheduler.getStatistics());
         // When the while loop above has broken, we should stop this mixer.
         // Signal the scenario's they have stopped.
-        this.scenariosInPlayback.forEach(ActiveScenario::stop);
-        // Stop the sound card streams.
+        this.scenariosInPlayback.values().forEach(ActiveScenario::stop);
+        this.playbackHandles.values().forEach(PlaybackHandle::playbackStopped);
+        // Stop the sound card writers and streams.
+        this.soundCardWriters.forEach(SoundCardWriter::stop);
         this.soundCardStreams.forEach(SoundCardStream::stop);
+        // Release the resources of the mixer step.
+        this.mixerStep.shutdown();
+        if (!this.warmupMixer) {
+            this.stopMetricsExporters();
+        }
+        this.scenariosInPlayback.keySet().forEach(playbackId -> this.metricsRegistry.remove(this.getInputBufferFillMetricName(playbackId)));
         // Clear the scenario collections for proper state cleanup.
-        this.scenariosToActivate.clear();
+        this.commandQueue.clear();
         this.activeScenarios.clear();
         this.scenariosInPlayback.clear();
+        this.playbackHandles.clear();
         // Update the state to signal that we have fully stopped.
         this.updateState(MixerState.STOPPED);
     }
 
+    private void startMetricsExporters() {
+        this.jmxMetricsExporter = new JmxMetricsExporter(this.metricsRegistry, this.name);
+        this.jmxMetricsExporter.start();
+        int metricsHttpPort = this.settings.getTechnicalSettings().getMetricsHttpPort();
+        if (metricsHttpPort > 0) {
+            this.httpMetricsExporter = new HttpMetricsExporter(this.metricsRegistry, metricsHttpPort);
+            this.httpMetricsExporter.start();
+        }
+    }
+
+    private void stopMetricsExporters() {
+        this.jmxMetricsExporter.stop();
+        if (this.httpMetricsExporter != null) {
+            this.httpMetricsExporter.stop();
+        }
+    }
+
+    private String getInputBufferFillMetricName(UUID playbackId) {
+        return "scenario." + playbackId + ".input.buffer.fill";
+    }
+
     /**
-     * Handle all scenarios: activate and stop. This 'detour' is implemented to make sure the activeScenarios collection does not run
-     * into concurrent modification exceptions. This method is called before the step logic so we can safely modify the activeScenarios collection.
+     * Handle all scenarios: execute the commands (activate, stop, fade out) that were queued since the last step.
+     * This 'detour' is implemented to make sure all changes to the scenario collections happen on the worker thread,
+     * so they do not need any locking. This method is called before the step logic so we can safely modify the activeScenarios collection.
      */
     private void handleScenarios() {
-        // Loop over a copy, to prevent concurrent modification issues. Make the copy in an atomic way by using the synchronized toArray.
-        List<UUID> scenariosToStopCopy = Arrays.asList(this.scenariosToStop.toArray(new UUID[0]));
-        // Stop all scenario's that could be found by UUID.
-        this.stopScenarios(StreamEx.of(scenariosToStopCopy)
-                .map(this::optionalGetActiveScenario)
-                .flatMap(StreamUtil::optionalToStream)
-                .toList());
-        // Now remove the scenario's from the collection (which might have grown in the mean time).
-        this.scenariosToStop.removeAll(scenariosToStopCopy);
-        // Loop over a copy, to prevent concurrent modification issues. Make the copy in an atomic way by using the synchronized toArray.
-        List<ActiveScenario> scenariosToActivateCopy = Arrays.asList(this.scenariosToActivate.toArray(new ActiveScenario[0]));
-        scenariosToActivateCopy.forEach(scenario -> this.activeScenarios.put(scenario.getId(), scenario));
-        // Now remove the scenario's from the collection (which might have grown in the mean time).
-        this.scenariosToActivate.removeAll(scenariosToActivateCopy);
-        scenariosToActivateCopy.forEach(scenario -> this.logScenarioEvent(scenario, "started"));
+        // Poll until the queue is empty, instead of asking the size of the queue first: that would go over the whole queue.
+        // The amount of commands is capped, so commands that keep being added cannot keep the step busy. The rest follows in the next step.
+        for (int i = 0; i < MAX_COMMANDS_PER_STEP; i++) {
+            MixerCommand command = this.commandQueue.poll();
+            if (command == null) {
+                break;
+            }
+            command.executeOn(this);
+        }
+    }
+
+    /**
+     * Activate a scenario, so it's audio will be processed from this step on. Should only be called from the worker thread.
+     */
+    void activateScenario(ActiveScenario activeScenario) {
+        if (!this.scenariosInPlayback.containsKey(activeScenario.getId())) {
+            // The playback was stopped while (re)starting: release the resources that were (re)opened for this start.
+            activeScenario.stop();
+            return;
+        }
+        this.activeScenarios.put(activeScenario.getId(), activeScenario);
+        this.logScenarioEvent(activeScenario, "started");
         // Notify of start event asynchronously.
-        scenariosToActivateCopy.forEach(scenario -> this.getPlaybackListenersCopy()
-                .forEach(listener -> AsyncUtil.submitAsyncTask(
-                        () -> listener.scenarioEventNoException(listener::scenarioStarted, scenario.getId()))));
-        // Signal scenario that playback has started. just before starting the fill buffer loop.
-        // This will cause a slight mismatch of max a few milliseconds between the timers in the DynamicData and the actual playback,
-        // but this is the last place where we know the difference between a newly activated scenario and an existing one.
-        scenariosToActivateCopy.forEach(ActiveScenario::nextPlaybackStarted);
+        this.getPlaybackListenersCopy().forEach(listener -> AsyncUtil.submitAsyncTask(
+                () -> listener.scenarioEventNoException(listener::scenarioStarted, activeScenario.getId())));
+        this.playbackHandles.get(activeScenario.getId()).playbackStarted();
+        // Signal scenario that playback has started, just before the step that mixes the first audio of it.
+        // The mixer clock is at the first frame of that step, so the timers in the DynamicData start exactly with the audio.
+        activeScenario.nextPlaybackStarted();
+    }
+
+    /**
+     * Stop the scenario playback with the given playback id, if still in playback. Should only be called from the worker thread.
+     */
+    void stopScenario(UUID playbackId) {
+        ActiveScenario activeScenario = this.scenariosInPlayback.get(playbackId);
+        if (activeScenario != null) {
+            this.stopScenarios(Collections.singletonList(activeScenario));
+        }
+    }
+
+    /**
+     * Fade out the scenario playback with the given playback id, if still in playback. Should only be called from the worker thread.
+     */
+    void fadeOutScenario(UUID playbackId, int millis) {
+        ActiveScenario activeScenario = this.scenariosInPlayback.get(playbackId);
+        if (activeScenario != null) {
+            activeScenario.fadeOut(millis);
+        }
     }
 
     /**
@@ -374,22 +688,24 @@ public class ImmerseMixer {
      */
     private void updateBuffers() {
         // Gather all data to write by running the mixer step algorithm.
-        MixerStep mixerStep = new MixerStep(this.activeScenarios.values(), this.soundCardStreams);
-        Map<SoundCardStream, byte[]> soundCardBufferData = mixerStep.calculateBufferData();
+        this.mixerStep.prepare(this.activeScenarios.values());
+        List<SoundCardBuffers> soundCardBuffers = this.mixerStep.calculateBufferData();
 
         if (this.state == MixerState.INITIALIZED) {
             // If not started yet, do start the streams after the initial synchronized buffer fill, to be in sync as much as possible.
-            EntryStream.of(soundCardBufferData).forKeyValue((soundCardStream, bufferData) -> soundCardStream.writeToLine(bufferData));
+            soundCardBuffers.forEach(buffers -> buffers.getSoundCardWriter().writeNow(buffers.getOutputBuffer()));
             this.soundCardStreams.forEach(SoundCardStream::start);
             this.updateState(MixerState.STARTED);
         } else {
-            // If already started, write the buffer data to the sound card streams asynchronously.
-            EntryStream.of(soundCardBufferData).forKeyValue(
-                    (soundCardStream, bufferData) -> AsyncUtil.submitAsyncTask(() -> soundCardStream.writeToLine(bufferData)));
+            // If already started, write the buffer data to the sound card streams asynchronously (and in order) by the sound card writers.
+            soundCardBuffers.forEach(buffers -> buffers.getSoundCardWriter().submit(buffers.getOutputBuffer()));
         }
+        // The frames of this step are mixed, so the next step starts that much later in the audio.
+        this.clock.advance(this.mixerStep.getAmountOfFramesNeeded());
 
         // Now handle the scenario life cycle actions that were gathered during the mixer step.
-        this.handleScenarioLifecycle(mixerStep);
+        this.handleScenarioLifecycle();
+        this.amountOfActiveScenarios = this.activeScenarios.size();
     }
 
     /**
@@ -397,8 +713,8 @@ public class ImmerseMixer {
      * Those are handled in this method. This activity is split, to prevent issues with changes in
      * collections that are also being looped at the same time.
      */
-    private void handleScenarioLifecycle(MixerStep mixerStep) {
-        for (ActiveScenario activeScenario : mixerStep.getScenariosToRestart()) {
+    private void handleScenarioLifecycle() {
+        for (ActiveScenario activeScenario : this.mixerStep.getScenariosToRestart()) {
             this.activeScenarios.remove(activeScenario.getId());
             // Restart asynchronously.
             AsyncUtil.submitAsyncTask(() -> ImmerseMixer.this.restartScenario(activeScenario));
@@ -406,8 +722,9 @@ public class ImmerseMixer {
             // Notify of restart event asynchronously.
             this.getPlaybackListenersCopy().forEach(
                     listener -> AsyncUtil.submitAsyncTask(() -> listener.scenarioEventNoException(listener::scenarioRestarted, activeScenario.getId())));
+            this.playbackHandles.get(activeScenario.getId()).playbackRestarted();
         }
-        this.stopScenarios(mixerStep.getScenariosToStop());
+        this.stopScenarios(this.mixerStep.getScenariosToStop());
     }
 
     private void stopScenarios(Collection<ActiveScenario> scenariosToStop) {
@@ -415,15 +732,11 @@ public class ImmerseMixer {
         scenariosToStop.forEach(ActiveScenario::stop);
         // Remove them from the active sceario's collection (if present).
         scenariosToStop.forEach(scenarioToRemove -> this.activeScenarios.remove(scenarioToRemove.getId()));
-        scenariosToStop.forEach(ac -> {
-            synchronized (ac) {
-                ac.notifyAll();
-            }
-        });
-        // Remove them from the scenario's to activate collection (if just in the process of (re)starting).
-        this.scenariosToActivate.removeAll(scenariosToStop);
-        // Remove them from the scenario's in playback collection.
-        this.scenariosInPlayback.removeAll(scenariosToStop);
+        // Remove them from the scenario's in playback collection. A pending (re)start will be ignored when activated.
+        scenariosToStop.forEach(scenarioToRemove -> this.scenariosInPlayback.remove(scenarioToRemove.getId()));
+        // Signal the playback handles and remove them, so lookups by playback id will not find them anymore.
+        scenariosToStop.forEach(scenarioToRemove -> this.playbackHandles.remove(scenarioToRemove.getId()).playbackStopped());
+        scenariosToStop.forEach(scenarioToRemove -> this.metricsRegistry.remove(this.getInputBufferFillMetricName(scenarioToRemove.getId())));
         // Log the stop event.
         scenariosToStop.forEach(scenario -> this.logScenarioEvent(scenario, "stopped"));
         // Notify of stop event asynchronously.
@@ -437,104 +750,49 @@ public class ImmerseMixer {
      */
     private void restartScenario(ActiveScenario activeScenario) {
         activeScenario.resetForNextStart();
-        this.scenariosToActivate.add(activeScenario);
+        this.commandQueue.add(new MixerCommand.ActivateScenario(activeScenario));
     }
 
     /**
      * Play a scenario on the mixer.
      * Will throw an exception if the mixer is not in a running state.
      * After this method returns, the scenario will become active in the next step.
-     * The return value is a unique identifier for this playback of the scenario and can be used
-     * to query if the playback is still in progress. Also the same id will be used in events sent
-     * to scenario listeners.
+     * The return value is a handle for this playback of the scenario, with a unique identifier that can be used
+     * to query if the playback is still in progress and futures to act on the start, restart and stop of the playback.
+     * Also the same id will be used in events sent to scenario listeners.
      */
-    public UUID playScenario(Scenario scenario) {
+    public PlaybackHandle playScenario(Scenario scenario) {
         if (!this.state.isRunning()) {
             throw new IllegalStateException("Mixer is not in a running state (" + this.state + ")");
         }
-        AudioResource audioResource = scenario.getSettings().getAudioResourceFactory().create();
-        AudioInputStream originalStream = audioResource.getAudioInputStream();
-        ActiveScenario activeScenario = new ActiveScenario(scenario,
-                this.convertAudioStream(originalStream), this.convertStreamConfig(originalStream, audioResource.getConfig()));
-        this.scenariosInPlayback.add(activeScenario);
-        this.scenariosToActivate.add(activeScenario);
-        return activeScenario.getId();
-    }
-
-    public void waitForPlayback(UUID playbackId) {
-        ActiveScenario ac = this.getScenariosInPlayback().get(playbackId);
-        System.out.println("Wait for playback 1");
-        if (ac != null) {
-            System.out.println("Wait for playback 2");
-            synchronized (ac) {
-                System.out.println("Wait for playback 3");
-                while (this.isScenarioInPlayback(playbackId)) {
-                    System.out.println("Wait for playback 4");
-                    try {
-                        System.out.println("Wait for playback 5");
-                        ac.wait();
-                    } catch (InterruptedException e) {}
-                    System.out.println("Wait for playback 6");
-                }
-                System.out.println("Wait for playback 7");
-            }
-            System.out.println("Wait for playback 8");
-        }
-        System.out.println("Wait for playback 9");
-        // this.waitFor(() -> !this.isScenarioInPlayback(playbackId));
+        ActiveScenario activeScenario = ActiveScenario.create(this.context, scenario);
+        PlaybackHandle playbackHandle = new PlaybackHandle(activeScenario.getId());
+        // Register the handle before the scenario is in playback, so a scenario in playback always has a handle.
+        this.playbackHandles.put(activeScenario.getId(), playbackHandle);
+        // The input buffer is replaced for every playback loop, so get the current one every time.
+        this.metricsRegistry.gauge(this.getInputBufferFillMetricName(activeScenario.getId()),
+                () -> activeScenario.getInputBuffer().getFillLevel());
+        this.scenariosInPlayback.put(activeScenario.getId(), activeScenario);
+        this.commandQueue.add(new MixerCommand.ActivateScenario(activeScenario));
+        return playbackHandle;
     }
 
+    /**
+     * Fade out the scenario playback with the given playback id in the given amount of millis, after which it will stop.
+     * Will throw an exception if the playback id is not in playback. The fade out itself will start in the next step.
+     */
     public void fadeOutPlayback(UUID playbackId, int millis) {
-        ActiveScenario activeScenario = this.getScenariosInPlayback().get(playbackId);
-        if (activeScenario == null) {
+        if (!this.scenariosInPlayback.containsKey(playbackId)) {
             throw new IllegalStateException("No active scenario found with id " + playbackId);
         }
-        activeScenario.fadeOut(millis);
-    }
-
-    public void stopScenarioPlayback(UUID playbackId) {
-        this.scenariosToStop.add(playbackId);
+        this.commandQueue.add(new MixerCommand.FadeOutScenario(playbackId, millis));
     }
 
     /**
-     * Convert the audio input stream of a scenario to the desired audio format.
-     * This method uses the build-in AudioSystem converters to perform the actual conversion.
+     * Stop the scenario playback with the given playback id. The playback will be stopped in the next step.
      */
-    private AudioInputStream convertAudioStream(AudioInputStream originalStream) {
-        // Workaround for a JDK bug: https://bugs.java.com/bugdatabase/view_bug.do?bug_id=8146338
-        // See the documentation of this project for more information.
-        AudioInputStream signedStream = AudioUtil.convert(originalStream, AudioUtil.toSigned(originalStream.getFormat()));
-        AudioInputStream converted = AudioUtil.convert(signedStream, this.settings.getInputFormatJava());
-        return converted;
-    }
-
-    /**
-     * Convert the stream config: update the sizes according to the stream conversion.
-     * After conversion the config will represent 'virtual' chunk and packet sizes, because that is not
-     * how the data is coming in, but as far as the rest of the processing is concerned, this config makes
-     * sense for the converted audio input stream they are using.
-     *
-     * NB: Unfortunately the AudioSystem conversion buffers make it necessary to increase the buffer size a lot.
-     * This may be fixed by implementing our own converters, see #85.
-     */
-    private StreamConfig convertStreamConfig(AudioInputStream originalStream, StreamConfig originalConfig) {
-        double originalBytesPerMilli = fromJavaAudioFormat(originalStream.getFormat()).getNumberOfBytesPerMilli();
-        double convertedBytesPerMilli = this.settings.getInputFormat().getNumberOfBytesPerMilli();
-        double conversionMultiplier = convertedBytesPerMilli / originalBytesPerMilli;
-        if (conversionMultiplier != 1 && originalConfig.isLive()) {
-            Logger.warn("Live scenario audio format not equal to Immerse audio format, conversion needed. "
-                    + "This will increase internal buffering significantly. Consider supplying a matching audio format.");
-        }
-        // Best practice values from test results. Eventually we might implement our own converters with minimal buffering, see #85.
-        double conversionMultiplierMultiplier = 3;
-        if (conversionMultiplier < 1) {
-            conversionMultiplierMultiplier = 6;
-        }
-        return StreamConfig.builder(this.settings.getInputFormat())
-                .chunkSize((int) (originalConfig.getChunkSize() * conversionMultiplier * conversionMultiplierMultiplier))
-                .packetSize((int) (originalConfig.getPacketSize() * conversionMultiplier * conversionMultiplierMultiplier))
-                .setLive(originalConfig.isLive())
-                .build();
+    public void stopScenarioPlayback(UUID playbackId) {
+        this.commandQueue.add(new MixerCommand.StopScenario(playbackId));
     }
 
     /**
@@ -566,6 +824,22 @@ public class ImmerseMixer {
         this.getStateListenersCopy().forEach(listener -> AsyncUtil.submitAsyncTask(() -> listener.stateChangedNoException(oldState, this.state)));
     }
 
+    /**
+     * Handle an underrun event of one of the sound card streams: log it and notify the listeners asynchronously.
+     * Called from the sound card writer threads.
+     */
+    private void underrunDetected(UnderrunEvent underrunEvent) {
+        if (underrunEvent.isNearUnderrun()) {
+            Logger.debug("{} detected {}", this.name, underrunEvent);
+        } else {
+            Logger.warn("{} detected {}", this.name, underrunEvent);
+        }
+        if (this.bufferController != null) {
+            this.bufferController.underrunDetected(underrunEvent);
+        }
+        this.getUnderrunListenersCopy().forEach(listener -> AsyncUtil.submitAsyncTask(() -> listener.underrunDetectedNoException(underrunEvent)));
+    }
+
     /**
      * Log a scenario event in a generic way.
      */
@@ -585,7 +859,7 @@ public class ImmerseMixer {
      */
     private void waitFor(Supplier<Boolean> condition) {
         while (!condition.get()) {
-            this.sleep(getTechnicalSettings().getWaitForConditionMillis());
+            this.sleep(this.settings.getTechnicalSettings().getWaitForConditionMillis());
         }
     }
 
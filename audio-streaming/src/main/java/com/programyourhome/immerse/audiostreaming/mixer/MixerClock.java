@@ -0,0 +1,15 @@
+package com.programyourhome.immerse.audiostreaming.mixer;
+
+/**
+ * The clock of a mixer: the time that is used to drive all dynamic data and playbacks of the scenarios.
+ * Both the real time mixer and the offline renderer use a frame clock, based on the amount of mixed audio.
+ */
+@FunctionalInterface
+public interface MixerClock {
+
+    /**
+     * The current time of this clock in millis.
+     */
+    long getCurrentMillis();
+
+}
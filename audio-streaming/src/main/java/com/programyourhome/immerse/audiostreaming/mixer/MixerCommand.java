@@ -0,0 +1,71 @@
+package com.programyourhome.immerse.audiostreaming.mixer;
+
+import java.util.UUID;
+
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
+
+/**
+ * A command from the 'outside world' to the mixer, like starting or stopping a scenario playback.
+ * Commands are immutable messages that are put on the command queue of the mixer by any thread.
+ * The mixer worker thread executes all queued commands at the start of each step, in the order they were queued.
+ * This way, all changes to the mixer state happen on the mixer worker thread, without any locking.
+ */
+interface MixerCommand {
+
+    /**
+     * Execute this command on the given mixer. Will be called from the mixer worker thread.
+     */
+    void executeOn(ImmerseMixer mixer);
+
+    /**
+     * Activate a scenario: it's audio will be processed from the next step on.
+     * Used both for the first start of a playback and for each restart of a next playback loop.
+     */
+    class ActivateScenario implements MixerCommand {
+        private final ActiveScenario activeScenario;
+
+        ActivateScenario(ActiveScenario activeScenario) {
+            this.activeScenario = activeScenario;
+        }
+
+        @Override
+        public void executeOn(ImmerseMixer mixer) {
+            mixer.activateScenario(this.activeScenario);
+        }
+    }
+
+    /**
+     * Stop the scenario playback with the given playback id.
+     */
+    class StopScenario implements MixerCommand {
+        private final UUID playbackId;
+
+        StopScenario(UUID playbackId) {
+            this.playbackId = playbackId;
+        }
+
+        @Override
+        public void executeOn(ImmerseMixer mixer) {
+            mixer.stopScenario(this.playbackId);
+        }
+    }
+
+    /**
+     * Fade out the scenario playback with the given playback id and stop it after the given amount of millis.
+     */
+    class FadeOutScenario implements MixerCommand {
+        private final UUID playbackId;
+        private final int millis;
+
+        FadeOutScenario(UUID playbackId, int millis) {
+            this.playbackId = playbackId;
+            this.millis = millis;
+        }
+
+        @Override
+        public void executeOn(ImmerseMixer mixer) {
+            mixer.fadeOutScenario(this.playbackId, this.millis);
+        }
+    }
+
+}
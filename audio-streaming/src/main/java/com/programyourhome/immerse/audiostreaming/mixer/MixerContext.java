@@ -0,0 +1,83 @@
+package com.programyourhome.immerse.audiostreaming.mixer;
+
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsRegistry;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.ImmerseSettings.TechnicalSettings;
+
+/**
+ * The context of one mixer: everything the parts of a mixer (step, scenarios, buffers) need to know about the mixer they belong to.
+ * The context is created by the mixer and passed explicitly to those parts, so multiple mixers can run next to each other
+ * in the same JVM, each with their own settings, without any shared (static) state.
+ */
+public class MixerContext {
+
+    private final String name;
+    private final ImmerseSettings settings;
+    private final MetricsRegistry metricsRegistry;
+    private final MixerClock clock;
+    private final boolean realTime;
+
+    /**
+     * Create a mixer context for a mixer that is driven by the given clock.
+     * A mixer playing in real time has deadlines for it's steps, a mixer that is not playing in real time has not.
+     */
+    public MixerContext(String name, ImmerseSettings settings, MetricsRegistry metricsRegistry, MixerClock clock, boolean realTime) {
+        this.name = name;
+        this.settings = settings;
+        this.metricsRegistry = metricsRegistry;
+        this.clock = clock;
+        this.realTime = realTime;
+    }
+
+    /**
+     * Create a mixer context for a mixer that is not playing in real time, but driven by the given (virtual) clock.
+     */
+    public MixerContext(String name, ImmerseSettings settings, MetricsRegistry metricsRegistry, MixerClock clock) {
+        this(name, settings, metricsRegistry, clock, false);
+    }
+
+    /**
+     * The name of the mixer, to differentiate mixers in logs, thread names and metrics.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * The Immerse system settings of the mixer, that stay the same during it's lifetime.
+     */
+    public ImmerseSettings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Shortcut for the technical settings of the mixer.
+     */
+    public TechnicalSettings getTechnicalSettings() {
+        return this.settings.getTechnicalSettings();
+    }
+
+    /**
+     * The metrics registry of the mixer.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metricsRegistry;
+    }
+
+    /**
+     * The clock of the mixer, that drives the dynamic data and playbacks of the scenarios.
+     */
+    public MixerClock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * Whether the mixer is playing in real time or not. A mixer that is not playing in real time has no deadlines,
+     * so it can wait for blocking actions (like refilling input buffers) instead of performing them asynchronously.
+     * This also makes the output of such a mixer deterministic.
+     */
+    public boolean isRealTime() {
+        return this.realTime;
+    }
+
+}
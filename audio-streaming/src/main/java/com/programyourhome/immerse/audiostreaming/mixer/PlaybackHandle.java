@@ -0,0 +1,98 @@
+package com.programyourhome.immerse.audiostreaming.mixer;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.programyourhome.immerse.audiostreaming.util.AsyncUtil;
+
+/**
+ * A handle to one playback of a scenario on the mixer, as returned when playing a scenario.
+ * The handle provides futures for the playback events, so any number of parties can wait for or act on them
+ * without polling and without occupying a thread while waiting.
+ *
+ * The futures are completed asynchronously (never on the mixer worker thread), but always in the order of the events.
+ * So any dependent action that is registered on one of the futures will not delay the audio processing.
+ * If a playback is stopped before it was started or restarted, the corresponding future will be cancelled.
+ */
+public class PlaybackHandle {
+
+    private final UUID playbackId;
+    private final CompletableFuture<Void> started;
+    private final CompletableFuture<Void> stopped;
+    private volatile CompletableFuture<Void> nextRestart;
+    // The completion of the last event, to chain the next event to. Only used by the mixer worker thread.
+    private CompletableFuture<Void> lastEvent;
+
+    PlaybackHandle(UUID playbackId) {
+        this.playbackId = playbackId;
+        this.started = new CompletableFuture<>();
+        this.stopped = new CompletableFuture<>();
+        this.nextRestart = new CompletableFuture<>();
+        this.lastEvent = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * The unique identifier of this playback, also used in the events sent to scenario listeners.
+     */
+    public UUID getPlaybackId() {
+        return this.playbackId;
+    }
+
+    /**
+     * Future that completes when the playback is started (the scenario is processed by the mixer for the first time).
+     */
+    public CompletableFuture<Void> getStarted() {
+        return this.started;
+    }
+
+    /**
+     * Future that completes when the playback is restarted for the next time, counting from the moment this method is called.
+     */
+    public CompletableFuture<Void> getNextRestart() {
+        return this.nextRestart;
+    }
+
+    /**
+     * Future that completes when the playback is stopped, either because it was finished, stopped explicitly or the mixer stopped.
+     */
+    public CompletableFuture<Void> getStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Signal the playback was started. Completing the future more than once has no effect, so can also be called for every activation.
+     */
+    void playbackStarted() {
+        this.onEvent(() -> this.started.complete(null));
+    }
+
+    /**
+     * Signal the playback was restarted.
+     */
+    void playbackRestarted() {
+        this.onEvent(() -> {
+            CompletableFuture<Void> restarted = this.nextRestart;
+            this.nextRestart = new CompletableFuture<>();
+            restarted.complete(null);
+        });
+    }
+
+    /**
+     * Signal the playback was stopped.
+     */
+    void playbackStopped() {
+        this.onEvent(() -> {
+            this.started.cancel(false);
+            this.nextRestart.cancel(false);
+            this.stopped.complete(null);
+        });
+    }
+
+    /**
+     * Complete the event asynchronously, after the completion of the previous event.
+     */
+    private void onEvent(Runnable completion) {
+        this.lastEvent = this.lastEvent.thenRunAsync(completion, AsyncUtil::submitAsyncTask);
+    }
+
+}
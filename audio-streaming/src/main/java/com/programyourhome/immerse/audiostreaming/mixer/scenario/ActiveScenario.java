@@ -1,5 +1,7 @@
 package com.programyourhome.immerse.audiostreaming.mixer.scenario;
 
+import static com.programyourhome.immerse.domain.format.ImmerseAudioFormat.fromJavaAudioFormat;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -12,11 +14,18 @@ import javax.sound.sampled.AudioInputStream;
 import org.pmw.tinylog.Logger;
 
 import com.programyourhome.immerse.audiostreaming.mixer.AudioInputStreamWrapper;
+import com.programyourhome.immerse.audiostreaming.mixer.MixerContext;
 import com.programyourhome.immerse.audiostreaming.util.AsyncUtil;
+import com.programyourhome.immerse.audiostreaming.util.AudioUtil;
+import com.programyourhome.immerse.domain.DynamicData;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Room;
 import com.programyourhome.immerse.domain.Scenario;
 import com.programyourhome.immerse.domain.audio.playback.Playback;
+import com.programyourhome.immerse.domain.audio.resource.AudioResource;
 import com.programyourhome.immerse.domain.audio.resource.StreamConfig;
 import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
 import com.programyourhome.immerse.domain.speakers.algorithms.normalize.NormalizeAlgorithm;
 import com.programyourhome.immerse.domain.speakers.algorithms.volumeratios.VolumeRatiosAlgorithm;
 import com.programyourhome.immerse.domain.volume.DynamicVolume;
@@ -34,22 +43,36 @@ import com.programyourhome.immerse.toolbox.volume.dynamic.LinearDynamicVolume;
 public class ActiveScenario {
 
     private final UUID id;
+    private final MixerContext context;
     private final Scenario scenario;
     private DynamicVolume volume;
     private final VolumeRatiosAlgorithm volumeRatiosAlgorithm;
     private final NormalizeAlgorithm normalizeAlgorithm;
+    // The volume ratios and volumes by speaker index, reused for every calculation of the speaker volumes.
+    private final double[] volumeRatios;
+    private final double[] volumes;
+    // A view on the volumes array, together with the version of the volume ratios the volumes were calculated from.
+    private final SpeakerVolumes speakerVolumes;
+    private boolean speakerVolumesCalculated;
+    private long speakerVolumesVersion;
     private Playback playback;
     private AudioInputStream inputStream;
+    private final ImmerseAudioFormat format;
     private AudioInputBuffer inputBuffer;
     private final File cachedStreamFile;
     private final StreamConfig streamConfig;
 
-    public ActiveScenario(Scenario scenario, AudioInputStream audioInputStream, StreamConfig streamConfig) {
+    public ActiveScenario(MixerContext context, Scenario scenario, AudioInputStream audioInputStream, StreamConfig streamConfig) {
         this.id = UUID.randomUUID();
+        this.context = context;
         this.scenario = scenario;
         this.volume = this.scenario.getSettings().getVolumeFactory().create();
         this.volumeRatiosAlgorithm = this.scenario.getSettings().getVolumeRatiosAlgorithmFactory().create();
         this.normalizeAlgorithm = this.scenario.getSettings().getNormalizeAlgorithmFactory().create();
+        Room room = context.getSettings().getRoom();
+        this.volumeRatios = new double[room.getNumberOfSpeakers()];
+        this.volumes = new double[room.getNumberOfSpeakers()];
+        this.speakerVolumes = new SpeakerVolumes(room.getSpeakerIds(), this.volumes);
         this.playback = this.scenario.getSettings().getPlaybackFactory().create();
         this.streamConfig = streamConfig;
         if (this.streamConfig.isLive()) {
@@ -63,9 +86,63 @@ public class ActiveScenario {
                 throw new IllegalStateException("Exception during stream caching init", e);
             }
         }
+        // The format will be the same for all playback loops, so calculate it once.
+        this.format = ImmerseAudioFormat.fromJavaAudioFormat(this.inputStream.getFormat());
         this.inputBuffer = this.createAndFillInputBuffer();
     }
 
+    /**
+     * Create an active scenario for the given scenario, by creating it's audio resource and converting the audio stream of that resource
+     * to the input format of the mixer.
+     */
+    public static ActiveScenario create(MixerContext context, Scenario scenario) {
+        AudioResource audioResource = scenario.getSettings().getAudioResourceFactory().create();
+        AudioInputStream originalStream = audioResource.getAudioInputStream();
+        return new ActiveScenario(context, scenario, convertAudioStream(context.getSettings(), originalStream),
+                convertStreamConfig(context.getSettings(), originalStream, audioResource.getConfig()));
+    }
+
+    /**
+     * Convert the audio input stream of a scenario to the desired audio format.
+     * This method uses the build-in AudioSystem converters to perform the actual conversion.
+     */
+    private static AudioInputStream convertAudioStream(ImmerseSettings settings, AudioInputStream originalStream) {
+        // Workaround for a JDK bug: https://bugs.java.com/bugdatabase/view_bug.do?bug_id=8146338
+        // See the documentation of this project for more information.
+        AudioInputStream signedStream = AudioUtil.convert(originalStream, AudioUtil.toSigned(originalStream.getFormat()));
+        AudioInputStream converted = AudioUtil.convert(signedStream, settings.getInputFormatJava());
+        return converted;
+    }
+
+    /**
+     * Convert the stream config: update the sizes according to the stream conversion.
+     * After conversion the config will represent 'virtual' chunk and packet sizes, because that is not
+     * how the data is coming in, but as far as the rest of the processing is concerned, this config makes
+     * sense for the converted audio input stream they are using.
+     *
+     * NB: Unfortunately the AudioSystem conversion buffers make it necessary to increase the buffer size a lot.
+     * This may be fixed by implementing our own converters, see #85.
+     */
+    private static StreamConfig convertStreamConfig(ImmerseSettings settings, AudioInputStream originalStream, StreamConfig originalConfig) {
+        double originalBytesPerMilli = fromJavaAudioFormat(originalStream.getFormat()).getNumberOfBytesPerMilli();
+        double convertedBytesPerMilli = settings.getInputFormat().getNumberOfBytesPerMilli();
+        double conversionMultiplier = convertedBytesPerMilli / originalBytesPerMilli;
+        if (conversionMultiplier != 1 && originalConfig.isLive()) {
+            Logger.warn("Live scenario audio format not equal to Immerse audio format, conversion needed. "
+                    + "This will increase internal buffering significantly. Consider supplying a matching audio format.");
+        }
+        // Best practice values from test results. Eventually we might implement our own converters with minimal buffering, see #85.
+        double conversionMultiplierMultiplier = 3;
+        if (conversionMultiplier < 1) {
+            conversionMultiplierMultiplier = 6;
+        }
+        return StreamConfig.builder(settings.getInputFormat())
+                .chunkSize((int) (originalConfig.getChunkSize() * conversionMultiplier * conversionMultiplierMultiplier))
+                .packetSize((int) (originalConfig.getPacketSize() * conversionMultiplier * conversionMultiplierMultiplier))
+                .setLive(originalConfig.isLive())
+                .build();
+    }
+
     /**
      * Uniquely identifies this active scenario, since the scenario itself can be re-used multiple times.
      */
@@ -89,6 +166,25 @@ public class ActiveScenario {
         return this.normalizeAlgorithm;
     }
 
+    /**
+     * Calculate the speaker volumes by using the configured volume ratios and normalize algorithms.
+     * If the volume ratios did not change since the last calculation (according to their version), the last speaker volumes are reused.
+     * The calculation is performed by speaker index in arrays that are owned by this active scenario, so it does not create any objects.
+     * That also means the returned speaker volumes object is the same for every call and is updated in place.
+     */
+    public SpeakerVolumes calculateSpeakerVolumes() {
+        long volumeRatiosVersion = this.volumeRatiosAlgorithm.getVersion();
+        if (!this.speakerVolumesCalculated || volumeRatiosVersion == DynamicData.UNKNOWN_VERSION
+                || volumeRatiosVersion != this.speakerVolumesVersion) {
+            this.volumeRatiosAlgorithm.writeCurrentValue(this.volumeRatios);
+            // Calculate the actual volumes of the current volume ratios using the configured normalize algorithm.
+            this.normalizeAlgorithm.calculateVolumes(this.volumeRatios, this.volumes);
+            this.speakerVolumesCalculated = true;
+            this.speakerVolumesVersion = volumeRatiosVersion;
+        }
+        return this.speakerVolumes;
+    }
+
     public Playback getPlayback() {
         return this.playback;
     }
@@ -98,7 +194,7 @@ public class ActiveScenario {
     }
 
     public ImmerseAudioFormat getFormat() {
-        return ImmerseAudioFormat.fromJavaAudioFormat(this.inputStream.getFormat());
+        return this.format;
     }
 
     public AudioInputBuffer getInputBuffer() {
@@ -110,22 +206,23 @@ public class ActiveScenario {
     }
 
     /**
-     * Next step in the processing will start, so forward that to all applicable settings.
+     * Next step in the processing will start at the given time of the mixer clock, so forward that to all applicable settings.
      */
-    public void nextStep() {
-        this.volume.nextStep();
-        this.volumeRatiosAlgorithm.nextStep();
+    public void nextStep(long currentMillis) {
+        this.volume.nextStep(currentMillis);
+        this.volumeRatiosAlgorithm.nextStep(currentMillis);
     }
 
     /**
-     * Signals that the 'next' audio playback has started.
+     * Signals that the 'next' audio playback has started (now, according to the mixer clock).
      * This can be the first or any subsequent loop of the same resource.
      */
     public void nextPlaybackStarted() {
-        this.volume.nextPlaybackStarted();
-        this.volumeRatiosAlgorithm.nextPlaybackStarted();
+        long currentMillis = this.context.getClock().getCurrentMillis();
+        this.volume.nextPlaybackStarted(currentMillis);
+        this.volumeRatiosAlgorithm.nextPlaybackStarted(currentMillis);
 
-        this.playback.audioStarted();
+        this.playback.audioStarted(currentMillis);
     }
 
     /**
@@ -136,10 +233,10 @@ public class ActiveScenario {
         if (this.streamConfig.isLive()) {
             throw new IllegalStateException("Live audio resources cannot be restarted.");
         }
-        AudioFormat format = this.inputStream.getFormat();
+        AudioFormat javaFormat = this.inputStream.getFormat();
         long length = this.inputStream.getFrameLength();
         try {
-            this.inputStream = new AudioInputStream(new FileInputStream(this.cachedStreamFile), format, length);
+            this.inputStream = new AudioInputStream(new FileInputStream(this.cachedStreamFile), javaFormat, length);
             this.inputBuffer = this.createAndFillInputBuffer();
         } catch (IOException e) {
             throw new IllegalStateException("Exception during stream reset from cache", e);
@@ -148,7 +245,7 @@ public class ActiveScenario {
 
     private AudioInputBuffer createAndFillInputBuffer() {
         AudioInputBuffer audioInputBuffer;
-        audioInputBuffer = new AudioInputBuffer(this.inputStream, this.streamConfig);
+        audioInputBuffer = new AudioInputBuffer(this.inputStream, this.streamConfig, this.context.getTechnicalSettings().getStepPaceMillis());
         if (this.streamConfig.isLive()) {
             // For live streams: just continuously call fill to stay as close to 'live' as possible.
             // The thread will block at I/O when there is nothing to read from the live stream.
@@ -169,12 +266,13 @@ public class ActiveScenario {
      */
     public void fadeOut(int millis) {
         double currentVolume = this.volume.getCurrentValue();
+        long currentMillis = this.context.getClock().getCurrentMillis();
         // Override the dynamic volume with a linear decrease of the volume from 'now' until 0 in 'millis'.
         this.volume = new LinearDynamicVolume(currentVolume, 0, millis, true, 0);
-        this.volume.nextPlaybackStarted();
+        this.volume.nextPlaybackStarted(currentMillis);
         // Override the playback with a timer playback of 'millis' to stop at the end of the fade out.
         this.playback = new TimerPlayback(millis);
-        this.playback.audioStarted();
+        this.playback.audioStarted(currentMillis);
     }
 
     /**
@@ -1,11 +1,11 @@
 package com.programyourhome.immerse.audiostreaming.mixer.scenario;
 
-import static com.programyourhome.immerse.audiostreaming.mixer.ActiveImmerseSettings.getTechnicalSettings;
-
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sound.sampled.AudioInputStream;
 
+import com.programyourhome.immerse.audiostreaming.util.AsyncUtil;
 import com.programyourhome.immerse.domain.audio.resource.StreamConfig;
 import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
 
@@ -16,42 +16,61 @@ import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
  * It works as follows:
  * - Create it for an audio input stream and buffer length
  * - Fill it
- * - Use canRead and read to get bytes in a non-blocking way
- * - After each read: call align and fill asynchronously.
+ * - Use canRead and read to get bytes in a non-blocking way, or use readView and release to process the bytes without copying them
+ * - After each read (or release): call fillAsync to refill the buffer asynchronously (for non-live streams)
  * - If canRead returns false, always check if the stream is closed. If so, use readRemaining to get the last bytes out of the buffer.
  * - If not, the fill is not done yet and the AudioInputStream is 'too slow'. It's up to the using class do decide what to do in that case.
- * This way you can always read from the start of the buffer and fill at the end of the buffer at the same time.
- * Read and fill cannot run at the same time as align, but that is a very fast method anyway.
+ *
+ * Technical note: the buffer is a single producer, single consumer ring buffer. The read and write positions keep increasing
+ * and are mapped onto the buffer array by taking the remainder of the buffer size, so the data 'wraps around' at the end of the array.
+ * The consumer (the mixer) only updates the read position and the producer (the fill logic) only updates the write position.
+ * Both are volatile, so an update is published to the other side only after the bytes themselves are copied.
+ * That way, reading and filling can happen at the same time without any locking: a read never has to wait for a (blocking) fill.
+ * The read methods (canRead, read, readView, release, readRemaining) should only be called by one thread at a time and
+ * the same holds for fill, which is guaranteed by fillAsync.
  *
  * Since this buffer implementation is specifically for AudioInputStream, it will enforce a buffer size and read actions of whole frames.
+ * Since the buffer size is a multitude of the frame size, a frame is never split over the end and the start of the buffer array.
  */
 public class AudioInputBuffer {
 
-    // We need 2 locks: one for read and align not running together ...
-    private final Object READ_ALIGN_LOCK = new Object();
-    // ... and one for fill and align not running together.
-    private final Object FILL_ALIGN_LOCK = new Object();
-
     private final AudioInputStream inputStream;
     private final int frameSize;
     private final StreamConfig streamConfig;
+    private final int stepPaceMillis;
     private int bufferSize;
     private final byte[] buffer;
-    private int startPosition;
-    private int endPosition;
-    private boolean streamClosed;
+    // Total amount of bytes read from this buffer, only updated by the consumer.
+    private volatile long readPosition;
+    // Total amount of bytes written into this buffer, only updated by the producer.
+    private volatile long writePosition;
+    private volatile boolean streamClosed;
+    // The amount of fill requests that are not handled yet.
+    private final AtomicInteger fillRequests;
+    // The view on the buffer that is returned by readView, reused for every read.
+    private final ReadView readView;
+    // The buffer to read packets of a live stream into, reused for every packet.
+    private byte[] packetBuffer;
 
-    public AudioInputBuffer(AudioInputStream inputStream, StreamConfig streamConfig) {
+    /**
+     * Create an input buffer for the given stream, that is read from by a mixer with the given step pace.
+     */
+    public AudioInputBuffer(AudioInputStream inputStream, StreamConfig streamConfig, int stepPaceMillis) {
         this.inputStream = inputStream;
         this.frameSize = inputStream.getFormat().getFrameSize();
         this.streamConfig = streamConfig;
+        this.stepPaceMillis = stepPaceMillis;
         this.bufferSize = this.calculateBufferSize();
         if (this.bufferSize % this.frameSize != 0) {
             // If the buffer size is no multitude of frame size, 'fill it up' so it is.
             this.bufferSize += this.frameSize - this.bufferSize % this.frameSize;
         }
         this.buffer = new byte[this.bufferSize];
+        this.readPosition = 0;
+        this.writePosition = 0;
         this.streamClosed = false;
+        this.fillRequests = new AtomicInteger();
+        this.readView = new ReadView();
     }
 
     /**
@@ -61,7 +80,7 @@ public class AudioInputBuffer {
      */
     private int calculateBufferSize() {
         return this.streamConfig.getChunkSize() + 2 * this.streamConfig.getPacketSize()
-                + 2 * (int) (getTechnicalSettings().getStepPaceMillis() * this.getAudioFormat().getNumberOfBytesPerMilli());
+                + 2 * (int) (this.stepPaceMillis * this.getAudioFormat().getNumberOfBytesPerMilli());
     }
 
     public int getBufferSize() {
@@ -72,8 +91,25 @@ public class AudioInputBuffer {
         return ImmerseAudioFormat.fromJavaAudioFormat(this.inputStream.getFormat());
     }
 
+    /**
+     * The amount of bytes that are written into the buffer, but not read yet.
+     */
     private int getActiveSize() {
-        return this.endPosition - this.startPosition;
+        return (int) (this.writePosition - this.readPosition);
+    }
+
+    /**
+     * The amount of bytes that can be written into the buffer without overwriting bytes that are not read yet.
+     */
+    private int getFreeSize() {
+        return this.bufferSize - this.getActiveSize();
+    }
+
+    /**
+     * The fraction of the buffer that is filled with bytes that are not read yet (0 = empty, 1 = full).
+     */
+    public double getFillLevel() {
+        return this.getActiveSize() / (double) this.bufferSize;
     }
 
     public boolean isStreamClosed() {
@@ -82,14 +118,9 @@ public class AudioInputBuffer {
 
     /**
      * The requested amount of bytes can be read if there are enough available in the buffer.
-     * Furthermore, the alignment must be done or the stream must be closed, to not be in the way of a refill.
      */
     public boolean canRead(int numberOfBytes) {
-        // Re-align if needed.
-        if (this.startPosition > 0) {
-            this.align();
-        }
-        return (this.startPosition == 0 || this.streamClosed) && this.getActiveSize() >= numberOfBytes;
+        return this.getActiveSize() >= numberOfBytes;
     }
 
     /**
@@ -97,17 +128,43 @@ public class AudioInputBuffer {
      * Guaranteed to return all bytes non-blocking or throw an exception.
      */
     public void read(byte[] toBuffer) {
-        int numberOfBytes = toBuffer.length;
+        this.read(toBuffer, toBuffer.length);
+    }
+
+    /**
+     * Will read the requested amount of bytes into the start of the supplied buffer.
+     * Guaranteed to return all bytes non-blocking or throw an exception.
+     */
+    public void read(byte[] toBuffer, int numberOfBytes) {
+        this.release(this.readView(numberOfBytes).copyTo(toBuffer));
+    }
+
+    /**
+     * Will return a view on the next requested amount of bytes in the buffer, without copying them.
+     * The bytes in the view stay valid until the view is released, after which the read position moves forward.
+     * There can only be one view at a time and the returned view object is reused for every call.
+     * Guaranteed to return all bytes non-blocking or throw an exception.
+     */
+    public ReadView readView(int numberOfBytes) {
         if (!this.canRead(numberOfBytes)) {
             throw new IllegalStateException("Cannot read " + numberOfBytes + " bytes");
         }
         if (numberOfBytes % this.frameSize != 0) {
             throw new IllegalStateException("Cannot read a fraction of a frame");
         }
-        synchronized (this.READ_ALIGN_LOCK) {
-            System.arraycopy(this.buffer, this.startPosition, toBuffer, 0, numberOfBytes);
-            this.startPosition += numberOfBytes;
+        return this.readView.update(numberOfBytes);
+    }
+
+    /**
+     * Release the bytes in the view, so they are marked as read and their space in the buffer can be filled again.
+     */
+    public void release(ReadView view) {
+        if (view != this.readView) {
+            throw new IllegalArgumentException("View does not belong to this buffer");
         }
+        // Publish the new read position only after all bytes are processed.
+        this.readPosition += view.getLength();
+        view.update(0);
     }
 
     /**
@@ -116,94 +173,179 @@ public class AudioInputBuffer {
      * It returns the amount of bytes read and if that is smaller than the toBuffer size, the input buffer will be empty.
      */
     public int readRemaining(byte[] toBuffer) {
+        return this.readRemaining(toBuffer, toBuffer.length);
+    }
+
+    /**
+     * Read the remaining bytes out of the buffer after the wrapped stream is closed, with a maximum of numberOfBytes.
+     * Works the same as readRemaining(byte[]), but only uses the first numberOfBytes of the supplied buffer.
+     */
+    public int readRemaining(byte[] toBuffer, int numberOfBytes) {
         if (!this.streamClosed) {
             throw new IllegalStateException("Read remaining only supported when wrapped stream is closed");
         }
-        // Copy either the full toBuffer length or the active size if there are less bytes available.
-        int amountToRead = Math.min(toBuffer.length, this.getActiveSize());
-        synchronized (this.READ_ALIGN_LOCK) {
-            System.arraycopy(this.buffer, this.startPosition, toBuffer, 0, amountToRead);
-            this.startPosition += amountToRead;
-        }
+        // Copy either the requested amount of bytes or the active size if there are less bytes available.
+        int amountToRead = Math.min(numberOfBytes, this.getActiveSize());
+        this.release(this.readView.update(amountToRead).copyTo(toBuffer));
         return amountToRead;
     }
 
+    /**
+     * Request an asynchronous refill of the buffer.
+     * If a fill is already in progress, no new fill is started, but the running fill will do another round.
+     * This guarantees there is never more than one thread filling the buffer at the same time.
+     * If a fill fails, the outstanding requests are dropped, so a next request will start a new fill.
+     */
+    public void fillAsync() {
+        if (this.fillRequests.getAndIncrement() == 0) {
+            AsyncUtil.submitAsyncTask(() -> {
+                boolean allRequestsHandled = false;
+                try {
+                    int handledRequests;
+                    do {
+                        handledRequests = this.fillRequests.get();
+                        this.fill();
+                    } while (this.fillRequests.addAndGet(-handledRequests) > 0);
+                    allRequestsHandled = true;
+                } finally {
+                    if (!allRequestsHandled) {
+                        this.fillRequests.set(0);
+                    }
+                }
+            });
+        }
+    }
+
     /**
      * Refill the buffer by reading bytes from the wrapped stream.
      * Tries to read from the wrapped stream until either the buffer is full
      * or the end of the stream has been reached.
+     * Should only be called by one thread at a time: either directly or through fillAsync.
+     * If reading from the wrapped stream fails, the stream is marked as closed, so the bytes already in the buffer can still be read.
      */
     public int fill() {
-        // Re-align if needed.
-        if (this.startPosition > 0) {
-            this.align();
-        }
         try {
-            int amountNeeded;
+            int totalAmountRead = 0;
             if (this.streamConfig.isLive()) {
                 // For live streams: just read one packet at a time, independent of the current position.
-                amountNeeded = this.streamConfig.getPacketSize();
+                totalAmountRead = this.fillLivePacket();
             } else {
                 // Non-live streams: we need the amount of bytes to fill the whole buffer.
-                amountNeeded = this.bufferSize - this.endPosition;
-            }
-            int totalAmountRead = 0;
-            // Use a loop here, because the contract of InputStream.read() does not force the implementation to return a full buffer, even when the stream
-            // is still open. So we have to loop until either the stream is closed or the buffer is full.
-            while (!this.streamClosed && totalAmountRead < amountNeeded) {
-                int amountRead;
-                if (this.streamConfig.isLive()) {
-                    // For live streams: read into a separate buffer.
-                    byte[] packetBuffer = new byte[amountNeeded];
-                    amountRead = this.inputStream.read(packetBuffer);
+                // Use a loop here, because the contract of InputStream.read() does not force the implementation to return a full buffer,
+                // even when the stream is still open. So we have to loop until either the stream is closed or the buffer is full.
+                while (!this.streamClosed && this.getFreeSize() > 0) {
+                    // Read directly into the main buffer, until the end of the buffer array at the most.
+                    int writeIndex = (int) (this.writePosition % this.bufferSize);
+                    int amountToRead = Math.min(this.getFreeSize(), this.bufferSize - writeIndex);
+                    int amountRead = this.inputStream.read(this.buffer, writeIndex, amountToRead);
                     if (amountRead > 0) {
-                        if (amountRead <= this.bufferSize - this.endPosition) {
-                            // If there is enough room in the main buffer, append the bytes there.
-                            synchronized (this.FILL_ALIGN_LOCK) {
-                                System.arraycopy(packetBuffer, 0, this.buffer, this.endPosition, amountRead);
-                            }
-                        } else {
-                            // If the packet bytes do not fit, just discard them by pretending nothing was read.
-                            // This will make the live stream stay as close to 'live' as possible.
-                            amountRead = 0;
-                        }
-                    }
-                } else {
-                    // Non-live streams: read directly into the main buffer.
-                    synchronized (this.FILL_ALIGN_LOCK) {
-                        amountRead = this.inputStream.read(this.buffer, this.endPosition, amountNeeded - totalAmountRead);
-                    }
-                }
-                synchronized (this.FILL_ALIGN_LOCK) {
-                    if (amountRead == -1) {
-                        this.streamClosed = true;
-                        this.inputStream.close();
-                    } else {
                         totalAmountRead += amountRead;
-                        this.endPosition += amountRead;
                     }
+                    this.written(amountRead);
                 }
             }
             return totalAmountRead;
         } catch (IOException e) {
+            this.streamClosed = true;
             throw new IllegalStateException("IOException during fill", e);
         }
     }
 
     /**
-     * Align the buffer, that is: move all 'active' bytes to the front of the buffer.
-     * This allows the next cycle of read & fill to take place simultaneously without having to resort to complicated wrapping of indices.
+     * Fill the buffer with one packet of the live stream.
      */
-    private int align() {
-        synchronized (this.READ_ALIGN_LOCK) {
-            synchronized (this.FILL_ALIGN_LOCK) {
-                int amount = this.getActiveSize();
-                System.arraycopy(this.buffer, this.startPosition, this.buffer, 0, amount);
-                this.startPosition = 0;
-                this.endPosition = amount;
-                return amount;
+    private int fillLivePacket() throws IOException {
+        int packetSize = this.streamConfig.getPacketSize();
+        if (this.packetBuffer == null || this.packetBuffer.length != packetSize) {
+            this.packetBuffer = new byte[packetSize];
+        }
+        int totalAmountRead = 0;
+        while (!this.streamClosed && totalAmountRead < packetSize) {
+            // For live streams: read into a separate buffer.
+            int amountRead = this.inputStream.read(this.packetBuffer, 0, packetSize);
+            if (amountRead > 0) {
+                if (amountRead <= this.getFreeSize()) {
+                    // If there is enough room in the main buffer, append the bytes there (wrapping around the end of the buffer array if needed).
+                    int writeIndex = (int) (this.writePosition % this.bufferSize);
+                    int firstLength = Math.min(amountRead, this.bufferSize - writeIndex);
+                    System.arraycopy(this.packetBuffer, 0, this.buffer, writeIndex, firstLength);
+                    System.arraycopy(this.packetBuffer, firstLength, this.buffer, 0, amountRead - firstLength);
+                } else {
+                    // If the packet bytes do not fit, just discard them by pretending nothing was read.
+                    // This will make the live stream stay as close to 'live' as possible.
+                    amountRead = 0;
+                }
+                totalAmountRead += amountRead;
             }
+            this.written(amountRead);
+        }
+        return totalAmountRead;
+    }
+
+    /**
+     * Publish the amount of bytes written into the buffer, or close the stream if the end of the stream is reached (amount is -1).
+     */
+    private void written(int amountWritten) throws IOException {
+        if (amountWritten == -1) {
+            this.streamClosed = true;
+            this.inputStream.close();
+        } else {
+            // Publish the new write position only after all bytes are copied.
+            this.writePosition += amountWritten;
         }
     }
 
+    /**
+     * A view on a part of the buffer, to process bytes without copying them.
+     * Since the buffer wraps around, the bytes can be split in 2 segments: the first segment starts at the first offset
+     * and the second segment (if any) continues at the start of the buffer array.
+     * Both segments always contain whole frames.
+     */
+    public class ReadView {
+
+        private int firstOffset;
+        private int firstLength;
+        private int secondLength;
+
+        private ReadView update(int numberOfBytes) {
+            this.firstOffset = (int) (AudioInputBuffer.this.readPosition % AudioInputBuffer.this.bufferSize);
+            this.firstLength = Math.min(numberOfBytes, AudioInputBuffer.this.bufferSize - this.firstOffset);
+            this.secondLength = numberOfBytes - this.firstLength;
+            return this;
+        }
+
+        private ReadView copyTo(byte[] toBuffer) {
+            System.arraycopy(this.getBytes(), this.firstOffset, toBuffer, 0, this.firstLength);
+            System.arraycopy(this.getBytes(), 0, toBuffer, this.firstLength, this.secondLength);
+            return this;
+        }
+
+        /**
+         * The underlying byte array of the buffer. Only the bytes in the segments of this view should be used.
+         */
+        public byte[] getBytes() {
+            return AudioInputBuffer.this.buffer;
+        }
+
+        public int getFirstOffset() {
+            return this.firstOffset;
+        }
+
+        public int getFirstLength() {
+            return this.firstLength;
+        }
+
+        /**
+         * The length of the second segment, that always starts at offset 0.
+         */
+        public int getSecondLength() {
+            return this.secondLength;
+        }
+
+        public int getLength() {
+            return this.firstLength + this.secondLength;
+        }
+
+    }
+
 }
@@ -0,0 +1,120 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pmw.tinylog.Logger;
+
+import com.programyourhome.immerse.audiostreaming.soundcard.UnderrunEvent;
+
+/**
+ * Controls the amount of millis of audio data to keep in the sound card streams (the target buffer) at runtime,
+ * to get the lowest latency that still plays without underruns on the machine the mixer is running on.
+ *
+ * The controller follows the 'grow fast, shrink slow' principle:
+ * - grow: after a near underrun the target buffer grows by half, after an actual underrun it doubles, from the next step on
+ * - shrink: after a stable period without any (near) underruns, the target buffer shrinks by 1 milli, but only if it still covers
+ * the worst gap between 2 step starts during that period (the step pace plus the max lateness of a step) plus a safety margin
+ * The target buffer always stays within the configured bounds.
+ *
+ * The underrun events are received from the sound card writer threads, all other methods should be called from the mixer worker thread.
+ */
+public class AdaptiveBufferController {
+
+    // The period without any (near) underruns after which the target buffer may shrink.
+    private static final long STABLE_PERIOD_NANOS = 10_000_000_000L;
+    // The amount of millis to shrink at once.
+    private static final double SHRINK_STEP_MILLIS = 1;
+    // The extra millis the target buffer should have on top of the worst gap between 2 steps to allow shrinking.
+    private static final double SAFETY_MARGIN_MILLIS = 2;
+    private static final double NEAR_UNDERRUN_GROW_FACTOR = 1.5;
+    private static final double UNDERRUN_GROW_FACTOR = 2;
+
+    // The severity of the worst underrun event since the last update: 0 = none, 1 = near underrun, 2 = underrun.
+    private static final int NONE = 0;
+    private static final int NEAR_UNDERRUN = 1;
+    private static final int UNDERRUN = 2;
+
+    private final int minBufferMillis;
+    private final int maxBufferMillis;
+    private final long stepPaceNanos;
+    private final AtomicInteger pendingSeverity;
+    private volatile double bufferMillis;
+    private boolean started;
+    private long lastStepStartNanos;
+    private long periodStartNanos;
+    private long periodMaxLatenessNanos;
+
+    public AdaptiveBufferController(int initialBufferMillis, int minBufferMillis, int maxBufferMillis, int stepPaceMillis) {
+        if (minBufferMillis > maxBufferMillis) {
+            throw new IllegalArgumentException("Min buffer millis (" + minBufferMillis + ") should not be bigger than max (" + maxBufferMillis + ")");
+        }
+        this.minBufferMillis = minBufferMillis;
+        this.maxBufferMillis = maxBufferMillis;
+        this.stepPaceNanos = stepPaceMillis * 1_000_000L;
+        this.pendingSeverity = new AtomicInteger(NONE);
+        this.bufferMillis = this.clamp(initialBufferMillis);
+    }
+
+    /**
+     * The current target buffer, in whole millis (rounded up).
+     */
+    public int getBufferMillis() {
+        return (int) Math.ceil(this.bufferMillis);
+    }
+
+    /**
+     * Receive an underrun event of one of the sound card streams. The target buffer will grow at the next update.
+     */
+    public void underrunDetected(UnderrunEvent underrunEvent) {
+        int severity = underrunEvent.isNearUnderrun() ? NEAR_UNDERRUN : UNDERRUN;
+        this.pendingSeverity.accumulateAndGet(severity, Math::max);
+    }
+
+    /**
+     * Update the target buffer, given the start time of the current step (in nano time). Should be called at the start of every step.
+     */
+    public void update(long stepStartNanos) {
+        if (!this.started) {
+            // First step: nothing to measure yet, just start the period.
+            this.started = true;
+            this.lastStepStartNanos = stepStartNanos;
+            this.periodStartNanos = stepStartNanos;
+            return;
+        }
+        long latenessNanos = stepStartNanos - this.lastStepStartNanos - this.stepPaceNanos;
+        this.periodMaxLatenessNanos = Math.max(this.periodMaxLatenessNanos, latenessNanos);
+        this.lastStepStartNanos = stepStartNanos;
+
+        int severity = this.pendingSeverity.getAndSet(NONE);
+        if (severity != NONE) {
+            this.changeBufferMillis(this.bufferMillis * (severity == UNDERRUN ? UNDERRUN_GROW_FACTOR : NEAR_UNDERRUN_GROW_FACTOR),
+                    severity == UNDERRUN ? "underrun" : "near underrun");
+            this.startNewPeriod(stepStartNanos);
+        } else if (stepStartNanos - this.periodStartNanos >= STABLE_PERIOD_NANOS) {
+            double worstStepGapMillis = (this.stepPaceNanos + this.periodMaxLatenessNanos) / 1_000_000.0;
+            double shrunkBufferMillis = this.bufferMillis - SHRINK_STEP_MILLIS;
+            if (shrunkBufferMillis >= worstStepGapMillis + SAFETY_MARGIN_MILLIS) {
+                this.changeBufferMillis(shrunkBufferMillis, "stable period");
+            }
+            this.startNewPeriod(stepStartNanos);
+        }
+    }
+
+    private void startNewPeriod(long stepStartNanos) {
+        this.periodStartNanos = stepStartNanos;
+        this.periodMaxLatenessNanos = 0;
+    }
+
+    private void changeBufferMillis(double newBufferMillis, String reason) {
+        double oldBufferMillis = this.bufferMillis;
+        this.bufferMillis = this.clamp(newBufferMillis);
+        if (this.bufferMillis != oldBufferMillis) {
+            Logger.debug("Sound card buffer changed from {0.0} to {0.0} millis because of {}", oldBufferMillis, this.bufferMillis, reason);
+        }
+    }
+
+    private double clamp(double bufferMillis) {
+        return Math.max(this.minBufferMillis, Math.min(this.maxBufferMillis, bufferMillis));
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * A step scheduler that targets absolute deadlines: step n should start at the start time + n * the step pace.
+ * Since the deadlines do not depend on how long a step took or how long the waiting took, the step pace will not drift over time.
+ *
+ * Waiting for a deadline is done in 3 phases, to be both precise and CPU friendly:
+ * - sleep: as long as the deadline is far away, sleep for whole millis (the OS scheduler is not precise, but that is not a problem yet)
+ * - park: when getting closer, park the thread for the remaining nanos minus the spin time (more precise, but can still overshoot a bit)
+ * - spin: for the last part, busy wait until the deadline has passed (very precise, but costs CPU time, so keep it short)
+ *
+ * If a step takes longer than the step pace (an overrun), the next step starts immediately. If the overrun was shorter than one step pace,
+ * the schedule is kept, so the next steps will catch up. If it was longer, the missed deadlines are skipped and the schedule will restart
+ * from now, to prevent a burst of steps right after each other.
+ *
+ * The time is read from a nano time source (normally System.nanoTime) and the waiting phases are separate methods,
+ * so the schedule can be verified with a simulated clock.
+ */
+public class DeadlineStepScheduler implements StepScheduler {
+
+    // When more than this amount of nanos are left before the deadline, sleep.
+    private static final long SLEEP_THRESHOLD_NANOS = 2_000_000;
+    // When more than this amount of nanos are left before the deadline, park. Otherwise, spin.
+    private static final long SPIN_THRESHOLD_NANOS = 200_000;
+
+    private final long stepPaceNanos;
+    private final LongSupplier nanoTimeSource;
+    private final StepSchedulerStatistics statistics;
+    private long nextDeadline;
+
+    public DeadlineStepScheduler(int stepPaceMillis) {
+        this(stepPaceMillis, System::nanoTime);
+    }
+
+    public DeadlineStepScheduler(int stepPaceMillis, LongSupplier nanoTimeSource) {
+        this.stepPaceNanos = stepPaceMillis * 1_000_000L;
+        this.nanoTimeSource = nanoTimeSource;
+        this.statistics = new StepSchedulerStatistics();
+    }
+
+    @Override
+    public void start() {
+        this.nextDeadline = this.nanoTimeSource.getAsLong() + this.stepPaceNanos;
+    }
+
+    @Override
+    public void waitForNextStep() {
+        long now = this.nanoTimeSource.getAsLong();
+        long lateNanos = now - this.nextDeadline;
+        if (lateNanos > 0) {
+            // Overrun: start the next step immediately.
+            long amountOfSkippedSteps = 0;
+            if (lateNanos >= this.stepPaceNanos) {
+                // More than a whole step late: skip the missed deadlines and restart the schedule from now.
+                amountOfSkippedSteps = lateNanos / this.stepPaceNanos;
+                this.nextDeadline = now;
+            }
+            this.statistics.recordOverrun(amountOfSkippedSteps);
+        } else {
+            this.waitUntil(this.nextDeadline);
+            this.statistics.recordJitter(this.nanoTimeSource.getAsLong() - this.nextDeadline);
+        }
+        this.nextDeadline += this.stepPaceNanos;
+    }
+
+    /**
+     * Wait until the given deadline (in nano time) has passed.
+     */
+    private void waitUntil(long deadline) {
+        long remainingNanos = deadline - this.nanoTimeSource.getAsLong();
+        // Only sleep for whole millis, the rest is up to the park and spin phases.
+        long sleepMillis = (remainingNanos - SLEEP_THRESHOLD_NANOS) / 1_000_000;
+        while (sleepMillis > 0) {
+            try {
+                this.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remainingNanos = deadline - this.nanoTimeSource.getAsLong();
+            sleepMillis = (remainingNanos - SLEEP_THRESHOLD_NANOS) / 1_000_000;
+        }
+        while (remainingNanos > SPIN_THRESHOLD_NANOS) {
+            this.park(remainingNanos - SPIN_THRESHOLD_NANOS);
+            remainingNanos = deadline - this.nanoTimeSource.getAsLong();
+        }
+        while (this.nanoTimeSource.getAsLong() - deadline < 0) {
+            // Spin until the deadline has passed.
+            this.spin();
+        }
+    }
+
+    /**
+     * The sleep phase: sleep for the given amount of millis.
+     */
+    protected void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    /**
+     * The park phase: park the thread for the given amount of nanos.
+     */
+    protected void park(long nanos) {
+        LockSupport.parkNanos(nanos);
+    }
+
+    /**
+     * One iteration of the spin phase: nothing to do, just check the time again.
+     */
+    protected void spin() {
+    }
+
+    @Override
+    public StepSchedulerStatistics getStatistics() {
+        return this.statistics;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler;
+
+/**
+ * The 'classic' step scheduler: sleep for the step pace millis minus the time it took to run the step logic.
+ * If a step took longer than the step pace, the next step will start immediately and will not try to 'catch up'.
+ *
+ * NB: Thread.sleep has a granularity of whole millis and usually oversleeps, so the actual step pace will drift from the schedule.
+ * See DeadlineStepScheduler for a more precise alternative.
+ */
+public class SleepStepScheduler implements StepScheduler {
+
+    private final int stepPaceMillis;
+    private final StepSchedulerStatistics statistics;
+    private long stepStart;
+
+    public SleepStepScheduler(int stepPaceMillis) {
+        this.stepPaceMillis = stepPaceMillis;
+        this.statistics = new StepSchedulerStatistics();
+    }
+
+    @Override
+    public void start() {
+        this.stepStart = System.nanoTime();
+    }
+
+    @Override
+    public void waitForNextStep() {
+        long stepNanos = System.nanoTime() - this.stepStart;
+        long stepPaceNanos = this.stepPaceMillis * 1_000_000L;
+        if (stepNanos > stepPaceNanos) {
+            this.statistics.recordOverrun(0);
+        } else {
+            // Sleep for the step pace millis - the time it took to run the step logic.
+            long sleepMillis = this.stepPaceMillis - Math.round(stepNanos / 1_000_000.0);
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.statistics.recordJitter(Math.max(0, System.nanoTime() - this.stepStart - stepPaceNanos));
+        }
+        this.stepStart = System.nanoTime();
+    }
+
+    @Override
+    public StepSchedulerStatistics getStatistics() {
+        return this.statistics;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler;
+
+/**
+ * A step scheduler decides when the mixer should start it's next step, to match up with the configured step pace.
+ *
+ * Usage: call start once, just before the first step. After each step, call waitForNextStep: this will block until the next step should start.
+ * Both methods should be called from the mixer worker thread.
+ */
+public interface StepScheduler {
+
+    /**
+     * Start the schedule: the first step will start right after this call.
+     */
+    void start();
+
+    /**
+     * Wait until the next step should start.
+     * If the last step took longer than the step pace, this method will return immediately.
+     */
+    void waitForNextStep();
+
+    /**
+     * The statistics about how well the achieved step start times match up with the schedule.
+     */
+    StepSchedulerStatistics getStatistics();
+
+}
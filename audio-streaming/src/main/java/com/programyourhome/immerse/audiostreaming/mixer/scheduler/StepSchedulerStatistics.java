@@ -0,0 +1,85 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler;
+
+import com.programyourhome.immerse.audiostreaming.metrics.Histogram;
+
+/**
+ * Statistics about how well the achieved step start times match up with the schedule of a step scheduler.
+ * The jitter of a step is the amount of time the actual start of the step was later than the scheduled start.
+ *
+ * The statistics are recorded by the mixer worker thread and can be read from any thread.
+ */
+public class StepSchedulerStatistics {
+
+    private long amountOfSteps;
+    private long totalJitterNanos;
+    private long maxJitterNanos;
+    private long amountOfOverruns;
+    private long amountOfSkippedSteps;
+    // The distribution of the jitter in micros, thread safe by itself.
+    private final Histogram jitterMicrosHistogram;
+
+    public StepSchedulerStatistics() {
+        this.jitterMicrosHistogram = new Histogram();
+    }
+
+    /**
+     * Record the jitter of a step that started after waiting for it's scheduled start.
+     */
+    public synchronized void recordJitter(long jitterNanos) {
+        this.amountOfSteps++;
+        this.totalJitterNanos += jitterNanos;
+        this.maxJitterNanos = Math.max(this.maxJitterNanos, jitterNanos);
+        this.jitterMicrosHistogram.record(jitterNanos / 1000);
+    }
+
+    /**
+     * Record a step that took longer than the step pace, so the next step will start late.
+     * The amount of skipped steps is the amount of scheduled steps that are given up to get back on schedule.
+     */
+    public synchronized void recordOverrun(long amountOfSkippedSteps) {
+        this.amountOfSteps++;
+        this.amountOfOverruns++;
+        this.amountOfSkippedSteps += amountOfSkippedSteps;
+    }
+
+    public synchronized long getAmountOfSteps() {
+        return this.amountOfSteps;
+    }
+
+    /**
+     * The mean jitter of the steps that did not overrun, in millis.
+     */
+    public synchronized double getMeanJitterMillis() {
+        long amountOfJitterSteps = this.amountOfSteps - this.amountOfOverruns;
+        return amountOfJitterSteps == 0 ? 0 : this.totalJitterNanos / (double) amountOfJitterSteps / 1_000_000.0;
+    }
+
+    /**
+     * The max jitter of the steps that did not overrun, in millis.
+     */
+    public synchronized double getMaxJitterMillis() {
+        return this.maxJitterNanos / 1_000_000.0;
+    }
+
+    /**
+     * The distribution of the jitter of the steps that did not overrun, in micros.
+     */
+    public Histogram getJitterMicrosHistogram() {
+        return this.jitterMicrosHistogram;
+    }
+
+    public synchronized long getAmountOfOverruns() {
+        return this.amountOfOverruns;
+    }
+
+    public synchronized long getAmountOfSkippedSteps() {
+        return this.amountOfSkippedSteps;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("steps: %d, mean jitter: %.3f ms, max jitter: %.3f ms, overruns: %d, skipped steps: %d",
+                this.amountOfSteps, this.getMeanJitterMillis(), this.getMaxJitterMillis(), this.amountOfOverruns, this.amountOfSkippedSteps);
+    }
+
+}
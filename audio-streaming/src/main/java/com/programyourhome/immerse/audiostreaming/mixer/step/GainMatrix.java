@@ -0,0 +1,88 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step;
+
+import java.util.Arrays;
+
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
+
+/**
+ * The gains of all scenarios in a mixer step for all output channels, as a dense matrix (scenarios x output channels).
+ * The output channels are the channels of all sound card streams after each other (all channels of the first sound card stream,
+ * then all channels of the second one, etc), each with the index of the speaker it outputs to.
+ *
+ * The matrix is built once per step from the speaker volumes of the scenarios, so the speaker volumes don't have to be
+ * looked up while mixing. The gains are stored row by row in one array, that is reused across steps and only grows
+ * when the amount of scenarios goes up.
+ */
+class GainMatrix {
+
+    // The speaker index (in the room) for every output channel.
+    private final int[] channelSpeakerIndices;
+    // The gains, row by row: the gain of the scenario at position s for output channel c is at index s * number of channels + c.
+    private double[] gains;
+
+    GainMatrix(int[] channelSpeakerIndices) {
+        this.channelSpeakerIndices = channelSpeakerIndices;
+        this.gains = new double[0];
+    }
+
+    int getNumberOfChannels() {
+        return this.channelSpeakerIndices.length;
+    }
+
+    /**
+     * Make sure the matrix can hold the gains of the given amount of scenarios.
+     */
+    void prepare(int numberOfScenarios) {
+        int length = numberOfScenarios * this.channelSpeakerIndices.length;
+        if (this.gains.length < length) {
+            this.gains = new double[length];
+        }
+    }
+
+    /**
+     * Fill the row of the scenario at the given position with the speaker volumes of all output channels.
+     */
+    void setRow(int scenarioIndex, SpeakerVolumes speakerVolumes) {
+        int rowOffset = this.getRowOffset(scenarioIndex);
+        for (int channel = 0; channel < this.channelSpeakerIndices.length; channel++) {
+            this.gains[rowOffset + channel] = speakerVolumes.getVolumeFractionAtIndex(this.channelSpeakerIndices[channel]);
+        }
+    }
+
+    /**
+     * Fill the row of the scenario at the given position with gains of 0, so the scenario will not contribute to any output channel.
+     */
+    void setZeroRow(int scenarioIndex) {
+        int rowOffset = this.getRowOffset(scenarioIndex);
+        Arrays.fill(this.gains, rowOffset, rowOffset + this.channelSpeakerIndices.length, 0);
+    }
+
+    /**
+     * Whether or not the scenario at the given position has a gain of 0 for all output channels.
+     */
+    boolean isZeroRow(int scenarioIndex) {
+        int rowOffset = this.getRowOffset(scenarioIndex);
+        for (int channel = 0; channel < this.channelSpeakerIndices.length; channel++) {
+            if (this.gains[rowOffset + channel] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The gains of all rows. The row of a scenario starts at the row offset of that scenario.
+     */
+    double[] getGains() {
+        return this.gains;
+    }
+
+    int getRowOffset(int scenarioIndex) {
+        return scenarioIndex * this.channelSpeakerIndices.length;
+    }
+
+    double getGain(int scenarioIndex, int channel) {
+        return this.gains[this.getRowOffset(scenarioIndex) + channel];
+    }
+
+}
@@ -1,38 +1,44 @@
 package com.programyourhome.immerse.audiostreaming.mixer.step;
 
-import static com.programyourhome.immerse.audiostreaming.mixer.ActiveImmerseSettings.getSettings;
-import static com.programyourhome.immerse.audiostreaming.mixer.ActiveImmerseSettings.getTechnicalSettings;
-import static com.programyourhome.immerse.toolbox.util.StreamUtil.toMapFixedValue;
-
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
+import org.pmw.tinylog.Level;
 import org.pmw.tinylog.Logger;
 
+import com.programyourhome.immerse.audiostreaming.metrics.Counter;
+import com.programyourhome.immerse.audiostreaming.mixer.MixerContext;
 import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
 import com.programyourhome.immerse.audiostreaming.mixer.scenario.AudioInputBuffer;
-import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
-import com.programyourhome.immerse.audiostreaming.util.AsyncUtil;
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.AudioInputBuffer.ReadView;
+import com.programyourhome.immerse.audiostreaming.mixer.step.SoundCardBuffers.MixPath;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.audiostreaming.util.BufferUtil;
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
 import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
-import com.programyourhome.immerse.domain.format.SampleSize;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
-import com.programyourhome.immerse.toolbox.util.StreamUtil;
 
-import one.util.streamex.StreamEx;
+import one.util.streamex.IntStreamEx;
 
 /**
  * This class contains the algorithm at the heart of Immerse:
  * mixing all active scenario inputs into the right audio outputs.
  * This means performing the calculations to be able to refill the buffers for all sound card streams.
- * It represents one step in the mixer process and a new object should be used for each next step.
+ *
+ * One mixer step object is created per mixer and reused for every next step: call prepare with the active scenarios
+ * and then calculateBufferData to perform the calculations. All intermediate data is kept in scratch buffers that are owned
+ * by this object and reused across steps, so a step does not allocate new objects once the mixer has reached a steady state.
+ * The buffers only grow when the amount of frames needed or the amount of active scenarios goes up.
+ *
+ * Work that does not change the output is skipped: scenario and sound card stream pairs with a gain of 0 (common with algorithms
+ * that only use the closest speakers or a field of hearing), scenarios with a volume of 0 and sound card streams that no scenario
+ * contributes to (those get a shared buffer of silence). How often these paths are taken is recorded in the metrics registry.
  *
  * Since this logic is the most important part of the system, this class and all it's methods are well
  * documented and described to preserve the knowledge about how the algorithm works and make it easier
@@ -41,35 +47,116 @@ import one.util.streamex.StreamEx;
  */
 public class MixerStep {
 
+    // The context of the mixer this step belongs to.
+    private final MixerContext context;
+    // The sound card streams that are configured to receive output, together with their buffers.
+    private final List<SoundCardBuffers> soundCardBuffers;
+    // The scenario buffers, indexed by the position of the scenario in the step.
+    private final List<ScenarioBuffers> scenarioBuffers;
     // The scenarios that are currently active (in this step).
-    private final Collection<ActiveScenario> stepActiveScenarios;
-    // The sound card streams that are configured to receive output.
-    private final Collection<SoundCardStream> soundCardStreams;
+    private final List<ActiveScenario> stepActiveScenarios;
     // Keeps track of which scenarios should be stopped after this step.
     private final Set<ActiveScenario> scenariosToStop;
     // Keeps track of which scenarios should be restarted after this step.
     private final Set<ActiveScenario> scenariosToRestart;
+    // The gains of all scenarios for all output channels: the channels of all sound card streams after each other.
+    private final GainMatrix gainMatrix;
+    // The accumulators of all output channels, in the same order as the output channels of the gain matrix.
+    private final int[][] channelAccumulators;
+    // Per output channel, whether or not the samples of the only contributing scenario can be copied (instead of added) in this step.
+    private final boolean[] copyChannels;
+    // Scratch buffer for one block of decoded input samples.
+    private final short[] sampleBlock;
+    // Counts the scenario and sound card stream pairs that were skipped, because the scenario has a gain of 0 for all channels.
+    private final Counter zeroGainSkipsCounter;
+    // Counts the sound card streams that got the samples of one scenario copied, because it was the only one contributing with unity gain.
+    private final Counter unityGainCopiesCounter;
+    // Counts the sound card streams that got the shared silence, because no scenario contributed to them.
+    private final Counter silentSoundCardsCounter;
+    // Shared silence for all idle sound card streams: only 0's and never written to, so it can be used by all output buffers at once.
+    private byte[] silence;
+    // The fork join pool for calculating steps in parallel (only created when needed).
+    private ForkJoinPool forkJoinPool;
     // The amount of frames we need to add to the buffer in this step.
-    private final int amountOfFramesNeeded;
+    private int amountOfFramesNeeded;
+    // The amount of scenarios that produced a result in this step (so did not fail).
+    private int amountOfScenarioResults;
+    // The amount of millis of audio data to keep in the sound card streams, if adapted at runtime (0 = use the technical setting).
+    private int soundCardBufferMillis;
+    // The time of the mixer clock at the start of this step, shared by all scenarios in the step.
+    private long stepMillis;
 
     /**
-     * Create a mixer step with the needed info for the calculations.
+     * Create a mixer step for the given mixer context and sound card writers, that will be reused for every step.
+     * The amount of frames needed per sound card stream is recorded in the metrics registry of the context.
      */
-    public MixerStep(Collection<ActiveScenario> activeScenarios, Collection<SoundCardStream> soundCardStreams) {
-        this.soundCardStreams = soundCardStreams;
+    public MixerStep(MixerContext context, Collection<SoundCardWriter> soundCardWriters) {
+        this.context = context;
+        this.soundCardBuffers = new ArrayList<>();
+        int numberOfChannels = 0;
+        for (SoundCardWriter soundCardWriter : soundCardWriters) {
+            SoundCard soundCard = soundCardWriter.getSoundCardStream().getSoundCard();
+            String metricName = "soundcard." + soundCard.getId() + ".frames.needed";
+            this.soundCardBuffers.add(new SoundCardBuffers(soundCardWriter, context.getMetricsRegistry().counter(metricName), numberOfChannels));
+            numberOfChannels += soundCard.getNumberOfChannels();
+        }
+        this.scenarioBuffers = new ArrayList<>();
+        this.gainMatrix = new GainMatrix(this.getChannelSpeakerIndices(numberOfChannels));
+        this.channelAccumulators = new int[numberOfChannels][];
+        this.copyChannels = new boolean[numberOfChannels];
+        this.sampleBlock = new short[SampleMixer.BLOCK_SIZE];
+        this.zeroGainSkipsCounter = context.getMetricsRegistry().counter("step.zero.gain.skips");
+        this.unityGainCopiesCounter = context.getMetricsRegistry().counter("step.unity.gain.copies");
+        this.silentSoundCardsCounter = context.getMetricsRegistry().counter("step.silent.soundcards");
+        this.silence = new byte[0];
+        this.stepActiveScenarios = new ArrayList<>();
         this.scenariosToStop = new HashSet<>();
         this.scenariosToRestart = new HashSet<>();
+    }
 
-        // First, check if there are any scenarios that should be stopped. If so, add them to the scenarios to stop collection.
-        // They will be stopped by the mixer and stopped at the next step.
-        StreamEx.of(activeScenarios)
-                .filter(activeScenarino -> activeScenarino.getPlayback().shouldStop())
-                .forEach(this.scenariosToStop::add);
+    /**
+     * Get the speaker indices (in the room) of all output channels: the speakers of all channels of every sound card stream after each other.
+     */
+    private int[] getChannelSpeakerIndices(int numberOfChannels) {
+        Room room = this.context.getSettings().getRoom();
+        int[] channelSpeakerIndices = new int[numberOfChannels];
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            SoundCard soundCard = buffers.getSoundCardStream().getSoundCard();
+            for (int channel = 0; channel < soundCard.getNumberOfChannels(); channel++) {
+                channelSpeakerIndices[buffers.getFirstChannel() + channel] = room.getSpeakerIndex(soundCard.getSpeakerId(channel));
+            }
+        }
+        return channelSpeakerIndices;
+    }
 
-        // Make a copy of the provided active scenarios, so we can safely change the collection.
-        this.stepActiveScenarios = new HashSet<>(activeScenarios);
-        // Remove all scenarios to stop, so they will not be taken into account anymore in this step.
-        this.stepActiveScenarios.removeAll(this.scenariosToStop);
+    /**
+     * Set the amount of millis of audio data to keep in the sound card streams, overriding the technical setting.
+     * Used when the sound card buffer is adapted at runtime. Will be taken into account from the next prepare on.
+     */
+    public void setSoundCardBufferMillis(int soundCardBufferMillis) {
+        this.soundCardBufferMillis = soundCardBufferMillis;
+    }
+
+    /**
+     * Prepare the next step with the needed info for the calculations.
+     * This will clear all state of the previous step.
+     */
+    public void prepare(Collection<ActiveScenario> activeScenarios) {
+        this.stepActiveScenarios.clear();
+        this.scenariosToStop.clear();
+        this.scenariosToRestart.clear();
+        this.amountOfScenarioResults = 0;
+        this.stepMillis = this.context.getClock().getCurrentMillis();
+
+        for (ActiveScenario activeScenario : activeScenarios) {
+            if (activeScenario.getPlayback().shouldStop(this.stepMillis)) {
+                // If a scenario should be stopped, add it to the scenarios to stop collection.
+                // It will be stopped by the mixer and will not be taken into account anymore in this step.
+                this.scenariosToStop.add(activeScenario);
+            } else {
+                this.stepActiveScenarios.add(activeScenario);
+            }
+        }
 
         this.amountOfFramesNeeded = this.calculateAmountOfFramesNeeded();
     }
@@ -79,24 +166,31 @@ public class MixerStep {
      * for all sounds card streams.
      */
     private int calculateAmountOfFramesNeeded() {
-        // Gather the amount of frames needed for all sound card streams.
-        List<Long> allFramesNeededAmounts = StreamEx.of(this.soundCardStreams)
-                .map(stream -> stream.getAmountOfFramesNeeded(getTechnicalSettings().getSoundCardBufferMillis()))
-                .toList();
-        // Calculate the min and max frames needed.
-        long minFramesNeeded = Collections.min(allFramesNeededAmounts);
-        long maxFramesNeeded = Collections.max(allFramesNeededAmounts);
+        // Calculate the min and max frames needed of all sound card streams.
+        long minFramesNeeded = Long.MAX_VALUE;
+        long maxFramesNeeded = Long.MIN_VALUE;
+        int bufferMillis = this.soundCardBufferMillis > 0 ? this.soundCardBufferMillis
+                : this.context.getTechnicalSettings().getSoundCardBufferMillis();
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            long framesNeeded = buffers.getSoundCardStream().getAmountOfFramesNeeded(bufferMillis);
+            buffers.getFramesNeededCounter().add(framesNeeded);
+            minFramesNeeded = Math.min(minFramesNeeded, framesNeeded);
+            maxFramesNeeded = Math.max(maxFramesNeeded, framesNeeded);
+        }
         // Trace write the diff between max and min, since that is an indication of how well the sound card streams are in sync.
-        Logger.trace("Diff between max and min amount of frames needed: {}", maxFramesNeeded - minFramesNeeded);
+        // Only when trace is enabled, so the logging arguments are not created for nothing every step.
+        if (Logger.getLevel() == Level.TRACE) {
+            Logger.trace("Diff between max and min amount of frames needed: {}", maxFramesNeeded - minFramesNeeded);
+        }
         // Since we have to keep in sync with all streams, we take the max frames needed as the amount needed for all streams.
         long amountOfFramesNeeded = maxFramesNeeded;
 
         if (!this.stepActiveScenarios.isEmpty()) {
-            int smallestInputBufferSize = StreamEx.of(this.stepActiveScenarios)
-                    .map(ActiveScenario::getInputBuffer)
-                    .mapToInt(AudioInputBuffer::getBufferSize)
-                    .min().getAsInt();
-            ImmerseAudioFormat inputFormat = getSettings().getInputFormat();
+            int smallestInputBufferSize = Integer.MAX_VALUE;
+            for (ActiveScenario activeScenario : this.stepActiveScenarios) {
+                smallestInputBufferSize = Math.min(smallestInputBufferSize, activeScenario.getInputBuffer().getBufferSize());
+            }
+            ImmerseAudioFormat inputFormat = this.context.getSettings().getInputFormat();
             // If the amount of frames needed does not fit in the smallest scenario input buffer,
             // cut to that size, cause we can never read more in one step.
             if (amountOfFramesNeeded * inputFormat.getNumberOfBytesPerFrame() > smallestInputBufferSize) {
@@ -110,6 +204,13 @@ public class MixerStep {
         return (int) amountOfFramesNeeded;
     }
 
+    /**
+     * The amount of frames this step mixes for every sound card stream.
+     */
+    public int getAmountOfFramesNeeded() {
+        return this.amountOfFramesNeeded;
+    }
+
     public Set<ActiveScenario> getScenariosToStop() {
         return this.scenariosToStop;
     }
@@ -120,279 +221,493 @@ public class MixerStep {
 
     /**
      * Calculate the next step buffer data for each sound card stream.
+     * The output buffer of each of the returned sound card buffers should be handed over to the sound card writer
+     * (either submitted or written synchronously), so it will return to the pool of the writer.
      */
-    public Map<SoundCardStream, byte[]> calculateBufferData() {
+    public List<SoundCardBuffers> calculateBufferData() {
         if (this.amountOfFramesNeeded == 0) {
             // If no frames are needed, provide 0-length buffers for all sound card streams.
-            return StreamUtil.toMapFixedValue(this.soundCardStreams, new byte[0]).toMap();
+            this.soundCardBuffers.forEach(buffers -> buffers.nextOutputBuffer(0));
         } else if (this.stepActiveScenarios.isEmpty()) {
             // If there are no active scenarios, create buffers with just silence for all sound card streams.
-            return this.createSilence();
+            this.createSilence();
         } else {
             // If there are active scenarios, perform the actual algorithm to calculate the buffers.
-            return this.createAudioBuffers();
+            this.createAudioBuffers();
         }
+        return this.soundCardBuffers;
     }
 
     /**
      * Create just silence for all sound card streams.
      */
-    private Map<SoundCardStream, byte[]> createSilence() {
-        // Create an output array of the right size.
-        byte[] silenceBuffer = new byte[this.amountOfFramesNeeded * getSettings().getOutputFormat().getNumberOfBytesPerFrame()];
-        // Fill the array with just 0's (meaning no amplitudes, so silence).
-        Arrays.fill(silenceBuffer, (byte) 0);
-        // Map all sound cards streams to the same silence buffer.
-        return StreamUtil.toMapFixedValue(this.soundCardStreams, silenceBuffer).toMap();
+    private void createSilence() {
+        this.prepareSilence();
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            this.writeSilence(buffers);
+        }
+        this.silentSoundCardsCounter.add(this.soundCardBuffers.size());
     }
 
     /**
-     * Perform the actual Immerse audio mixing algorithm to calculate the next step sound card stream buffers.
+     * Make sure the shared silence is big enough for the output of every sound card stream in this step.
+     * A new array is created when it has to grow, since the old one might still be in use by output buffers waiting to be written.
      */
-    private Map<SoundCardStream, byte[]> createAudioBuffers() {
-        // Signal that the next step in processing will take place.
-        this.stepActiveScenarios.forEach(ActiveScenario::nextStep);
+    private void prepareSilence() {
+        int numberOfBytesPerSample = this.context.getSettings().getOutputFormat().getNumberOfBytesPerSample();
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            int outputLength = this.amountOfFramesNeeded * buffers.getNumberOfChannels() * numberOfBytesPerSample;
+            // A new array is filled with just 0's (meaning no amplitudes, so silence).
+            this.silence = BufferUtil.ensureCapacity(this.silence, outputLength);
+        }
+    }
 
-        List<ScenarioResult> scenarioResults = this.calculateScenarioResults();
+    /**
+     * Let the output buffer of the sound card stream point to the shared silence, instead of filling it's own bytes with 0's.
+     */
+    private void writeSilence(SoundCardBuffers buffers) {
+        int numberOfBytesPerSample = this.context.getSettings().getOutputFormat().getNumberOfBytesPerSample();
+        buffers.nextSilenceBuffer(this.silence, this.amountOfFramesNeeded * buffers.getNumberOfChannels() * numberOfBytesPerSample);
+    }
 
-        if (scenarioResults.isEmpty()) {
+    /**
+     * Perform the actual Immerse audio mixing algorithm to calculate the next step sound card stream buffers.
+     * Depending on the technical settings and the workload of this step, the calculations are performed in parallel or not.
+     */
+    private void createAudioBuffers() {
+        int numberOfScenarios = this.stepActiveScenarios.size();
+        // Make sure there are scenario buffers for every scenario, before (possibly) going parallel.
+        this.getScenarioBuffers(numberOfScenarios - 1);
+        boolean parallel = this.shouldCalculateInParallel();
+
+        // Calculate the scenario results: per scenario, independent of each other.
+        if (parallel) {
+            IntStreamEx.range(numberOfScenarios).parallel(this.getForkJoinPool())
+                    .forEach(scenarioIndex -> this.calculateScenarioResult(scenarioIndex, true));
+        } else {
+            for (int scenarioIndex = 0; scenarioIndex < numberOfScenarios; scenarioIndex++) {
+                this.calculateScenarioResult(scenarioIndex, false);
+            }
+        }
+        // Handle the scenario results in the order of the scenarios, to keep track of the scenario lifecycle.
+        this.handleScenarioResults();
+
+        if (this.amountOfScenarioResults == 0) {
             // If there were no scenarios left (because of input read errors), create silence.
-            return this.createSilence();
+            this.createSilence();
+            return;
+        }
+        // Build the gain matrix once, so the speaker volumes don't have to be looked up while mixing.
+        this.calculateGainMatrix();
+        this.selectMixPaths();
+        if (parallel) {
+            // If there are scenarios left, calculate the actual output buffers: per sound card stream, independent of each other.
+            IntStreamEx.range(this.soundCardBuffers.size()).parallel(this.getForkJoinPool()).forEach(this::calculateOutputBuffer);
         } else {
             // If there are scenarios left, calculate the actual output buffers.
-            return this.calculateOutputBuffers(scenarioResults);
+            this.calculateOutputBuffers();
+            // The input bytes are processed, so they can be released.
+            for (int scenarioIndex = 0; scenarioIndex < numberOfScenarios; scenarioIndex++) {
+                this.releaseInput(this.stepActiveScenarios.get(scenarioIndex), this.scenarioBuffers.get(scenarioIndex));
+            }
         }
     }
 
     /**
-     * Calculate the scenario results by reading the samples from the input stream
-     * and calculating the speaker volumes according to the scenario algorithms.
+     * Decide whether or not to calculate this step in parallel.
+     * That will only be the case if configured so and if the workload of this step is big enough to benefit from it.
      */
-    private List<ScenarioResult> calculateScenarioResults() {
-        return StreamEx.of(this.stepActiveScenarios)
-                // Read the samples from the input streams of the scenarios.
-                .mapToEntry(this::readSamples)
-                // Skip the empty results (in case of I/O error).
-                .flatMapValues(StreamUtil::optionalToStream)
-                // Apply the scenario dynamic volume.
-                .mapToValue(this::applyScenarioVolume)
-                // Calculate the speaker volumes according to the algorithms in the scenario settings.
-                .mapKeys(this::calculateSpeakerVolumes)
-                // Create new ScenarioResult objects to store all results together.
-                .mapKeyValue(ScenarioResult::new)
-                .toList();
+    private boolean shouldCalculateInParallel() {
+        if (!this.context.getTechnicalSettings().isParallelStep()) {
+            return false;
+        }
+        long workload = (long) this.amountOfFramesNeeded * this.stepActiveScenarios.size() * this.soundCardBuffers.size();
+        return workload >= this.context.getTechnicalSettings().getParallelStepThreshold();
     }
 
     /**
-     * Read the input samples for this step from the audio input stream of the scenario.
-     * The return value is an Optional to signal success (samples read) or failure
-     * (exception while reading samples).
-     * Additionally, if the end of stream is reached while reading, the playback
-     * is queried to decide how to continue (stop or restart).
+     * Get the fork join pool for calculating steps in parallel, creating it on first use.
      */
-    private Optional<short[]> readSamples(ActiveScenario activeScenario) {
-        try {
-            // Create a byte array of the right size (samples needed = frames needed, because the input must be mono).
-            byte[] byteBuffer = new byte[this.amountOfFramesNeeded * activeScenario.getFormat().getNumberOfBytesPerSample()];
-            // Fill the byte buffer with the next chunk of audio data to be processed and record if there was an end of stream reached while doing so.
-            boolean endOfStream = this.readBytes(activeScenario, byteBuffer);
-            // Now read the samples from the byte buffer.
-            short[] samples = SampleReader.readSamples(byteBuffer, activeScenario.getFormat());
-            if (endOfStream) {
-                // End of stream reached, check playback for next action.
-                if (activeScenario.getPlayback().endOfStream()) {
-                    // Continue with the next playback loop, so restart scenario.
-                    this.scenariosToRestart.add(activeScenario);
-                } else {
-                    // No more playback, stop scenario.
-                    this.scenariosToStop.add(activeScenario);
+    private ForkJoinPool getForkJoinPool() {
+        if (this.forkJoinPool == null) {
+            this.forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(this.context.getName() + " step worker " + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return this.forkJoinPool;
+    }
+
+    /**
+     * Shutdown the resources of this mixer step, after which it can not be used anymore.
+     */
+    public void shutdown() {
+        if (this.forkJoinPool != null) {
+            this.forkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * Get the scenario buffers for the scenario at the given position, creating them if needed.
+     */
+    private ScenarioBuffers getScenarioBuffers(int scenarioIndex) {
+        while (this.scenarioBuffers.size() <= scenarioIndex) {
+            this.scenarioBuffers.add(new ScenarioBuffers());
+        }
+        return this.scenarioBuffers.get(scenarioIndex);
+    }
+
+    /**
+     * Calculate the scenario result of the scenario at the given position by reading the bytes from the input stream
+     * and calculating the scenario volume and speaker volumes according to the scenario algorithms.
+     * If decode is true, the input bytes are also decoded into the scaled samples, for use in the parallel calculation.
+     * The result is stored in the scenario buffers at the same position.
+     *
+     * NB: This method only touches the scenario and the scenario buffers at the given position, so it can be called in parallel.
+     */
+    private void calculateScenarioResult(int scenarioIndex, boolean decode) {
+        ActiveScenario activeScenario = this.stepActiveScenarios.get(scenarioIndex);
+        ScenarioBuffers buffers = this.scenarioBuffers.get(scenarioIndex);
+        // Signal that the next step in processing will take place.
+        activeScenario.nextStep(this.stepMillis);
+        // Read the bytes from the input stream of the scenario.
+        buffers.failed = !this.readInput(activeScenario, buffers);
+        if (!buffers.failed) {
+            // Get the scenario dynamic volume.
+            buffers.volume = this.calculateScenarioVolume(activeScenario);
+            // Calculate the speaker volumes according to the algorithms in the scenario settings (reused if they did not change).
+            buffers.speakerVolumes = activeScenario.calculateSpeakerVolumes();
+            if (decode) {
+                // A scenario with a volume of 0 does not contribute to any output channel, so there is no need to decode it.
+                if (buffers.volume > 0) {
+                    this.decodeInput(buffers);
                 }
+                // The input bytes are processed (or not needed), so they can be released.
+                this.releaseInput(activeScenario, buffers);
             }
-            // Return the samples as 'successful' optional.
-            return Optional.of(samples);
-        } catch (IOException e) {
-            // Instead of crashing upon an IOException in reading, we just log it and stop that scenario.
+        }
+    }
+
+    /**
+     * Handle the scenario results: keep track of which scenarios should be stopped or restarted and count the amount of results.
+     * If the end of stream is reached while reading, the playback is queried to decide how to continue (stop or restart).
+     */
+    private void handleScenarioResults() {
+        for (int scenarioIndex = 0; scenarioIndex < this.stepActiveScenarios.size(); scenarioIndex++) {
+            ActiveScenario activeScenario = this.stepActiveScenarios.get(scenarioIndex);
+            ScenarioBuffers buffers = this.scenarioBuffers.get(scenarioIndex);
+            if (buffers.failed) {
+                // Instead of crashing upon an exception in reading, we stop that scenario.
+                this.scenariosToStop.add(activeScenario);
+            } else {
+                if (buffers.endOfStream) {
+                    // End of stream reached, check playback for next action.
+                    if (activeScenario.getPlayback().endOfStream()) {
+                        // Continue with the next playback loop, so restart scenario.
+                        this.scenariosToRestart.add(activeScenario);
+                    } else {
+                        // No more playback, stop scenario.
+                        this.scenariosToStop.add(activeScenario);
+                    }
+                }
+                this.amountOfScenarioResults++;
+            }
+        }
+    }
+
+    /**
+     * Read the input bytes for this step from the audio input stream of the scenario into the scenario buffers.
+     * The return value signals success (bytes read) or failure (exception while reading bytes).
+     * Additionally, the scenario buffers record if the end of stream is reached while reading.
+     */
+    private boolean readInput(ActiveScenario activeScenario, ScenarioBuffers buffers) {
+        try {
+            // Make sure the buffer is of the right size (samples needed = frames needed, because the input must be mono).
+            int numberOfBytesPerSample = activeScenario.getFormat().getNumberOfBytesPerSample();
+            buffers.ensureCapacity(this.amountOfFramesNeeded, numberOfBytesPerSample);
+            int numberOfBytes = this.amountOfFramesNeeded * numberOfBytesPerSample;
+            buffers.format = activeScenario.getFormat();
+            // Fill the byte buffer with the next chunk of audio data to be processed and record if there was an end of stream reached while doing so.
+            buffers.endOfStream = this.readBytes(activeScenario, buffers, numberOfBytes);
+            // Signal success.
+            return true;
+        } catch (Exception e) {
+            // Instead of crashing upon an exception in reading, we just log it (the scenario will be stopped).
             Logger.error(e, "Exception while reading from audio input stream");
-            this.scenariosToStop.add(activeScenario);
-            // Return an empty optional to signal failure.
-            return Optional.empty();
+            // Signal failure.
+            return false;
         }
     }
 
-    private boolean readBytes(ActiveScenario activeScenario, byte[] byteBuffer) {
+    /**
+     * Read the requested amount of bytes from the input buffer of the scenario.
+     * In the normal case, the scenario buffers will get a view on the bytes in the input buffer, so they don't have to be copied.
+     * That view should be released after the bytes are processed. In all other cases, the bytes are copied into the byte buffer.
+     * Returns whether or not the end of stream was reached while doing so.
+     */
+    private boolean readBytes(ActiveScenario activeScenario, ScenarioBuffers buffers, int numberOfBytes) {
         boolean endOfStream = false;
         AudioInputBuffer inputBuffer = activeScenario.getInputBuffer();
-        if (inputBuffer.canRead(byteBuffer.length)) {
-            inputBuffer.read(byteBuffer);
-            if (!activeScenario.getStreamConfig().isLive()) {
-                // Update the buffer after a read, so it will be refilled (asynchronously).
-                // Only, for non-live, cause for live there will be a continuous read loop already.
-                AsyncUtil.submitAsyncTask(() -> inputBuffer.fill());
-            }
+        buffers.inputView = null;
+        if (inputBuffer.canRead(numberOfBytes)) {
+            buffers.inputView = inputBuffer.readView(numberOfBytes);
         } else if (inputBuffer.isStreamClosed()) {
-            int amountRead = inputBuffer.readRemaining(byteBuffer);
-            if (amountRead < byteBuffer.length) {
+            int amountRead = inputBuffer.readRemaining(buffers.bytes, numberOfBytes);
+            if (amountRead < numberOfBytes) {
                 endOfStream = true;
-                // The rest should be silence, so a value of 0. But since that is already the default value for a byte in an array, no action is needed.
+                // The rest should be silence, so a value of 0. The byte buffer is reused, so explicitly clear the rest.
+                Arrays.fill(buffers.bytes, amountRead, numberOfBytes, (byte) 0);
             }
         } else {
-            Logger.warn("AudioInputBuffer doesn't have " + byteBuffer.length + " available, skipping scenario for this step.");
-            // The array will be initialized with 0's, which means silence, so no further action needed.
+            Logger.warn("AudioInputBuffer doesn't have " + numberOfBytes + " available, skipping scenario for this step.");
+            // Fill with 0's, which means silence. The byte buffer is reused, so it might still contain data of a previous step.
+            Arrays.fill(buffers.bytes, 0, numberOfBytes, (byte) 0);
         }
         return endOfStream;
     }
 
     /**
-     * Apply the dynamic volume of the scenario to the samples.
-     * Return the same samples array, so it can be used in a streamed pipeline.
+     * Release the view on the input buffer of the scenario (if any), after the bytes are processed.
      */
-    private short[] applyScenarioVolume(ActiveScenario activeScenario, short[] samples) {
-        // Get the dynamic volume at this time.
-        double scenarioVolume = activeScenario.getVolume().getCurrentValue();
-        // Perform boundary checks.
-        if (scenarioVolume < 0) {
-            scenarioVolume = 0;
-            Logger.warn("Scenario " + activeScenario.getScenario().getName() + " returned a volume less than 0.");
-        }
-        if (scenarioVolume > 1) {
-            scenarioVolume = 1;
-            Logger.warn("Scenario " + activeScenario.getScenario().getName() + " returned a volume greater than 1.");
-        }
-        // Apply the volume setting of this scenario.
-        for (int i = 0; i < samples.length; i++) {
-            // Apply the volume to the original value (= take a fraction of the amplitude).
-            samples[i] = (short) (samples[i] * scenarioVolume);
+    private void releaseInput(ActiveScenario activeScenario, ScenarioBuffers buffers) {
+        if (buffers.inputView != null) {
+            AudioInputBuffer inputBuffer = activeScenario.getInputBuffer();
+            inputBuffer.release(buffers.inputView);
+            buffers.inputView = null;
+            if (!activeScenario.getStreamConfig().isLive()) {
+                // Update the buffer after a read, so it will be refilled (asynchronously when playing in real time).
+                // Only, for non-live, cause for live there will be a continuous read loop already.
+                if (this.context.isRealTime()) {
+                    inputBuffer.fillAsync();
+                } else {
+                    inputBuffer.fill();
+                }
+            }
         }
-        return samples;
     }
 
     /**
-     * Calculate the speaker volumes by using the configured dynamic locations
-     * and volume algorithms of the given scenario.
+     * Decode the input of the scenario into the scaled samples of the scenario buffers, for use in the parallel calculation.
      */
-    private SpeakerVolumes calculateSpeakerVolumes(ActiveScenario activeScenario) {
-        // Calculate the volume ratios using the configured algorithm.
-        SpeakerVolumeRatios speakerVolumeRatios = activeScenario.getVolumeRatiosAlgorithm().getCurrentValue();
-        // Calculate the actual volumes using the configured normalize algorithm.
-        return activeScenario.getNormalizeAlgorithm().calculateVolumes(speakerVolumeRatios);
+    private void decodeInput(ScenarioBuffers buffers) {
+        buffers.ensureSamplesCapacity(this.amountOfFramesNeeded);
+        ReadView view = buffers.inputView;
+        if (view == null) {
+            SampleMixer.decode(buffers.bytes, 0, 0, this.amountOfFramesNeeded, buffers.format, buffers.volume, buffers.samples);
+        } else {
+            // The view can consist of 2 segments, because the input buffer wraps around.
+            int firstFrames = view.getFirstLength() / buffers.format.getNumberOfBytesPerSample();
+            int secondFrames = this.amountOfFramesNeeded - firstFrames;
+            SampleMixer.decode(view.getBytes(), view.getFirstOffset(), 0, firstFrames, buffers.format, buffers.volume, buffers.samples);
+            SampleMixer.decode(view.getBytes(), 0, firstFrames, secondFrames, buffers.format, buffers.volume, buffers.samples);
+        }
     }
 
     /**
-     * Calculate the byte buffers that should be fed to the corresponding sound card streams and return that as a mapping.
-     * This method does not perform any actual writing to the sound card streams yet,
-     * cause that needs to be done asynchronously later.
+     * Accumulate the input of the scenario at the given position into the accumulators of all output channels,
+     * using the row of the gain matrix of that scenario.
      */
-    private Map<SoundCardStream, byte[]> calculateOutputBuffers(List<ScenarioResult> scenarioResults) {
-        // Every sound card stream is coupled to the 'raw' input data.
-        return toMapFixedValue(this.soundCardStreams, scenarioResults)
-                // Calculate the samples per scenario result and save them in one list per sound card stream.
-                .mapToValue(this::calculateCombinedOutputSamples)
-                // Merge the samples lists into one list of output samples per sound card stream.
-                .mapValues(this::mergeSamples)
-                // Write the samples into a byte buffer that can be fed to the sound card stream.
-                .mapValues(this::writeSamplesToBuffer)
-                .toMap();
+    private void accumulateInput(int scenarioIndex, ScenarioBuffers buffers) {
+        int numberOfChannels = this.gainMatrix.getNumberOfChannels();
+        double[] gains = this.gainMatrix.getGains();
+        int gainOffset = this.gainMatrix.getRowOffset(scenarioIndex);
+        ReadView view = buffers.inputView;
+        if (view == null) {
+            SampleMixer.accumulate(buffers.bytes, 0, 0, this.amountOfFramesNeeded, buffers.format,
+                    buffers.volume, gains, gainOffset, this.channelAccumulators, this.copyChannels, numberOfChannels, this.sampleBlock);
+        } else {
+            // The view can consist of 2 segments, because the input buffer wraps around.
+            int firstFrames = view.getFirstLength() / buffers.format.getNumberOfBytesPerSample();
+            SampleMixer.accumulate(view.getBytes(), view.getFirstOffset(), 0, firstFrames, buffers.format,
+                    buffers.volume, gains, gainOffset, this.channelAccumulators, this.copyChannels, numberOfChannels, this.sampleBlock);
+            SampleMixer.accumulate(view.getBytes(), 0, firstFrames, this.amountOfFramesNeeded - firstFrames, buffers.format,
+                    buffers.volume, gains, gainOffset, this.channelAccumulators, this.copyChannels, numberOfChannels, this.sampleBlock);
+        }
     }
 
     /**
-     * Calculate the samples for all scenario results for the given sound card stream.
+     * Calculate the dynamic volume of the scenario for this step, kept within the boundaries of 0 and 1.
      */
-    private List<short[]> calculateCombinedOutputSamples(SoundCardStream soundCardStream, List<ScenarioResult> scenarioResults) {
-        return StreamEx.of(scenarioResults)
-                // Just map the individual samples calculation over the list of scenario results.
-                .map(scenarioResult -> this.calculateOutputSamples(soundCardStream, scenarioResult.speakerVolumes, scenarioResult.samples))
-                .toList();
+    private double calculateScenarioVolume(ActiveScenario activeScenario) {
+        // Get the dynamic volume at this time.
+        double scenarioVolume = activeScenario.getVolume().getCurrentValue();
+        // Perform boundary checks.
+        if (scenarioVolume < 0) {
+            scenarioVolume = 0;
+            Logger.warn("Scenario " + activeScenario.getScenario().getName() + " returned a volume less than 0.");
+        }
+        if (scenarioVolume > 1) {
+            scenarioVolume = 1;
+            Logger.warn("Scenario " + activeScenario.getScenario().getName() + " returned a volume greater than 1.");
+        }
+        return scenarioVolume;
     }
 
     /**
-     * Calculate the output samples based on the input samples and the configured speaker volumes for this sound card stream.
+     * Build the gain matrix for this step: the speaker volume of every output channel, for every scenario with a result.
+     * A scenario with a volume of 0 gets gains of 0, since all it's scaled samples are 0 anyway, so it can be skipped while mixing.
      */
-    private short[] calculateOutputSamples(SoundCardStream soundCardStream, SpeakerVolumes speakerVolumes, short[] sampleBuffer) {
-        // Get the volume fractions for the left and right speaker of this sound card stream from the speaker volumes.
-        double volumeFractionSpeakerLeft = speakerVolumes.getVolumeFraction(soundCardStream.getSoundCard().getLeftSpeakerId());
-        double volumeFractionSpeakerRight = speakerVolumes.getVolumeFraction(soundCardStream.getSoundCard().getRightSpeakerId());
-        // The output samples size will be twice the size of the input, because the output is in stereo.
-        short[] stereoSamples = new short[sampleBuffer.length * 2];
-        // For all input samples.
-        for (int sampleIndex = 0; sampleIndex < sampleBuffer.length; sampleIndex++) {
-            // Calculate the left and right sample according to the corresponding volume fractions.
-            short leftSample = (short) (sampleBuffer[sampleIndex] * volumeFractionSpeakerLeft);
-            short rightSample = (short) (sampleBuffer[sampleIndex] * volumeFractionSpeakerRight);
-            // Put the calculated samples at the right place in the output buffer.
-            stereoSamples[sampleIndex * 2] = leftSample;
-            stereoSamples[sampleIndex * 2 + 1] = rightSample;
-        }
-        return stereoSamples;
+    private void calculateGainMatrix() {
+        this.gainMatrix.prepare(this.stepActiveScenarios.size());
+        for (int scenarioIndex = 0; scenarioIndex < this.stepActiveScenarios.size(); scenarioIndex++) {
+            ScenarioBuffers scenarioResult = this.scenarioBuffers.get(scenarioIndex);
+            if (!scenarioResult.failed) {
+                if (scenarioResult.volume == 0) {
+                    this.gainMatrix.setZeroRow(scenarioIndex);
+                } else {
+                    this.gainMatrix.setRow(scenarioIndex, scenarioResult.speakerVolumes);
+                }
+            }
+        }
     }
 
     /**
-     * Merge the samples lists by summing the sample values for each index and returning one list of output samples.
-     * This method also takes into account that the merged sample value should not be out of bounds of the sample size.
+     * Select the mix path of every sound card stream for this step, based on the scenarios that contribute to it
+     * (so have a gain other than 0 for at least one of it's channels):
+     * - no contributing scenarios: silent, the shared silence is written and no mixing is needed at all
+     * - one contributing scenario, with a gain of 1 for all channels it contributes to: copy, the samples of that scenario are copied
+     * into the accumulators of those channels instead of added, so they don't have to be cleared first
+     * - all other cases: mix, the samples of all contributing scenarios are multiplied with their gain and added
+     * The channels with the copy path are marked in the copy channels and the taken paths are counted in the metrics registry.
      */
-    private short[] mergeSamples(List<short[]> samplesLists) {
-        // Optimization: if there is just one input list, it well be equal to the output list, so we can skip the calculations.
-        if (samplesLists.size() == 1) {
-            return samplesLists.get(0);
-        }
-        // The merged samples will have the same length as each of the sample lists, so just take the length of first one.
-        short[] samples = new short[samplesLists.get(0).length];
-        // For each sample index, calculate the merged sample value.
-        for (int sampleIndex = 0; sampleIndex < samples.length; sampleIndex++) {
-            // Merging the buffers is just a matter of summing the amplitudes (=samples) of the different sounds.
-            // Use an int for the intermediate calculation, to prevent number overflow issues.
-            int totalAmplitude = 0;
-            for (short[] sampleBuffer : samplesLists) {
-                totalAmplitude += sampleBuffer[sampleIndex];
+    private void selectMixPaths() {
+        double[] gains = this.gainMatrix.getGains();
+        int amountOfZeroGainSkips = 0;
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            int firstChannel = buffers.getFirstChannel();
+            int amountOfContributors = 0;
+            int contributorIndex = -1;
+            boolean unityGains = true;
+            for (int scenarioIndex = 0; scenarioIndex < this.stepActiveScenarios.size(); scenarioIndex++) {
+                if (this.scenarioBuffers.get(scenarioIndex).failed) {
+                    continue;
+                }
+                int gainOffset = this.gainMatrix.getRowOffset(scenarioIndex) + firstChannel;
+                boolean contributes = false;
+                for (int channel = 0; channel < buffers.getNumberOfChannels(); channel++) {
+                    double gain = gains[gainOffset + channel];
+                    if (gain != 0) {
+                        contributes = true;
+                        unityGains &= gain == 1;
+                    }
+                }
+                if (contributes) {
+                    amountOfContributors++;
+                    contributorIndex = scenarioIndex;
+                } else {
+                    amountOfZeroGainSkips++;
+                }
             }
-            short sanitizedAmplitude;
-            // Keep amplitude within the boundaries of the sample size.
-            if (getSettings().getOutputFormat().getSampleSize() == SampleSize.ONE_BYTE) {
-                sanitizedAmplitude = this.sanitizeAsByte(totalAmplitude);
+            MixPath mixPath;
+            if (amountOfContributors == 0) {
+                mixPath = MixPath.SILENT;
+                this.silentSoundCardsCounter.increment();
+            } else if (amountOfContributors == 1 && unityGains) {
+                mixPath = MixPath.COPY;
+                this.unityGainCopiesCounter.increment();
             } else {
-                sanitizedAmplitude = this.sanitizeAsShort(totalAmplitude);
+                mixPath = MixPath.MIX;
+            }
+            buffers.setMixPath(mixPath);
+            for (int channel = 0; channel < buffers.getNumberOfChannels(); channel++) {
+                this.copyChannels[firstChannel + channel] = mixPath == MixPath.COPY
+                        && this.gainMatrix.getGain(contributorIndex, firstChannel + channel) != 0;
             }
-            // The final sample value is calculated, put it in the output buffer.
-            samples[sampleIndex] = sanitizedAmplitude;
         }
-        return samples;
+        this.zeroGainSkipsCounter.add(amountOfZeroGainSkips);
+        this.prepareSilence();
     }
 
     /**
-     * Write the samples into a byte buffer according to the output format.
+     * Prepare the accumulators of the channels of the sound card stream for this step. The accumulators of channels that will be
+     * copied into don't have to be cleared, all other ones do. For a silent sound card stream, the accumulators are not used at all.
      */
-    private byte[] writeSamplesToBuffer(short[] streamAmplitudes) {
-        return SampleWriter.writeSamples(streamAmplitudes, getSettings().getOutputFormat());
+    private int[][] prepareChannelAccumulators(SoundCardBuffers buffers) {
+        int[][] soundCardAccumulators = buffers.prepareChannelAccumulators(this.amountOfFramesNeeded);
+        if (buffers.getMixPath() != MixPath.SILENT) {
+            for (int channel = 0; channel < soundCardAccumulators.length; channel++) {
+                if (!this.copyChannels[buffers.getFirstChannel() + channel]) {
+                    buffers.clearChannelAccumulator(channel, this.amountOfFramesNeeded);
+                }
+            }
+        }
+        return soundCardAccumulators;
     }
 
     /**
-     * Bring the sample value back into the boundaries of a byte by cutting it off at the max or min value if needed.
+     * Calculate the byte buffers that should be fed to the corresponding sound card streams and store them in the sound card buffers.
+     * This method does not perform any actual writing to the sound card streams yet,
+     * cause that needs to be done asynchronously later.
+     *
+     * The input of every scenario is processed in one pass: each input sample is decoded once, the scenario volume is applied
+     * and the result is added to the accumulators of all output channels, according to the gain of that scenario for that channel
+     * in the gain matrix. After all scenarios are processed, the accumulated amplitudes of the channels of each sound card stream
+     * are cut off at the boundaries of the sample size and encoded into the output buffer.
+     * Scenarios with a gain of 0 for all output channels are not decoded at all.
      */
-    private byte sanitizeAsByte(int sample) {
-        return (byte) Math.max(Math.min(sample, Byte.MAX_VALUE), Byte.MIN_VALUE);
+    private void calculateOutputBuffers() {
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            int[][] soundCardAccumulators = this.prepareChannelAccumulators(buffers);
+            System.arraycopy(soundCardAccumulators, 0, this.channelAccumulators, buffers.getFirstChannel(), soundCardAccumulators.length);
+        }
+        for (int scenarioIndex = 0; scenarioIndex < this.stepActiveScenarios.size(); scenarioIndex++) {
+            ScenarioBuffers scenarioResult = this.scenarioBuffers.get(scenarioIndex);
+            if (!scenarioResult.failed && !this.gainMatrix.isZeroRow(scenarioIndex)) {
+                this.accumulateInput(scenarioIndex, scenarioResult);
+            }
+        }
+        for (SoundCardBuffers buffers : this.soundCardBuffers) {
+            if (buffers.getMixPath() == MixPath.SILENT) {
+                this.writeSilence(buffers);
+            } else {
+                this.writeOutputBuffer(buffers);
+            }
+        }
     }
 
     /**
-     * Bring the sample value back into the boundaries of a short by cutting it off at the max or min value if needed.
+     * Calculate the byte buffer that should be fed to the sound card stream at the given position, based on the decoded scenario samples.
+     * The scenarios are accumulated in the same order as in the serial calculation, so the output is exactly the same.
+     *
+     * NB: This method only touches the sound card buffers at the given position, so it can be called in parallel.
      */
-    private short sanitizeAsShort(int sample) {
-        return (short) Math.max(Math.min(sample, Short.MAX_VALUE), Short.MIN_VALUE);
+    private void calculateOutputBuffer(int soundCardIndex) {
+        SoundCardBuffers buffers = this.soundCardBuffers.get(soundCardIndex);
+        if (buffers.getMixPath() == MixPath.SILENT) {
+            this.writeSilence(buffers);
+            return;
+        }
+        int[][] soundCardAccumulators = this.prepareChannelAccumulators(buffers);
+        int firstChannel = buffers.getFirstChannel();
+        for (int scenarioIndex = 0; scenarioIndex < this.stepActiveScenarios.size(); scenarioIndex++) {
+            ScenarioBuffers scenarioResult = this.scenarioBuffers.get(scenarioIndex);
+            if (!scenarioResult.failed) {
+                for (int channel = 0; channel < soundCardAccumulators.length; channel++) {
+                    double gain = this.gainMatrix.getGain(scenarioIndex, firstChannel + channel);
+                    if (gain == 0) {
+                        // Nothing to add (the samples are not even decoded if the scenario volume is 0).
+                        continue;
+                    }
+                    if (this.copyChannels[firstChannel + channel]) {
+                        SampleMixer.copy(scenarioResult.samples, 0, 0, this.amountOfFramesNeeded, soundCardAccumulators[channel]);
+                    } else {
+                        SampleMixer.accumulate(scenarioResult.samples, 0, 0, this.amountOfFramesNeeded, gain, soundCardAccumulators[channel]);
+                    }
+                }
+            }
+        }
+        this.writeOutputBuffer(buffers);
     }
 
     /**
-     * Represents the calculated output of one scenario:
-     * - the samples of the scenario input stream
-     * - the volumes for each speaker according to the scenario settings
-     *
-     * Modeled as inner class to wrap these two values and give them a nice name.
+     * Write the accumulated amplitudes of the channels of the sound card stream into a byte buffer that can be fed to the sound card stream.
      */
-    private class ScenarioResult {
-        SpeakerVolumes speakerVolumes;
-        short[] samples;
-
-        public ScenarioResult(SpeakerVolumes speakerVolumes, short[] samples) {
-            this.speakerVolumes = speakerVolumes;
-            this.samples = samples;
-        }
+    private void writeOutputBuffer(SoundCardBuffers buffers) {
+        ImmerseAudioFormat outputFormat = this.context.getSettings().getOutputFormat();
+        int numberOfChannels = buffers.getNumberOfChannels();
+        byte[] outputBuffer = buffers.nextOutputBuffer(this.amountOfFramesNeeded * numberOfChannels * outputFormat.getNumberOfBytesPerSample());
+        SampleMixer.write(buffers.getChannelAccumulators(), 0, numberOfChannels, this.amountOfFramesNeeded, outputFormat, outputBuffer);
     }
 
 }
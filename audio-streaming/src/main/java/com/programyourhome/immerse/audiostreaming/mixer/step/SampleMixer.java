@@ -0,0 +1,177 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step;
+
+import com.programyourhome.immerse.audiostreaming.util.AudioUtil;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.SampleSize;
+
+/**
+ * Mixes input bytes directly into output bytes, in as few passes over the audio data as possible.
+ *
+ * The mixing is split into 2 parts:
+ * - accumulate: decode the (mono) input bytes of one scenario, apply the scenario volume and add the result, multiplied with the gain
+ * of every output channel, to the accumulator of that output channel. This is a matrix-times-signal kernel: one row of the gain matrix
+ * times the input signal of the scenario. It is performed in blocks of frames: a block of input samples is decoded once into a small
+ * scratch buffer and then added to all output channels, so the decoded block stays in the CPU cache while going over the channels.
+ * - write: bring the accumulated amplitudes of the output channels of one sound card back into the boundaries of the sample size
+ * and encode them (interleaved) as output bytes.
+ *
+ * For the parallel mixer step, the accumulate part can also be performed in 2 separate parts:
+ * - decode: decode the input bytes of one scenario and apply the scenario volume (can be done in parallel per scenario)
+ * - accumulate: add the decoded samples of one scenario to the accumulator of one output channel (can be done in parallel per sound card)
+ *
+ * There are fast paths for the most common gains: a gain of 0 adds nothing, so the channel is skipped, and a gain of 1 adds
+ * the samples as they are, without multiplying. If a scenario is the only one contributing to a channel, the samples can even be copied
+ * into the accumulator instead of added, so the accumulator does not have to be cleared first.
+ *
+ * The accumulators are int arrays (one per output channel), to prevent number overflow issues while summing the amplitudes of the scenarios.
+ * The intermediate values are truncated to a short at the same places the separate steps did before (scenario volume, speaker volume),
+ * so the output is exactly the same as decoding, scaling, panning, merging and encoding in separate passes.
+ */
+public class SampleMixer {
+
+    // The amount of frames that are decoded at once, before they are added to all output channels.
+    public static final int BLOCK_SIZE = 256;
+
+    private SampleMixer() {
+    }
+
+    /**
+     * Accumulate the input samples of one scenario into the accumulators of all output channels.
+     * The input samples are read from the byte offset in the input bytes and are accumulated starting at the frame offset,
+     * so the input can be processed in multiple segments.
+     * The gains of the scenario for all output channels are read from the gains array, starting at the gain offset (so one row of the
+     * gain matrix), in the same order as the channel accumulators. Channels with a gain of 0 are skipped. Channels that are marked
+     * in the copy channels array get the samples copied instead of added (this scenario is the only one contributing to them).
+     * The sample block is a scratch buffer of at least the block size.
+     */
+    public static void accumulate(byte[] inputBytes, int byteOffset, int frameOffset, int numberOfFrames, ImmerseAudioFormat inputFormat,
+            double scenarioVolume, double[] gains, int gainOffset, int[][] channelAccumulators, boolean[] copyChannels, int numberOfChannels,
+            short[] sampleBlock) {
+        AudioUtil.assertSigned(inputFormat);
+        int numberOfBytesPerSample = inputFormat.getNumberOfBytesPerSample();
+        for (int blockOffset = 0; blockOffset < numberOfFrames; blockOffset += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, numberOfFrames - blockOffset);
+            // Decode the block of input samples once and apply the scenario volume.
+            decode(inputBytes, byteOffset + blockOffset * numberOfBytesPerSample, 0, blockLength, inputFormat, scenarioVolume, sampleBlock);
+            // Add the block to every output channel according to the gain of that channel.
+            for (int channel = 0; channel < numberOfChannels; channel++) {
+                double gain = gains[gainOffset + channel];
+                if (gain == 0) {
+                    // Nothing to add.
+                    continue;
+                }
+                if (copyChannels[channel]) {
+                    copy(sampleBlock, 0, frameOffset + blockOffset, blockLength, channelAccumulators[channel]);
+                } else {
+                    accumulate(sampleBlock, 0, frameOffset + blockOffset, blockLength, gain, channelAccumulators[channel]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the input samples of one scenario and apply the scenario volume, storing the result in the scaled samples array.
+     * The input samples are read from the byte offset in the input bytes and are stored starting at the frame offset,
+     * so the input can be processed in multiple segments.
+     */
+    public static void decode(byte[] inputBytes, int byteOffset, int frameOffset, int numberOfFrames, ImmerseAudioFormat inputFormat,
+            double scenarioVolume, short[] scaledSamples) {
+        AudioUtil.assertSigned(inputFormat);
+        // Decide on the sample decoding once, instead of for every sample.
+        boolean oneByteSamples = inputFormat.getSampleSize() == SampleSize.ONE_BYTE;
+        boolean bigEndian = inputFormat.isBigEndian();
+        int numberOfBytesPerSample = inputFormat.getNumberOfBytesPerSample();
+        for (int frameIndex = frameOffset; frameIndex < frameOffset + numberOfFrames; frameIndex++) {
+            int byteIndex = byteOffset + (frameIndex - frameOffset) * numberOfBytesPerSample;
+            short sample = decodeSample(inputBytes, byteIndex, oneByteSamples, bigEndian);
+            // Apply the volume to the original value (= take a fraction of the amplitude).
+            scaledSamples[frameIndex] = (short) (sample * scenarioVolume);
+        }
+    }
+
+    /**
+     * Accumulate the decoded (and scaled) samples of one scenario into the accumulator of one output channel, with the gain of that channel.
+     * The samples are read starting at the sample offset and are accumulated starting at the frame offset.
+     */
+    public static void accumulate(short[] scaledSamples, int sampleOffset, int frameOffset, int numberOfFrames, double gain,
+            int[] channelAccumulator) {
+        if (gain == 0) {
+            // Nothing to add.
+            return;
+        }
+        if (gain == 1) {
+            // Multiplying with 1 does not change the sample, so just add it.
+            for (int index = 0; index < numberOfFrames; index++) {
+                channelAccumulator[frameOffset + index] += scaledSamples[sampleOffset + index];
+            }
+        } else {
+            for (int index = 0; index < numberOfFrames; index++) {
+                channelAccumulator[frameOffset + index] += (short) (scaledSamples[sampleOffset + index] * gain);
+            }
+        }
+    }
+
+    /**
+     * Copy the decoded (and scaled) samples of one scenario into the accumulator of one output channel, overwriting the current values.
+     * This is the same as accumulating with a gain of 1 into a cleared accumulator, for a scenario that is the only one contributing to the channel.
+     * The samples are read starting at the sample offset and are copied starting at the frame offset.
+     */
+    public static void copy(short[] scaledSamples, int sampleOffset, int frameOffset, int numberOfFrames, int[] channelAccumulator) {
+        for (int index = 0; index < numberOfFrames; index++) {
+            channelAccumulator[frameOffset + index] = scaledSamples[sampleOffset + index];
+        }
+    }
+
+    /**
+     * Decode one sample from the input bytes at the given byte index.
+     */
+    private static short decodeSample(byte[] inputBytes, int byteIndex, boolean oneByteSamples, boolean bigEndian) {
+        if (oneByteSamples) {
+            return inputBytes[byteIndex];
+        }
+        if (bigEndian) {
+            return (short) ((inputBytes[byteIndex] & 0xFF) << 8 | inputBytes[byteIndex + 1] & 0xFF);
+        } else {
+            return (short) (inputBytes[byteIndex] & 0xFF | (inputBytes[byteIndex + 1] & 0xFF) << 8);
+        }
+    }
+
+    /**
+     * Write the accumulated amplitudes of the given output channels into the output byte array according to the output format.
+     * The samples of the channels are interleaved: the first frame of all channels, then the second frame of all channels, etc.
+     * The amplitudes are cut off at the max or min value of the sample size if needed.
+     * Returns the amount of bytes written.
+     */
+    public static int write(int[][] channelAccumulators, int firstChannel, int numberOfChannels, int numberOfFrames,
+            ImmerseAudioFormat outputFormat, byte[] outputBuffer) {
+        AudioUtil.assertSigned(outputFormat);
+        int numberOfBytesPerSample = outputFormat.getNumberOfBytesPerSample();
+        boolean oneByteSamples = outputFormat.getSampleSize() == SampleSize.ONE_BYTE;
+        boolean bigEndian = outputFormat.isBigEndian();
+        for (int channelIndex = 0; channelIndex < numberOfChannels; channelIndex++) {
+            int[] accumulator = channelAccumulators[firstChannel + channelIndex];
+            int byteIndex = channelIndex * numberOfBytesPerSample;
+            int frameStride = numberOfChannels * numberOfBytesPerSample;
+            if (oneByteSamples) {
+                for (int frameIndex = 0; frameIndex < numberOfFrames; frameIndex++) {
+                    outputBuffer[byteIndex] = (byte) Math.max(Math.min(accumulator[frameIndex], Byte.MAX_VALUE), Byte.MIN_VALUE);
+                    byteIndex += frameStride;
+                }
+            } else {
+                for (int frameIndex = 0; frameIndex < numberOfFrames; frameIndex++) {
+                    short sample = (short) Math.max(Math.min(accumulator[frameIndex], Short.MAX_VALUE), Short.MIN_VALUE);
+                    if (bigEndian) {
+                        outputBuffer[byteIndex] = (byte) (sample >> 8 & 0xFF);
+                        outputBuffer[byteIndex + 1] = (byte) (sample & 0xFF);
+                    } else {
+                        outputBuffer[byteIndex] = (byte) (sample & 0xFF);
+                        outputBuffer[byteIndex + 1] = (byte) (sample >> 8 & 0xFF);
+                    }
+                    byteIndex += frameStride;
+                }
+            }
+        }
+        return numberOfFrames * numberOfChannels * numberOfBytesPerSample;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step;
+
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.AudioInputBuffer.ReadView;
+import com.programyourhome.immerse.audiostreaming.util.BufferUtil;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
+
+/**
+ * The scratch buffers for one scenario in a mixer step, reused across steps.
+ * The buffers are not tied to a specific scenario, but to the position of a scenario in the step,
+ * so the amount of buffer objects only grows when the amount of active scenarios goes up.
+ *
+ * After the scenario results are calculated, it also holds the calculated output of one scenario:
+ * - whether reading the input failed and whether the end of stream was reached
+ * - the raw bytes of the scenario input stream (either as a view on the input buffer or copied into the byte buffer)
+ * - the decoded and scaled samples (only for the parallel calculation)
+ * - the dynamic volume of the scenario
+ * - the volumes for each speaker according to the scenario settings
+ */
+class ScenarioBuffers {
+
+    // The view on the raw bytes in the scenario input buffer, or null if the bytes are copied into the byte buffer.
+    ReadView inputView;
+    // The raw bytes as copied from the scenario input buffer.
+    byte[] bytes;
+    // Whether or not reading the input failed in this step.
+    boolean failed;
+    // Whether or not the end of stream was reached in this step.
+    boolean endOfStream;
+    // The samples as decoded from the raw bytes, with the scenario volume applied.
+    short[] samples;
+    // The format of the raw bytes.
+    ImmerseAudioFormat format;
+    // The dynamic volume of the scenario in this step.
+    double volume;
+    // The speaker volumes as calculated for the scenario in this step.
+    SpeakerVolumes speakerVolumes;
+
+    /**
+     * Make sure the byte buffer can hold the given amount of samples.
+     */
+    void ensureCapacity(int numberOfSamples, int numberOfBytesPerSample) {
+        this.bytes = BufferUtil.ensureCapacity(this.bytes, numberOfSamples * numberOfBytesPerSample);
+    }
+
+    /**
+     * Make sure the samples buffer can hold the given amount of samples.
+     */
+    void ensureSamplesCapacity(int numberOfSamples) {
+        this.samples = BufferUtil.ensureCapacity(this.samples, numberOfSamples);
+    }
+
+}
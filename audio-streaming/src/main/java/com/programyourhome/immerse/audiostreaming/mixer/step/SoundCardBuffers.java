@@ -0,0 +1,131 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step;
+
+import java.util.Arrays;
+
+import com.programyourhome.immerse.audiostreaming.metrics.Counter;
+import com.programyourhome.immerse.audiostreaming.soundcard.OutputBuffer;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.audiostreaming.util.BufferUtil;
+
+/**
+ * The scratch and output buffers for one sound card stream, reused across mixer steps.
+ * After a step has been calculated, the output buffer holds the bytes that should be written to the sound card stream.
+ *
+ * Technical note: the output buffers are taken from the pool of the sound card writer. After a step is calculated,
+ * the output buffer should be handed over to the sound card writer, which will put it back in the pool after writing.
+ */
+public class SoundCardBuffers {
+
+    /**
+     * The way the output of the sound card stream is calculated in a step, depending on the scenarios that contribute to it.
+     */
+    enum MixPath {
+        // No scenario contributes to the sound card stream: write the shared silence buffer.
+        SILENT,
+        // Exactly one scenario contributes, with a gain of 1 for all channels it contributes to: copy the samples instead of adding them.
+        COPY,
+        // All other cases: add the samples of all contributing scenarios multiplied with their gains.
+        MIX
+    }
+
+    private final SoundCardWriter soundCardWriter;
+    // Counts the amount of frames the sound card stream needed, summed over all steps.
+    private final Counter framesNeededCounter;
+    // The position of the first channel of the sound card stream in the output channels of the mixer step.
+    private final int firstChannel;
+    // The summed amplitudes of all scenarios per channel, before they are cut off at the boundaries of the sample size.
+    private final int[][] channelAccumulators;
+    // The mix path of the current step.
+    private MixPath mixPath;
+    // The output buffer of the last calculated step.
+    private OutputBuffer outputBuffer;
+
+    SoundCardBuffers(SoundCardWriter soundCardWriter, Counter framesNeededCounter, int firstChannel) {
+        this.soundCardWriter = soundCardWriter;
+        this.framesNeededCounter = framesNeededCounter;
+        this.firstChannel = firstChannel;
+        this.channelAccumulators = new int[soundCardWriter.getSoundCardStream().getSoundCard().getNumberOfChannels()][];
+        this.mixPath = MixPath.MIX;
+    }
+
+    public SoundCardWriter getSoundCardWriter() {
+        return this.soundCardWriter;
+    }
+
+    public SoundCardStream getSoundCardStream() {
+        return this.soundCardWriter.getSoundCardStream();
+    }
+
+    /**
+     * The output buffer of the last calculated step.
+     */
+    public OutputBuffer getOutputBuffer() {
+        return this.outputBuffer;
+    }
+
+    Counter getFramesNeededCounter() {
+        return this.framesNeededCounter;
+    }
+
+    /**
+     * The position of the first channel of the sound card stream in the output channels of the mixer step
+     * (the other channels of the sound card stream follow directly after it).
+     */
+    int getFirstChannel() {
+        return this.firstChannel;
+    }
+
+    /**
+     * The amount of output channels of the sound card stream.
+     */
+    int getNumberOfChannels() {
+        return this.channelAccumulators.length;
+    }
+
+    MixPath getMixPath() {
+        return this.mixPath;
+    }
+
+    void setMixPath(MixPath mixPath) {
+        this.mixPath = mixPath;
+    }
+
+    int[][] getChannelAccumulators() {
+        return this.channelAccumulators;
+    }
+
+    /**
+     * Get the accumulators of all channels, each with at least the given length, without clearing them.
+     */
+    int[][] prepareChannelAccumulators(int length) {
+        for (int channel = 0; channel < this.channelAccumulators.length; channel++) {
+            this.channelAccumulators[channel] = BufferUtil.ensureCapacity(this.channelAccumulators[channel], length);
+        }
+        return this.channelAccumulators;
+    }
+
+    /**
+     * Clear the first 'length' values of the accumulator of the given channel.
+     */
+    void clearChannelAccumulator(int channel, int length) {
+        Arrays.fill(this.channelAccumulators[channel], 0, length, 0);
+    }
+
+    /**
+     * Take the next output buffer from the pool of the sound card writer and make sure it can hold the given amount of bytes.
+     */
+    byte[] nextOutputBuffer(int length) {
+        this.outputBuffer = this.soundCardWriter.nextFreeBuffer();
+        return this.outputBuffer.prepare(length);
+    }
+
+    /**
+     * Take the next output buffer from the pool of the sound card writer and let it write the first 'length' bytes of the given silence.
+     */
+    void nextSilenceBuffer(byte[] silence, int length) {
+        this.outputBuffer = this.soundCardWriter.nextFreeBuffer();
+        this.outputBuffer.prepareShared(silence, length);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.programyourhome.immerse.audiostreaming.offline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.OutputBackend;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * An output backend that is not paced at all, but writes all audio data to an output stream right away.
+ * The backend 'plays' all written audio data instantly, so the frame position is always equal to the amount of frames written.
+ * This means the pace of the audio data is fully decided by the writing party, like the offline renderer.
+ */
+public class OfflineOutputBackend implements OutputBackend {
+
+    private final ImmerseAudioFormat format;
+    private final OutputStream outputStream;
+    private long framesWritten;
+    private int bufferSize;
+
+    public OfflineOutputBackend(ImmerseAudioFormat format, OutputStream outputStream) {
+        this.format = format;
+        this.outputStream = outputStream;
+        this.framesWritten = 0;
+        this.bufferSize = 0;
+    }
+
+    @Override
+    public ImmerseAudioFormat getFormat() {
+        return this.format;
+    }
+
+    @Override
+    public void open(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        try {
+            this.outputStream.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Exception while writing to output stream", e);
+        }
+        this.framesWritten += length / this.format.getNumberOfBytesPerFrame();
+    }
+
+    @Override
+    public synchronized long getFramePosition() {
+        return this.framesWritten;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    /**
+     * All audio data is 'played' instantly, so the whole buffer is always available.
+     */
+    @Override
+    public int available() {
+        return this.bufferSize;
+    }
+
+}
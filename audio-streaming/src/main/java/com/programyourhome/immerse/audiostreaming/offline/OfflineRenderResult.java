@@ -0,0 +1,118 @@
+package com.programyourhome.immerse.audiostreaming.offline;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * The result of an offline render: the rendered audio data per sound card, in the output format of the settings
+ * with the number of channels of that sound card, together with some statistics about the render itself.
+ */
+public class OfflineRenderResult {
+
+    private final ImmerseAudioFormat outputFormat;
+    private final Map<Integer, ImmerseAudioFormat> formatPerSoundCard;
+    private final Map<Integer, byte[]> audioPerSoundCard;
+    private final long amountOfFrames;
+    private final long renderNanos;
+
+    public OfflineRenderResult(ImmerseAudioFormat outputFormat, Map<Integer, ImmerseAudioFormat> formatPerSoundCard,
+            Map<Integer, byte[]> audioPerSoundCard, long amountOfFrames, long renderNanos) {
+        this.outputFormat = outputFormat;
+        this.formatPerSoundCard = Collections.unmodifiableMap(formatPerSoundCard);
+        this.audioPerSoundCard = Collections.unmodifiableMap(audioPerSoundCard);
+        this.amountOfFrames = amountOfFrames;
+        this.renderNanos = renderNanos;
+    }
+
+    public ImmerseAudioFormat getOutputFormat() {
+        return this.outputFormat;
+    }
+
+    /**
+     * The format of the rendered audio data of the sound card with the given id (with the number of channels of that sound card).
+     */
+    public ImmerseAudioFormat getOutputFormat(int soundCardId) {
+        ImmerseAudioFormat format = this.formatPerSoundCard.get(soundCardId);
+        if (format == null) {
+            throw new IllegalArgumentException("No rendered audio for sound card with id " + soundCardId);
+        }
+        return format;
+    }
+
+    /**
+     * The rendered audio data per sound card id.
+     */
+    public Map<Integer, byte[]> getAudioPerSoundCard() {
+        return this.audioPerSoundCard;
+    }
+
+    /**
+     * The rendered audio data of the sound card with the given id.
+     */
+    public byte[] getAudio(int soundCardId) {
+        byte[] audio = this.audioPerSoundCard.get(soundCardId);
+        if (audio == null) {
+            throw new IllegalArgumentException("No rendered audio for sound card with id " + soundCardId);
+        }
+        return audio;
+    }
+
+    /**
+     * The rendered audio data of the sound card with the given id as audio input stream.
+     */
+    public AudioInputStream getAudioInputStream(int soundCardId) {
+        return new AudioInputStream(new ByteArrayInputStream(this.getAudio(soundCardId)), this.getOutputFormat(soundCardId).toJavaAudioFormat(),
+                this.amountOfFrames);
+    }
+
+    public long getAmountOfFrames() {
+        return this.amountOfFrames;
+    }
+
+    /**
+     * The duration of the rendered audio in millis.
+     */
+    public double getAudioMillis() {
+        return this.amountOfFrames * 1000.0 / this.outputFormat.getNumberOfFramesPerSecond();
+    }
+
+    /**
+     * The (wall clock) time it took to render, in millis.
+     */
+    public double getRenderMillis() {
+        return this.renderNanos / 1_000_000.0;
+    }
+
+    /**
+     * The real time factor of the render: how many times faster than real time the audio was rendered.
+     */
+    public double getRealTimeFactor() {
+        return this.getAudioMillis() / this.getRenderMillis();
+    }
+
+    /**
+     * Write the rendered audio data of the sound card with the given id to the given file in WAV format.
+     */
+    public void writeWav(int soundCardId, File file) throws IOException {
+        AudioSystem.write(this.getAudioInputStream(soundCardId), AudioFileFormat.Type.WAVE, file);
+    }
+
+    /**
+     * Write the rendered audio data of all sound cards to WAV files in the given directory, named soundcard-[id].wav.
+     */
+    public void writeWavFiles(File directory) throws IOException {
+        for (int soundCardId : this.audioPerSoundCard.keySet()) {
+            this.writeWav(soundCardId, new File(directory, "soundcard-" + soundCardId + ".wav"));
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.programyourhome.immerse.audiostreaming.offline;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pmw.tinylog.Logger;
+
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsRegistry;
+import com.programyourhome.immerse.audiostreaming.mixer.FrameClock;
+import com.programyourhome.immerse.audiostreaming.mixer.MixerContext;
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
+import com.programyourhome.immerse.audiostreaming.mixer.step.MixerStep;
+import com.programyourhome.immerse.audiostreaming.mixer.step.SoundCardBuffers;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Scenario;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * The offline renderer mixes scenarios into audio data per sound card, without any sound card hardware and not in real time,
+ * but as fast as the CPU allows. This makes it possible to run and compare whole shows on any machine, measure the throughput
+ * of the mixing algorithm (the real time factor) and pre-render content.
+ *
+ * The renderer uses the same mixer step logic and the same frame clock as the real time mixer:
+ * the time is based upon the amount of audio frames rendered so far, instead of the system clock.
+ * All dynamic data and playbacks of the scenarios use that clock, so the output is the same no matter how fast the render is.
+ * Every step renders the amount of frames of one step pace, so the dynamic data is updated with the same granularity as in real time.
+ *
+ * Usage: create a renderer, add the scenarios with their start time and call render with the desired duration.
+ * A renderer can only be used for one render.
+ */
+public class OfflineRenderer {
+
+    private final ImmerseSettings settings;
+    private final ImmerseAudioFormat outputFormat;
+    private final MixerContext context;
+    private final List<ScheduledScenario> scheduledScenarios;
+    // The virtual clock, based on the amount of frames rendered so far.
+    private final FrameClock clock;
+    private boolean rendered;
+
+    public OfflineRenderer(ImmerseSettings settings) {
+        if (settings.getSoundCards().isEmpty()) {
+            throw new IllegalArgumentException("There should at least be one sound card");
+        }
+        if (!settings.getOutputFormat().isOutput()) {
+            throw new IllegalArgumentException("The provided output audio format should be marked as output");
+        }
+        this.settings = settings;
+        this.outputFormat = settings.getOutputFormat();
+        this.clock = new FrameClock(this.outputFormat.getNumberOfFramesPerSecond());
+        this.context = new MixerContext("Offline renderer", settings, new MetricsRegistry(), this.clock);
+        this.scheduledScenarios = new ArrayList<>();
+        this.rendered = false;
+    }
+
+    /**
+     * Add a scenario to start playing at the given millis since the start of the render.
+     * The actual start will be at the first step that starts at or after that time.
+     */
+    public void addScenario(Scenario scenario, long startMillis) {
+        if (startMillis < 0) {
+            throw new IllegalArgumentException("Start millis cannot be negative");
+        }
+        this.scheduledScenarios.add(new ScheduledScenario(scenario, startMillis));
+    }
+
+    /**
+     * Render the given amount of millis of audio for all sound cards.
+     * Scenarios that are still playing at the end of the render are cut off, scenarios that have stopped are followed by silence.
+     */
+    public OfflineRenderResult render(long durationMillis) {
+        if (this.rendered) {
+            throw new IllegalStateException("An offline renderer can only be used for one render");
+        }
+        this.rendered = true;
+        long start = System.nanoTime();
+
+        long amountOfFrames = durationMillis * this.outputFormat.getNumberOfFramesPerSecond() / 1000;
+        Map<Integer, ByteArrayOutputStream> outputPerSoundCard = new LinkedHashMap<>();
+        Map<Integer, ImmerseAudioFormat> formatPerSoundCard = new LinkedHashMap<>();
+        List<SoundCardStream> soundCardStreams = new ArrayList<>();
+        List<SoundCardWriter> soundCardWriters = new ArrayList<>();
+        for (SoundCard soundCard : this.settings.getSoundCards()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputPerSoundCard.put(soundCard.getId(), output);
+            ImmerseAudioFormat soundCardFormat = this.settings.getOutputFormat(soundCard);
+            formatPerSoundCard.put(soundCard.getId(), soundCardFormat);
+            SoundCardStream soundCardStream = new SoundCardStream(soundCard, new OfflineOutputBackend(soundCardFormat, output),
+                    this.settings.getTechnicalSettings().getNearUnderrunMillis());
+            // The streams are opened, but never started: there is no real time playback, so also no underrun detection.
+            soundCardStream.open();
+            soundCardStreams.add(soundCardStream);
+            // The writer threads are never started either, since all writes are performed synchronously.
+            soundCardWriters.add(new SoundCardWriter(soundCardStream, 1));
+        }
+        MixerStep mixerStep = new MixerStep(this.context, soundCardWriters);
+        // The offline backends 'play' all audio data instantly, so a buffer of one step pace results in one step pace of frames per step.
+        mixerStep.setSoundCardBufferMillis(this.settings.getTechnicalSettings().getStepPaceMillis());
+
+        List<ScheduledScenario> scenariosToStart = new ArrayList<>(this.scheduledScenarios);
+        scenariosToStart.sort(Comparator.comparingLong(ScheduledScenario::getStartMillis));
+        List<ActiveScenario> activeScenarios = new ArrayList<>();
+        try {
+            while (this.clock.getCurrentFrames() < amountOfFrames) {
+                // Activate all scenarios that should have started by now.
+                while (!scenariosToStart.isEmpty() && scenariosToStart.get(0).getStartMillis() <= this.clock.getCurrentMillis()) {
+                    activeScenarios.add(this.activateScenario(scenariosToStart.remove(0).getScenario()));
+                }
+                mixerStep.prepare(activeScenarios);
+                for (SoundCardBuffers buffers : mixerStep.calculateBufferData()) {
+                    buffers.getSoundCardWriter().writeNow(buffers.getOutputBuffer());
+                }
+                if (mixerStep.getAmountOfFramesNeeded() == 0) {
+                    throw new IllegalStateException("No frames rendered in step, offline render cannot continue");
+                }
+                this.clock.advance(mixerStep.getAmountOfFramesNeeded());
+                this.handleScenarioLifecycle(mixerStep, activeScenarios);
+            }
+        } finally {
+            activeScenarios.forEach(ActiveScenario::stop);
+            mixerStep.shutdown();
+            soundCardStreams.forEach(SoundCardStream::stop);
+        }
+
+        long renderNanos = System.nanoTime() - start;
+        // The last step can render a bit more than needed, so cut off the audio data at the requested duration.
+        Map<Integer, byte[]> audioPerSoundCard = new LinkedHashMap<>();
+        outputPerSoundCard.forEach((soundCardId, output) -> {
+            int amountOfBytes = (int) (amountOfFrames * formatPerSoundCard.get(soundCardId).getNumberOfBytesPerFrame());
+            audioPerSoundCard.put(soundCardId, Arrays.copyOf(output.toByteArray(), amountOfBytes));
+        });
+        OfflineRenderResult result = new OfflineRenderResult(this.outputFormat, formatPerSoundCard, audioPerSoundCard, amountOfFrames, renderNanos);
+        Logger.info("Offline render of {0.000} seconds completed in {0.000} seconds (real time factor {0.0})",
+                result.getAudioMillis() / 1000, result.getRenderMillis() / 1000, result.getRealTimeFactor());
+        return result;
+    }
+
+    private ActiveScenario activateScenario(Scenario scenario) {
+        ActiveScenario activeScenario = ActiveScenario.create(this.context, scenario);
+        if (activeScenario.getStreamConfig().isLive()) {
+            activeScenario.stop();
+            throw new IllegalArgumentException("Live audio resources cannot be rendered offline");
+        }
+        activeScenario.nextPlaybackStarted();
+        return activeScenario;
+    }
+
+    /**
+     * Handle the scenario lifecycle actions gathered during the mixer step.
+     * In contrast to the real time mixer, restarts are handled synchronously, so the next loop follows without a gap.
+     */
+    private void handleScenarioLifecycle(MixerStep mixerStep, List<ActiveScenario> activeScenarios) {
+        for (ActiveScenario activeScenario : mixerStep.getScenariosToRestart()) {
+            activeScenario.resetForNextStart();
+            activeScenario.nextPlaybackStarted();
+        }
+        for (ActiveScenario activeScenario : mixerStep.getScenariosToStop()) {
+            activeScenario.stop();
+            activeScenarios.remove(activeScenario);
+        }
+    }
+
+    /**
+     * A scenario with the millis since the start of the render to start playing it.
+     */
+    private static class ScheduledScenario {
+        private final Scenario scenario;
+        private final long startMillis;
+
+        public ScheduledScenario(Scenario scenario, long startMillis) {
+            this.scenario = scenario;
+            this.startMillis = startMillis;
+        }
+
+        public Scenario getScenario() {
+            return this.scenario;
+        }
+
+        public long getStartMillis() {
+            return this.startMillis;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.programyourhome.immerse.audiostreaming.soundcard;
+
+import com.programyourhome.immerse.audiostreaming.util.BufferUtil;
+
+/**
+ * A buffer with bytes to write to a sound card stream.
+ * Only the first 'length' bytes of the buffer are part of the write, the rest is left over from earlier (bigger) writes.
+ * Output buffers are pooled by the sound card writer and reused for every next write.
+ *
+ * Instead of it's own bytes, an output buffer can also point to a shared byte array for one write. That is used for silence:
+ * all sound card streams that are idle in a step can write the same (preallocated) array of 0's, instead of filling their own.
+ */
+public class OutputBuffer {
+
+    // The byte array owned by this buffer.
+    private byte[] ownBytes;
+    // The byte array of the current write: either the own bytes or a shared array.
+    private byte[] bytes;
+    private int length;
+
+    OutputBuffer() {
+        this.ownBytes = new byte[0];
+        this.bytes = this.ownBytes;
+        this.length = 0;
+    }
+
+    public byte[] getBytes() {
+        return this.bytes;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Prepare this buffer for a write of the given length, growing the byte array if needed.
+     */
+    public byte[] prepare(int length) {
+        this.ownBytes = BufferUtil.ensureCapacity(this.ownBytes, length);
+        this.bytes = this.ownBytes;
+        this.length = length;
+        return this.bytes;
+    }
+
+    /**
+     * Prepare this buffer for a write of the given length of the shared bytes, instead of it's own bytes.
+     * The shared bytes are not copied, so they should not be changed while this buffer is in use.
+     * The only exception is muting a channel, which writes 0's, so that is safe for a shared array of silence.
+     */
+    public void prepareShared(byte[] sharedBytes, int length) {
+        this.bytes = sharedBytes;
+        this.length = length;
+    }
+
+}
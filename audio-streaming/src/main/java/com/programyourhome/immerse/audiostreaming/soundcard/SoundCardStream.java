@@ -1,68 +1,119 @@
 package com.programyourhome.immerse.audiostreaming.soundcard;
 
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
 
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.OutputBackend;
 import com.programyourhome.immerse.audiostreaming.util.AudioUtil;
 import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
 import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
-import com.programyourhome.immerse.domain.format.RecordingMode;
 import com.programyourhome.immerse.domain.format.SampleSize;
 
 /**
- * This class represents an open stream from the mixer to the actual sound card hardware (through the Java Sound API).
- * It can start and stop the streaming and can write 'raw' bytes to the sound card, that should match the format of the audio line.
+ * This class represents an open stream from the mixer to the sound card output backend: usually the actual sound card hardware
+ * (through the Java Sound API), but possibly another consumer of the audio data, see OutputBackend.
+ * It can start and stop the streaming and can write 'raw' bytes to the sound card, that should match the format of the backend.
+ * The format of the backend should have the same number of channels as the sound card: stereo or more for multi-channel sound cards.
+ *
+ * Once started, the stream also checks the fill level of the line just before every write, to detect underruns
+ * (the line ran out of audio data) and near underruns (the line had less than the configured amount of millis left).
+ * Those are counted and reported to the underrun listener, if set.
  */
 public class SoundCardStream {
 
     private final SoundCard soundCard;
-    private final SourceDataLine outputLine;
+    private final OutputBackend outputBackend;
     private final ImmerseAudioFormat outputFormat;
     private final double framesPerMilli;
-    private long framesWritten;
-    private boolean mutedLeft;
-    private boolean mutedRight;
+    // Only updated by the thread writing to the line, but read by the mixer, so volatile.
+    private volatile long framesWritten;
+    // Whether or not each channel of the sound card is muted.
+    private final boolean[] mutedChannels;
+    // The size of the line buffer in millis to open the line with (0 = the default size of the line).
+    private int lineBufferMillis;
+    // Underrun detection: only used by the thread writing to the line, except for the statistics (volatile).
+    private final double nearUnderrunFrames;
+    private UnderrunListener underrunListener;
+    private volatile boolean started;
+    private long lastWriteNanos;
+    private long framesBufferedAfterLastWrite;
+    private volatile long amountOfUnderruns;
+    private volatile long amountOfNearUnderruns;
+    private volatile double totalUnderrunMillis;
 
-    public SoundCardStream(SoundCard soundCard, SourceDataLine outputLine) {
+    /**
+     * Create a sound card stream on the given output backend.
+     * A write that finds less than nearUnderrunMillis of audio data left in the line is reported as near underrun.
+     */
+    public SoundCardStream(SoundCard soundCard, OutputBackend outputBackend, int nearUnderrunMillis) {
         this.soundCard = soundCard;
-        this.outputLine = outputLine;
-        this.outputFormat = ImmerseAudioFormat.fromJavaAudioFormat(this.outputLine.getFormat());
-        if (this.outputFormat.getRecordingMode() != RecordingMode.STEREO) {
-            throw new IllegalArgumentException("Only recording mode stereo is supported");
+        this.outputBackend = outputBackend;
+        this.outputFormat = this.outputBackend.getFormat();
+        if (this.outputFormat.getRecordingMode() != soundCard.getRecordingMode()) {
+            throw new IllegalArgumentException("Recording mode of output format should match sound card recording mode "
+                    + soundCard.getRecordingMode());
         }
         AudioUtil.assertSigned(this.outputFormat);
         this.framesPerMilli = this.outputFormat.getNumberOfFramesPerSecond() / 1000.0;
         this.framesWritten = 0;
-        this.mutedLeft = false;
-        this.mutedRight = false;
+        this.mutedChannels = new boolean[soundCard.getNumberOfChannels()];
+        this.nearUnderrunFrames = nearUnderrunMillis * this.framesPerMilli;
+        this.started = false;
     }
 
     public SoundCard getSoundCard() {
         return this.soundCard;
     }
 
+    /**
+     * The total amount of frames written to the line.
+     */
+    public long getFramesWritten() {
+        return this.framesWritten;
+    }
+
+    /**
+     * Set the size of the line buffer in millis, to use when opening the line. Has no effect after the line is opened.
+     */
+    public void setLineBufferMillis(int lineBufferMillis) {
+        this.lineBufferMillis = lineBufferMillis;
+    }
+
     public void open() {
-        try {
-            this.outputLine.open();
-        } catch (LineUnavailableException e) {
-            throw new IllegalStateException("Line unavailable", e);
+        int lineBufferSize = 0;
+        if (this.lineBufferMillis > 0) {
+            int lineBufferFrames = (int) Math.ceil(this.lineBufferMillis * this.framesPerMilli);
+            lineBufferSize = lineBufferFrames * this.outputFormat.getNumberOfBytesPerFrame();
         }
+        this.outputBackend.open(lineBufferSize);
+    }
+
+    /**
+     * Set the listener that will be informed about underruns and near underruns.
+     * The listener is called by the thread writing to the line, so it should return quickly.
+     */
+    public void setUnderrunListener(UnderrunListener underrunListener) {
+        this.underrunListener = underrunListener;
     }
 
     public void start() {
-        this.outputLine.start();
+        this.outputBackend.start();
+        // All frames written before the start are buffered and start playing now.
+        this.lastWriteNanos = System.nanoTime();
+        this.framesBufferedAfterLastWrite = this.framesWritten;
+        this.started = true;
     }
 
     public void stop() {
-        this.outputLine.stop();
-        this.outputLine.close();
+        this.started = false;
+        this.outputBackend.stop();
+        this.outputBackend.close();
     }
 
     /**
      * Calculate the amount of frames needed for this sound card given the amount of millis that
      * should be present in the buffer. The calculation is based upon the difference between the amount of
      * frames that should be in the buffer and the amount of frames that are actually still in the buffer.
-     * That last value is given by the hardware through the DataLine.getLongFramePosition call. The return value of that call
+     * That last value is given by the hardware through the OutputBackend.getFramePosition call. The return value of that call
      * is known to be far from exact, mostly updating about every 5 milliseconds and sometimes even giving a
      * smaller number upon subsequent invocation. The exact behavior can be different for different sound card hardware.
      * This is taken into account in the implementation and is found to be good enough for our goal:
@@ -70,7 +121,7 @@ public class SoundCardStream {
      */
     public long getAmountOfFramesNeeded(int bufferMillis) {
         double amountOfFramesToBuffer = bufferMillis * this.framesPerMilli;
-        long lineFramePosition = this.outputLine.getLongFramePosition();
+        long lineFramePosition = this.outputBackend.getFramePosition();
         double amountOfFramesAhead = this.framesWritten - lineFramePosition;
         long amountOfFramesNeeded = Math.round(amountOfFramesToBuffer - amountOfFramesAhead);
 
@@ -80,70 +131,149 @@ public class SoundCardStream {
     }
 
     /**
-     * Mute this sound card, both left and right channels.
+     * The amount of frames that are written to the line, but not played yet.
+     * Based on both the amount of bytes available in the line buffer and the difference between the frames written and the
+     * frame position of the line. Both are not exact for all hardware, so the line is only considered (almost) empty if both agree.
+     */
+    public long getAmountOfFramesBuffered() {
+        int bytesBuffered = this.outputBackend.getBufferSize() - this.outputBackend.available();
+        long framesBufferedByAvailable = bytesBuffered / this.outputFormat.getNumberOfBytesPerFrame();
+        long framesBufferedByPosition = this.framesWritten - this.outputBackend.getFramePosition();
+        return Math.max(0, Math.max(framesBufferedByAvailable, framesBufferedByPosition));
+    }
+
+    public long getAmountOfUnderruns() {
+        return this.amountOfUnderruns;
+    }
+
+    public long getAmountOfNearUnderruns() {
+        return this.amountOfNearUnderruns;
+    }
+
+    /**
+     * The total (estimated) amount of millis the line has been without audio data.
+     */
+    public double getTotalUnderrunMillis() {
+        return this.totalUnderrunMillis;
+    }
+
+    /**
+     * Mute this sound card, all channels.
      */
     public void mute() {
-        this.muteLeft();
-        this.muteRight();
+        Arrays.fill(this.mutedChannels, true);
     }
 
     /**
      * Mute the left channel of this sound card.
      */
     public void muteLeft() {
-        this.mutedLeft = true;
+        this.muteChannel(0);
     }
 
     /**
      * Mute the right channel of this sound card.
      */
     public void muteRight() {
-        this.mutedRight = true;
+        this.muteChannel(1);
+    }
+
+    /**
+     * Mute the given channel of this sound card.
+     */
+    public void muteChannel(int channel) {
+        this.mutedChannels[channel] = true;
     }
 
     /**
-     * Unmute this sound card, both left and right channels.
+     * Unmute this sound card, all channels.
      */
     public void unMute() {
-        this.unMuteLeft();
-        this.unMuteRight();
+        Arrays.fill(this.mutedChannels, false);
     }
 
     /**
      * Unmute the left channel of this sound card.
      */
     public void unMuteLeft() {
-        this.mutedLeft = false;
+        this.unMuteChannel(0);
     }
 
     /**
      * Unmute the right channel of this sound card.
      */
     public void unMuteRight() {
-        this.mutedRight = false;
+        this.unMuteChannel(1);
+    }
+
+    /**
+     * Unmute the given channel of this sound card.
+     */
+    public void unMuteChannel(int channel) {
+        this.mutedChannels[channel] = false;
     }
 
     /**
      * Write the contents of the given buffer to the sound card, taking mute settings into account.
      */
     public void writeToLine(byte[] buffer) {
-        if (this.mutedLeft) {
-            this.mute(buffer, 0);
+        this.writeToLine(buffer, buffer.length);
+    }
+
+    /**
+     * Write the first 'length' bytes of the given buffer to the sound card, taking mute settings into account.
+     * This allows the caller to reuse a buffer that is bigger than the amount of data of one write.
+     */
+    public void writeToLine(byte[] buffer, int length) {
+        for (int channel = 0; channel < this.mutedChannels.length; channel++) {
+            if (this.mutedChannels[channel]) {
+                this.mute(buffer, channel * this.outputFormat.getNumberOfBytesPerSample(), length);
+            }
         }
-        if (this.mutedRight) {
-            this.mute(buffer, this.outputFormat.getNumberOfBytesPerSample());
+        long framesBuffered = 0;
+        if (this.started) {
+            framesBuffered = this.getAmountOfFramesBuffered();
+            this.detectUnderrun(framesBuffered);
         }
-        // This performs the actual I/O on the sound card hardware.
-        this.outputLine.write(buffer, 0, buffer.length);
+        // This performs the actual I/O on the sound card hardware (or other backend).
+        this.outputBackend.write(buffer, 0, length);
         // Update the frames written by calculating how many were in the byte array.
-        this.framesWritten += buffer.length / this.outputFormat.getNumberOfBytesPerFrame();
+        int framesInBuffer = length / this.outputFormat.getNumberOfBytesPerFrame();
+        this.framesWritten += framesInBuffer;
+        this.lastWriteNanos = System.nanoTime();
+        this.framesBufferedAfterLastWrite = framesBuffered + framesInBuffer;
+    }
+
+    /**
+     * Detect an underrun or near underrun, given the amount of frames still buffered just before a write.
+     */
+    private void detectUnderrun(long framesBuffered) {
+        if (framesBuffered > 0 && framesBuffered >= this.nearUnderrunFrames) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        UnderrunEvent underrunEvent;
+        if (framesBuffered == 0) {
+            // The line ran dry somewhere after the previous write: when the audio data written then was played.
+            double millisSinceLastWrite = (System.nanoTime() - this.lastWriteNanos) / 1_000_000.0;
+            double durationMillis = Math.max(0, millisSinceLastWrite - this.framesBufferedAfterLastWrite / this.framesPerMilli);
+            this.amountOfUnderruns++;
+            this.totalUnderrunMillis += durationMillis;
+            underrunEvent = new UnderrunEvent(this.soundCard, false, nowMillis - Math.round(durationMillis), durationMillis, 0);
+        } else {
+            this.amountOfNearUnderruns++;
+            underrunEvent = new UnderrunEvent(this.soundCard, true, nowMillis, 0, framesBuffered / this.framesPerMilli);
+        }
+        if (this.underrunListener != null) {
+            this.underrunListener.underrunDetectedNoException(underrunEvent);
+        }
     }
 
     /**
-     * Mute one channel of the byte buffer from the given start index, taking into account sample size.
+     * Mute one channel of the first 'length' bytes of the byte buffer from the given start index, taking into account sample size.
      */
-    protected void mute(byte[] buffer, int startIndex) {
-        for (int i = startIndex; i < buffer.length; i += this.outputFormat.getNumberOfBytesPerFrame()) {
+    protected void mute(byte[] buffer, int startIndex, int length) {
+        for (int i = startIndex; i < length; i += this.outputFormat.getNumberOfBytesPerFrame()) {
             // Muting means setting to 0, since we have validated the format is using signed samples.
             buffer[i] = 0;
             if (this.outputFormat.getSampleSize() == SampleSize.TWO_BYTES) {
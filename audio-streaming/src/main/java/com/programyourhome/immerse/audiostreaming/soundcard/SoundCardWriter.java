@@ -0,0 +1,178 @@
+package com.programyourhome.immerse.audiostreaming.soundcard;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * A sound card writer writes output buffers to one sound card stream on it's own, long-lived thread.
+ * The writes are performed in the order they are submitted, so the audio of a next step can never overtake the audio of a previous step.
+ *
+ * The writer owns a fixed pool of output buffers:
+ * - the mixer takes a free buffer with nextFreeBuffer, fills it and submits it with submit
+ * - the writer thread takes the submitted buffers from a bounded queue, writes them to the sound card stream
+ * and then puts them back in the pool, so they can be reused by the mixer
+ * Since the pool is bounded, a sound card that is too slow will eventually cause the mixer to wait for a free buffer,
+ * instead of building up an ever growing backlog of writes.
+ *
+ * The writer also keeps track of the time spent in blocking writes and the depth of the write queue, to be able to spot slow sound cards.
+ */
+public class SoundCardWriter {
+
+    private final SoundCardStream soundCardStream;
+    // The output buffers that are free to be used by the mixer.
+    private final BlockingQueue<OutputBuffer> freeBuffers;
+    // The output buffers that are submitted and should be written to the sound card stream, in order.
+    private final BlockingQueue<OutputBuffer> writeQueue;
+    private final Thread writerThread;
+    private volatile boolean running;
+    // Statistics: only updated by one thread each, so volatile is enough.
+    private volatile long amountOfWrites;
+    private volatile long blockedWriteNanos;
+    private volatile long maxBlockedWriteNanos;
+    private volatile int maxQueueDepth;
+
+    /**
+     * Create a sound card writer with a write queue of the given size.
+     * The pool of output buffers will be 2 bigger: 1 for the buffer being written and 1 for the buffer being filled by the mixer.
+     */
+    public SoundCardWriter(SoundCardStream soundCardStream, int queueSize) {
+        this.soundCardStream = soundCardStream;
+        this.freeBuffers = new ArrayBlockingQueue<>(queueSize + 2);
+        for (int i = 0; i < queueSize + 2; i++) {
+            this.freeBuffers.add(new OutputBuffer());
+        }
+        this.writeQueue = new ArrayBlockingQueue<>(queueSize + 2);
+        this.writerThread = new Thread(this::run, "Sound Card Writer " + soundCardStream.getSoundCard().getId());
+        this.writerThread.setDaemon(true);
+        this.running = false;
+    }
+
+    public SoundCardStream getSoundCardStream() {
+        return this.soundCardStream;
+    }
+
+    /**
+     * Start the writer thread.
+     */
+    public void start() {
+        this.running = true;
+        this.writerThread.start();
+    }
+
+    /**
+     * Stop the writer thread, discarding any writes that are still in the queue.
+     */
+    public void stop() {
+        this.running = false;
+        this.writerThread.interrupt();
+        try {
+            this.writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Take a free output buffer from the pool, waiting for one to become available if needed.
+     */
+    public OutputBuffer nextFreeBuffer() {
+        try {
+            return this.freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free output buffer", e);
+        }
+    }
+
+    /**
+     * Submit the output buffer to be written asynchronously by the writer thread.
+     */
+    public void submit(OutputBuffer outputBuffer) {
+        if (outputBuffer.getLength() == 0) {
+            // Nothing to write, so put it back in the pool right away.
+            this.freeBuffers.add(outputBuffer);
+            return;
+        }
+        // The queue can hold all buffers of the pool, so this will never block.
+        this.writeQueue.add(outputBuffer);
+        this.maxQueueDepth = Math.max(this.maxQueueDepth, this.writeQueue.size());
+    }
+
+    /**
+     * Write the output buffer synchronously on the calling thread.
+     * Should only be used when there are no submitted writes in the queue, for instance before the sound card stream is started.
+     */
+    public void writeNow(OutputBuffer outputBuffer) {
+        if (!this.writeQueue.isEmpty()) {
+            throw new IllegalStateException("Cannot write synchronously while there are writes in the queue");
+        }
+        this.write(outputBuffer);
+    }
+
+    /**
+     * The main loop of the writer thread: keep writing the submitted buffers in order until stopped.
+     */
+    private void run() {
+        while (this.running) {
+            try {
+                this.write(this.writeQueue.take());
+            } catch (InterruptedException e) {
+                // Interrupted by stop, the while condition will end the loop.
+            } catch (Exception e) {
+                Logger.error(e, "Exception while writing to sound card " + this.soundCardStream.getSoundCard().getId());
+            }
+        }
+    }
+
+    /**
+     * Write the output buffer to the sound card stream and put it back in the pool.
+     */
+    private void write(OutputBuffer outputBuffer) {
+        try {
+            long start = System.nanoTime();
+            this.soundCardStream.writeToLine(outputBuffer.getBytes(), outputBuffer.getLength());
+            long writeNanos = System.nanoTime() - start;
+            this.amountOfWrites++;
+            this.blockedWriteNanos += writeNanos;
+            this.maxBlockedWriteNanos = Math.max(this.maxBlockedWriteNanos, writeNanos);
+        } finally {
+            this.freeBuffers.add(outputBuffer);
+        }
+    }
+
+    /**
+     * The current amount of writes waiting in the queue.
+     */
+    public int getQueueDepth() {
+        return this.writeQueue.size();
+    }
+
+    /**
+     * The max amount of writes that were waiting in the queue at the same time.
+     */
+    public int getMaxQueueDepth() {
+        return this.maxQueueDepth;
+    }
+
+    public long getAmountOfWrites() {
+        return this.amountOfWrites;
+    }
+
+    /**
+     * The total time spent waiting for writes to the sound card stream to complete, in millis.
+     * Writing blocks when the buffer of the sound card is full, so this is an indication of how far ahead the mixer is.
+     */
+    public double getBlockedWriteMillis() {
+        return this.blockedWriteNanos / 1_000_000.0;
+    }
+
+    /**
+     * The max time spent waiting for one write to the sound card stream to complete, in millis.
+     */
+    public double getMaxBlockedWriteMillis() {
+        return this.maxBlockedWriteNanos / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.programyourhome.immerse.audiostreaming.soundcard;
+
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+
+/**
+ * An underrun or near underrun of a sound card stream, as detected just before a write to the line.
+ * - underrun: the line ran out of audio data, so the sound card played silence (usually heard as a click or hickup)
+ * - near underrun: the line had less audio data left than the configured threshold, so it almost ran out
+ *
+ * For an underrun, the start and duration are estimated from the time of the previous write and the amount of audio data
+ * that was buffered after that write. For a near underrun, the duration is 0 and the start is the moment of detection.
+ */
+public class UnderrunEvent {
+
+    private final SoundCard soundCard;
+    private final boolean nearUnderrun;
+    private final long startMillis;
+    private final double durationMillis;
+    private final double bufferedMillis;
+
+    public UnderrunEvent(SoundCard soundCard, boolean nearUnderrun, long startMillis, double durationMillis, double bufferedMillis) {
+        this.soundCard = soundCard;
+        this.nearUnderrun = nearUnderrun;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.bufferedMillis = bufferedMillis;
+    }
+
+    public SoundCard getSoundCard() {
+        return this.soundCard;
+    }
+
+    /**
+     * Whether this was a near underrun (true) or an actual underrun (false).
+     */
+    public boolean isNearUnderrun() {
+        return this.nearUnderrun;
+    }
+
+    /**
+     * The (estimated) moment the underrun started, in millis since epoch, to match with other events like step overruns.
+     */
+    public long getStartMillis() {
+        return this.startMillis;
+    }
+
+    /**
+     * The (estimated) amount of millis the line has been without audio data.
+     */
+    public double getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    /**
+     * The amount of millis of audio data that was still buffered in the line at the moment of detection.
+     */
+    public double getBufferedMillis() {
+        return this.bufferedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s on sound card %d at %d: duration %.3f ms, buffered %.3f ms", this.nearUnderrun ? "Near underrun" : "Underrun",
+                this.soundCard.getId(), this.startMillis, this.durationMillis, this.bufferedMillis);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.programyourhome.immerse.audiostreaming.soundcard;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * Listener of underruns and near underruns of sound card streams.
+ * Defined as functional interface for easy lambda based definitions.
+ */
+public interface UnderrunListener {
+
+    /**
+     * Used to send events without the risk of breaking due to an exception at the listener side.
+     * Not meant to be overridden by an implementing class, use underrunDetected instead.
+     */
+    public default void underrunDetectedNoException(UnderrunEvent underrunEvent) {
+        try {
+            this.underrunDetected(underrunEvent);
+        } catch (Exception e) {
+            Logger.error(e, "Exception while notifying underrun listener");
+        }
+    }
+
+    /**
+     * Informing the listener that an underrun or near underrun was detected.
+     */
+    public void underrunDetected(UnderrunEvent underrunEvent);
+
+}
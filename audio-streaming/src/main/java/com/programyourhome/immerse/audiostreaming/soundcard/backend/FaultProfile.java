@@ -0,0 +1,173 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+/**
+ * A fault profile describes the misbehavior of the simulated output backend, to reproduce the hiccups of real sound card hardware.
+ * All faults are off by default, so the default profile describes a perfect sound card.
+ *
+ * The supported faults are:
+ * - clock skew: the sound card plays a bit faster or slower than the system clock says it should
+ * - write jitter: every write is delayed by a random amount of time, like with unfortunate thread scheduling
+ * - write stalls: some writes block for a longer time, like with a busy USB bus or driver
+ * - coarse frame position: the frame position is only updated once every so many millis
+ * - frame position jumps: the frame position is sometimes reported with a random offset, also backwards
+ * - frame position ahead: the frame position is sometimes reported beyond the frames written, so the frames needed would be negative
+ */
+public class FaultProfile {
+
+    private String name;
+    private double clockSkew;
+    private int writeJitterMillis;
+    private double writeStallProbability;
+    private int writeStallMillis;
+    private int framePositionGranularityMillis;
+    private double framePositionJumpProbability;
+    private int framePositionJumpMillis;
+    private double framePositionAheadProbability;
+    private long seed;
+
+    private FaultProfile() {
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * The speed of the sound card clock compared to the system clock: 1.001 means the sound card plays 0.1% too fast.
+     */
+    public double getClockSkew() {
+        return this.clockSkew;
+    }
+
+    /**
+     * The maximum random delay before every write, in millis.
+     */
+    public int getWriteJitterMillis() {
+        return this.writeJitterMillis;
+    }
+
+    /**
+     * The probability (0 - 1) that a write stalls.
+     */
+    public double getWriteStallProbability() {
+        return this.writeStallProbability;
+    }
+
+    /**
+     * The amount of millis a stalled write blocks (on top of the normal blocking of a write).
+     */
+    public int getWriteStallMillis() {
+        return this.writeStallMillis;
+    }
+
+    /**
+     * The frame position is rounded down to a multiple of this amount of millis (0 = exact).
+     */
+    public int getFramePositionGranularityMillis() {
+        return this.framePositionGranularityMillis;
+    }
+
+    /**
+     * The probability (0 - 1) that the frame position is reported with a random offset.
+     */
+    public double getFramePositionJumpProbability() {
+        return this.framePositionJumpProbability;
+    }
+
+    /**
+     * The maximum offset of a frame position jump (in both directions), in millis.
+     */
+    public int getFramePositionJumpMillis() {
+        return this.framePositionJumpMillis;
+    }
+
+    /**
+     * The probability (0 - 1) that the frame position is reported beyond the amount of frames written.
+     */
+    public double getFramePositionAheadProbability() {
+        return this.framePositionAheadProbability;
+    }
+
+    /**
+     * The seed for the random faults, so a fault profile always results in the same sequence of faults.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    @Override
+    public String toString() {
+        return "FaultProfile [name=" + this.name + ", clockSkew=" + this.clockSkew + ", writeJitterMillis=" + this.writeJitterMillis
+                + ", writeStallProbability=" + this.writeStallProbability + ", writeStallMillis=" + this.writeStallMillis
+                + ", framePositionGranularityMillis=" + this.framePositionGranularityMillis
+                + ", framePositionJumpProbability=" + this.framePositionJumpProbability + ", framePositionJumpMillis=" + this.framePositionJumpMillis
+                + ", framePositionAheadProbability=" + this.framePositionAheadProbability + ", seed=" + this.seed + "]";
+    }
+
+    /**
+     * A fault profile without any faults.
+     */
+    public static FaultProfile none() {
+        return builder("none").build();
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public static class Builder {
+        private final FaultProfile faultProfile;
+
+        public Builder(String name) {
+            this.faultProfile = new FaultProfile();
+            this.faultProfile.name = name;
+            this.faultProfile.clockSkew = 1;
+            this.faultProfile.seed = 0;
+        }
+
+        public Builder clockSkew(double clockSkew) {
+            this.faultProfile.clockSkew = clockSkew;
+            return this;
+        }
+
+        public Builder writeJitter(int writeJitterMillis) {
+            this.faultProfile.writeJitterMillis = writeJitterMillis;
+            return this;
+        }
+
+        public Builder writeStalls(double probability, int stallMillis) {
+            this.faultProfile.writeStallProbability = probability;
+            this.faultProfile.writeStallMillis = stallMillis;
+            return this;
+        }
+
+        public Builder framePositionGranularity(int granularityMillis) {
+            this.faultProfile.framePositionGranularityMillis = granularityMillis;
+            return this;
+        }
+
+        public Builder framePositionJumps(double probability, int jumpMillis) {
+            this.faultProfile.framePositionJumpProbability = probability;
+            this.faultProfile.framePositionJumpMillis = jumpMillis;
+            return this;
+        }
+
+        public Builder framePositionAhead(double probability) {
+            this.faultProfile.framePositionAheadProbability = probability;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.faultProfile.seed = seed;
+            return this;
+        }
+
+        public FaultProfile build() {
+            if (this.faultProfile.clockSkew <= 0) {
+                throw new IllegalArgumentException("Clock skew should be positive");
+            }
+            return this.faultProfile;
+        }
+    }
+
+}
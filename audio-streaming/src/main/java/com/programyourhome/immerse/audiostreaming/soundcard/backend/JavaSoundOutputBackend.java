@@ -0,0 +1,78 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Output backend that plays the audio data on sound card hardware, through a Java Sound source data line.
+ * All operations are directly delegated to the line.
+ */
+public class JavaSoundOutputBackend implements OutputBackend {
+
+    private final SourceDataLine outputLine;
+    private final ImmerseAudioFormat format;
+
+    public JavaSoundOutputBackend(SourceDataLine outputLine) {
+        this.outputLine = outputLine;
+        this.format = ImmerseAudioFormat.fromJavaAudioFormat(outputLine.getFormat());
+    }
+
+    @Override
+    public ImmerseAudioFormat getFormat() {
+        return this.format;
+    }
+
+    @Override
+    public void open(int bufferSize) {
+        try {
+            if (bufferSize > 0) {
+                this.outputLine.open(this.outputLine.getFormat(), bufferSize);
+            } else {
+                this.outputLine.open();
+            }
+        } catch (LineUnavailableException e) {
+            throw new IllegalStateException("Line unavailable", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        this.outputLine.start();
+    }
+
+    @Override
+    public void stop() {
+        this.outputLine.stop();
+    }
+
+    @Override
+    public void close() {
+        this.outputLine.close();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.outputLine.write(bytes, offset, length);
+    }
+
+    /**
+     * The frame position as reported by the hardware. Is known to be far from exact, see SoundCardStream.getAmountOfFramesNeeded.
+     */
+    @Override
+    public long getFramePosition() {
+        return this.outputLine.getLongFramePosition();
+    }
+
+    @Override
+    public int getBufferSize() {
+        return this.outputLine.getBufferSize();
+    }
+
+    @Override
+    public int available() {
+        return this.outputLine.available();
+    }
+
+}
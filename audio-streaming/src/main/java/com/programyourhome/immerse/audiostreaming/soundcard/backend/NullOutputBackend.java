@@ -0,0 +1,28 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Output backend that discards all audio data, at the pace it would be played.
+ * Useful to run and benchmark the mixer without any sound card hardware.
+ */
+public class NullOutputBackend extends PacedOutputBackend {
+
+    public NullOutputBackend(ImmerseAudioFormat format) {
+        super(format);
+    }
+
+    @Override
+    protected void openOutput() {
+    }
+
+    @Override
+    protected void writeOutput(byte[] bytes, int offset, int length) {
+        // Discard the audio data.
+    }
+
+    @Override
+    protected void closeOutput() {
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * An output backend is the destination of the audio data of one sound card stream: the place where the audio is actually 'played'.
+ * This can be sound card hardware, but also anything else that consumes raw PCM audio data at a certain pace.
+ *
+ * The operations are modelled after a Java Sound source data line, since that is what the sound card stream needs:
+ * - a buffer, that can be filled by writing audio data and that is emptied by playing it
+ * - a frame position, that tells how many frames are played so far
+ * - start and stop of the playback
+ *
+ * Writing and querying the frame position can happen from different threads (the sound card writer and the mixer),
+ * so implementations should be thread safe for those operations.
+ */
+public interface OutputBackend {
+
+    /**
+     * The audio format of the audio data this backend consumes.
+     */
+    ImmerseAudioFormat getFormat();
+
+    /**
+     * Open the backend with a buffer of the given size in bytes, or the default buffer size of the backend if 0.
+     * Should be called before any other operation (except getFormat).
+     */
+    void open(int bufferSize);
+
+    /**
+     * Start playing the audio data in the buffer.
+     */
+    void start();
+
+    /**
+     * Stop playing, the audio data still in the buffer will not be played.
+     */
+    void stop();
+
+    /**
+     * Close the backend, releasing all resources. The backend cannot be used anymore after closing.
+     */
+    void close();
+
+    /**
+     * Write the given bytes of audio data to the buffer. Will block when there is not enough room in the buffer, until there is.
+     */
+    void write(byte[] bytes, int offset, int length);
+
+    /**
+     * The amount of frames played so far.
+     */
+    long getFramePosition();
+
+    /**
+     * The size of the buffer in bytes.
+     */
+    int getBufferSize();
+
+    /**
+     * The amount of bytes that can be written without blocking.
+     */
+    int available();
+
+}
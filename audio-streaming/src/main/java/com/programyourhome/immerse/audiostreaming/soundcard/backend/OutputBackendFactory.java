@@ -0,0 +1,18 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Factory for custom output backends, to use instead of the output backend type configured in the settings.
+ * Useful for output backends that need more configuration than the physical port of the sound card, like the simulated output backend.
+ */
+@FunctionalInterface
+public interface OutputBackendFactory {
+
+    /**
+     * Create the output backend for the given sound card, consuming audio data in the given format.
+     */
+    OutputBackend create(SoundCard soundCard, ImmerseAudioFormat format);
+
+}
@@ -0,0 +1,184 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Base class for output backends that are not driven by sound card hardware, but still consume the audio data at the pace it would be played.
+ * The playback is simulated with the system clock: once started, the frame position advances with the sample rate of the format,
+ * as long as there is audio data in the (virtual) buffer. Writes block when there is not enough room in the buffer, just like
+ * a real line would. This way the mixer behaves the same as with real hardware, including underruns when it cannot keep up.
+ *
+ * Subclasses only have to implement the actual output of the audio data (if any).
+ */
+public abstract class PacedOutputBackend implements OutputBackend {
+
+    // The size of the buffer if no explicit size is requested.
+    private static final int DEFAULT_BUFFER_MILLIS = 100;
+
+    private final ImmerseAudioFormat format;
+    private final double framesPerNano;
+    private int bufferSize;
+    private long bufferFrames;
+    // The playback state, guarded by this.
+    private boolean running;
+    private long framesWritten;
+    private long framesPlayed;
+    private double fractionOfFramePlayed;
+    private long lastUpdateNanos;
+
+    protected PacedOutputBackend(ImmerseAudioFormat format) {
+        this(format, 1);
+    }
+
+    /**
+     * Create a paced output backend that plays the audio data at the given speed compared to the sample rate of the format.
+     * A speed other than 1 simulates the clock skew between the system clock and the clock of sound card hardware.
+     */
+    protected PacedOutputBackend(ImmerseAudioFormat format, double playbackSpeed) {
+        this.format = format;
+        this.framesPerNano = format.getNumberOfFramesPerSecond() * playbackSpeed / 1_000_000_000.0;
+        this.running = false;
+    }
+
+    @Override
+    public ImmerseAudioFormat getFormat() {
+        return this.format;
+    }
+
+    @Override
+    public void open(int bufferSize) {
+        int bytesPerFrame = this.format.getNumberOfBytesPerFrame();
+        if (bufferSize > 0) {
+            this.bufferFrames = bufferSize / bytesPerFrame;
+        } else {
+            this.bufferFrames = DEFAULT_BUFFER_MILLIS * this.format.getNumberOfFramesPerSecond() / 1000;
+        }
+        this.bufferSize = (int) this.bufferFrames * bytesPerFrame;
+        try {
+            this.openOutput();
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception while opening output", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        this.lastUpdateNanos = System.nanoTime();
+        this.running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        this.updateFramesPlayed();
+        this.running = false;
+    }
+
+    @Override
+    public void close() {
+        this.stop();
+        try {
+            this.closeOutput();
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception while closing output", e);
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        int frames = length / this.format.getNumberOfBytesPerFrame();
+        this.waitForRoom(frames);
+        try {
+            this.writeOutput(bytes, offset, length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception while writing output", e);
+        }
+        synchronized (this) {
+            this.framesWritten += frames;
+        }
+    }
+
+    /**
+     * Wait until there is room in the buffer for the given amount of frames, or until the buffer is empty for writes bigger than the buffer.
+     * When not running, the buffer will not be emptied, so the write is allowed right away.
+     */
+    private void waitForRoom(int frames) {
+        while (true) {
+            long framesTooMany;
+            synchronized (this) {
+                if (!this.running) {
+                    return;
+                }
+                this.updateFramesPlayed();
+                framesTooMany = this.framesWritten - this.framesPlayed + Math.min(frames, this.bufferFrames) - this.bufferFrames;
+            }
+            if (framesTooMany <= 0) {
+                return;
+            }
+            LockSupport.parkNanos((long) Math.ceil(framesTooMany / this.framesPerNano));
+        }
+    }
+
+    /**
+     * Update the amount of frames played, based on the time passed since the last update. Playing stops when the buffer runs empty.
+     * Should only be called while holding the lock on this.
+     */
+    private void updateFramesPlayed() {
+        long now = System.nanoTime();
+        if (this.running) {
+            double played = (now - this.lastUpdateNanos) * this.framesPerNano + this.fractionOfFramePlayed;
+            long wholeFramesPlayed = (long) played;
+            this.fractionOfFramePlayed = played - wholeFramesPlayed;
+            this.framesPlayed += wholeFramesPlayed;
+            if (this.framesPlayed >= this.framesWritten) {
+                // Buffer ran empty (underrun): playing continues with the next frame that is written.
+                this.framesPlayed = this.framesWritten;
+                this.fractionOfFramePlayed = 0;
+            }
+        }
+        this.lastUpdateNanos = now;
+    }
+
+    @Override
+    public synchronized long getFramePosition() {
+        this.updateFramesPlayed();
+        return this.framesPlayed;
+    }
+
+    /**
+     * The total amount of frames written to this backend.
+     */
+    protected synchronized long getFramesWritten() {
+        return this.framesWritten;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    @Override
+    public synchronized int available() {
+        this.updateFramesPlayed();
+        long framesBuffered = this.framesWritten - this.framesPlayed;
+        return (int) Math.max(0, this.bufferFrames - framesBuffered) * this.format.getNumberOfBytesPerFrame();
+    }
+
+    /**
+     * Open the actual output.
+     */
+    protected abstract void openOutput() throws IOException;
+
+    /**
+     * Write the audio data to the actual output. Is called at the pace the audio data would be played.
+     */
+    protected abstract void writeOutput(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * Close the actual output.
+     */
+    protected abstract void closeOutput() throws IOException;
+
+}
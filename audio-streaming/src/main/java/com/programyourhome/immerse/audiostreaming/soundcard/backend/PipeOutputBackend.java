@@ -0,0 +1,27 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Output backend that writes the raw PCM audio data to a file, named pipe or file descriptor (using a path like /dev/fd/3).
+ * NB: Opening a named pipe blocks until the other side has opened it for reading.
+ */
+public class PipeOutputBackend extends StreamOutputBackend {
+
+    private final String path;
+
+    public PipeOutputBackend(ImmerseAudioFormat format, String path) {
+        super(format);
+        this.path = path;
+    }
+
+    @Override
+    protected OutputStream openStream() throws IOException {
+        return new FileOutputStream(this.path);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.programyourhome.immerse.audiostreaming.metrics.Histogram;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Output backend that simulates sound card hardware, including the misbehavior described by a fault profile.
+ * The audio data itself is discarded, like with the null output backend.
+ *
+ * The faults in the frame position are only in the reported value: the actual playback is not affected by them,
+ * just like with real hardware that reports an inaccurate frame position.
+ * The time every write takes (including blocking and injected delays) is recorded, to see how the faults affect the writing party.
+ */
+public class SimulatedOutputBackend extends PacedOutputBackend {
+
+    // Derives the seed of the frame position faults from the seed of the write faults, so they are not correlated.
+    private static final long FRAME_POSITION_SEED_MASK = 0x5DEECE66DL;
+
+    private final FaultProfile faultProfile;
+    // Writing and getting the frame position happen on different threads, so they each have their own random.
+    private final Random writeRandom;
+    private final Random framePositionRandom;
+    private final double framesPerMilli;
+    private final Histogram writeMicrosHistogram;
+
+    public SimulatedOutputBackend(ImmerseAudioFormat format, FaultProfile faultProfile) {
+        this(format, faultProfile, faultProfile.getSeed());
+    }
+
+    /**
+     * Create a simulated output backend with a specific seed, so multiple backends with the same fault profile have different faults.
+     */
+    public SimulatedOutputBackend(ImmerseAudioFormat format, FaultProfile faultProfile, long seed) {
+        super(format, faultProfile.getClockSkew());
+        this.faultProfile = faultProfile;
+        this.writeRandom = new Random(seed);
+        this.framePositionRandom = new Random(seed ^ FRAME_POSITION_SEED_MASK);
+        this.framesPerMilli = format.getNumberOfFramesPerSecond() / 1000.0;
+        this.writeMicrosHistogram = new Histogram();
+    }
+
+    public FaultProfile getFaultProfile() {
+        return this.faultProfile;
+    }
+
+    /**
+     * The distribution of the duration of the writes, in micros.
+     */
+    public Histogram getWriteMicrosHistogram() {
+        return this.writeMicrosHistogram;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        long start = System.nanoTime();
+        if (this.faultProfile.getWriteJitterMillis() > 0) {
+            this.sleepMillis(this.writeRandom.nextDouble() * this.faultProfile.getWriteJitterMillis());
+        }
+        if (this.writeRandom.nextDouble() < this.faultProfile.getWriteStallProbability()) {
+            this.sleepMillis(this.faultProfile.getWriteStallMillis());
+        }
+        super.write(bytes, offset, length);
+        this.writeMicrosHistogram.record((System.nanoTime() - start) / 1000);
+    }
+
+    @Override
+    public long getFramePosition() {
+        long framePosition = super.getFramePosition();
+        if (this.faultProfile.getFramePositionGranularityMillis() > 0) {
+            long granularityFrames = Math.max(1, Math.round(this.faultProfile.getFramePositionGranularityMillis() * this.framesPerMilli));
+            framePosition -= framePosition % granularityFrames;
+        }
+        if (this.framePositionRandom.nextDouble() < this.faultProfile.getFramePositionJumpProbability()) {
+            long maxJumpFrames = Math.round(this.faultProfile.getFramePositionJumpMillis() * this.framesPerMilli);
+            framePosition = Math.max(0, framePosition + Math.round((this.framePositionRandom.nextDouble() * 2 - 1) * maxJumpFrames));
+        }
+        if (this.framePositionRandom.nextDouble() < this.faultProfile.getFramePositionAheadProbability()) {
+            // Report a position of up to one buffer beyond the frames written.
+            long bufferFrames = this.getBufferSize() / this.getFormat().getNumberOfBytesPerFrame();
+            framePosition = this.getFramesWritten() + 1 + (long) (this.framePositionRandom.nextDouble() * bufferFrames);
+        }
+        return framePosition;
+    }
+
+    private void sleepMillis(double millis) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(Math.round(millis * 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void openOutput() {
+    }
+
+    @Override
+    protected void writeOutput(byte[] bytes, int offset, int length) {
+        // Discard the audio data.
+    }
+
+    @Override
+    protected void closeOutput() {
+    }
+
+}
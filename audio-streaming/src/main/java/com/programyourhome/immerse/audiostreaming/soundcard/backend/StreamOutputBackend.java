@@ -0,0 +1,42 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Base class for output backends that write the raw PCM audio data to an output stream, at the pace it would be played.
+ * The consumer on the other side of the stream is responsible for the actual playback (if any).
+ */
+public abstract class StreamOutputBackend extends PacedOutputBackend {
+
+    private OutputStream outputStream;
+
+    protected StreamOutputBackend(ImmerseAudioFormat format) {
+        super(format);
+    }
+
+    @Override
+    protected void openOutput() throws IOException {
+        this.outputStream = this.openStream();
+    }
+
+    @Override
+    protected void writeOutput(byte[] bytes, int offset, int length) throws IOException {
+        this.outputStream.write(bytes, offset, length);
+    }
+
+    @Override
+    protected void closeOutput() throws IOException {
+        if (this.outputStream != null) {
+            this.outputStream.close();
+        }
+    }
+
+    /**
+     * Open the output stream to write the audio data to.
+     */
+    protected abstract OutputStream openStream() throws IOException;
+
+}
@@ -0,0 +1,48 @@
+package com.programyourhome.immerse.audiostreaming.soundcard.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+
+/**
+ * Output backend that writes the raw PCM audio data to a TCP socket.
+ * The connection is made when the backend is opened, so the other side should be listening by then.
+ */
+public class TcpOutputBackend extends StreamOutputBackend {
+
+    private final String host;
+    private final int port;
+
+    public TcpOutputBackend(ImmerseAudioFormat format, String host, int port) {
+        super(format);
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Create a TCP output backend for an address in the form host:port.
+     */
+    public static TcpOutputBackend forAddress(ImmerseAudioFormat format, String address) {
+        int separatorIndex = address.lastIndexOf(':');
+        if (separatorIndex == -1) {
+            throw new IllegalArgumentException("Address should be in the form host:port, but was: " + address);
+        }
+        try {
+            return new TcpOutputBackend(format, address.substring(0, separatorIndex), Integer.parseInt(address.substring(separatorIndex + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Address should be in the form host:port, but was: " + address, e);
+        }
+    }
+
+    @Override
+    protected OutputStream openStream() throws IOException {
+        Socket socket = new Socket(this.host, this.port);
+        // Send the audio data right away instead of waiting for more data to combine in one packet.
+        socket.setTcpNoDelay(true);
+        // Closing the output stream will also close the socket.
+        return socket.getOutputStream();
+    }
+
+}
@@ -1,14 +1,14 @@
 package com.programyourhome.immerse.audiostreaming.util;
 
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class AsyncUtil {
 
     private AsyncUtil() {
     }
 
-    private static ExecutorService executorService = Executors.newCachedThreadPool();
+    private static ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newCachedThreadPool();
 
     /**
      * Submit a task to be executed asynchronously on the executor service.
@@ -18,4 +18,32 @@ public class AsyncUtil {
         executorService.submit(() -> LogUtil.logExceptions(task));
     }
 
+    /**
+     * The current amount of threads in the pool of the executor service.
+     */
+    public static int getAmountOfThreads() {
+        return executorService.getPoolSize();
+    }
+
+    /**
+     * The approximate amount of threads that are executing a task.
+     */
+    public static int getAmountOfActiveThreads() {
+        return executorService.getActiveCount();
+    }
+
+    /**
+     * The amount of tasks that are waiting to be executed.
+     */
+    public static int getAmountOfQueuedTasks() {
+        return executorService.getQueue().size();
+    }
+
+    /**
+     * The approximate amount of tasks that have completed execution.
+     */
+    public static long getAmountOfCompletedTasks() {
+        return executorService.getCompletedTaskCount();
+    }
+
 }
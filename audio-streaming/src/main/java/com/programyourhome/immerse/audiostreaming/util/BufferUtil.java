@@ -0,0 +1,34 @@
+package com.programyourhome.immerse.audiostreaming.util;
+
+/**
+ * Util methods for (re)using primitive array buffers.
+ * The ensureCapacity methods return the given array if it is big enough and a new, bigger array otherwise.
+ * This way buffers will only grow when needed and are reused in all other cases.
+ */
+public class BufferUtil {
+
+    private BufferUtil() {
+    }
+
+    /**
+     * Return a byte array that has at least the requested length.
+     */
+    public static byte[] ensureCapacity(byte[] buffer, int length) {
+        return buffer != null && buffer.length >= length ? buffer : new byte[length];
+    }
+
+    /**
+     * Return a short array that has at least the requested length.
+     */
+    public static short[] ensureCapacity(short[] buffer, int length) {
+        return buffer != null && buffer.length >= length ? buffer : new short[length];
+    }
+
+    /**
+     * Return an int array that has at least the requested length.
+     */
+    public static int[] ensureCapacity(int[] buffer, int length) {
+        return buffer != null && buffer.length >= length ? buffer : new int[length];
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.programyourhome.immerse.audiostreaming.mixer
+
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+class PlaybackHandleSpec extends Specification {
+
+    def "Playback events should complete the futures in order and not on the signalling thread"() {
+        given:
+        def handle = new PlaybackHandle(UUID.randomUUID())
+        def events = Collections.synchronizedList([])
+        def threads = Collections.synchronizedSet([] as Set)
+        def record = { String event ->
+            events << event
+            threads << Thread.currentThread()
+        }
+        handle.getStarted().thenRun { record("started") }
+        handle.getNextRestart().thenRun { record("restarted") }
+        def stoppedRecorded = handle.getStopped().thenRun { record("stopped") }
+
+        when:
+        handle.playbackStarted()
+        handle.playbackRestarted()
+        handle.playbackStopped()
+        stoppedRecorded.get(5, TimeUnit.SECONDS)
+
+        then:
+        events == ["started", "restarted", "stopped"]
+        !threads.contains(Thread.currentThread())
+    }
+
+    def "A restart should complete the current next restart future and provide a new one"() {
+        given:
+        def handle = new PlaybackHandle(UUID.randomUUID())
+        def firstRestart = handle.getNextRestart()
+
+        when:
+        handle.playbackRestarted()
+        firstRestart.get(5, TimeUnit.SECONDS)
+
+        then:
+        handle.getNextRestart() != firstRestart
+        !handle.getNextRestart().isDone()
+    }
+
+    def "A playback that is stopped before it started should cancel the start and restart futures"() {
+        given:
+        def handle = new PlaybackHandle(UUID.randomUUID())
+
+        when:
+        handle.playbackStopped()
+        handle.getStopped().get(5, TimeUnit.SECONDS)
+
+        then:
+        handle.getStarted().isCancelled()
+        handle.getNextRestart().isCancelled()
+        !handle.getStopped().isCancelled()
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scenario
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import javax.sound.sampled.AudioFormat
+import javax.sound.sampled.AudioInputStream
+
+import com.programyourhome.immerse.domain.audio.resource.StreamConfig
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+
+import spock.lang.Specification
+
+class AudioInputBufferSpec extends Specification {
+
+    // 16 bit mono, so 2 bytes per frame.
+    static final AudioFormat FORMAT = new AudioFormat(44100, 16, 1, true, false)
+    // With a step pace of 0 and no packets, the buffer size is exactly the chunk size: 8 bytes.
+    static final StreamConfig CONFIG = StreamConfig.builder(ImmerseAudioFormat.fromJavaAudioFormat(FORMAT)).chunkSize(8).packetSize(0).build()
+
+    def "A view that wraps around the end of the buffer should have 2 segments with the bytes in order"() {
+        given:
+        byte[] bytes = (0..<20).collect { it as byte } as byte[]
+        def buffer = new AudioInputBuffer(new AudioInputStream(new ByteArrayInputStream(bytes), FORMAT, 10), CONFIG, 0)
+        buffer.fill()
+        buffer.release(buffer.readView(6))
+        buffer.fill()
+
+        when:
+        def view = buffer.readView(8)
+        def viewBytes = (view.getFirstOffset()..<view.getFirstOffset() + view.getFirstLength()).collect { view.getBytes()[it] } +
+                (0..<view.getSecondLength()).collect { view.getBytes()[it] }
+
+        then:
+        buffer.getBufferSize() == 8
+        view.getFirstOffset() == 6
+        view.getFirstLength() == 2
+        view.getSecondLength() == 6
+        viewBytes == (6..13).collect { it as byte }
+    }
+
+    def "Release should advance the read position by exactly the length of the view"() {
+        given:
+        byte[] bytes = (0..<20).collect { it as byte } as byte[]
+        def buffer = new AudioInputBuffer(new AudioInputStream(new ByteArrayInputStream(bytes), FORMAT, 10), CONFIG, 0)
+        buffer.fill()
+
+        when:
+        buffer.release(buffer.readView(2))
+        def fillLevelAfterFirstRelease = buffer.getFillLevel()
+        buffer.release(buffer.readView(4))
+        def fillLevelAfterSecondRelease = buffer.getFillLevel()
+        def view = buffer.readView(2)
+
+        then:
+        fillLevelAfterFirstRelease == 6 / 8
+        fillLevelAfterSecondRelease == 2 / 8
+        buffer.canRead(2)
+        !buffer.canRead(4)
+        view.getFirstOffset() == 6
+        view.getBytes()[view.getFirstOffset()] == 6
+    }
+
+    def "Read remaining should return the last bytes and then nothing at the end of the stream"() {
+        given:
+        byte[] bytes = (0..<6).collect { it as byte } as byte[]
+        def buffer = new AudioInputBuffer(new AudioInputStream(new ByteArrayInputStream(bytes), FORMAT, 3), CONFIG, 0)
+        buffer.fill()
+        byte[] toBuffer = new byte[8]
+
+        when:
+        def firstAmountRead = buffer.readRemaining(toBuffer)
+        def secondAmountRead = buffer.readRemaining(toBuffer)
+
+        then:
+        buffer.isStreamClosed()
+        !buffer.canRead(2)
+        firstAmountRead == 6
+        toBuffer[0..5] == (0..5).collect { it as byte }
+        secondAmountRead == 0
+    }
+
+    def "Read remaining should not be allowed while the stream is still open"() {
+        given:
+        byte[] bytes = (0..<20).collect { it as byte } as byte[]
+        def buffer = new AudioInputBuffer(new AudioInputStream(new ByteArrayInputStream(bytes), FORMAT, 10), CONFIG, 0)
+        buffer.fill()
+
+        when:
+        buffer.readRemaining(new byte[8])
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "Fill requests during a running fill should be merged into one more fill"() {
+        given:
+        def fills = new AtomicInteger()
+        def fillStarted = new CountDownLatch(1)
+        def continueFill = new CountDownLatch(1)
+        def fillsDone = new CountDownLatch(2)
+        def stream = new AudioInputStream(new ByteArrayInputStream(new byte[20]), FORMAT, 10)
+        def buffer = new AudioInputBuffer(stream, CONFIG, 0) {
+            @Override
+            int fill() {
+                fills.incrementAndGet()
+                fillStarted.countDown()
+                continueFill.await()
+                fillsDone.countDown()
+                return 0
+            }
+        }
+
+        when:
+        buffer.fillAsync()
+        fillStarted.await(5, TimeUnit.SECONDS)
+        buffer.fillAsync()
+        buffer.fillAsync()
+        buffer.fillAsync()
+        continueFill.countDown()
+        fillsDone.await(5, TimeUnit.SECONDS)
+        // Give a (wrongly) scheduled extra fill the chance to run.
+        Thread.sleep(200)
+
+        then:
+        fills.get() == 2
+    }
+
+    def "A failing stream should be marked as closed and should not block the next asynchronous fill"() {
+        given:
+        def fills = new AtomicInteger()
+        // A stream that returns the first 4 bytes and then fails.
+        def failingStream = new InputStream() {
+            int position = 0
+
+            @Override
+            int read() {
+                if (position == 4) {
+                    throw new IOException("Stream failed")
+                }
+                return position++
+            }
+        }
+        def buffer = new AudioInputBuffer(new AudioInputStream(failingStream, FORMAT, 10), CONFIG, 0) {
+            @Override
+            int fill() {
+                fills.incrementAndGet()
+                return super.fill()
+            }
+        }
+        byte[] toBuffer = new byte[8]
+
+        when: 'requesting fills until a second fill starts (or giving up after 5 seconds)'
+        for (int i = 0; i < 50 && fills.get() < 2; i++) {
+            buffer.fillAsync()
+            Thread.sleep(100)
+        }
+
+        then: 'the bytes read before the failure are still available'
+        buffer.isStreamClosed()
+        buffer.readRemaining(toBuffer) == 4
+        toBuffer[0..3] == (0..3).collect { it as byte }
+
+        and: 'the failed fill did not leave a pending request behind, so a next request started a new fill'
+        fills.get() == 2
+    }
+
+}
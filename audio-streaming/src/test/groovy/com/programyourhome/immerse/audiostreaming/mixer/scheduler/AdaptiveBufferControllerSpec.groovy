@@ -0,0 +1,139 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler
+
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard
+
+import com.programyourhome.immerse.audiostreaming.soundcard.UnderrunEvent
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AdaptiveBufferControllerSpec extends Specification {
+
+    static final long MILLI = 1_000_000L
+
+    @Unroll
+    def "Buffer of 20 millis should grow to #expectedMillis millis after #events"() {
+        given:
+        def controller = new AdaptiveBufferController(20, 5, 100, 10)
+        controller.update(0)
+
+        when:
+        events.each { nearUnderrun -> controller.underrunDetected(new UnderrunEvent(soundCard(1, "a", 1, 2), nearUnderrun, 0, 1, 0)) }
+
+        then: 'nothing changes until the next update'
+        controller.getBufferMillis() == 20
+
+        when:
+        controller.update(10 * MILLI)
+
+        then:
+        controller.getBufferMillis() == expectedMillis
+
+        where:
+        events              || expectedMillis
+        []                  || 20
+        [true]              || 30
+        [false]             || 40
+        [true, false, true] || 40 // the worst event counts
+    }
+
+    def "Growing should stay within the max buffer"() {
+        given:
+        def controller = new AdaptiveBufferController(60, 5, 100, 10)
+        controller.update(0)
+
+        when:
+        controller.underrunDetected(new UnderrunEvent(soundCard(1, "a", 1, 2), false, 0, 1, 0))
+        controller.update(10 * MILLI)
+
+        then:
+        controller.getBufferMillis() == 100
+    }
+
+    def "Buffer should shrink by 1 milli after a stable period of 10 seconds"() {
+        given:
+        def controller = new AdaptiveBufferController(20, 5, 100, 10)
+        // The first step starts at nano time 0.
+        controller.update(0)
+
+        when: 'steps on schedule for almost 10 seconds'
+        (1..999).each { controller.update(it * 10 * MILLI) }
+
+        then:
+        controller.getBufferMillis() == 20
+
+        when: 'the stable period is complete'
+        controller.update(10_000 * MILLI)
+
+        then:
+        controller.getBufferMillis() == 19
+
+        when: 'the next stable period is complete'
+        (1001..2000).each { controller.update(it * 10 * MILLI) }
+
+        then:
+        controller.getBufferMillis() == 18
+    }
+
+    @Unroll
+    def "Buffer of 20 millis should #shrinkOrNot after a stable period with a max step lateness of #latenessMillis millis"() {
+        given:
+        def controller = new AdaptiveBufferController(20, 5, 100, 10)
+        controller.update(0)
+
+        when: 'one step in the period starts late, the others are on schedule'
+        controller.update(10 * MILLI + latenessMillis * MILLI)
+        (2..1000).each { controller.update(it * 10 * MILLI + latenessMillis * MILLI) }
+
+        then: 'the shrunk buffer should cover the step pace of 10 millis, the lateness and the margin of 2 millis'
+        controller.getBufferMillis() == expectedMillis
+
+        where:
+        latenessMillis || expectedMillis
+        0              || 19
+        7              || 19
+        8              || 20
+        shrinkOrNot = expectedMillis < 20 ? "shrink" : "not shrink"
+    }
+
+    def "A near underrun should restart the stable period"() {
+        given:
+        def controller = new AdaptiveBufferController(20, 5, 100, 10)
+        controller.update(0)
+
+        when: 'a near underrun after 5 seconds'
+        (1..499).each { controller.update(it * 10 * MILLI) }
+        controller.underrunDetected(new UnderrunEvent(soundCard(1, "a", 1, 2), true, 0, 1, 0))
+        (500..1000).each { controller.update(it * 10 * MILLI) }
+
+        then: 'grown, but not shrunk 10 seconds after the start'
+        controller.getBufferMillis() == 30
+
+        when: '10 seconds after the near underrun'
+        (1001..1500).each { controller.update(it * 10 * MILLI) }
+
+        then:
+        controller.getBufferMillis() == 29
+    }
+
+    def "Buffer should not shrink below the min buffer"() {
+        given:
+        def controller = new AdaptiveBufferController(20, 20, 100, 10)
+        controller.update(0)
+
+        when:
+        (1..1000).each { controller.update(it * 10 * MILLI) }
+
+        then:
+        controller.getBufferMillis() == 20
+    }
+
+    def "Min buffer bigger than max buffer should throw an exception"() {
+        when:
+        new AdaptiveBufferController(20, 50, 40, 10)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+}
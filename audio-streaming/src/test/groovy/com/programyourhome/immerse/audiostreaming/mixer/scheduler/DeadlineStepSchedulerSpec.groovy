@@ -0,0 +1,118 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.LongSupplier
+
+import spock.lang.Specification
+
+class DeadlineStepSchedulerSpec extends Specification {
+
+    static final long MILLI = 1_000_000L
+
+    def "Waiting should sleep, then park and then spin until the deadline"() {
+        given:
+        def now = new AtomicLong()
+        def phases = []
+        // A simulated clock: sleeping oversleeps half a milli, parking is exact and spinning takes 50 micros.
+        def scheduler = new DeadlineStepScheduler(10, { now.get() } as LongSupplier) {
+            protected void sleep(long millis) {
+                phases << "sleep " + millis
+                now.addAndGet(millis * MILLI + MILLI.intdiv(2))
+            }
+
+            protected void park(long nanos) {
+                phases << "park " + nanos
+                now.addAndGet(nanos)
+            }
+
+            protected void spin() {
+                phases << "spin"
+                now.addAndGet(50_000)
+            }
+        }
+
+        when: 'the step took 1 milli of the step pace of 10 millis'
+        scheduler.start()
+        now.set(1 * MILLI)
+        scheduler.waitForNextStep()
+
+        then: 'sleep until 2 millis before the deadline, park until 200 micros before it and spin for the rest'
+        phases == ["sleep 7", "park 1300000", "spin", "spin", "spin", "spin"]
+        now.get() == 10 * MILLI
+        scheduler.statistics.amountOfSteps == 1
+        scheduler.statistics.amountOfOverruns == 0
+        scheduler.statistics.maxJitterMillis == 0
+    }
+
+    def "An overrun shorter than the step pace should keep the schedule, so the next steps catch up"() {
+        given:
+        def now = new AtomicLong()
+        def scheduler = new DeadlineStepScheduler(10, { now.get() } as LongSupplier) {
+            protected void sleep(long millis) {
+                now.addAndGet(millis * MILLI)
+            }
+
+            protected void park(long nanos) {
+                now.addAndGet(nanos)
+            }
+
+            protected void spin() {
+                now.addAndGet(50_000)
+            }
+        }
+        scheduler.start()
+
+        when: 'the first step ends 3 millis after the deadline of 10 millis'
+        now.set(13 * MILLI)
+        scheduler.waitForNextStep()
+
+        then: 'the next step starts immediately'
+        now.get() == 13 * MILLI
+        scheduler.statistics.amountOfOverruns == 1
+        scheduler.statistics.amountOfSkippedSteps == 0
+
+        when: 'the next step is short'
+        now.set(15 * MILLI)
+        scheduler.waitForNextStep()
+
+        then: 'it waits for the original schedule'
+        now.get() == 20 * MILLI
+        scheduler.statistics.amountOfSteps == 2
+    }
+
+    def "An overrun longer than the step pace should skip the missed deadlines and restart the schedule"() {
+        given:
+        def now = new AtomicLong()
+        def scheduler = new DeadlineStepScheduler(10, { now.get() } as LongSupplier) {
+            protected void sleep(long millis) {
+                now.addAndGet(millis * MILLI)
+            }
+
+            protected void park(long nanos) {
+                now.addAndGet(nanos)
+            }
+
+            protected void spin() {
+                now.addAndGet(50_000)
+            }
+        }
+        scheduler.start()
+
+        when: 'the first step ends 25 millis after the deadline of 10 millis'
+        now.set(35 * MILLI)
+        scheduler.waitForNextStep()
+
+        then: 'the deadlines at 20 and 30 millis are skipped'
+        now.get() == 35 * MILLI
+        scheduler.statistics.amountOfOverruns == 1
+        scheduler.statistics.amountOfSkippedSteps == 2
+
+        when: 'the next step is short'
+        now.set(37 * MILLI)
+        scheduler.waitForNextStep()
+
+        then: 'the schedule restarted from the overrun, instead of trying to catch up'
+        now.get() == 45 * MILLI
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.programyourhome.immerse.audiostreaming.mixer.scheduler
+
+import spock.lang.Specification
+
+class StepSchedulerStatisticsSpec extends Specification {
+
+    def "Jitter should only be calculated over the steps that did not overrun"() {
+        given:
+        def statistics = new StepSchedulerStatistics()
+
+        when:
+        statistics.recordJitter(1_000_000)
+        statistics.recordJitter(3_000_000)
+        statistics.recordOverrun(0)
+        statistics.recordOverrun(4)
+
+        then:
+        statistics.amountOfSteps == 4
+        statistics.meanJitterMillis == 2
+        statistics.maxJitterMillis == 3
+        statistics.amountOfOverruns == 2
+        statistics.amountOfSkippedSteps == 4
+        statistics.toString() == "steps: 4, mean jitter: 2.000 ms, max jitter: 3.000 ms, overruns: 2, skipped steps: 4"
+    }
+
+    def "Mean jitter should be 0 when there are no steps without overrun"() {
+        given:
+        def statistics = new StepSchedulerStatistics()
+
+        when:
+        statistics.recordOverrun(1)
+
+        then:
+        statistics.meanJitterMillis == 0
+        statistics.maxJitterMillis == 0
+    }
+
+}
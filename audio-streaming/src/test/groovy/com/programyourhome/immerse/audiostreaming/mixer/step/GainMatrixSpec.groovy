@@ -0,0 +1,69 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step
+
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes
+
+import spock.lang.Specification
+
+class GainMatrixSpec extends Specification {
+
+    def "A row should hold the volume of the speaker of every output channel"() {
+        given:
+        // 4 output channels, the last one outputs to the same speaker as the first one.
+        def gainMatrix = new GainMatrix([2, 0, 3, 2] as int[])
+        def speakerVolumes = new SpeakerVolumes([1, 2, 5, 8] as int[], [0.1, 0.2, 0.3, 0.4] as double[])
+
+        when:
+        gainMatrix.prepare(2)
+        gainMatrix.setRow(0, speakerVolumes)
+        gainMatrix.setRow(1, new SpeakerVolumes([1, 2, 5, 8] as int[], [0, 0, 0, 0] as double[]))
+
+        then:
+        gainMatrix.numberOfChannels == 4
+        gainMatrix.getRowOffset(1) == 4
+        (0..3).collect { gainMatrix.getGain(0, it) } == [0.3, 0.1, 0.4, 0.3]
+        gainMatrix.gains[0..3] == [0.3, 0.1, 0.4, 0.3]
+        !gainMatrix.isZeroRow(0)
+        gainMatrix.isZeroRow(1)
+    }
+
+    def "A zero row should overwrite the gains of a previous step"() {
+        given:
+        def gainMatrix = new GainMatrix([0, 1] as int[])
+        gainMatrix.prepare(2)
+        gainMatrix.setRow(0, new SpeakerVolumes([1, 2] as int[], [1, 0.5] as double[]))
+        gainMatrix.setRow(1, new SpeakerVolumes([1, 2] as int[], [0.25, 0.75] as double[]))
+
+        when:
+        gainMatrix.setZeroRow(0)
+
+        then:
+        gainMatrix.isZeroRow(0)
+        gainMatrix.getGain(1, 0) == 0.25
+        gainMatrix.getGain(1, 1) == 0.75
+    }
+
+    def "The gains array should only grow when the amount of scenarios goes up"() {
+        given:
+        def gainMatrix = new GainMatrix([0, 1, 2] as int[])
+
+        when:
+        gainMatrix.prepare(3)
+        def gains = gainMatrix.gains
+
+        then:
+        gains.length == 9
+
+        when:
+        gainMatrix.prepare(2)
+
+        then:
+        gainMatrix.gains.is(gains)
+
+        when:
+        gainMatrix.prepare(4)
+
+        then:
+        gainMatrix.gains.length == 12
+    }
+
+}
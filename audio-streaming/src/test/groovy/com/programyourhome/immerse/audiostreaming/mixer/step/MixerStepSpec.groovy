@@ -0,0 +1,129 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step
+
+import static com.programyourhome.immerse.toolbox.audio.playback.ForeverPlayback.forever
+import static com.programyourhome.immerse.toolbox.audio.resource.SuppliedAudioResource.supplied
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed
+import static com.programyourhome.immerse.toolbox.location.dynamic.HorizontalCircleDynamicLocation.horizontalCircle
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FixedVolumeRatiosAlgorithm.justSpeaker
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.OnlyClosestVolumeRatiosAlgorithm.onlyClosest
+import static com.programyourhome.immerse.toolbox.util.TestData.multiChannelSoundCard
+import static com.programyourhome.immerse.toolbox.util.TestData.room
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario
+import static com.programyourhome.immerse.toolbox.util.TestData.settings
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker
+import static com.programyourhome.immerse.toolbox.volume.dynamic.FixedDynamicVolume.fixed as fixedVolume
+import static com.programyourhome.immerse.toolbox.volume.dynamic.FixedDynamicVolume.mute
+import static com.programyourhome.immerse.toolbox.volume.dynamic.LinearDynamicVolume.linearWithDelay
+
+import com.programyourhome.immerse.audiostreaming.generate.SineWaveAudioInputStreamGenerator
+import com.programyourhome.immerse.audiostreaming.offline.OfflineRenderer
+import com.programyourhome.immerse.domain.ImmerseSettings
+import com.programyourhome.immerse.domain.format.ByteOrder
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+import com.programyourhome.immerse.domain.format.RecordingMode
+import com.programyourhome.immerse.domain.format.SampleRate
+import com.programyourhome.immerse.domain.format.SampleSize
+import com.programyourhome.immerse.domain.location.Vector3D
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MixerStepSpec extends Specification {
+
+    def "Serial and parallel step should give the same output for a scenario that starts at volume 0"() {
+        given:
+        def room = room(speaker(1, 0, 0, 0), speaker(2, 10, 0, 0))
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.TWO_BYTES).buildForOutput()
+        def inputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.ONE_BYTE)
+                .recordingMode(RecordingMode.MONO).byteOrder(ByteOrder.LITTLE_ENDIAN).signed().buildForInput()
+        // Volume 0 for 300 millis, then fading in. The audio is shorter than the render, so it also has to restart.
+        def scenario = scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 440, 500).generate() }),
+                linearWithDelay(0, 1, 200, true, 300), justSpeaker(room, 1), fractional(), forever()))
+        def render = { boolean parallel ->
+            def settings = ImmerseSettings.builder().room(room).soundCards([soundCard(1, "a", 1, 2)] as Set).outputFormat(outputFormat)
+                    .technical().parallelStep(parallel).parallelStepThreshold(0).functional().build()
+            def renderer = new OfflineRenderer(settings)
+            renderer.addScenario(scenario, 0)
+            renderer.render(1500).getAudio(1)
+        }
+
+        expect:
+        render(false) == render(true)
+    }
+
+    @Unroll
+    def "Serial and parallel step should give the same output for a show with multiple scenarios and sound cards in #sampleSize"() {
+        given:
+        def room = room(speaker(1, 0, 0, 0), speaker(2, 10, 0, 0), speaker(3, 10, 10, 0), speaker(4, 0, 10, 0), speaker(5, 5, 0, 0),
+                speaker(6, 5, 10, 0))
+        def soundCards = [soundCard(1, "a", 1, 2), soundCard(2, "b", 3, 4), soundCard(3, "c", 5, 6)] as LinkedHashSet
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(sampleSize).buildForOutput()
+        def inputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.ONE_BYTE)
+                .recordingMode(RecordingMode.MONO).byteOrder(ByteOrder.LITTLE_ENDIAN).signed().buildForInput()
+        // A moving scenario, a scenario on one speaker, a muted scenario and a scenario with a fixed volume, starting at different moments.
+        def scenarios = [
+            scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 440, 1000).generate() }),
+                    onlyClosest(room, horizontalCircle(new Vector3D(5, 5, 0), 0, 5, true, 2000), fixed(5, 5, 0)), fractional(), forever())),
+            scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 660, 700).generate() }),
+                    justSpeaker(room, 1), fractional(), forever())),
+            scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 330, 1000).generate() }), mute(),
+                    fieldOfHearing(room, fixed(5, 5, 0), fixed(5, 5, 0)), fractional(), forever())),
+            scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 550, 1000).generate() }), fixedVolume(0.7),
+                    fieldOfHearing(room, fixed(2, 8, 0), fixed(5, 5, 0)), fractional(), forever()))
+        ]
+        def startMillis = [100, 500, 0, 900]
+        def render = { boolean parallel ->
+            def settings = ImmerseSettings.builder().room(room).soundCards(soundCards).outputFormat(outputFormat)
+                    .technical().parallelStep(parallel).parallelStepThreshold(0).functional().build()
+            def renderer = new OfflineRenderer(settings)
+            scenarios.eachWithIndex { scenario, index -> renderer.addScenario(scenario, startMillis[index]) }
+            def result = renderer.render(2500)
+            soundCards.collect { result.getAudio(it.id) }
+        }
+
+        when:
+        def serial = render(false)
+        def parallel = render(true)
+
+        then:
+        serial.size() == 3
+        serial == parallel
+        // Every sound card gets some audio.
+        serial.every { audio -> audio.any { it != 0 } }
+
+        where:
+        sampleSize << [SampleSize.ONE_BYTE, SampleSize.TWO_BYTES]
+    }
+
+    def "A multi channel sound card should output the same channels as stereo sound cards for the same speakers"() {
+        given:
+        def room = room(speaker(1, 0, 0, 0), speaker(2, 10, 0, 0), speaker(3, 10, 10, 0), speaker(4, 0, 10, 0))
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.TWO_BYTES).buildForOutput()
+        def inputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.ONE_BYTE)
+                .recordingMode(RecordingMode.MONO).byteOrder(ByteOrder.LITTLE_ENDIAN).signed().buildForInput()
+        def scenario = scenario(settings(supplied({ new SineWaveAudioInputStreamGenerator(inputFormat, 440, 1000).generate() }),
+                fieldOfHearing(room, horizontalCircle(new Vector3D(5, 5, 0), 0, 5, true, 2000), fixed(5, 5, 0)), fractional(), forever()))
+        def render = { soundCards ->
+            def settings = ImmerseSettings.builder().room(room).soundCards(soundCards as LinkedHashSet).outputFormat(outputFormat).build()
+            def renderer = new OfflineRenderer(settings)
+            renderer.addScenario(scenario, 0)
+            def result = renderer.render(2000)
+            soundCards.collect { result.getAudio(it.id) }
+        }
+
+        when:
+        def stereo = render([soundCard(1, "a", 1, 2), soundCard(2, "b", 3, 4)])
+        def quad = render([multiChannelSoundCard(1, "q", 1, 2, 3, 4)])[0]
+
+        then:
+        def frames = stereo[0].length.intdiv(4)
+        frames > 0
+        quad.length == frames * 8
+        // Interleave the 2 stereo outputs per frame: the 4 bytes of the first card, then the 4 bytes of the second card.
+        (0..<frames).collectMany { frame -> (stereo[0][frame * 4..<frame * 4 + 4]) + (stereo[1][frame * 4..<frame * 4 + 4]) } == quad.toList()
+    }
+
+}
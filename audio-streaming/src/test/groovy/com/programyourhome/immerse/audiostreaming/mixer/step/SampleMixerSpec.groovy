@@ -0,0 +1,144 @@
+package com.programyourhome.immerse.audiostreaming.mixer.step
+
+import com.programyourhome.immerse.domain.format.ByteOrder
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+import com.programyourhome.immerse.domain.format.RecordingMode
+import com.programyourhome.immerse.domain.format.SampleRate
+import com.programyourhome.immerse.domain.format.SampleSize
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SampleMixerSpec extends Specification {
+
+    // More than one block, and not a multiple of the block size.
+    static final int FRAMES = SampleMixer.BLOCK_SIZE * 2 + 17
+
+    // The per sample reference: read one (signed) sample from the bytes at the sample index.
+    static final Closure<Short> READ_SAMPLE = { byte[] bytes, int sampleIndex, ImmerseAudioFormat format ->
+        int byteIndex = sampleIndex * format.numberOfBytesPerSample
+        if (format.sampleSize == SampleSize.ONE_BYTE) {
+            return bytes[byteIndex] as short
+        } else if (format.bigEndian) {
+            return (short) ((bytes[byteIndex] & 0xFF) << 8 | bytes[byteIndex + 1] & 0xFF)
+        } else {
+            return (short) (bytes[byteIndex] & 0xFF | (bytes[byteIndex + 1] & 0xFF) << 8)
+        }
+    }
+
+    // The per sample reference: write one (signed) sample into the bytes at the sample index.
+    static final Closure WRITE_SAMPLE = { short sample, byte[] bytes, int sampleIndex, ImmerseAudioFormat format ->
+        int byteIndex = sampleIndex * format.numberOfBytesPerSample
+        if (format.sampleSize == SampleSize.ONE_BYTE) {
+            bytes[byteIndex] = (byte) sample
+        } else if (format.bigEndian) {
+            bytes[byteIndex] = (byte) (sample >> 8 & 0xFF)
+            bytes[byteIndex + 1] = (byte) (sample & 0xFF)
+        } else {
+            bytes[byteIndex] = (byte) (sample & 0xFF)
+            bytes[byteIndex + 1] = (byte) (sample >> 8 & 0xFF)
+        }
+    }
+
+    @Unroll
+    def "Mixing #inputSize #inputOrder input into #outputSize output should give the same bytes as the per sample steps"() {
+        given:
+        def inputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(inputSize)
+                .recordingMode(RecordingMode.MONO).byteOrder(inputOrder).signed().buildForInput()
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(outputSize).buildForOutput()
+        // Random (full scale) input, so the sum of the scenarios will regularly be out of the sample size boundaries.
+        def random = new Random(42)
+        def inputs = (0..2).collect {
+            byte[] bytes = new byte[FRAMES * inputFormat.numberOfBytesPerSample]
+            random.nextBytes(bytes)
+            bytes
+        }
+        double[] volumes = [1, 0.8, 0.37]
+        // One row per scenario with the gains for the left and right channel, covering the 0 and 1 fast paths.
+        double[] gains = [1, 0.5, 0, 1, 0.73, 0.21]
+
+        when: 'the per sample reference: read, scenario volume, pan, merge and write as separate steps'
+        int[][] referenceSums = new int[2][FRAMES]
+        inputs.eachWithIndex { byte[] input, int scenario ->
+            for (int frame = 0; frame < FRAMES; frame++) {
+                short scaled = (short) (READ_SAMPLE(input, frame, inputFormat) * volumes[scenario])
+                for (int channel = 0; channel < 2; channel++) {
+                    referenceSums[channel][frame] += (short) (scaled * gains[scenario * 2 + channel])
+                }
+            }
+        }
+        int max = outputSize == SampleSize.ONE_BYTE ? Byte.MAX_VALUE : Short.MAX_VALUE
+        int min = outputSize == SampleSize.ONE_BYTE ? Byte.MIN_VALUE : Short.MIN_VALUE
+        byte[] referenceBytes = new byte[FRAMES * 2 * outputFormat.numberOfBytesPerSample]
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (int channel = 0; channel < 2; channel++) {
+                short sample = (short) Math.max(Math.min(referenceSums[channel][frame], max), min)
+                WRITE_SAMPLE(sample, referenceBytes, frame * 2 + channel, outputFormat)
+            }
+        }
+
+        and: 'the fused mixing'
+        int[][] fusedAccumulators = new int[2][FRAMES]
+        short[] sampleBlock = new short[SampleMixer.BLOCK_SIZE]
+        inputs.eachWithIndex { byte[] input, int scenario ->
+            SampleMixer.accumulate(input, 0, 0, FRAMES, inputFormat, volumes[scenario], gains, scenario * 2, fusedAccumulators,
+                    [false, false] as boolean[], 2, sampleBlock)
+        }
+        byte[] fusedBytes = new byte[FRAMES * 2 * outputFormat.numberOfBytesPerSample]
+        int bytesWritten = SampleMixer.write(fusedAccumulators, 0, 2, FRAMES, outputFormat, fusedBytes)
+
+        and: 'the split mixing of the parallel step, decoding in 2 segments'
+        int[][] splitAccumulators = new int[2][FRAMES]
+        int firstSegment = 100
+        inputs.eachWithIndex { byte[] input, int scenario ->
+            short[] scaled = new short[FRAMES]
+            SampleMixer.decode(input, 0, 0, firstSegment, inputFormat, volumes[scenario], scaled)
+            SampleMixer.decode(input, firstSegment * inputFormat.numberOfBytesPerSample, firstSegment, FRAMES - firstSegment,
+                    inputFormat, volumes[scenario], scaled)
+            for (int channel = 0; channel < 2; channel++) {
+                SampleMixer.accumulate(scaled, 0, 0, FRAMES, gains[scenario * 2 + channel], splitAccumulators[channel])
+            }
+        }
+        byte[] splitBytes = new byte[FRAMES * 2 * outputFormat.numberOfBytesPerSample]
+        SampleMixer.write(splitAccumulators, 0, 2, FRAMES, outputFormat, splitBytes)
+
+        then:
+        bytesWritten == referenceBytes.length
+        fusedBytes == referenceBytes
+        splitBytes == referenceBytes
+        // Make sure the input actually triggered the clipping (one byte input cannot overflow two byte output).
+        referenceSums.flatten().any { it > max || it < min } == clipped
+
+        where:
+        inputSize            | inputOrder              | outputSize           | clipped
+        SampleSize.ONE_BYTE  | ByteOrder.LITTLE_ENDIAN | SampleSize.ONE_BYTE  | true
+        SampleSize.ONE_BYTE  | ByteOrder.BIG_ENDIAN    | SampleSize.TWO_BYTES | false
+        SampleSize.TWO_BYTES | ByteOrder.LITTLE_ENDIAN | SampleSize.TWO_BYTES | true
+        SampleSize.TWO_BYTES | ByteOrder.BIG_ENDIAN    | SampleSize.TWO_BYTES | true
+        SampleSize.TWO_BYTES | ByteOrder.BIG_ENDIAN    | SampleSize.ONE_BYTE  | true
+    }
+
+    @Unroll
+    def "Writing should cut off the amplitude #amplitude at the boundaries of #outputSize"() {
+        given:
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(outputSize).buildForOutput()
+        int[][] accumulators = [[amplitude], [-amplitude]] as int[][]
+        byte[] output = new byte[2 * outputFormat.numberOfBytesPerSample]
+
+        when:
+        SampleMixer.write(accumulators, 0, 2, 1, outputFormat, output)
+
+        then:
+        READ_SAMPLE(output, 0, outputFormat) == left
+        READ_SAMPLE(output, 1, outputFormat) == right
+
+        where:
+        outputSize           | amplitude || left            | right
+        SampleSize.ONE_BYTE  | 100       || 100             | -100
+        SampleSize.ONE_BYTE  | 127       || 127             | -127
+        SampleSize.ONE_BYTE  | 200       || Byte.MAX_VALUE  | Byte.MIN_VALUE
+        SampleSize.TWO_BYTES | 200       || 200             | -200
+        SampleSize.TWO_BYTES | 40000     || Short.MAX_VALUE | Short.MIN_VALUE
+    }
+
+}
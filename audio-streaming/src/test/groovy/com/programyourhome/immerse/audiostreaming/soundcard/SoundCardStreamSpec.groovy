@@ -0,0 +1,104 @@
+package com.programyourhome.immerse.audiostreaming.soundcard
+
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard
+
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.NullOutputBackend
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+import com.programyourhome.immerse.domain.format.SampleRate
+import com.programyourhome.immerse.domain.format.SampleSize
+
+import spock.lang.Specification
+
+class SoundCardStreamSpec extends Specification {
+
+    static final ImmerseAudioFormat FORMAT = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.TWO_BYTES)
+            .buildForOutput()
+
+    // The bytes of the given amount of millis of audio (44.1 frames per milli, 4 bytes per frame).
+    static final Closure<byte[]> AUDIO = { int millis -> new byte[(int) (millis * 44.1) * 4] }
+
+    def "A stream that is stalled past it's buffer should report an underrun with the time it was without audio"() {
+        given:
+        def events = []
+        def stream = new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 5)
+        stream.setLineBufferMillis(50)
+        stream.setUnderrunListener({ events << it } as UnderrunListener)
+        stream.open()
+        // Fill the buffer with 20 millis of audio before starting, like the mixer does.
+        stream.writeToLine(AUDIO(20))
+        stream.start()
+
+        when: 'the next write is 60 millis later, so the line ran dry after 20 millis'
+        Thread.sleep(60)
+        stream.writeToLine(AUDIO(20))
+
+        then:
+        stream.getAmountOfUnderruns() == 1
+        stream.getAmountOfNearUnderruns() == 0
+        // At least 40 millis without audio, the upper bound leaves room for a slow test machine.
+        stream.getTotalUnderrunMillis() >= 39
+        stream.getTotalUnderrunMillis() < 200
+        events.size() == 1
+        !events[0].isNearUnderrun()
+        events[0].getSoundCard().getId() == 1
+        events[0].getDurationMillis() == stream.getTotalUnderrunMillis()
+        events[0].getBufferedMillis() == 0
+
+        cleanup:
+        stream.stop()
+    }
+
+    def "A stream that has less than the near underrun millis left before a write should report a near underrun"() {
+        given:
+        def events = []
+        def stream = new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 20)
+        stream.setLineBufferMillis(100)
+        stream.setUnderrunListener({ events << it } as UnderrunListener)
+        stream.open()
+        stream.writeToLine(AUDIO(50))
+        stream.start()
+
+        when: 'the next write is 35 millis later, so about 15 millis are left'
+        Thread.sleep(35)
+        stream.writeToLine(AUDIO(20))
+
+        then:
+        stream.getAmountOfUnderruns() == 0
+        stream.getAmountOfNearUnderruns() == 1
+        stream.getTotalUnderrunMillis() == 0
+        events.size() == 1
+        events[0].isNearUnderrun()
+        events[0].getBufferedMillis() > 0
+        events[0].getBufferedMillis() < 20
+
+        cleanup:
+        stream.stop()
+    }
+
+    def "A stream that is written to in time should not report anything"() {
+        given:
+        def events = []
+        def stream = new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 5)
+        stream.setLineBufferMillis(50)
+        stream.setUnderrunListener({ events << it } as UnderrunListener)
+        stream.open()
+        stream.writeToLine(AUDIO(40))
+        stream.start()
+
+        when: 'writing 10 millis of audio every 10 millis, so the buffer stays about 40 millis full'
+        5.times {
+            Thread.sleep(10)
+            stream.writeToLine(AUDIO(10))
+        }
+
+        then:
+        stream.getFramesWritten() == 9 * (int) (10 * 44.1)
+        stream.getAmountOfUnderruns() == 0
+        stream.getAmountOfNearUnderruns() == 0
+        events.isEmpty()
+
+        cleanup:
+        stream.stop()
+    }
+
+}
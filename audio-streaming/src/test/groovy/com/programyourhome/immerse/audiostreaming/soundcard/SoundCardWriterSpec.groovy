@@ -0,0 +1,91 @@
+package com.programyourhome.immerse.audiostreaming.soundcard
+
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard
+
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.NullOutputBackend
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+import com.programyourhome.immerse.domain.format.SampleRate
+import com.programyourhome.immerse.domain.format.SampleSize
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+class SoundCardWriterSpec extends Specification {
+
+    static final ImmerseAudioFormat FORMAT = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.TWO_BYTES)
+            .buildForOutput()
+
+    @Timeout(10)
+    def "Submitted buffers should be written in the order they were submitted"() {
+        given:
+        def written = Collections.synchronizedList([])
+        def random = new Random(0)
+        // A stream that records the first byte of every write and takes a random amount of time for it.
+        def stream = new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 5) {
+            @Override
+            void writeToLine(byte[] buffer, int length) {
+                Thread.sleep(random.nextInt(2))
+                written << buffer[0]
+            }
+        }
+        def writer = new SoundCardWriter(stream, 4)
+        writer.start()
+
+        when: 'the writer is too slow for the submits, so the pool runs out and the submitting party has to wait for free buffers'
+        (0..<100).each {
+            def outputBuffer = writer.nextFreeBuffer()
+            outputBuffer.prepare(4)[0] = it as byte
+            writer.submit(outputBuffer)
+        }
+        // All writes are done when all buffers of the pool (2 more than the queue size) are back.
+        6.times { writer.nextFreeBuffer() }
+
+        then:
+        written == (0..<100).collect { it as byte }
+        writer.getAmountOfWrites() == 100
+        writer.getMaxQueueDepth() <= 6
+
+        cleanup:
+        writer.stop()
+    }
+
+    def "An empty buffer should go back to the pool without being written"() {
+        given:
+        def writes = 0
+        def stream = new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 5) {
+            @Override
+            void writeToLine(byte[] buffer, int length) {
+                writes++
+            }
+        }
+        def writer = new SoundCardWriter(stream, 1)
+
+        when: 'submitting more empty buffers than the pool has, without a running writer'
+        10.times {
+            def outputBuffer = writer.nextFreeBuffer()
+            outputBuffer.prepare(0)
+            writer.submit(outputBuffer)
+        }
+
+        then:
+        writes == 0
+        writer.getQueueDepth() == 0
+    }
+
+    def "Writing synchronously should not be allowed while there are submitted writes in the queue"() {
+        given: 'a writer that is not started, so the submitted write stays in the queue'
+        def writer = new SoundCardWriter(new SoundCardStream(soundCard(1, "a", 1, 2), new NullOutputBackend(FORMAT), 5), 4)
+        def submitted = writer.nextFreeBuffer()
+        submitted.prepare(4)
+        writer.submit(submitted)
+        def outputBuffer = writer.nextFreeBuffer()
+        outputBuffer.prepare(4)
+
+        when:
+        writer.writeNow(outputBuffer)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+}
@@ -12,7 +12,6 @@ import static com.programyourhome.immerse.toolbox.util.TestData.speaker;
 import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.sound.sampled.AudioInputStream;
@@ -97,8 +96,7 @@ public class TesterLocalLaptop {
         // Thread.sleep(100);
         // } catch (InterruptedException e) {}
         //
-        UUID playbackId = mixer.playScenario(scenario);
-        mixer.waitForPlayback(playbackId);
+        mixer.playScenario(scenario).getStopped().join();
         mixer.stop();
 
         // }
@@ -0,0 +1,82 @@
+package com.programyourhome.immerse.testscripts.scenarios;
+
+import static com.programyourhome.immerse.toolbox.audio.playback.LoopPlayback.times;
+import static com.programyourhome.immerse.toolbox.audio.playback.TimerPlayback.timer;
+import static com.programyourhome.immerse.toolbox.audio.resource.SuppliedAudioResource.supplied;
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed;
+import static com.programyourhome.immerse.toolbox.location.dynamic.HorizontalCircleDynamicLocation.horizontalCircle;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing;
+import static com.programyourhome.immerse.toolbox.util.TestData.room;
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario;
+import static com.programyourhome.immerse.toolbox.util.TestData.settings;
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard;
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker;
+import static com.programyourhome.immerse.toolbox.volume.dynamic.LinearDynamicVolume.linear;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import javax.sound.sampled.AudioInputStream;
+
+import com.programyourhome.immerse.audiostreaming.generate.SineWaveAudioInputStreamGenerator;
+import com.programyourhome.immerse.audiostreaming.offline.OfflineRenderResult;
+import com.programyourhome.immerse.audiostreaming.offline.OfflineRenderer;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.Scenario;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+import com.programyourhome.immerse.domain.location.Vector3D;
+import com.programyourhome.immerse.domain.speakers.Speaker;
+
+/**
+ * Renders a small show with 4 speakers on 2 sound cards offline (no sound card hardware needed) to WAV files in the temp directory.
+ */
+public class TesterOffline {
+
+    public static void main(String[] args) throws Exception {
+        Speaker speaker1 = speaker(1, 0, 0, 0);
+        Speaker speaker2 = speaker(2, 10, 0, 0);
+        Speaker speaker3 = speaker(3, 10, 10, 0);
+        Speaker speaker4 = speaker(4, 0, 10, 0);
+        Room room = room(speaker1, speaker2, speaker3, speaker4);
+
+        ImmerseAudioFormat outputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(SampleRate.RATE_44K)
+                .sampleSize(SampleSize.ONE_BYTE)
+                .buildForOutput();
+
+        ImmerseSettings settings = ImmerseSettings.builder()
+                .room(room)
+                .soundCards(new HashSet<>(Arrays.asList(
+                        soundCard(1, "offline-1", speaker1, speaker2),
+                        soundCard(2, "offline-2", speaker3, speaker4))))
+                .outputFormat(outputFormat)
+                .build();
+        ImmerseAudioFormat inputFormat = settings.getInputFormat();
+
+        // A tone circling around the listener and a second tone fading in a bit later at a fixed location.
+        Scenario circling = scenario(settings(supplied(() -> generate(inputFormat, 440, 2_000)),
+                fieldOfHearing(room, horizontalCircle(new Vector3D(5, 5, 0), 0, 5, true, 4_000), fixed(5, 5, 0)), fractional(), timer(8_000)));
+        Scenario fading = scenario(settings(supplied(() -> generate(inputFormat, 660, 3_000)),
+                linear(0, 1, 3_000), fieldOfHearing(room, fixed(10, 10, 0), fixed(5, 5, 0)), fractional(), times(1)));
+
+        OfflineRenderer renderer = new OfflineRenderer(settings);
+        renderer.addScenario(circling, 0);
+        renderer.addScenario(fading, 2_000);
+        OfflineRenderResult result = renderer.render(10_000);
+
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+        result.writeWavFiles(directory);
+        System.out.println("Rendered " + result.getAudioMillis() + " millis in " + result.getRenderMillis() + " millis "
+                + "(real time factor " + result.getRealTimeFactor() + ") to " + directory);
+    }
+
+    private static AudioInputStream generate(ImmerseAudioFormat format, int frequency, long lengthInMillis) {
+        return new SineWaveAudioInputStreamGenerator(format, frequency, lengthInMillis).generate();
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.programyourhome.immerse.testscripts.soak;
+
+import static com.programyourhome.immerse.toolbox.audio.playback.ForeverPlayback.forever;
+import static com.programyourhome.immerse.toolbox.audio.resource.SuppliedAudioResource.supplied;
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed;
+import static com.programyourhome.immerse.toolbox.location.dynamic.HorizontalCircleDynamicLocation.horizontalCircle;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing;
+import static com.programyourhome.immerse.toolbox.util.TestData.room;
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario;
+import static com.programyourhome.immerse.toolbox.util.TestData.settings;
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard;
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.sound.sampled.AudioInputStream;
+
+import com.programyourhome.immerse.audiostreaming.generate.SineWaveAudioInputStreamGenerator;
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsSnapshot;
+import com.programyourhome.immerse.audiostreaming.mixer.ImmerseMixer;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.FaultProfile;
+import com.programyourhome.immerse.audiostreaming.soundcard.backend.SimulatedOutputBackend;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.Scenario;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+import com.programyourhome.immerse.domain.location.Vector3D;
+import com.programyourhome.immerse.domain.speakers.Speaker;
+
+/**
+ * Soak test of the mixer on simulated sound cards (no sound card hardware needed), once for every fault profile.
+ * Reports the underruns, step overruns and latency distributions per fault profile, to see how the mixer copes with misbehaving hardware.
+ *
+ * Usage: SoakTester [seconds per fault profile, default 20]
+ */
+public class SoakTester {
+
+    private static final List<FaultProfile> FAULT_PROFILES = Arrays.asList(
+            FaultProfile.none(),
+            FaultProfile.builder("clock-fast").clockSkew(1.002).build(),
+            FaultProfile.builder("clock-slow").clockSkew(0.998).build(),
+            FaultProfile.builder("write-jitter").writeJitter(3).build(),
+            FaultProfile.builder("write-stalls").writeStalls(0.01, 30).build(),
+            FaultProfile.builder("position-jumps").framePositionGranularity(5).framePositionJumps(0.05, 10).build(),
+            FaultProfile.builder("position-ahead").framePositionAhead(0.02).build(),
+            FaultProfile.builder("all").clockSkew(1.001).writeJitter(2).writeStalls(0.005, 20)
+                    .framePositionGranularity(5).framePositionJumps(0.02, 5).framePositionAhead(0.01).build());
+
+    public static void main(String[] args) throws Exception {
+        int secondsPerProfile = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        Speaker speaker1 = speaker(1, 0, 0, 0);
+        Speaker speaker2 = speaker(2, 10, 0, 0);
+        Speaker speaker3 = speaker(3, 10, 10, 0);
+        Speaker speaker4 = speaker(4, 0, 10, 0);
+        Room room = room(speaker1, speaker2, speaker3, speaker4);
+
+        ImmerseAudioFormat outputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(SampleRate.RATE_44K)
+                .sampleSize(SampleSize.ONE_BYTE)
+                .buildForOutput();
+
+        ImmerseSettings settings = ImmerseSettings.builder()
+                .room(room)
+                .soundCards(new HashSet<>(Arrays.asList(
+                        soundCard(1, "simulated-1", speaker1, speaker2),
+                        soundCard(2, "simulated-2", speaker3, speaker4))))
+                .outputFormat(outputFormat)
+                .build();
+        ImmerseAudioFormat inputFormat = settings.getInputFormat();
+
+        // A tone circling around the listener and a short tone that restarts all the time, to also exercise the scenario lifecycle.
+        Scenario circling = scenario(settings(supplied(() -> generate(inputFormat, 440, 10_000)),
+                fieldOfHearing(room, horizontalCircle(new Vector3D(5, 5, 0), 0, 5, true, 4_000), fixed(5, 5, 0)), fractional(), forever()));
+        Scenario restarting = scenario(settings(supplied(() -> generate(inputFormat, 660, 500)),
+                fieldOfHearing(room, fixed(10, 10, 0), fixed(5, 5, 0)), fractional(), forever()));
+
+        List<String> reports = new ArrayList<>();
+        for (FaultProfile faultProfile : FAULT_PROFILES) {
+            reports.add(soak(settings, faultProfile, secondsPerProfile, circling, restarting));
+        }
+        System.out.println();
+        System.out.println(String.format("%-15s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s", "profile", "underruns", "near", "under ms",
+                "overruns", "skipped", "step p50", "step p99", "step max", "write p99", "write max"));
+        reports.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static String soak(ImmerseSettings settings, FaultProfile faultProfile, int seconds, Scenario... scenarios) throws Exception {
+        List<SimulatedOutputBackend> backends = new ArrayList<>();
+        ImmerseMixer mixer = new ImmerseMixer(settings, "Soak " + faultProfile.getName());
+        mixer.setOutputBackendFactory((soundCard, format) -> {
+            SimulatedOutputBackend backend = new SimulatedOutputBackend(format, faultProfile, faultProfile.getSeed() + soundCard.getId());
+            backends.add(backend);
+            return backend;
+        });
+        System.out.println("Soaking " + faultProfile + " for " + seconds + " seconds");
+        mixer.initialize();
+        mixer.start();
+        for (Scenario scenario : scenarios) {
+            mixer.playScenario(scenario);
+        }
+        Thread.sleep(seconds * 1000L);
+        MetricsSnapshot metrics = mixer.getMetrics();
+        mixer.stop();
+
+        double underruns = 0;
+        double nearUnderruns = 0;
+        double underrunMillis = 0;
+        for (SoundCard soundCard : settings.getSoundCards()) {
+            String soundCardName = "soundcard." + soundCard.getId();
+            underruns += metrics.getValue(soundCardName + ".underruns");
+            nearUnderruns += metrics.getValue(soundCardName + ".near.underruns");
+            underrunMillis += metrics.getValue(soundCardName + ".underrun.millis");
+        }
+        long writeMicrosP99 = backends.stream().mapToLong(backend -> backend.getWriteMicrosHistogram().getPercentile(99)).max().orElse(0);
+        long writeMicrosMax = backends.stream().mapToLong(backend -> backend.getWriteMicrosHistogram().getMax()).max().orElse(0);
+        return String.format("%-15s %9.0f %9.0f %9.1f %9.0f %9.0f %9.0f %9.0f %9.0f %9d %9d", faultProfile.getName(),
+                underruns, nearUnderruns, underrunMillis, metrics.getValue("step.overruns"), metrics.getValue("step.skipped"),
+                metrics.getValue("step.duration.micros.p50"), metrics.getValue("step.duration.micros.p99"),
+                metrics.getValue("step.duration.micros.max"), writeMicrosP99, writeMicrosMax);
+    }
+
+    private static AudioInputStream generate(ImmerseAudioFormat format, int frequency, long lengthInMillis) {
+        return new SineWaveAudioInputStreamGenerator(format, frequency, lengthInMillis).generate();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.programyourhome.immerse.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.AudioInputBuffer;
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.AudioInputBuffer.ReadView;
+import com.programyourhome.immerse.domain.audio.resource.StreamConfig;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.RecordingMode;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+
+/**
+ * Benchmark of one read and fill cycle of the audio input buffer, like the mixer performs it every step:
+ * read one step pace of audio (both as a view and as a copy) and refill the buffer from the (endless) stream.
+ * Only non-live streams are benchmarked: a live fill waits for the next packet of the stream, so it's pace is decided by the stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AudioInputBufferBenchmark {
+
+    // The step pace in millis, equal to the default step pace.
+    private static final int STEP_PACE_MILLIS = 5;
+
+    @Param({ "ONE_BYTE", "TWO_BYTES" })
+    public SampleSize sampleSize;
+
+    private AudioInputBuffer inputBuffer;
+    private int stepBytes;
+    private byte[] readBuffer;
+
+    @Setup
+    public void setUp() {
+        ImmerseAudioFormat inputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(SampleRate.RATE_44K)
+                .sampleSize(this.sampleSize)
+                .recordingMode(RecordingMode.MONO)
+                .byteOrderLittle()
+                .signed()
+                .buildForInput();
+        this.inputBuffer = new AudioInputBuffer(BenchmarkData.endlessSine(inputFormat, 440), StreamConfig.defaultNonLive(inputFormat),
+                STEP_PACE_MILLIS);
+        this.stepBytes = STEP_PACE_MILLIS * inputFormat.getNumberOfFramesPerSecond() / 1000 * inputFormat.getNumberOfBytesPerFrame();
+        this.readBuffer = new byte[this.stepBytes];
+        while (!this.inputBuffer.canRead(this.stepBytes)) {
+            this.inputBuffer.fill();
+        }
+    }
+
+    @Benchmark
+    public int readViewAndFill() {
+        ReadView view = this.inputBuffer.readView(this.stepBytes);
+        int firstByte = view.getBytes()[view.getFirstOffset()];
+        this.inputBuffer.release(view);
+        return firstByte + this.inputBuffer.fill();
+    }
+
+    @Benchmark
+    public byte[] readCopyAndFill() {
+        this.inputBuffer.read(this.readBuffer);
+        this.inputBuffer.fill();
+        return this.readBuffer;
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.programyourhome.immerse.benchmarks;
+
+import static com.programyourhome.immerse.toolbox.util.TestData.room;
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard;
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import com.programyourhome.immerse.audiostreaming.mixer.step.SampleMixer;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.speakers.Speaker;
+
+/**
+ * Data for the benchmarks: rooms, settings and audio streams that do not depend on any files or hardware.
+ */
+public class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * A room of 10 x 10 x 10 with the given amount of speakers evenly spread on a circle around the center, at the height of the listener.
+     */
+    public static Room circleRoom(int amountOfSpeakers) {
+        Speaker[] speakers = new Speaker[amountOfSpeakers];
+        for (int i = 0; i < amountOfSpeakers; i++) {
+            double angle = 2 * Math.PI * i / amountOfSpeakers;
+            speakers[i] = speaker(i + 1, 5 + 5 * Math.cos(angle), 5 + 5 * Math.sin(angle), 0);
+        }
+        return room(speakers);
+    }
+
+    /**
+     * Settings with the given amount of sound cards, each with 2 speakers of a circle room.
+     */
+    public static ImmerseSettings settings(int amountOfSoundCards, ImmerseAudioFormat outputFormat) {
+        return settings(amountOfSoundCards * 2, amountOfSoundCards, outputFormat);
+    }
+
+    /**
+     * Settings with a circle room of the given amount of speakers and the given amount of sound cards.
+     * The sound cards take the speakers in order, 2 per sound card, starting over at the first speaker when all speakers are taken.
+     */
+    public static ImmerseSettings settings(int amountOfSpeakers, int amountOfSoundCards, ImmerseAudioFormat outputFormat) {
+        Room room = circleRoom(amountOfSpeakers);
+        Set<SoundCard> soundCards = new LinkedHashSet<>();
+        for (int i = 0; i < amountOfSoundCards; i++) {
+            soundCards.add(soundCard(i + 1, "benchmark-" + (i + 1), i * 2 % amountOfSpeakers + 1, (i * 2 + 1) % amountOfSpeakers + 1));
+        }
+        return ImmerseSettings.builder()
+                .room(room)
+                .soundCards(soundCards)
+                .outputFormat(outputFormat)
+                .build();
+    }
+
+    /**
+     * An audio stream of a sine wave with the given frequency and length.
+     */
+    public static AudioInputStream sine(ImmerseAudioFormat format, int frequency, int lengthInMillis) {
+        byte[] audio = sineBytes(format, frequency, lengthInMillis);
+        return new AudioInputStream(new ByteArrayInputStream(audio), format.toJavaAudioFormat(), audio.length / format.getNumberOfBytesPerFrame());
+    }
+
+    /**
+     * An audio stream of a sine wave with the given frequency that never ends.
+     */
+    public static AudioInputStream endlessSine(ImmerseAudioFormat format, int frequency) {
+        // One second of a whole frequency always contains whole periods, so it can be repeated without any glitches.
+        InputStream repeatingStream = new RepeatingInputStream(sineBytes(format, frequency, 1000));
+        return new AudioInputStream(repeatingStream, format.toJavaAudioFormat(), AudioSystem.NOT_SPECIFIED);
+    }
+
+    private static byte[] sineBytes(ImmerseAudioFormat format, int frequency, int lengthInMillis) {
+        int amountOfFrames = format.getNumberOfFramesPerSecond() * lengthInMillis / 1000;
+        int channels = format.getRecordingMode().getNumberOfChannels();
+        int[][] channelSamples = new int[channels][amountOfFrames];
+        double maxAmplitude = ((1 << format.getSampleSize().getNumberOfBits() - 1) - 1) * 0.8;
+        for (int frame = 0; frame < amountOfFrames; frame++) {
+            double time = frame / (double) format.getNumberOfFramesPerSecond();
+            short sample = (short) Math.round(Math.sin(2 * Math.PI * frequency * time) * maxAmplitude);
+            for (int channel = 0; channel < channels; channel++) {
+                channelSamples[channel][frame] = sample;
+            }
+        }
+        byte[] bytes = new byte[amountOfFrames * format.getNumberOfBytesPerFrame()];
+        SampleMixer.write(channelSamples, 0, channels, amountOfFrames, format, bytes);
+        return bytes;
+    }
+
+    /**
+     * An output stream that discards all bytes written to it.
+     */
+    public static OutputStream discardingOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int value) {
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+            }
+        };
+    }
+
+    /**
+     * An input stream that repeats the given bytes forever.
+     */
+    private static class RepeatingInputStream extends InputStream {
+        private final byte[] bytes;
+        private int position;
+
+        public RepeatingInputStream(byte[] bytes) {
+            this.bytes = bytes;
+            this.position = 0;
+        }
+
+        @Override
+        public int read() {
+            int value = this.bytes[this.position] & 0xFF;
+            this.position = (this.position + 1) % this.bytes.length;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int amountRead = 0;
+            while (amountRead < length) {
+                int amountToCopy = Math.min(length - amountRead, this.bytes.length - this.position);
+                System.arraycopy(this.bytes, this.position, buffer, offset + amountRead, amountToCopy);
+                amountRead += amountToCopy;
+                this.position = (this.position + amountToCopy) % this.bytes.length;
+            }
+            return amountRead;
+        }
+    }
+
+}
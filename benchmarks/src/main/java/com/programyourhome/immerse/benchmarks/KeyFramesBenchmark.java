@@ -0,0 +1,74 @@
+package com.programyourhome.immerse.benchmarks;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.programyourhome.immerse.domain.location.Vector3D;
+import com.programyourhome.immerse.toolbox.location.dynamic.KeyFramesDynamicLocation;
+
+/**
+ * Benchmark of the location lookup of the key frames dynamic location, for a growing amount of key frames.
+ * The time moves on with one step pace every lookup and starts over after the last key frame, so all key frames are visited.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KeyFramesBenchmark {
+
+    // The step pace in millis, equal to the default step pace.
+    private static final int STEP_PACE_MILLIS = 5;
+    // The time between two key frames.
+    private static final long KEY_FRAME_MILLIS = 1000;
+
+    @Param({ "2", "16", "256", "4096" })
+    public int amountOfKeyFrames;
+
+    @Param({ "false", "true" })
+    public boolean loop;
+
+    private long totalMillis;
+    private long currentMillis;
+    private KeyFramesDynamicLocation location;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        SortedMap<Long, Vector3D> keyFrames = new TreeMap<>();
+        for (int i = 0; i < this.amountOfKeyFrames; i++) {
+            keyFrames.put(i * KEY_FRAME_MILLIS, new Vector3D(random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        if (this.loop) {
+            // In loop mode, the last key frame should be equal to the first one.
+            keyFrames.put(this.amountOfKeyFrames * KEY_FRAME_MILLIS, keyFrames.get(0L));
+        }
+        this.totalMillis = keyFrames.lastKey();
+        this.currentMillis = 0;
+        this.location = new KeyFramesDynamicLocation(keyFrames, this.loop);
+        this.location.nextPlaybackStarted(this.currentMillis);
+    }
+
+    @Benchmark
+    public Vector3D lookup() {
+        this.currentMillis = (this.currentMillis + STEP_PACE_MILLIS) % this.totalMillis;
+        this.location.nextStep(this.currentMillis);
+        return this.location.getCurrentValue();
+    }
+
+}
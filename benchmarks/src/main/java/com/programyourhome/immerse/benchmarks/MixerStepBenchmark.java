@@ -0,0 +1,132 @@
+package com.programyourhome.immerse.benchmarks;
+
+import static com.programyourhome.immerse.toolbox.audio.playback.ForeverPlayback.forever;
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed;
+import static com.programyourhome.immerse.toolbox.location.dynamic.HorizontalCircleDynamicLocation.horizontalCircle;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing;
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario;
+import static com.programyourhome.immerse.toolbox.util.TestData.settings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsRegistry;
+import com.programyourhome.immerse.audiostreaming.mixer.MixerContext;
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
+import com.programyourhome.immerse.audiostreaming.mixer.step.MixerStep;
+import com.programyourhome.immerse.audiostreaming.mixer.step.SoundCardBuffers;
+import com.programyourhome.immerse.audiostreaming.offline.OfflineOutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Scenario;
+import com.programyourhome.immerse.domain.audio.resource.StreamConfig;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+import com.programyourhome.immerse.domain.location.Vector3D;
+
+/**
+ * Benchmark of a full mixer step (prepare and calculate the buffer data) with N scenarios and M sound cards.
+ * Every scenario is a sine wave that circles around the listener, so all dynamic data changes every step.
+ *
+ * The step is driven by a virtual clock, just like the offline renderer, and renders one step pace of audio every step.
+ * The input buffers are filled synchronously and the output buffers are written synchronously to offline output backends that
+ * discard the audio, so the cost of the whole step is measured, but without any waiting for (simulated) hardware.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MixerStepBenchmark {
+
+    @Param({ "1", "4", "16" })
+    public int amountOfScenarios;
+
+    @Param({ "1", "4", "8" })
+    public int amountOfSoundCards;
+
+    @Param({ "ONE_BYTE", "TWO_BYTES" })
+    public SampleSize sampleSize;
+
+    private int stepPaceMillis;
+    private long currentMillis;
+    private MixerStep mixerStep;
+    private List<ActiveScenario> activeScenarios;
+
+    @Setup
+    public void setUp() {
+        ImmerseAudioFormat outputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(SampleRate.RATE_44K)
+                .sampleSize(this.sampleSize)
+                .buildForOutput();
+        ImmerseSettings settings = BenchmarkData.settings(this.amountOfSoundCards, outputFormat);
+        this.stepPaceMillis = settings.getTechnicalSettings().getStepPaceMillis();
+        this.currentMillis = 0;
+        MixerContext context = new MixerContext("Benchmark", settings, new MetricsRegistry(), () -> this.currentMillis);
+
+        List<SoundCardWriter> soundCardWriters = new ArrayList<>();
+        for (SoundCard soundCard : settings.getSoundCards()) {
+            OfflineOutputBackend outputBackend = new OfflineOutputBackend(outputFormat, BenchmarkData.discardingOutputStream());
+            SoundCardStream soundCardStream = new SoundCardStream(soundCard, outputBackend, settings.getTechnicalSettings().getNearUnderrunMillis());
+            soundCardStream.open();
+            soundCardWriters.add(new SoundCardWriter(soundCardStream, 1));
+        }
+        this.mixerStep = new MixerStep(context, soundCardWriters);
+        // The offline backends 'play' all audio data instantly, so a buffer of one step pace results in one step pace of frames per step.
+        this.mixerStep.setSoundCardBufferMillis(this.stepPaceMillis);
+
+        ImmerseAudioFormat inputFormat = settings.getInputFormat();
+        this.activeScenarios = new ArrayList<>();
+        for (int i = 0; i < this.amountOfScenarios; i++) {
+            Scenario scenario = scenario(settings(() -> null, fieldOfHearing(settings.getRoom(),
+                    horizontalCircle(new Vector3D(5, 5, 0), 360.0 * i / this.amountOfScenarios, 4, true, 10_000), fixed(5, 5, 0)),
+                    fractional(), forever()));
+            ActiveScenario activeScenario = new ActiveScenario(context, scenario, BenchmarkData.sine(inputFormat, 220 + 110 * i, 10_000),
+                    StreamConfig.defaultNonLive(inputFormat));
+            activeScenario.nextPlaybackStarted();
+            this.activeScenarios.add(activeScenario);
+        }
+    }
+
+    @Benchmark
+    public List<SoundCardBuffers> step() {
+        this.currentMillis += this.stepPaceMillis;
+        this.mixerStep.prepare(this.activeScenarios);
+        List<SoundCardBuffers> buffers = this.mixerStep.calculateBufferData();
+        for (SoundCardBuffers soundCardBuffers : buffers) {
+            soundCardBuffers.getSoundCardWriter().writeNow(soundCardBuffers.getOutputBuffer());
+        }
+        // Restart the scenarios that reached the end of their audio, like the mixer would.
+        for (ActiveScenario activeScenario : this.mixerStep.getScenariosToRestart()) {
+            activeScenario.resetForNextStart();
+            activeScenario.nextPlaybackStarted();
+        }
+        return buffers;
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.activeScenarios.forEach(ActiveScenario::stop);
+        this.mixerStep.shutdown();
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.programyourhome.immerse.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.programyourhome.immerse.audiostreaming.mixer.step.SampleMixer;
+import com.programyourhome.immerse.domain.format.ByteOrder;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.RecordingMode;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+
+/**
+ * Benchmark of the sample mixer for one step pace of audio of one scenario into one stereo sound card, for every combination
+ * of input and output format: decoding the input bytes, accumulating them into the output channels and writing the output bytes.
+ * Only signed formats are included, since the sample mixer only supports those.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SampleConversionBenchmark {
+
+    // The amount of millis of audio to mix, equal to the default step pace.
+    private static final int MILLIS_OF_AUDIO = 5;
+    // The output channels of a stereo sound card.
+    private static final int NUMBER_OF_CHANNELS = 2;
+
+    @Param({ "RATE_8K", "RATE_11K", "RATE_16K", "RATE_22K", "RATE_32K", "RATE_44K", "RATE_48K" })
+    public SampleRate sampleRate;
+
+    @Param({ "ONE_BYTE", "TWO_BYTES" })
+    public SampleSize inputSampleSize;
+
+    @Param({ "LITTLE_ENDIAN", "BIG_ENDIAN" })
+    public ByteOrder inputByteOrder;
+
+    @Param({ "ONE_BYTE", "TWO_BYTES" })
+    public SampleSize outputSampleSize;
+
+    private ImmerseAudioFormat inputFormat;
+    private ImmerseAudioFormat outputFormat;
+    private int numberOfFrames;
+    private byte[] inputBytes;
+    private short[] scaledSamples;
+    private short[] sampleBlock;
+    private double[] gains;
+    private boolean[] copyChannels;
+    private int[][] channelAccumulators;
+    private byte[] outputBytes;
+
+    @Setup
+    public void setUp() {
+        this.inputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(this.sampleRate)
+                .sampleSize(this.inputSampleSize)
+                .recordingMode(RecordingMode.MONO)
+                .byteOrder(this.inputByteOrder)
+                .signed()
+                .buildForInput();
+        this.outputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(this.sampleRate)
+                .sampleSize(this.outputSampleSize)
+                .buildForOutput();
+        this.numberOfFrames = this.inputFormat.getNumberOfFramesPerSecond() * MILLIS_OF_AUDIO / 1000;
+        this.inputBytes = new byte[this.numberOfFrames * this.inputFormat.getNumberOfBytesPerFrame()];
+        new Random(0).nextBytes(this.inputBytes);
+        this.scaledSamples = new short[this.numberOfFrames];
+        this.sampleBlock = new short[SampleMixer.BLOCK_SIZE];
+        // Gains that are not 0 or 1, so the fast paths are not taken.
+        this.gains = new double[] { 0.8, 0.3 };
+        this.copyChannels = new boolean[NUMBER_OF_CHANNELS];
+        this.channelAccumulators = new int[NUMBER_OF_CHANNELS][this.numberOfFrames];
+        this.outputBytes = new byte[this.numberOfFrames * NUMBER_OF_CHANNELS * this.outputFormat.getNumberOfBytesPerSample()];
+    }
+
+    @Benchmark
+    public short[] decode() {
+        SampleMixer.decode(this.inputBytes, 0, 0, this.numberOfFrames, this.inputFormat, 0.9, this.scaledSamples);
+        return this.scaledSamples;
+    }
+
+    @Benchmark
+    public int[][] accumulate() {
+        SampleMixer.accumulate(this.inputBytes, 0, 0, this.numberOfFrames, this.inputFormat, 0.9, this.gains, 0, this.channelAccumulators,
+                this.copyChannels, NUMBER_OF_CHANNELS, this.sampleBlock);
+        return this.channelAccumulators;
+    }
+
+    @Benchmark
+    public byte[] write() {
+        SampleMixer.write(this.channelAccumulators, 0, NUMBER_OF_CHANNELS, this.numberOfFrames, this.outputFormat, this.outputBytes);
+        return this.outputBytes;
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.programyourhome.immerse.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.location.Vector3D;
+import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
+import com.programyourhome.immerse.domain.speakers.algorithms.normalize.NormalizeAlgorithm;
+import com.programyourhome.immerse.domain.speakers.algorithms.volumeratios.VolumeRatiosAlgorithm;
+import com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation;
+import com.programyourhome.immerse.toolbox.location.dynamic.HorizontalCircleDynamicLocation;
+import com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm;
+import com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.MaxSumNormalizeAlgorithm;
+import com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm;
+import com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FixedVolumeRatiosAlgorithm;
+import com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.OnlyClosestVolumeRatiosAlgorithm;
+
+/**
+ * Benchmark of the speaker volumes calculation of one step: the volume ratios algorithm combined with the normalize algorithm.
+ * The source circles around the listener, so the location based algorithms calculate new ratios every step.
+ * Both the calculation by speaker index that the mixer uses and the map based adapter on top of it are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VolumeRatiosBenchmark {
+
+    // The step pace in millis, equal to the default step pace.
+    private static final int STEP_PACE_MILLIS = 5;
+
+    public enum VolumeRatios {
+        FIELD_OF_HEARING,
+        ONLY_CLOSEST,
+        FIXED;
+    }
+
+    public enum Normalize {
+        FRACTIONAL,
+        MAX_SUM;
+    }
+
+    @Param({ "FIELD_OF_HEARING", "ONLY_CLOSEST", "FIXED" })
+    public VolumeRatios volumeRatios;
+
+    @Param({ "FRACTIONAL", "MAX_SUM" })
+    public Normalize normalize;
+
+    @Param({ "4", "12", "32" })
+    public int amountOfSpeakers;
+
+    private long currentMillis;
+    private VolumeRatiosAlgorithm volumeRatiosAlgorithm;
+    private NormalizeAlgorithm normalizeAlgorithm;
+    private double[] ratiosByIndex;
+    private double[] volumesByIndex;
+
+    @Setup
+    public void setUp() {
+        Room room = BenchmarkData.circleRoom(this.amountOfSpeakers);
+        DynamicLocation sourceLocation = new HorizontalCircleDynamicLocation(new Vector3D(5, 5, 0), 0, 4, true, 10_000);
+        DynamicLocation listenerLocation = new FixedDynamicLocation(new Vector3D(5, 5, 0));
+        switch (this.volumeRatios) {
+        case FIELD_OF_HEARING:
+            this.volumeRatiosAlgorithm = new FieldOfHearingVolumeRatiosAlgorithm(room, sourceLocation, listenerLocation);
+            break;
+        case ONLY_CLOSEST:
+            this.volumeRatiosAlgorithm = new OnlyClosestVolumeRatiosAlgorithm(room, sourceLocation, listenerLocation);
+            break;
+        case FIXED:
+            Map<Integer, Double> ratios = room.getSpeakers().keySet().stream().collect(Collectors.toMap(speakerId -> speakerId, speakerId -> 1.0));
+            this.volumeRatiosAlgorithm = new FixedVolumeRatiosAlgorithm(new SpeakerVolumeRatios(ratios));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown volume ratios: " + this.volumeRatios);
+        }
+        switch (this.normalize) {
+        case FRACTIONAL:
+            this.normalizeAlgorithm = new FractionalNormalizeAlgorithm();
+            break;
+        case MAX_SUM:
+            this.normalizeAlgorithm = new MaxSumNormalizeAlgorithm(1);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown normalize: " + this.normalize);
+        }
+        this.ratiosByIndex = new double[room.getNumberOfSpeakers()];
+        this.volumesByIndex = new double[room.getNumberOfSpeakers()];
+        this.currentMillis = 0;
+        this.volumeRatiosAlgorithm.nextPlaybackStarted(this.currentMillis);
+    }
+
+    @Benchmark
+    public double[] calculateVolumesByIndex() {
+        this.currentMillis += STEP_PACE_MILLIS;
+        this.volumeRatiosAlgorithm.nextStep(this.currentMillis);
+        this.volumeRatiosAlgorithm.writeCurrentValue(this.ratiosByIndex);
+        this.normalizeAlgorithm.calculateVolumes(this.ratiosByIndex, this.volumesByIndex);
+        return this.volumesByIndex;
+    }
+
+    @Benchmark
+    public SpeakerVolumes calculateVolumes() {
+        this.currentMillis += STEP_PACE_MILLIS;
+        this.volumeRatiosAlgorithm.nextStep(this.currentMillis);
+        return this.normalizeAlgorithm.calculateVolumes(this.volumeRatiosAlgorithm.getCurrentValue());
+    }
+
+}
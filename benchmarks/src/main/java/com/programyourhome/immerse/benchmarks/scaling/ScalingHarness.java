@@ -0,0 +1,308 @@
+package com.programyourhome.immerse.benchmarks.scaling;
+
+import static com.programyourhome.immerse.toolbox.audio.playback.ForeverPlayback.forever;
+import static com.programyourhome.immerse.toolbox.audio.resource.FileAudioResource.file;
+import static com.programyourhome.immerse.toolbox.audio.resource.SilenceAudioResource.silence;
+import static com.programyourhome.immerse.toolbox.audio.resource.SuppliedAudioResource.supplied;
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed;
+import static com.programyourhome.immerse.toolbox.location.dynamic.KeyFramesDynamicLocation.keyFramesLoop;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional;
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing;
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario;
+import static com.programyourhome.immerse.toolbox.util.TestData.settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+
+import com.programyourhome.immerse.audiostreaming.generate.SineWaveAudioInputStreamGenerator;
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsRegistry;
+import com.programyourhome.immerse.audiostreaming.mixer.MixerContext;
+import com.programyourhome.immerse.audiostreaming.mixer.scenario.ActiveScenario;
+import com.programyourhome.immerse.audiostreaming.mixer.step.MixerStep;
+import com.programyourhome.immerse.audiostreaming.mixer.step.SoundCardBuffers;
+import com.programyourhome.immerse.audiostreaming.offline.OfflineOutputBackend;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardStream;
+import com.programyourhome.immerse.audiostreaming.soundcard.SoundCardWriter;
+import com.programyourhome.immerse.benchmarks.BenchmarkData;
+import com.programyourhome.immerse.domain.Factory;
+import com.programyourhome.immerse.domain.ImmerseSettings;
+import com.programyourhome.immerse.domain.Room;
+import com.programyourhome.immerse.domain.Scenario;
+import com.programyourhome.immerse.domain.audio.resource.AudioResource;
+import com.programyourhome.immerse.domain.audio.soundcard.SoundCard;
+import com.programyourhome.immerse.domain.format.ByteOrder;
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat;
+import com.programyourhome.immerse.domain.format.RecordingMode;
+import com.programyourhome.immerse.domain.format.SampleRate;
+import com.programyourhome.immerse.domain.format.SampleSize;
+import com.programyourhome.immerse.domain.location.Vector3D;
+import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
+
+/**
+ * Headless load harness that finds out how many scenarios the mixer can sustain for rooms and sound card sets of different sizes.
+ * No sound card hardware is needed: the mixer step loop runs on a virtual clock and writes to offline output backends that discard the audio.
+ *
+ * For every combination of amount of speakers and amount of sound cards, the amount of scenarios is doubled until a step takes
+ * longer than the step budget (for more than 1% of the steps) and then the maximum sustainable amount is searched in between.
+ * The scenarios are a mix of sine waves, silence and a file resource, all moving around the room on random key frame paths.
+ *
+ * The measurements of all runs are written as CSV (to plot throughput curves) and a summary table is printed at the end.
+ *
+ * Usage: ScalingHarness [speaker counts, default 4,12,40] [sound card counts, default 1,4] [step budget millis, 0 or default the step pace]
+ * [csv file, default scaling-harness.csv] [wav file for the file scenarios, default a generated sine wave]
+ */
+public class ScalingHarness {
+
+    // The maximum amount of scenarios to try, so the search always ends.
+    private static final int MAX_SCENARIOS = 512;
+    // The amount of steps to warm up the JVM (JIT compilation) before the first run.
+    private static final int JVM_WARMUP_STEPS = 5000;
+    // The amount of steps per run to warm up before measuring.
+    private static final int WARMUP_STEPS = 200;
+    // The amount of steps per run to measure.
+    private static final int MEASURE_STEPS = 1000;
+    // The fraction of measured steps that may exceed the step budget (so the 99th percentile should be within budget).
+    private static final double MAX_OVER_BUDGET_FRACTION = 0.01;
+
+    private final ImmerseAudioFormat outputFormat;
+    private final File wavFile;
+    private final int stepBudgetMillis;
+    private final PrintWriter csvWriter;
+
+    public ScalingHarness(ImmerseAudioFormat outputFormat, File wavFile, int stepBudgetMillis, PrintWriter csvWriter) {
+        this.outputFormat = outputFormat;
+        this.wavFile = wavFile;
+        this.stepBudgetMillis = stepBudgetMillis;
+        this.csvWriter = csvWriter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] speakerCounts = args.length > 0 ? parseCounts(args[0]) : new int[] { 4, 12, 40 };
+        int[] soundCardCounts = args.length > 1 ? parseCounts(args[1]) : new int[] { 1, 4 };
+        ImmerseAudioFormat outputFormat = ImmerseAudioFormat.builder()
+                .sampleRate(SampleRate.RATE_44K)
+                .sampleSize(SampleSize.TWO_BYTES)
+                .buildForOutput();
+        int stepBudgetMillis = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        if (stepBudgetMillis <= 0) {
+            // The mixer should be able to calculate a step within the pace of the steps.
+            stepBudgetMillis = BenchmarkData.settings(1, outputFormat).getTechnicalSettings().getStepPaceMillis();
+        }
+        File csvFile = new File(args.length > 3 ? args[3] : "scaling-harness.csv");
+        File wavFile = args.length > 4 ? new File(args[4]) : generateWavFile(outputFormat);
+
+        System.out.println("Step budget: " + stepBudgetMillis + " millis, file scenarios play: " + wavFile);
+        List<String> summaryLines = new ArrayList<>();
+        try (PrintWriter csvWriter = new PrintWriter(csvFile, "UTF-8")) {
+            csvWriter.println("speakers,soundcards,scenarios,steps,mean_micros,p50_micros,p99_micros,max_micros,sustainable");
+            ScalingHarness harness = new ScalingHarness(outputFormat, wavFile, stepBudgetMillis, csvWriter);
+            System.out.println("Warming up");
+            harness.measure(speakerCounts[0], soundCardCounts[0], 8, JVM_WARMUP_STEPS);
+            for (int amountOfSpeakers : speakerCounts) {
+                for (int amountOfSoundCards : soundCardCounts) {
+                    StepTimes maxSustainable = harness.findMaxSustainable(amountOfSpeakers, amountOfSoundCards);
+                    summaryLines.add(String.format("%8d %10d %13s %9s %9s", amountOfSpeakers, amountOfSoundCards,
+                            maxSustainable == null ? "0" : maxSustainable.getAmountOfScenarios()
+                                    + (maxSustainable.getAmountOfScenarios() == MAX_SCENARIOS ? "+" : ""),
+                            maxSustainable == null ? "-" : maxSustainable.getPercentileMicros(50),
+                            maxSustainable == null ? "-" : maxSustainable.getPercentileMicros(99)));
+                }
+            }
+        }
+        System.out.println();
+        System.out.println("Max sustainable scenarios within a step budget of " + stepBudgetMillis + " millis (step times in micros):");
+        System.out.println(String.format("%8s %10s %13s %9s %9s", "speakers", "soundcards", "max scenarios", "step p50", "step p99"));
+        summaryLines.forEach(System.out::println);
+        System.out.println("Measurements written to " + csvFile.getAbsolutePath());
+    }
+
+    private static int[] parseCounts(String counts) {
+        return Arrays.stream(counts.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Generate a wav file with a sine wave to use for the file scenarios, if no file is provided.
+     */
+    private static File generateWavFile(ImmerseAudioFormat outputFormat) throws IOException {
+        File wavFile = File.createTempFile("scaling-harness-", ".wav");
+        wavFile.deleteOnExit();
+        AudioSystem.write(new SineWaveAudioInputStreamGenerator(sineFormat(outputFormat), 330, 5_000).generate(),
+                AudioFileFormat.Type.WAVE, wavFile);
+        return wavFile;
+    }
+
+    /**
+     * The format of the generated sine waves: the sine wave generator only supports signed, one byte mono.
+     */
+    private static ImmerseAudioFormat sineFormat(ImmerseAudioFormat outputFormat) {
+        return ImmerseAudioFormat.builder()
+                .sampleRate(outputFormat.getSampleRate())
+                .sampleSize(SampleSize.ONE_BYTE)
+                .recordingMode(RecordingMode.MONO)
+                .byteOrder(ByteOrder.LITTLE_ENDIAN)
+                .signed()
+                .buildForInput();
+    }
+
+    /**
+     * Find the maximum amount of scenarios for which the step time stays within the step budget.
+     * Returns the step times of that amount of scenarios, or null if not even one scenario can be sustained.
+     */
+    public StepTimes findMaxSustainable(int amountOfSpeakers, int amountOfSoundCards) {
+        System.out.println("Searching max sustainable scenarios for " + amountOfSpeakers + " speakers and " + amountOfSoundCards + " sound cards");
+        StepTimes maxSustainable = null;
+        int amountOfScenarios = 1;
+        int notSustainable = -1;
+        // First double the amount of scenarios until it cannot be sustained anymore.
+        while (notSustainable == -1 && amountOfScenarios <= MAX_SCENARIOS) {
+            StepTimes stepTimes = this.run(amountOfSpeakers, amountOfSoundCards, amountOfScenarios);
+            if (stepTimes.isSustainable()) {
+                maxSustainable = stepTimes;
+                amountOfScenarios *= 2;
+            } else {
+                notSustainable = amountOfScenarios;
+            }
+        }
+        // Then search the max in between the last sustainable and the first not sustainable amount.
+        while (notSustainable != -1 && maxSustainable != null && notSustainable - maxSustainable.getAmountOfScenarios() > 1) {
+            StepTimes stepTimes = this.run(amountOfSpeakers, amountOfSoundCards, (maxSustainable.getAmountOfScenarios() + notSustainable) / 2);
+            if (stepTimes.isSustainable()) {
+                maxSustainable = stepTimes;
+            } else {
+                notSustainable = stepTimes.getAmountOfScenarios();
+            }
+        }
+        return maxSustainable;
+    }
+
+    /**
+     * Run the mixer step loop with the given amount of speakers, sound cards and scenarios and report the measured step times.
+     */
+    public StepTimes run(int amountOfSpeakers, int amountOfSoundCards, int amountOfScenarios) {
+        StepTimes stepTimes = this.measure(amountOfSpeakers, amountOfSoundCards, amountOfScenarios, WARMUP_STEPS);
+        System.out.println(String.format("  %4d scenarios: step p50 %6d, p99 %6d, max %6d micros -> %s", amountOfScenarios,
+                stepTimes.getPercentileMicros(50), stepTimes.getPercentileMicros(99), stepTimes.getMaxMicros(),
+                stepTimes.isSustainable() ? "sustainable" : "not sustainable"));
+        this.csvWriter.println(amountOfSpeakers + "," + amountOfSoundCards + "," + amountOfScenarios + "," + stepTimes.getAmountOfSteps() + ","
+                + stepTimes.getMeanMicros() + "," + stepTimes.getPercentileMicros(50) + "," + stepTimes.getPercentileMicros(99) + ","
+                + stepTimes.getMaxMicros() + "," + stepTimes.isSustainable());
+        this.csvWriter.flush();
+        return stepTimes;
+    }
+
+    /**
+     * Measure the step times of the mixer step loop, after the given amount of warmup steps.
+     * The measuring stops early when too many steps exceeded the budget, because the outcome is clear by then.
+     */
+    private StepTimes measure(int amountOfSpeakers, int amountOfSoundCards, int amountOfScenarios, int amountOfWarmupSteps) {
+        ImmerseSettings settings = BenchmarkData.settings(amountOfSpeakers, amountOfSoundCards, this.outputFormat);
+        int stepPaceMillis = settings.getTechnicalSettings().getStepPaceMillis();
+        long[] currentMillis = { 0 };
+        MixerContext context = new MixerContext("Scaling harness", settings, new MetricsRegistry(), () -> currentMillis[0]);
+
+        List<SoundCardWriter> soundCardWriters = new ArrayList<>();
+        for (SoundCard soundCard : settings.getSoundCards()) {
+            OfflineOutputBackend outputBackend = new OfflineOutputBackend(this.outputFormat, BenchmarkData.discardingOutputStream());
+            SoundCardStream soundCardStream = new SoundCardStream(soundCard, outputBackend, settings.getTechnicalSettings().getNearUnderrunMillis());
+            soundCardStream.open();
+            soundCardWriters.add(new SoundCardWriter(soundCardStream, 1));
+        }
+        MixerStep mixerStep = new MixerStep(context, soundCardWriters);
+        // The offline backends 'play' all audio data instantly, so a buffer of one step pace results in one step pace of frames per step.
+        mixerStep.setSoundCardBufferMillis(stepPaceMillis);
+
+        List<ActiveScenario> activeScenarios = new ArrayList<>();
+        for (int i = 0; i < amountOfScenarios; i++) {
+            ActiveScenario activeScenario = ActiveScenario.create(context, this.createScenario(settings.getRoom(), i));
+            activeScenario.nextPlaybackStarted();
+            activeScenarios.add(activeScenario);
+        }
+
+        long stepBudgetNanos = this.stepBudgetMillis * 1_000_000L;
+        int maxStepsOverBudget = (int) (MEASURE_STEPS * MAX_OVER_BUDGET_FRACTION);
+        long[] stepNanos = new long[MEASURE_STEPS];
+        int amountOfStepsMeasured = 0;
+        int amountOfStepsOverBudget = 0;
+        for (int i = 0; i < amountOfWarmupSteps + MEASURE_STEPS && amountOfStepsOverBudget <= maxStepsOverBudget; i++) {
+            currentMillis[0] += stepPaceMillis;
+            long start = System.nanoTime();
+            step(mixerStep, activeScenarios);
+            long duration = System.nanoTime() - start;
+            if (i >= amountOfWarmupSteps) {
+                stepNanos[amountOfStepsMeasured] = duration;
+                amountOfStepsMeasured++;
+                if (duration > stepBudgetNanos) {
+                    amountOfStepsOverBudget++;
+                }
+            }
+        }
+        activeScenarios.forEach(ActiveScenario::stop);
+        mixerStep.shutdown();
+
+        return new StepTimes(amountOfScenarios, Arrays.copyOf(stepNanos, amountOfStepsMeasured), amountOfStepsOverBudget <= maxStepsOverBudget);
+    }
+
+    /**
+     * Perform one mixer step, including writing the output and restarting scenarios, like the mixer would.
+     */
+    private static void step(MixerStep mixerStep, List<ActiveScenario> activeScenarios) {
+        mixerStep.prepare(activeScenarios);
+        for (SoundCardBuffers soundCardBuffers : mixerStep.calculateBufferData()) {
+            soundCardBuffers.getSoundCardWriter().writeNow(soundCardBuffers.getOutputBuffer());
+        }
+        for (ActiveScenario activeScenario : mixerStep.getScenariosToRestart()) {
+            activeScenario.resetForNextStart();
+            activeScenario.nextPlaybackStarted();
+        }
+    }
+
+    /**
+     * Create the scenario with the given index: a sine wave, silence or the wav file (in turn), moving around on a random path.
+     * The scenarios play forever, so the amount of active scenarios stays the same during a run.
+     */
+    private Scenario createScenario(Room room, int index) {
+        Random random = new Random(index);
+        Factory<AudioResource> audioResource;
+        if (index % 3 == 0) {
+            ImmerseAudioFormat sineFormat = sineFormat(this.outputFormat);
+            int frequency = 220 + random.nextInt(660);
+            audioResource = supplied(() -> new SineWaveAudioInputStreamGenerator(sineFormat, frequency, 10_000).generate());
+        } else if (index % 3 == 1) {
+            audioResource = silence();
+        } else {
+            audioResource = file(this.wavFile);
+        }
+        return scenario(settings(audioResource, fieldOfHearing(room, randomPath(room, random), fixed(5, 5, 0)), fractional(), forever()));
+    }
+
+    /**
+     * A looping key frames path through random locations in the room, with a key frame every second.
+     */
+    private static Factory<DynamicLocation> randomPath(Room room, Random random) {
+        SortedMap<Long, Vector3D> keyFrames = new TreeMap<>();
+        Vector3D start = randomLocation(room, random);
+        keyFrames.put(0L, start);
+        for (long millis = 1000; millis < 8000; millis += 1000) {
+            keyFrames.put(millis, randomLocation(room, random));
+        }
+        keyFrames.put(8000L, start);
+        return keyFramesLoop(keyFrames);
+    }
+
+    private static Vector3D randomLocation(Room room, Random random) {
+        Vector3D dimensions = room.getDimensions();
+        return new Vector3D(random.nextDouble() * dimensions.getX(), random.nextDouble() * dimensions.getY(),
+                random.nextDouble() * dimensions.getZ());
+    }
+
+}
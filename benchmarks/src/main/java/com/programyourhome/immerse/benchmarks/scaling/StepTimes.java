@@ -0,0 +1,58 @@
+package com.programyourhome.immerse.benchmarks.scaling;
+
+import java.util.Arrays;
+
+/**
+ * The measured step times of one scaling harness run with a certain amount of scenarios.
+ */
+public class StepTimes {
+
+    private final int amountOfScenarios;
+    private final long[] sortedStepNanos;
+    private final boolean sustainable;
+
+    public StepTimes(int amountOfScenarios, long[] stepNanos, boolean sustainable) {
+        this.amountOfScenarios = amountOfScenarios;
+        this.sortedStepNanos = stepNanos.clone();
+        Arrays.sort(this.sortedStepNanos);
+        this.sustainable = sustainable;
+    }
+
+    public int getAmountOfScenarios() {
+        return this.amountOfScenarios;
+    }
+
+    public int getAmountOfSteps() {
+        return this.sortedStepNanos.length;
+    }
+
+    /**
+     * Whether the step times stayed within the step budget.
+     */
+    public boolean isSustainable() {
+        return this.sustainable;
+    }
+
+    public long getMeanMicros() {
+        if (this.sortedStepNanos.length == 0) {
+            return 0;
+        }
+        return (long) (Arrays.stream(this.sortedStepNanos).average().getAsDouble() / 1000);
+    }
+
+    /**
+     * The step time that the given percentage of the steps did not exceed.
+     */
+    public long getPercentileMicros(int percentile) {
+        if (this.sortedStepNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * this.sortedStepNanos.length) - 1;
+        return this.sortedStepNanos[Math.max(0, index)] / 1000;
+    }
+
+    public long getMaxMicros() {
+        return this.getPercentileMicros(100);
+    }
+
+}
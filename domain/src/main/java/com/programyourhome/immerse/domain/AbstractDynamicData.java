@@ -19,20 +19,20 @@ public abstract class AbstractDynamicData<T> implements DynamicData<T> {
     }
 
     @Override
-    public void nextPlaybackStarted() {
+    public void nextPlaybackStarted(long currentMillis) {
         if (this.startMillis == -1 || !this.ignoreReplay) {
-            this.startMillis = System.currentTimeMillis();
+            this.startMillis = currentMillis;
             this.currentMillis = -1;
         }
     }
 
     /**
-     * Update the current millis at the start of a next step, so getMillisSinceStart will not call
-     * System.currentTimeMillis every time (performance improvement).
+     * Update the current millis at the start of a next step, so getMillisSinceStart will not ask
+     * the clock every time (performance improvement) and all dynamic data in a step share the same time.
      */
     @Override
-    public void nextStep() {
-        this.currentMillis = System.currentTimeMillis();
+    public void nextStep(long currentMillis) {
+        this.currentMillis = currentMillis;
     }
 
     public long getMillisSinceStart() {
@@ -4,24 +4,40 @@ import java.io.Serializable;
 
 /**
  * Some piece of data that changes over time.
+ *
+ * Dynamic data can support change detection with a version of the current value: as long as the version stays the same,
+ * the current value stays the same, so anything calculated from it can be reused. Dynamic data that cannot tell when it's
+ * value changes (the default) returns an unknown version, meaning the current value should be assumed to change every step.
  */
 public interface DynamicData<T> extends Serializable {
 
+    // The version of dynamic data that does not support change detection.
+    public static final long UNKNOWN_VERSION = -1;
+
     /**
-     * Signals that the 'next' audio playback has started.
+     * Signals that the 'next' audio playback has started at the given time in millis, according to the clock of the mixer.
      * This can be the first or any subsequent loop of the same resource.
      */
-    public void nextPlaybackStarted();
+    public void nextPlaybackStarted(long currentMillis);
 
     /**
-     * Signals that processing will start the next 'step' of the loop.
+     * Signals that processing will start the next 'step' of the loop at the given time in millis, according to the clock of the mixer.
      * Any init logic that is needed once per step can be performed here.
      */
-    public void nextStep();
+    public void nextStep(long currentMillis);
 
     /**
      * Get the current value.
      */
     public T getCurrentValue();
 
+    /**
+     * Get the version of the current value: a non-negative number that stays the same as long as the current value does not change.
+     * It will be different from the version of the previous current value when the current value changes (for instance a counter or a
+     * position in a path). The unknown version means the current value might change at any moment, which is the default.
+     */
+    public default long getVersion() {
+        return UNKNOWN_VERSION;
+    }
+
 }
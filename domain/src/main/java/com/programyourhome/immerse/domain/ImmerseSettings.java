@@ -1,5 +1,7 @@
 package com.programyourhome.immerse.domain;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Set;
 
@@ -63,6 +65,16 @@ public class ImmerseSettings implements Serializable {
         return this.outputFormat.toJavaAudioFormat();
     }
 
+    /**
+     * The output format for the given sound card (Immerse): the output format in use, with the number of channels of the sound card.
+     */
+    public ImmerseAudioFormat getOutputFormat(SoundCard soundCard) {
+        if (soundCard.getRecordingMode() == this.outputFormat.getRecordingMode()) {
+            return this.outputFormat;
+        }
+        return this.outputFormat.withOutputRecordingMode(soundCard.getRecordingMode());
+    }
+
     /**
      * The input format in use (Immerse).
      */
@@ -82,14 +94,32 @@ public class ImmerseSettings implements Serializable {
         private static final long serialVersionUID = Serialization.VERSION;
 
         public static final int DEFAULT_SOUND_CARD_BUFFER_MILLIS = 30;
+        public static final boolean DEFAULT_ADAPTIVE_SOUND_CARD_BUFFER = false;
+        public static final int DEFAULT_MIN_SOUND_CARD_BUFFER_MILLIS = 10;
+        public static final int DEFAULT_MAX_SOUND_CARD_BUFFER_MILLIS = 100;
         public static final int DEFAULT_STEP_PACE_MILLIS = 5;
+        public static final int DEFAULT_SOUND_CARD_WRITE_QUEUE_SIZE = 4;
+        public static final int DEFAULT_NEAR_UNDERRUN_MILLIS = 5;
         public static final int DEFAULT_WAIT_FOR_CONDITION_MILLIS = 5;
         public static final int DEFAULT_TRIGGER_MINOR_GC_THRESHOLD_KB = 1000;
+        public static final boolean DEFAULT_PARALLEL_STEP = false;
+        public static final int DEFAULT_PARALLEL_STEP_THRESHOLD = 50_000;
+        public static final int DEFAULT_METRICS_HTTP_PORT = 0;
 
         private int soundCardBufferMillis;
+        private boolean adaptiveSoundCardBuffer;
+        private int minSoundCardBufferMillis;
+        private int maxSoundCardBufferMillis;
         private int stepPaceMillis;
+        private int soundCardWriteQueueSize;
+        private int nearUnderrunMillis;
         private int waitForConditionMillis;
         private int triggerMinorGcThresholdKb;
+        private boolean parallelStep;
+        private int parallelStepThreshold;
+        private StepScheduling stepScheduling;
+        private OutputBackendType outputBackendType;
+        private int metricsHttpPort;
 
         /**
          * Amount of millis of audio data to keep in each sound card stream.
@@ -98,15 +128,71 @@ public class ImmerseSettings implements Serializable {
             return this.soundCardBufferMillis;
         }
 
+        /**
+         * Whether or not to adapt the amount of millis of audio data to keep in each sound card stream at runtime.
+         * If enabled, the sound card buffer millis is just the starting point. After near underruns the buffer will grow quickly,
+         * while it will shrink slowly when playback is stable, to find the lowest stable latency for the machine the mixer runs on.
+         */
+        public boolean isAdaptiveSoundCardBuffer() {
+            return this.adaptiveSoundCardBuffer;
+        }
+
+        /**
+         * The lower bound of the adaptive sound card buffer, in millis.
+         */
+        public int getMinSoundCardBufferMillis() {
+            return this.minSoundCardBufferMillis;
+        }
+
+        /**
+         * The upper bound of the adaptive sound card buffer, in millis.
+         * The buffers of the sound card lines will be sized to be able to hold twice this amount.
+         */
+        public int getMaxSoundCardBufferMillis() {
+            return this.maxSoundCardBufferMillis;
+        }
+
         /**
          * Amount of millis per mixer step.
-         * Will sleep to match up if the step took shorter.
-         * Step can also take longer, than the next one will not try to 'catch up'.
+         * Will wait to match up if the step took shorter, according to the step scheduling.
+         * Step can also take longer, how the next one will 'catch up' also depends on the step scheduling.
          */
         public int getStepPaceMillis() {
             return this.stepPaceMillis;
         }
 
+        /**
+         * The way the mixer schedules it's steps to match up with the step pace.
+         * Defaults to deadline scheduling.
+         */
+        public StepScheduling getStepScheduling() {
+            return this.stepScheduling;
+        }
+
+        /**
+         * The type of output backend to write the audio data of each sound card to.
+         * Defaults to Java Sound, so the actual sound card hardware.
+         */
+        public OutputBackendType getOutputBackendType() {
+            return this.outputBackendType;
+        }
+
+        /**
+         * Max amount of step outputs that can be waiting to be written to each sound card stream.
+         * If a sound card stream is too slow to keep up, the mixer will wait until there is room in the queue again.
+         */
+        public int getSoundCardWriteQueueSize() {
+            return this.soundCardWriteQueueSize;
+        }
+
+        /**
+         * Amount of millis of audio data that should at least be left in a sound card stream just before a next write.
+         * If less is left, this is reported as a near underrun. If nothing is left at all, this is reported as an underrun.
+         */
+        public int getNearUnderrunMillis() {
+            return this.nearUnderrunMillis;
+        }
+
         /**
          * Amount of millis to sleep between each check for conditional waiting.
          */
@@ -121,6 +207,48 @@ public class ImmerseSettings implements Serializable {
             return this.triggerMinorGcThresholdKb;
         }
 
+        /**
+         * Whether or not to calculate the mixer step in parallel: the scenarios and the sound card streams
+         * will be processed on multiple cores. The output is exactly the same as calculating the step on one core.
+         */
+        public boolean isParallelStep() {
+            return this.parallelStep;
+        }
+
+        /**
+         * The minimal workload of a mixer step to actually calculate it in parallel, if the parallel step is enabled.
+         * The workload is expressed as the amount of frames times the amount of scenarios times the amount of sound cards.
+         * Below this threshold, the overhead of spreading the work is bigger than the gain, so the step is calculated on one core.
+         */
+        public int getParallelStepThreshold() {
+            return this.parallelStepThreshold;
+        }
+
+        /**
+         * The port of the plain text HTTP endpoint that exposes the mixer metrics. A value of 0 means the endpoint is disabled.
+         * The metrics are always exposed through JMX, regardless of this setting.
+         */
+        public int getMetricsHttpPort() {
+            return this.metricsHttpPort;
+        }
+
+        /**
+         * Settings serialized by an older version do not have all fields, so the missing ones are set to their default here.
+         * Only the fields that cannot work without a value are handled, the others keep working with their zero value.
+         */
+        private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+            objectInput.defaultReadObject();
+            if (this.stepScheduling == null) {
+                this.stepScheduling = StepScheduling.DEADLINE;
+            }
+            if (this.outputBackendType == null) {
+                this.outputBackendType = OutputBackendType.JAVA_SOUND;
+            }
+            if (this.soundCardWriteQueueSize == 0) {
+                this.soundCardWriteQueueSize = DEFAULT_SOUND_CARD_WRITE_QUEUE_SIZE;
+            }
+        }
+
     }
 
     public static Builder builder() {
@@ -168,9 +296,19 @@ public class ImmerseSettings implements Serializable {
             public TechnicalBuilder() {
                 this.technicalSettings = Builder.this.settings.new TechnicalSettings();
                 this.technicalSettings.soundCardBufferMillis = TechnicalSettings.DEFAULT_SOUND_CARD_BUFFER_MILLIS;
+                this.technicalSettings.adaptiveSoundCardBuffer = TechnicalSettings.DEFAULT_ADAPTIVE_SOUND_CARD_BUFFER;
+                this.technicalSettings.minSoundCardBufferMillis = TechnicalSettings.DEFAULT_MIN_SOUND_CARD_BUFFER_MILLIS;
+                this.technicalSettings.maxSoundCardBufferMillis = TechnicalSettings.DEFAULT_MAX_SOUND_CARD_BUFFER_MILLIS;
                 this.technicalSettings.stepPaceMillis = TechnicalSettings.DEFAULT_STEP_PACE_MILLIS;
+                this.technicalSettings.soundCardWriteQueueSize = TechnicalSettings.DEFAULT_SOUND_CARD_WRITE_QUEUE_SIZE;
+                this.technicalSettings.nearUnderrunMillis = TechnicalSettings.DEFAULT_NEAR_UNDERRUN_MILLIS;
                 this.technicalSettings.waitForConditionMillis = TechnicalSettings.DEFAULT_WAIT_FOR_CONDITION_MILLIS;
                 this.technicalSettings.triggerMinorGcThresholdKb = TechnicalSettings.DEFAULT_TRIGGER_MINOR_GC_THRESHOLD_KB;
+                this.technicalSettings.parallelStep = TechnicalSettings.DEFAULT_PARALLEL_STEP;
+                this.technicalSettings.parallelStepThreshold = TechnicalSettings.DEFAULT_PARALLEL_STEP_THRESHOLD;
+                this.technicalSettings.stepScheduling = StepScheduling.DEADLINE;
+                this.technicalSettings.outputBackendType = OutputBackendType.JAVA_SOUND;
+                this.technicalSettings.metricsHttpPort = TechnicalSettings.DEFAULT_METRICS_HTTP_PORT;
                 Builder.this.settings.technicalSettings = this.technicalSettings;
             }
 
@@ -179,11 +317,61 @@ public class ImmerseSettings implements Serializable {
                 return this;
             }
 
+            public TechnicalBuilder adaptiveSoundCardBuffer(boolean adaptiveSoundCardBuffer) {
+                this.technicalSettings.adaptiveSoundCardBuffer = adaptiveSoundCardBuffer;
+                return this;
+            }
+
+            public TechnicalBuilder minSoundCardBufferMillis(int minSoundCardBufferMillis) {
+                this.technicalSettings.minSoundCardBufferMillis = minSoundCardBufferMillis;
+                return this;
+            }
+
+            public TechnicalBuilder maxSoundCardBufferMillis(int maxSoundCardBufferMillis) {
+                this.technicalSettings.maxSoundCardBufferMillis = maxSoundCardBufferMillis;
+                return this;
+            }
+
             public TechnicalBuilder stepPaceMillis(int stepPaceMillis) {
                 this.technicalSettings.stepPaceMillis = stepPaceMillis;
                 return this;
             }
 
+            public TechnicalBuilder soundCardWriteQueueSize(int soundCardWriteQueueSize) {
+                this.technicalSettings.soundCardWriteQueueSize = soundCardWriteQueueSize;
+                return this;
+            }
+
+            public TechnicalBuilder nearUnderrunMillis(int nearUnderrunMillis) {
+                this.technicalSettings.nearUnderrunMillis = nearUnderrunMillis;
+                return this;
+            }
+
+            public TechnicalBuilder stepScheduling(StepScheduling stepScheduling) {
+                this.technicalSettings.stepScheduling = stepScheduling;
+                return this;
+            }
+
+            public TechnicalBuilder outputBackendType(OutputBackendType outputBackendType) {
+                this.technicalSettings.outputBackendType = outputBackendType;
+                return this;
+            }
+
+            public TechnicalBuilder parallelStep(boolean parallelStep) {
+                this.technicalSettings.parallelStep = parallelStep;
+                return this;
+            }
+
+            public TechnicalBuilder parallelStepThreshold(int parallelStepThreshold) {
+                this.technicalSettings.parallelStepThreshold = parallelStepThreshold;
+                return this;
+            }
+
+            public TechnicalBuilder metricsHttpPort(int metricsHttpPort) {
+                this.technicalSettings.metricsHttpPort = metricsHttpPort;
+                return this;
+            }
+
             public Builder functional() {
                 return Builder.this;
             }
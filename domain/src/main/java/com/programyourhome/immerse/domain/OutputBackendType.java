@@ -0,0 +1,29 @@
+package com.programyourhome.immerse.domain;
+
+/**
+ * Enum for the type of output backend the mixer writes the audio data of each sound card to.
+ * The physical port of a sound card is the address of the output, so it's meaning depends on the type of output backend.
+ */
+public enum OutputBackendType {
+
+    /**
+     * The sound card hardware, through the Java Sound API. The physical port is the (ALSA) physical port of the sound card.
+     */
+    JAVA_SOUND,
+    /**
+     * No output at all: the audio data is discarded at the pace it would be played. The physical port is ignored.
+     * Useful to run and benchmark the mixer without any sound card hardware.
+     */
+    NULL,
+    /**
+     * Raw PCM data written to a file, named pipe or file descriptor (like /dev/fd/3), at the pace it would be played.
+     * The physical port is the path of the file. Useful to pipe the audio data into another (local) audio program.
+     */
+    PIPE,
+    /**
+     * Raw PCM data written to a TCP socket, at the pace it would be played. The physical port is the address in the form host:port.
+     * Useful to stream the audio data to another (local) audio program or daemon.
+     */
+    TCP;
+
+}
@@ -1,7 +1,10 @@
 package com.programyourhome.immerse.domain;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -15,6 +18,12 @@ import one.util.streamex.StreamEx;
  * A room object represents an actual room in the real world where Immerse will be running.
  * You can provide a name and description and the dimensions of the room.
  * Furthermore, a room holds the speakers that are present in it.
+ *
+ * When the room is built, every speaker gets a dense index: the position of the speaker when sorted by id (so 0 to number of speakers - 1).
+ * Per speaker data can be stored in arrays by speaker index, instead of in maps by speaker id.
+ * The positions of the speakers are also stored by speaker index in a flat array, so spatial calculations can read them
+ * without going through the speaker objects. A built room can not be changed anymore.
+ * The index is not serialized, it is built again from the speakers after deserialization.
  */
 public class Room implements Serializable {
 
@@ -23,7 +32,13 @@ public class Room implements Serializable {
     private String name;
     private String description;
     private Vector3D dimensions;
-    private final Map<Integer, Speaker> speakers;
+    private Map<Integer, Speaker> speakers;
+    // The ids of the speakers in ascending order: the speaker index of a speaker is the position of it's id in this array.
+    private transient int[] speakerIds;
+    // The speakers by speaker index.
+    private transient Speaker[] indexedSpeakers;
+    // The positions of the speakers by speaker index, as x, y and z after each other (so 3 values per speaker).
+    private transient double[] speakerPositions;
 
     private Room() {
         this.speakers = new HashMap<>();
@@ -41,14 +56,84 @@ public class Room implements Serializable {
         return this.dimensions;
     }
 
+    /**
+     * The speakers by id, as a read-only map.
+     */
     public Map<Integer, Speaker> getSpeakers() {
-        return new HashMap<>(this.speakers);
+        return this.speakers;
     }
 
     public Speaker getSpeaker(int id) {
         return this.speakers.get(id);
     }
 
+    public int getNumberOfSpeakers() {
+        return this.speakerIds.length;
+    }
+
+    /**
+     * The ids of all speakers, in order of their speaker index (so ascending).
+     */
+    public int[] getSpeakerIds() {
+        return this.speakerIds.clone();
+    }
+
+    public int getSpeakerId(int speakerIndex) {
+        return this.speakerIds[speakerIndex];
+    }
+
+    /**
+     * The speaker index of the speaker with the given id.
+     */
+    public int getSpeakerIndex(int speakerId) {
+        int speakerIndex = Arrays.binarySearch(this.speakerIds, speakerId);
+        if (speakerIndex < 0) {
+            throw new IllegalArgumentException("No speaker with id " + speakerId + " in room " + this.name);
+        }
+        return speakerIndex;
+    }
+
+    public Speaker getSpeakerAtIndex(int speakerIndex) {
+        return this.indexedSpeakers[speakerIndex];
+    }
+
+    public double getSpeakerX(int speakerIndex) {
+        return this.speakerPositions[speakerIndex * 3];
+    }
+
+    public double getSpeakerY(int speakerIndex) {
+        return this.speakerPositions[speakerIndex * 3 + 1];
+    }
+
+    public double getSpeakerZ(int speakerIndex) {
+        return this.speakerPositions[speakerIndex * 3 + 2];
+    }
+
+    /**
+     * Assign the speaker indices and store the speaker positions, based on the current speakers.
+     * After that, the speakers are fixed.
+     */
+    private void indexSpeakers() {
+        this.speakers = Collections.unmodifiableMap(new HashMap<>(this.speakers));
+        this.speakerIds = this.speakers.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.indexedSpeakers = Arrays.stream(this.speakerIds).mapToObj(this.speakers::get).toArray(Speaker[]::new);
+        this.speakerPositions = new double[this.indexedSpeakers.length * 3];
+        for (int speakerIndex = 0; speakerIndex < this.indexedSpeakers.length; speakerIndex++) {
+            Vector3D position = this.indexedSpeakers[speakerIndex].getPosition();
+            if (position == null) {
+                throw new IllegalStateException("Speaker " + this.speakerIds[speakerIndex] + " has no position");
+            }
+            this.speakerPositions[speakerIndex * 3] = position.getX();
+            this.speakerPositions[speakerIndex * 3 + 1] = position.getY();
+            this.speakerPositions[speakerIndex * 3 + 2] = position.getZ();
+        }
+    }
+
+    private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+        objectInput.defaultReadObject();
+        this.indexSpeakers();
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -95,6 +180,7 @@ public class Room implements Serializable {
         }
 
         public Room build() {
+            this.room.indexSpeakers();
             return this.room;
         }
 
@@ -0,0 +1,19 @@
+package com.programyourhome.immerse.domain;
+
+/**
+ * Enum for the way the mixer schedules it's steps.
+ */
+public enum StepScheduling {
+
+    /**
+     * Sleep for the remainder of the step pace after each step.
+     * Simple, but the sleep has a granularity of whole millis and usually oversleeps, so the actual step pace will drift.
+     */
+    SLEEP,
+    /**
+     * Wait for the absolute deadline of each next step, with a combination of sleeping, parking and spinning.
+     * Keeps the step pace stable over time and with low jitter, at the cost of a bit of CPU time close to each deadline.
+     */
+    DEADLINE;
+
+}
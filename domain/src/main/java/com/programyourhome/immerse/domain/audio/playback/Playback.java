@@ -10,16 +10,16 @@ import java.io.Serializable;
 public interface Playback extends Serializable {
 
     /**
-     * Signals that the audio playback has started.
+     * Signals that the audio playback has started at the given time in millis, according to the clock of the mixer.
      * NB: Will be called at the beginning of every playback loop.
      */
-    public void audioStarted();
+    public void audioStarted(long currentMillis);
 
     /**
-     * Can be called at any time to ask if the playback should be stopped or not.
+     * Can be called at any time to ask if the playback should be stopped or not at the given time in millis, according to the clock of the mixer.
      * For implementations just triggering on loop events, this can always return false.
      */
-    public boolean shouldStop();
+    public boolean shouldStop(long currentMillis);
 
     /**
      * Signals that the audio reached the end of the stream.
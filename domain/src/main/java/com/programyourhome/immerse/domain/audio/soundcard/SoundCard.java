@@ -1,26 +1,46 @@
 package com.programyourhome.immerse.domain.audio.soundcard;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import com.programyourhome.immerse.domain.Serialization;
+import com.programyourhome.immerse.domain.format.RecordingMode;
 
 /**
  * Represents a physical sound card on a computer.
  * Inside immerse, a sound card is identified by it's id.
  * For human readers, a name and description are available.
  * For the OS, a physical port string is the identifier. (read more about this mechanism in the documentation)
- * Last but not least, the sound card knows what it's left and right speakers are.
+ * Last but not least, the sound card knows which speaker is connected to which of it's output channels.
+ * A stereo sound card has a left and right speaker (channel 0 and 1), a multi-channel sound card has a speaker per channel.
  */
 public class SoundCard implements Serializable {
 
     private static final long serialVersionUID = Serialization.VERSION;
 
+    // The serialized form still has the left and right speaker of the stereo sound card, so older clients and servers can keep
+    // exchanging stereo sound cards. The speaker ids of all channels are serialized as an extra field.
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("id", int.class),
+        new ObjectStreamField("name", String.class),
+        new ObjectStreamField("description", String.class),
+        new ObjectStreamField("physicalPort", String.class),
+        new ObjectStreamField("leftSpeakerId", int.class),
+        new ObjectStreamField("rightSpeakerId", int.class),
+        new ObjectStreamField("speakerIds", int[].class)
+    };
+
     private int id;
     private String name;
     private String description;
     private String physicalPort;
-    private int leftSpeakerId;
-    private int rightSpeakerId;
+    // The speaker id per output channel.
+    private int[] speakerIds;
+    private transient RecordingMode recordingMode;
 
     private SoundCard() {
     }
@@ -41,12 +61,66 @@ public class SoundCard implements Serializable {
         return this.physicalPort;
     }
 
+    /**
+     * The speaker of the first channel (the left speaker of a stereo sound card).
+     */
     public int getLeftSpeakerId() {
-        return this.leftSpeakerId;
+        return this.speakerIds[0];
     }
 
+    /**
+     * The speaker of the second channel (the right speaker of a stereo sound card).
+     */
     public int getRightSpeakerId() {
-        return this.rightSpeakerId;
+        return this.speakerIds[1];
+    }
+
+    /**
+     * The speaker ids of all output channels, in the order of the channels.
+     */
+    public int[] getSpeakerIds() {
+        return this.speakerIds.clone();
+    }
+
+    public int getSpeakerId(int channel) {
+        return this.speakerIds[channel];
+    }
+
+    public int getNumberOfChannels() {
+        return this.speakerIds.length;
+    }
+
+    /**
+     * The recording mode of the output line of this sound card, according to the number of channels.
+     */
+    public RecordingMode getRecordingMode() {
+        return this.recordingMode;
+    }
+
+    private void writeObject(ObjectOutputStream objectOutput) throws IOException {
+        ObjectOutputStream.PutField fields = objectOutput.putFields();
+        fields.put("id", this.id);
+        fields.put("name", this.name);
+        fields.put("description", this.description);
+        fields.put("physicalPort", this.physicalPort);
+        fields.put("leftSpeakerId", this.getLeftSpeakerId());
+        fields.put("rightSpeakerId", this.getRightSpeakerId());
+        fields.put("speakerIds", this.speakerIds);
+        objectOutput.writeFields();
+    }
+
+    private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = objectInput.readFields();
+        this.id = fields.get("id", 0);
+        this.name = (String) fields.get("name", null);
+        this.description = (String) fields.get("description", null);
+        this.physicalPort = (String) fields.get("physicalPort", null);
+        this.speakerIds = (int[]) fields.get("speakerIds", null);
+        if (this.speakerIds == null) {
+            // Serialized by an older version, that only knows stereo sound cards.
+            this.speakerIds = new int[] { fields.get("leftSpeakerId", 0), fields.get("rightSpeakerId", 0) };
+        }
+        this.recordingMode = RecordingMode.fromNumberOfChannels(this.speakerIds.length);
     }
 
     @Override
@@ -63,6 +137,7 @@ public class SoundCard implements Serializable {
 
         public Builder() {
             this.soundCard = new SoundCard();
+            this.soundCard.speakerIds = new int[2];
         }
 
         public Builder id(int id) {
@@ -86,16 +161,29 @@ public class SoundCard implements Serializable {
         }
 
         public Builder leftSpeakerId(int leftSpeakerId) {
-            this.soundCard.leftSpeakerId = leftSpeakerId;
+            this.soundCard.speakerIds[0] = leftSpeakerId;
             return this;
         }
 
         public Builder rightSpeakerId(int rightSpeakerId) {
-            this.soundCard.rightSpeakerId = rightSpeakerId;
+            this.soundCard.speakerIds[1] = rightSpeakerId;
+            return this;
+        }
+
+        /**
+         * Set the speaker ids of all output channels, in the order of the channels (replaces the left and right speaker).
+         */
+        public Builder speakerIds(int... speakerIds) {
+            this.soundCard.speakerIds = Arrays.copyOf(speakerIds, speakerIds.length);
             return this;
         }
 
         public SoundCard build() {
+            // Will throw an exception if the number of channels is not supported.
+            this.soundCard.recordingMode = RecordingMode.fromNumberOfChannels(this.soundCard.speakerIds.length);
+            if (this.soundCard.recordingMode == RecordingMode.MONO) {
+                throw new IllegalArgumentException("A sound card should have at least 2 channels");
+            }
             return this.soundCard;
         }
     }
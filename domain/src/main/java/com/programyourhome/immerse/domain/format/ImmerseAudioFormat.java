@@ -34,7 +34,7 @@ public class ImmerseAudioFormat implements Serializable {
     }
 
     /**
-     * Recording mode can be mono or stereo.
+     * Recording mode: mono or stereo for input, stereo or more channels for output.
      */
     public RecordingMode getRecordingMode() {
         return this.recordingMode;
@@ -105,6 +105,21 @@ public class ImmerseAudioFormat implements Serializable {
         return new Builder(this);
     }
 
+    /**
+     * Create an output format that is the same as this output format, except for the recording mode.
+     * Used to get the format for a multi-channel sound card, based on the (stereo) output format of the settings.
+     */
+    public ImmerseAudioFormat withOutputRecordingMode(RecordingMode recordingMode) {
+        if (!this.output) {
+            throw new IllegalStateException("Can only change the recording mode of an output format");
+        }
+        return builder()
+                .recordingMode(recordingMode)
+                .sampleRate(this.sampleRate)
+                .sampleSize(this.sampleSize)
+                .buildForOutput();
+    }
+
     public static ImmerseAudioFormat fromJavaAudioFormat(AudioFormat audioFormat) {
         return builder()
                 .recordingMode(audioFormat.getChannels())
@@ -218,10 +233,10 @@ public class ImmerseAudioFormat implements Serializable {
         }
 
         public ImmerseAudioFormat buildForOutput() {
-            if (this.format.recordingMode != null) {
-                throw new IllegalStateException("Cannot set recording mode for output format");
-            } else {
-                // Always stereo mode, because we want to supply output to both channels / speakers.
+            if (this.format.recordingMode == RecordingMode.MONO) {
+                throw new IllegalStateException("Cannot use recording mode mono for output format");
+            } else if (this.format.recordingMode == null) {
+                // Default to stereo mode, because we want to supply output to both channels / speakers.
                 this.format.recordingMode = RecordingMode.STEREO;
             }
             if (this.format.signed != null) {
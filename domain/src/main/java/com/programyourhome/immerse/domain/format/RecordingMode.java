@@ -3,13 +3,16 @@ package com.programyourhome.immerse.domain.format;
 import java.util.Arrays;
 
 /**
- * Enum for recording mode: mono or stereo.
- * More than 2 channels are not supported.
+ * Enum for recording mode: the number of channels.
+ * The multi-channel modes (more than 2 channels) are only meant for output to multi-channel sound cards.
  */
 public enum RecordingMode {
 
     MONO(1),
-    STEREO(2);
+    STEREO(2),
+    QUAD(4),
+    SIX_CHANNELS(6),
+    EIGHT_CHANNELS(8);
 
     private int numberOfChannels;
 
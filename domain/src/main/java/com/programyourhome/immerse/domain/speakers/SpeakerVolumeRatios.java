@@ -1,37 +1,104 @@
 package com.programyourhome.immerse.domain.speakers;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.programyourhome.immerse.domain.Serialization;
 
 /**
- * Convenience wrapper around a volume ratio map.
+ * Convenience wrapper around the volume ratios of all speakers.
  * Represents the relative volumes for each speaker.
  * The values cannot be used directly as volumes, but need normalization first.
+ *
+ * The volume ratios are stored in an array by speaker index: the position of the speaker id in the (ascending) speaker ids.
+ * The serialized form is still a map by speaker id, so it stays compatible with earlier versions.
+ * When the speaker ids are the speaker ids of a room, the speaker index is the same as the speaker index in that room.
  */
 public class SpeakerVolumeRatios implements Serializable {
 
     private static final long serialVersionUID = Serialization.VERSION;
+    // Serialize the volumeRatios as a map, instead of the arrays.
+    private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("volumeRatioMap", Map.class) };
 
-    private final Map<Integer, Double> volumeRatioMap;
+    private transient int[] speakerIds;
+    private transient double[] volumeRatios;
 
     public SpeakerVolumeRatios(Map<Integer, Double> volumeRatioMap) {
-        this.volumeRatioMap = volumeRatioMap;
+        this.speakerIds = volumeRatioMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.volumeRatios = Arrays.stream(this.speakerIds).mapToDouble(volumeRatioMap::get).toArray();
+    }
+
+    /**
+     * Create volume ratios from the given speaker ids (in ascending order) and the volume ratios by speaker index.
+     * The arrays are not copied, so they should not be changed afterwards.
+     */
+    public SpeakerVolumeRatios(int[] speakerIds, double[] volumeRatios) {
+        if (speakerIds.length != volumeRatios.length) {
+            throw new IllegalArgumentException("Amount of speaker ids and volume ratios should be equal");
+        }
+        this.speakerIds = speakerIds;
+        this.volumeRatios = volumeRatios;
+    }
+
+    public int getNumberOfSpeakers() {
+        return this.speakerIds.length;
+    }
+
+    public int getSpeakerId(int speakerIndex) {
+        return this.speakerIds[speakerIndex];
     }
 
     public double getVolumeRatio(int speakerId) {
-        return this.volumeRatioMap.get(speakerId);
+        int speakerIndex = Arrays.binarySearch(this.speakerIds, speakerId);
+        if (speakerIndex < 0) {
+            throw new IllegalArgumentException("No volume ratio for speaker id " + speakerId);
+        }
+        return this.volumeRatios[speakerIndex];
+    }
+
+    public double getVolumeRatioAtIndex(int speakerIndex) {
+        return this.volumeRatios[speakerIndex];
+    }
+
+    /**
+     * Copy the volume ratios by speaker index into the given array, that should have a length equal to the amount of speakers.
+     */
+    public void copyVolumeRatios(double[] target) {
+        if (target.length != this.volumeRatios.length) {
+            throw new IllegalArgumentException("Target length " + target.length + " not equal to amount of speakers " + this.volumeRatios.length);
+        }
+        System.arraycopy(this.volumeRatios, 0, target, 0, this.volumeRatios.length);
     }
 
     public Map<Integer, Double> getVolumeRatioMap() {
-        return new HashMap<>(this.volumeRatioMap);
+        Map<Integer, Double> volumeRatioMap = new HashMap<>();
+        for (int speakerIndex = 0; speakerIndex < this.speakerIds.length; speakerIndex++) {
+            volumeRatioMap.put(this.speakerIds[speakerIndex], this.volumeRatios[speakerIndex]);
+        }
+        return volumeRatioMap;
+    }
+
+    private void writeObject(ObjectOutputStream objectOutput) throws IOException {
+        objectOutput.putFields().put("volumeRatioMap", this.getVolumeRatioMap());
+        objectOutput.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+        Map<Integer, Double> volumeRatioMap = (Map<Integer, Double>) objectInput.readFields().get("volumeRatioMap", null);
+        this.speakerIds = volumeRatioMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.volumeRatios = Arrays.stream(this.speakerIds).mapToDouble(volumeRatioMap::get).toArray();
     }
 
     @Override
     public String toString() {
-        return this.volumeRatioMap.toString();
+        return this.getVolumeRatioMap().toString();
     }
 
 }
@@ -1,38 +1,94 @@
 package com.programyourhome.immerse.domain.speakers;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.programyourhome.immerse.domain.Serialization;
 
 /**
- * Convenience wrapper around a volume map.
+ * Convenience wrapper around the volumes of all speakers.
  * Represents the absolute volumes for each speaker, as a value between 0 (mute) and 1 (max volume).
  * NB: These volumes are meant as a multiplier of the amplitudes of the audio data,
  * so 1 does not always mean very loud, this depends on the actual audio resources.
+ *
+ * The volumes are stored in an array by speaker index, just like the speaker volume ratios.
+ * The serialized form is still a map by speaker id, so it stays compatible with earlier versions.
  */
 public class SpeakerVolumes implements Serializable {
 
     private static final long serialVersionUID = Serialization.VERSION;
+    // Serialize the volumes as a map, instead of the arrays.
+    private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("volumeMap", Map.class) };
 
-    private final Map<Integer, Double> volumeMap;
+    private transient int[] speakerIds;
+    private transient double[] volumes;
 
     public SpeakerVolumes(Map<Integer, Double> volumesMap) {
-        this.volumeMap = volumesMap;
+        this.speakerIds = volumesMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.volumes = Arrays.stream(this.speakerIds).mapToDouble(volumesMap::get).toArray();
+    }
+
+    /**
+     * Create volumes from the given speaker ids (in ascending order) and the volumes by speaker index.
+     * The arrays are not copied: the owner of the volumes array can reuse this object by updating the volumes in place.
+     */
+    public SpeakerVolumes(int[] speakerIds, double[] volumes) {
+        if (speakerIds.length != volumes.length) {
+            throw new IllegalArgumentException("Amount of speaker ids and volumes should be equal");
+        }
+        this.speakerIds = speakerIds;
+        this.volumes = volumes;
+    }
+
+    public int getNumberOfSpeakers() {
+        return this.speakerIds.length;
+    }
+
+    public int getSpeakerId(int speakerIndex) {
+        return this.speakerIds[speakerIndex];
     }
 
     public double getVolumeFraction(int speakerId) {
-        return this.volumeMap.get(speakerId);
+        int speakerIndex = Arrays.binarySearch(this.speakerIds, speakerId);
+        if (speakerIndex < 0) {
+            throw new IllegalArgumentException("No volume for speaker id " + speakerId);
+        }
+        return this.volumes[speakerIndex];
+    }
+
+    public double getVolumeFractionAtIndex(int speakerIndex) {
+        return this.volumes[speakerIndex];
     }
 
     public Map<Integer, Double> getVolumeMap() {
-        return new HashMap<>(this.volumeMap);
+        Map<Integer, Double> volumeMap = new HashMap<>();
+        for (int speakerIndex = 0; speakerIndex < this.speakerIds.length; speakerIndex++) {
+            volumeMap.put(this.speakerIds[speakerIndex], this.volumes[speakerIndex]);
+        }
+        return volumeMap;
+    }
+
+    private void writeObject(ObjectOutputStream objectOutput) throws IOException {
+        objectOutput.putFields().put("volumeMap", this.getVolumeMap());
+        objectOutput.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+        Map<Integer, Double> volumeMap = (Map<Integer, Double>) objectInput.readFields().get("volumeMap", null);
+        this.speakerIds = volumeMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.volumes = Arrays.stream(this.speakerIds).mapToDouble(volumeMap::get).toArray();
     }
 
     @Override
     public String toString() {
-        return this.volumeMap.toString();
+        return this.getVolumeMap().toString();
     }
 
 }
@@ -5,32 +5,69 @@ import java.io.Serializable;
 import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
 import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
 
-import one.util.streamex.DoubleStreamEx;
-
 /**
  * Algorithm that can turn a series of speaker volume ratios into values between 0 and 1 for each speaker.
+ *
+ * The calculation can work on arrays by speaker index, that are provided by the caller, so no objects have to be created
+ * for it. That is what the mixer uses every step. The calculation with speaker volume ratios and speaker volumes is an adapter on top of it.
+ * Both calculations have a default implementation in terms of the other one, so an implementation should override at least one of them.
+ * Implementations that only override the calculation with speaker volume ratios keep working, but create objects every step.
  */
 public interface NormalizeAlgorithm extends Serializable {
 
     /**
      * Calculate the normalized volume for all speakers.
      */
-    public SpeakerVolumes calculateVolumes(SpeakerVolumeRatios speakerVolumeRatios);
+    public default SpeakerVolumes calculateVolumes(SpeakerVolumeRatios speakerVolumeRatios) {
+        double[] volumeRatios = new double[speakerVolumeRatios.getNumberOfSpeakers()];
+        speakerVolumeRatios.copyVolumeRatios(volumeRatios);
+        double[] volumes = new double[volumeRatios.length];
+        this.calculateVolumes(volumeRatios, volumes);
+        int[] speakerIds = new int[volumeRatios.length];
+        for (int speakerIndex = 0; speakerIndex < speakerIds.length; speakerIndex++) {
+            speakerIds[speakerIndex] = speakerVolumeRatios.getSpeakerId(speakerIndex);
+        }
+        return new SpeakerVolumes(speakerIds, volumes);
+    }
 
-    public default DoubleStreamEx streamRatios(SpeakerVolumeRatios speakerVolumeRatios) {
-        return DoubleStreamEx.of(speakerVolumeRatios.getVolumeRatioMap().values());
+    /**
+     * Calculate the normalized volume for all speakers, from the volume ratios by speaker index into the volumes by speaker index.
+     * Both arrays have a length equal to the amount of speakers.
+     * The speaker ids are not known here, so the speaker indices are used as speaker ids for the calculation with speaker volume ratios.
+     */
+    public default void calculateVolumes(double[] volumeRatios, double[] volumes) {
+        int[] speakerIds = new int[volumeRatios.length];
+        for (int speakerIndex = 0; speakerIndex < speakerIds.length; speakerIndex++) {
+            speakerIds[speakerIndex] = speakerIndex;
+        }
+        SpeakerVolumes speakerVolumes = this.calculateVolumes(new SpeakerVolumeRatios(speakerIds, volumeRatios.clone()));
+        for (int speakerIndex = 0; speakerIndex < volumes.length; speakerIndex++) {
+            volumes[speakerIndex] = speakerVolumes.getVolumeFractionAtIndex(speakerIndex);
+        }
     }
 
-    public default double getLowestRatio(SpeakerVolumeRatios speakerVolumeRatios) {
-        return this.streamRatios(speakerVolumeRatios).min().getAsDouble();
+    public default double getLowestRatio(double[] volumeRatios) {
+        double lowestRatio = Double.POSITIVE_INFINITY;
+        for (double volumeRatio : volumeRatios) {
+            lowestRatio = Math.min(lowestRatio, volumeRatio);
+        }
+        return lowestRatio;
     }
 
-    public default double getHighestRatio(SpeakerVolumeRatios speakerVolumeRatios) {
-        return this.streamRatios(speakerVolumeRatios).max().getAsDouble();
+    public default double getHighestRatio(double[] volumeRatios) {
+        double highestRatio = Double.NEGATIVE_INFINITY;
+        for (double volumeRatio : volumeRatios) {
+            highestRatio = Math.max(highestRatio, volumeRatio);
+        }
+        return highestRatio;
     }
 
-    public default double getRatioSum(SpeakerVolumeRatios speakerVolumeRatios) {
-        return this.streamRatios(speakerVolumeRatios).sum();
+    public default double getRatioSum(double[] volumeRatios) {
+        double ratioSum = 0;
+        for (double volumeRatio : volumeRatios) {
+            ratioSum += volumeRatio;
+        }
+        return ratioSum;
     }
 
 }
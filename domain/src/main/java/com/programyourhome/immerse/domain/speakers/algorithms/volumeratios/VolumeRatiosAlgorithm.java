@@ -10,4 +10,13 @@ import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
  */
 public interface VolumeRatiosAlgorithm extends DynamicData<SpeakerVolumeRatios> {
 
+    /**
+     * Write the current volume ratios by speaker index (as assigned by the room) into the given array,
+     * that should have a length equal to the amount of speakers. This is what the mixer uses every step.
+     * The default implementation copies the current value. Algorithms can override it to calculate directly into the array.
+     */
+    public default void writeCurrentValue(double[] volumeRatios) {
+        this.getCurrentValue().copyVolumeRatios(volumeRatios);
+    }
+
 }
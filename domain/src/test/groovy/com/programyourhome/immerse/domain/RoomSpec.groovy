@@ -0,0 +1,73 @@
+package com.programyourhome.immerse.domain
+
+import com.programyourhome.immerse.domain.speakers.Speaker
+
+import spock.lang.Specification
+
+class RoomSpec extends Specification {
+
+    def "Speakers should be indexed in order of their id"() {
+        given:
+        def room = Room.builder()
+                .addSpeaker(Speaker.builder().id(7).position(1, 2, 3).build())
+                .addSpeaker(Speaker.builder().id(2).position(4, 5, 6).build())
+                .addSpeaker(Speaker.builder().id(5).position(7, 8, 9).build())
+                .build()
+
+        expect:
+        room.getNumberOfSpeakers() == 3
+        room.getSpeakerIds() == [2, 5, 7] as int[]
+        room.getSpeakerIndex(2) == 0
+        room.getSpeakerIndex(5) == 1
+        room.getSpeakerIndex(7) == 2
+        room.getSpeakerAtIndex(2).getId() == 7
+    }
+
+    def "Speaker positions should be stored by speaker index"() {
+        given:
+        def room = Room.builder()
+                .addSpeaker(Speaker.builder().id(7).position(1, 2, 3).build())
+                .addSpeaker(Speaker.builder().id(2).position(4, 5, 6).build())
+                .build()
+
+        expect:
+        room.getSpeakerX(0) == 4
+        room.getSpeakerY(0) == 5
+        room.getSpeakerZ(0) == 6
+        room.getSpeakerX(1) == 1
+        room.getSpeakerY(1) == 2
+        room.getSpeakerZ(1) == 3
+    }
+
+    def "Unknown speaker id should throw an exception"() {
+        given:
+        def room = Room.builder().addSpeaker(Speaker.builder().id(1).position(0, 0, 0).build()).build()
+
+        when:
+        room.getSpeakerIndex(2)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Speaker index should be built again after deserialization"() {
+        given:
+        def room = Room.builder()
+                .addSpeaker(Speaker.builder().id(7).position(1, 2, 3).build())
+                .addSpeaker(Speaker.builder().id(2).position(4, 5, 6).build())
+                .build()
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable { it.writeObject(room) }
+
+        when:
+        def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withCloseable { it.readObject() } as Room
+
+        then:
+        copy.getSpeakerIds() == [2, 7] as int[]
+        copy.getSpeakerIndex(7) == 1
+        copy.getSpeakerAtIndex(0).getId() == 2
+        copy.getSpeakerX(1) == 1
+        copy.getSpeakerZ(0) == 6
+    }
+
+}
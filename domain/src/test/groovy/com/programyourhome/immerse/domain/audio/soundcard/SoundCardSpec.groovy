@@ -0,0 +1,37 @@
+package com.programyourhome.immerse.domain.audio.soundcard
+
+import com.programyourhome.immerse.domain.format.RecordingMode
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SoundCardSpec extends Specification {
+
+    @Unroll
+    def "Speakers and recording mode of a sound card with speakers #speakerIds should survive serialization"() {
+        given:
+        def soundCard = SoundCard.builder().id(1).name("name").description("description").physicalPort("port").speakerIds(speakerIds as int[])
+                .build()
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable { it.writeObject(soundCard) }
+
+        when:
+        def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withCloseable { it.readObject() } as SoundCard
+
+        then:
+        copy.getId() == 1
+        copy.getName() == "name"
+        copy.getDescription() == "description"
+        copy.getPhysicalPort() == "port"
+        copy.getSpeakerIds() == speakerIds as int[]
+        copy.getLeftSpeakerId() == speakerIds[0]
+        copy.getRightSpeakerId() == speakerIds[1]
+        copy.getRecordingMode() == recordingMode
+
+        where:
+        speakerIds               || recordingMode
+        [3, 4]                   || RecordingMode.STEREO
+        [3, 4, 5, 6, 7, 8, 9, 2] || RecordingMode.EIGHT_CHANNELS
+    }
+
+}
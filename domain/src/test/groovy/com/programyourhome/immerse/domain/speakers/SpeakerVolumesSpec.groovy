@@ -0,0 +1,42 @@
+package com.programyourhome.immerse.domain.speakers
+
+import spock.lang.Specification
+
+class SpeakerVolumesSpec extends Specification {
+
+    def "Speaker volumes should be stored by speaker index"() {
+        given:
+        def speakerVolumes = new SpeakerVolumes([7: 0.1d, 2: 0.5d, 5: 0.9d])
+
+        expect:
+        speakerVolumes.getNumberOfSpeakers() == 3
+        speakerVolumes.getSpeakerId(0) == 2
+        speakerVolumes.getVolumeFractionAtIndex(2) == 0.1d
+        speakerVolumes.getVolumeFraction(5) == 0.9d
+    }
+
+    def "Speaker volumes and volume ratios should be serialized as a map by speaker id"() {
+        given:
+        def speakerVolumes = new SpeakerVolumes([2, 5, 7] as int[], [0.5, 0.9, 0.1] as double[])
+        def speakerVolumeRatios = new SpeakerVolumeRatios([7: 3d, 2: 1d])
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable {
+            it.writeObject(speakerVolumes)
+            it.writeObject(speakerVolumeRatios)
+        }
+
+        when:
+        def objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+        def volumesCopy = objectInput.readObject() as SpeakerVolumes
+        def ratiosCopy = objectInput.readObject() as SpeakerVolumeRatios
+        objectInput.close()
+
+        then:
+        volumesCopy.getVolumeMap() == [2: 0.5d, 5: 0.9d, 7: 0.1d]
+        volumesCopy.getVolumeFractionAtIndex(1) == 0.9d
+        ratiosCopy.getVolumeRatioMap() == [2: 1d, 7: 3d]
+        ratiosCopy.getSpeakerId(1) == 7
+        ratiosCopy.getVolumeRatioAtIndex(1) == 3d
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.programyourhome.immerse.domain.speakers.algorithms.normalize
+
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios
+import com.programyourhome.immerse.domain.speakers.SpeakerVolumes
+
+import spock.lang.Specification
+
+class NormalizeAlgorithmSpec extends Specification {
+
+    def "An algorithm that only calculates with speaker volume ratios should also calculate with arrays"() {
+        given: 'an algorithm that divides every ratio by the highest ratio'
+        def algorithm = new NormalizeAlgorithm() {
+            @Override
+            SpeakerVolumes calculateVolumes(SpeakerVolumeRatios speakerVolumeRatios) {
+                def highestRatio = speakerVolumeRatios.getVolumeRatioMap().values().max()
+                return new SpeakerVolumes(speakerVolumeRatios.getVolumeRatioMap().collectEntries { id, ratio -> [id, ratio / highestRatio] })
+            }
+        }
+        double[] volumeRatios = [10, 40, 20]
+        double[] volumes = new double[3]
+
+        when:
+        algorithm.calculateVolumes(volumeRatios, volumes)
+
+        then:
+        volumes == [0.25, 1, 0.5] as double[]
+        volumeRatios == [10, 40, 20] as double[]
+    }
+
+    def "An algorithm that only calculates with arrays should also calculate with speaker volume ratios"() {
+        given: 'an algorithm that divides every ratio by the sum of the ratios'
+        def algorithm = new NormalizeAlgorithm() {
+            @Override
+            void calculateVolumes(double[] volumeRatios, double[] volumes) {
+                def ratioSum = volumeRatios.sum()
+                volumeRatios.eachWithIndex { ratio, index -> volumes[index] = ratio / ratioSum }
+            }
+        }
+
+        when:
+        def speakerVolumes = algorithm.calculateVolumes(new SpeakerVolumeRatios([7: 10d, 3: 30d, 5: 60d]))
+
+        then:
+        speakerVolumes.getVolumeMap() == [3: 0.3d, 5: 0.6d, 7: 0.1d]
+    }
+
+}
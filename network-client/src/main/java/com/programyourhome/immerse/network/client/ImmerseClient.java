@@ -7,6 +7,7 @@ import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.UUID;
 
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsSnapshot;
 import com.programyourhome.immerse.domain.ImmerseSettings;
 import com.programyourhome.immerse.domain.Scenario;
 import com.programyourhome.immerse.network.server.action.ActionResult;
@@ -82,6 +83,13 @@ public class ImmerseClient {
         return this.callServer(ServerAction.GET_SETTINGS);
     }
 
+    /**
+     * Get a snapshot of the metrics of the mixer.
+     */
+    public ActionResult<MetricsSnapshot> getMetrics() {
+        return this.callServer(ServerAction.GET_METRICS);
+    }
+
     /**
      * Play a scenario on the mixer.
      */
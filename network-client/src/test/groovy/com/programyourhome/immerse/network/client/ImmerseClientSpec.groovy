@@ -0,0 +1,94 @@
+package com.programyourhome.immerse.network.client
+
+import static com.programyourhome.immerse.toolbox.audio.playback.TimerPlayback.timer
+import static com.programyourhome.immerse.toolbox.audio.resource.SilenceAudioResource.silence
+import static com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation.fixed
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.normalize.FractionalNormalizeAlgorithm.fractional
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing
+import static com.programyourhome.immerse.toolbox.util.TestData.room
+import static com.programyourhome.immerse.toolbox.util.TestData.scenario
+import static com.programyourhome.immerse.toolbox.util.TestData.settings
+import static com.programyourhome.immerse.toolbox.util.TestData.soundCard
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker
+
+import com.programyourhome.immerse.domain.ImmerseSettings
+import com.programyourhome.immerse.domain.OutputBackendType
+import com.programyourhome.immerse.domain.format.ImmerseAudioFormat
+import com.programyourhome.immerse.domain.format.SampleRate
+import com.programyourhome.immerse.domain.format.SampleSize
+import com.programyourhome.immerse.network.server.ImmerseServer
+
+import spock.lang.Specification
+
+class ImmerseClientSpec extends Specification {
+
+    ImmerseServer server
+    ImmerseClient client
+
+    def setup() {
+        def port = new ServerSocket(0).withCloseable { it.localPort }
+        this.server = new ImmerseServer(port)
+        Thread.start { this.server.start() }
+        // Wait for the server to accept connections.
+        for (int attempt = 0; this.client == null; attempt++) {
+            try {
+                this.client = new ImmerseClient("localhost", port)
+            } catch (IllegalStateException e) {
+                if (attempt == 50) {
+                    throw e
+                }
+                Thread.sleep(100)
+            }
+        }
+    }
+
+    def cleanup() {
+        if (this.client != null && this.client.hasMixer().getResult()) {
+            this.client.stopMixer()
+        }
+        this.server.stop()
+    }
+
+    def "A synchronous action should get its result back over the connection"() {
+        when:
+        def result = this.client.hasMixer()
+
+        then:
+        result.isSuccess()
+        result.getResult() == false
+    }
+
+    def "Waiting for a playback should return when the playback has stopped"() {
+        given:
+        def room = room(speaker(1, 0, 0, 0), speaker(2, 10, 0, 0))
+        def outputFormat = ImmerseAudioFormat.builder().sampleRate(SampleRate.RATE_44K).sampleSize(SampleSize.TWO_BYTES).buildForOutput()
+        // The null backend plays at the right pace without a sound card.
+        def mixerSettings = ImmerseSettings.builder().room(room).soundCards([soundCard(1, "a", 1, 2)] as Set).outputFormat(outputFormat)
+                .technical().outputBackendType(OutputBackendType.NULL).functional().build()
+        def scenario = scenario(settings(silence(), fieldOfHearing(room, fixed(5, 0, 0), fixed(5, 0, 0)), fractional(), timer(300)))
+
+        when:
+        def createResult = this.client.createMixer(mixerSettings)
+        def startResult = this.client.startMixer()
+        def playbackId = this.client.playScenario(scenario).getResult()
+        long start = System.currentTimeMillis()
+        def waitResult = this.client.waitForPlayback(playbackId)
+
+        then:
+        createResult.isSuccess()
+        startResult.isSuccess()
+        waitResult.isSuccess()
+        // The result should only be written after the playback stopped.
+        System.currentTimeMillis() - start >= 200
+    }
+
+    def "Waiting for a playback without a mixer should give an error result"() {
+        when:
+        def result = this.client.waitForPlayback(UUID.randomUUID())
+
+        then:
+        !result.isSuccess()
+        result.getErrorMessage() != null
+    }
+
+}
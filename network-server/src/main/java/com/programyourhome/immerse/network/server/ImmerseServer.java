@@ -7,6 +7,7 @@ import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
 
 import org.pmw.tinylog.Logger;
 
@@ -125,12 +126,26 @@ public class ImmerseServer {
 
     /**
      * Forward processing to the corresponding action implementation and handle the result.
+     * If the result of the action is a future, the result is written when that future completes,
+     * so no thread is occupied while waiting for it.
      */
     private void executeAction(Socket clientSocket, ServerAction action, ObjectInput objectInput) {
         try {
             Object result = action.getAction().perform(this, objectInput);
-            this.writeActionResult(clientSocket, ActionResult.success(result));
-            objectInput.close();
+            // Do not close the object input here: that would close the socket before the result is written.
+            // Writing the result closes the socket and thereby the object input as well.
+            if (result instanceof CompletableFuture) {
+                ((CompletableFuture<?>) result).whenComplete((value, exception) -> {
+                    if (exception == null) {
+                        this.writeActionResult(clientSocket, ActionResult.success(value));
+                    } else {
+                        Logger.error(exception, "Exception occured during asynchronous client handling");
+                        this.writeActionResult(clientSocket, ActionResult.error(exception));
+                    }
+                });
+            } else {
+                this.writeActionResult(clientSocket, ActionResult.success(result));
+            }
         } catch (Exception e) {
             Logger.error(e, "Exception occured during client handling");
             this.writeActionResult(clientSocket, ActionResult.error(e));
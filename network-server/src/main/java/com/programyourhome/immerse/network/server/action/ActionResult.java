@@ -49,7 +49,7 @@ public class ActionResult<T> implements Serializable {
         return new ActionResult<>(false, null, errorMessage);
     }
 
-    public static <T> ActionResult<T> error(Exception exception) {
+    public static <T> ActionResult<T> error(Throwable exception) {
         return new ActionResult<>(false, null, exception.getClass().getSimpleName() + ": " + exception.getMessage());
     }
 
@@ -0,0 +1,21 @@
+package com.programyourhome.immerse.network.server.action;
+
+import java.io.ObjectInput;
+
+import com.programyourhome.immerse.audiostreaming.metrics.MetricsSnapshot;
+import com.programyourhome.immerse.network.server.ImmerseServer;
+
+/**
+ * Get a snapshot of the metrics of the mixer.
+ */
+public class GetMetricsAction extends Action<MetricsSnapshot> {
+
+    @Override
+    public MetricsSnapshot perform(ImmerseServer server, ObjectInput objectInput) {
+        if (!server.hasMixer()) {
+            throw new IllegalStateException("Server has no mixer, no metrics to get");
+        }
+        return server.getMixer().getMetrics();
+    }
+
+}
@@ -19,7 +19,7 @@ public class PlayScenarioAction extends Action<UUID> {
         if (!server.hasMixer()) {
             throw new IllegalStateException("Server does not have a mixer, playing a scenario is not possible");
         }
-        return server.getMixer().playScenario(scenario);
+        return server.getMixer().playScenario(scenario).getPlaybackId();
     }
 
 }
@@ -15,6 +15,8 @@ public enum ServerAction {
     START_MIXER(new StartMixerAction(), false),
     /** Get the settings. */
     GET_SETTINGS(new GetSettingsAction(), true),
+    /** Get the metrics. */
+    GET_METRICS(new GetMetricsAction(), true),
     /** Play a scenario. */
     PLAY_SCENARIO(new PlayScenarioAction(), true),
     /** Wait for a playback to finish. */
@@ -3,23 +3,28 @@ package com.programyourhome.immerse.network.server.action;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import com.programyourhome.immerse.audiostreaming.mixer.PlaybackHandle;
 import com.programyourhome.immerse.network.server.ImmerseServer;
 
 /**
  * Wait for playback completion of a scenario on the mixer.
+ * The result is a future that completes when the playback has stopped, so no thread is occupied while waiting.
  */
-public class WaitForPlaybackAction extends Action<Void> {
+public class WaitForPlaybackAction extends Action<CompletableFuture<Void>> {
 
     @Override
-    public Void perform(ImmerseServer server, ObjectInput objectInput) throws ClassNotFoundException, IOException {
+    public CompletableFuture<Void> perform(ImmerseServer server, ObjectInput objectInput) throws ClassNotFoundException, IOException {
         UUID playbackId = this.read(objectInput, UUID.class);
 
         if (!server.hasMixer()) {
             throw new IllegalStateException("Server does not have a mixer, stopping playback is not possible");
         }
-        server.getMixer().waitForPlayback(playbackId);
-        return VOID_RETURN_VALUE;
+        // If the playback is not (or no longer) in playback, there is nothing to wait for.
+        return server.getMixer().getPlaybackHandle(playbackId)
+                .map(PlaybackHandle::getStopped)
+                .orElse(CompletableFuture.completedFuture(VOID_RETURN_VALUE));
     }
 
 }
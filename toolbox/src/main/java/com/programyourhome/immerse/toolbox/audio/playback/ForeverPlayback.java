@@ -15,11 +15,11 @@ public class ForeverPlayback implements Playback {
     }
 
     @Override
-    public void audioStarted() {
+    public void audioStarted(long currentMillis) {
     }
 
     @Override
-    public boolean shouldStop() {
+    public boolean shouldStop(long currentMillis) {
         return false;
     }
 
@@ -23,11 +23,11 @@ public class LoopPlayback implements Playback {
     }
 
     @Override
-    public void audioStarted() {
+    public void audioStarted(long currentMillis) {
     }
 
     @Override
-    public boolean shouldStop() {
+    public boolean shouldStop(long currentMillis) {
         // We only signal stopping after a loop has been completed.
         return false;
     }
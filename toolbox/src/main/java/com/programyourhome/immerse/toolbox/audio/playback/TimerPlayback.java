@@ -24,17 +24,17 @@ public class TimerPlayback implements Playback {
     }
 
     @Override
-    public void audioStarted() {
+    public void audioStarted(long currentMillis) {
         // Only set this on the first call, not on next loops.
         if (this.startMillis == -1) {
-            this.startMillis = System.currentTimeMillis();
+            this.startMillis = currentMillis;
         }
     }
 
     @Override
-    public boolean shouldStop() {
+    public boolean shouldStop(long currentMillis) {
         // We should stop when the audio has started and is running longer than the configured duration.
-        return this.startMillis > -1 && System.currentTimeMillis() - this.startMillis >= this.durationInMillis;
+        return this.startMillis > -1 && currentMillis - this.startMillis >= this.durationInMillis;
     }
 
     @Override
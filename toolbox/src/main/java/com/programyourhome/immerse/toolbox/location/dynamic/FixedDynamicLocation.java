@@ -24,6 +24,11 @@ public class FixedDynamicLocation extends AbstractDynamicData<Vector3D> implemen
         return this.location;
     }
 
+    @Override
+    public long getVersion() {
+        return 0;
+    }
+
     public static Factory<DynamicLocation> fixed(double x, double y, double z) {
         return fixed(new Vector3D(x, y, z));
     }
@@ -2,7 +2,11 @@ package com.programyourhome.immerse.toolbox.location.dynamic;
 
 import static com.programyourhome.immerse.toolbox.util.MathUtil.calculateValueInRange;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
 import java.util.SortedMap;
+import java.util.TreeMap;
 
 import com.programyourhome.immerse.domain.AbstractDynamicData;
 import com.programyourhome.immerse.domain.Factory;
@@ -24,6 +28,12 @@ import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
  * Without loop mode:
  * - For a time before the first key frame, use the location of the first key frame.
  * - For a time after the last key frame, use the location of the last key frame. (so effectively stopping after one loop)
+ *
+ * The key frames are compiled into arrays of times and coordinates, so the lookup does not depend on the amount of key frames:
+ * a cursor remembers the key frame of the last lookup and since time moves forward in small steps, the key frame is mostly
+ * the same one or the next one. Only after a jump in time (like looping back to the start) the key frame times are searched.
+ * Any other dynamic location (like an analytic path) can be sampled into key frames as well, to get the same lookup.
+ * Only the key frames themselves are serialized, the arrays are compiled again after deserialization.
  */
 public class KeyFramesDynamicLocation extends AbstractDynamicData<Vector3D> implements DynamicLocation {
 
@@ -31,6 +41,16 @@ public class KeyFramesDynamicLocation extends AbstractDynamicData<Vector3D> impl
 
     private final SortedMap<Long, Vector3D> keyFrames;
     private final boolean loop;
+    // The times of the key frames, in ascending order.
+    private transient long[] times;
+    // The locations of the key frames, to return as is when no interpolation is needed.
+    private transient Vector3D[] locations;
+    // The coordinates of the key frames, as x, y and z after each other (so 3 values per key frame).
+    private transient double[] coordinates;
+    // For every key frame, whether the location stays the same until the next key frame.
+    private transient boolean[] standingStill;
+    // The index of the key frame of the last lookup.
+    private transient int cursor;
 
     public KeyFramesDynamicLocation(SortedMap<Long, Vector3D> keyFrames) {
         this(keyFrames, false);
@@ -38,51 +58,149 @@ public class KeyFramesDynamicLocation extends AbstractDynamicData<Vector3D> impl
 
     public KeyFramesDynamicLocation(SortedMap<Long, Vector3D> keyFrames, boolean loop) {
         super(true);
-        if (keyFrames.isEmpty()) {
+        // Copy the key frames, so changes to the given map cannot get them out of sync with the compiled arrays.
+        this.keyFrames = new TreeMap<>(keyFrames);
+        this.loop = loop;
+        if (this.keyFrames.isEmpty()) {
             throw new IllegalArgumentException("At least 1 key frame is required.");
         }
-        if (keyFrames.firstKey() != 0) {
+        if (this.keyFrames.firstKey() != 0) {
             throw new IllegalArgumentException("The first key frame must be at time 0.");
         }
-        if (loop && !keyFrames.get(keyFrames.firstKey()).equals(keyFrames.get(keyFrames.lastKey()))) {
+        if (loop && !this.keyFrames.get(this.keyFrames.firstKey()).equals(this.keyFrames.get(this.keyFrames.lastKey()))) {
             throw new IllegalArgumentException("In loop mode the location of the last key frame must be equal to the location of the first key frame");
         }
-        this.keyFrames = keyFrames;
-        this.loop = loop;
+        this.compileKeyFrames();
+    }
+
+    /**
+     * Compile the key frames into the arrays used for the lookup.
+     */
+    private void compileKeyFrames() {
+        this.times = this.keyFrames.keySet().stream().mapToLong(Long::longValue).toArray();
+        this.locations = this.keyFrames.values().toArray(new Vector3D[0]);
+        this.coordinates = new double[this.locations.length * 3];
+        this.standingStill = new boolean[this.locations.length];
+        for (int index = 0; index < this.locations.length; index++) {
+            this.coordinates[index * 3] = this.locations[index].getX();
+            this.coordinates[index * 3 + 1] = this.locations[index].getY();
+            this.coordinates[index * 3 + 2] = this.locations[index].getZ();
+            this.standingStill[index] = index == this.locations.length - 1 || this.locations[index].equals(this.locations[index + 1]);
+        }
+    }
+
+    private void readObject(ObjectInputStream objectInput) throws IOException, ClassNotFoundException {
+        objectInput.defaultReadObject();
+        this.compileKeyFrames();
     }
 
     @Override
     public Vector3D getCurrentValue() {
+        long millisSinceStart = this.getKeyFramesMillis();
+        int index = this.findKeyFrameIndex(millisSinceStart);
+        if (millisSinceStart <= this.times[index] || this.standingStill[index]) {
+            // Special cases: direct hit, before the first key frame, after the last key frame or standing still.
+            // In all these cases the location is the location of the key frame.
+            return this.locations[index];
+        }
+        double distance = this.times[index + 1] - this.times[index];
+        double fraction = (millisSinceStart - this.times[index]) / distance;
+
+        int before = index * 3;
+        int after = before + 3;
+        double locationX = calculateValueInRange(this.coordinates[before], this.coordinates[after], fraction);
+        double locationY = calculateValueInRange(this.coordinates[before + 1], this.coordinates[after + 1], fraction);
+        double locationZ = calculateValueInRange(this.coordinates[before + 2], this.coordinates[after + 2], fraction);
+        return new Vector3D(locationX, locationY, locationZ);
+    }
+
+    /**
+     * While standing still (in between 2 key frames with the same location, or after the last key frame without loop mode),
+     * the version is the time of the key frame the location is taken from, so it stays the same for as long as the location does.
+     * While moving, the location changes all the time, so the version is unknown.
+     */
+    @Override
+    public long getVersion() {
+        long millisSinceStart = this.getKeyFramesMillis();
+        if (millisSinceStart < this.times[0]) {
+            return this.times[0];
+        }
+        int index = this.findKeyFrameIndex(millisSinceStart);
+        if (this.standingStill[index]) {
+            return this.times[index];
+        }
+        return UNKNOWN_VERSION;
+    }
+
+    /**
+     * Find the index of the key frame for the given time: the last key frame at or before the given time
+     * (or the first key frame if the time is before all key frames).
+     * The key frame of the last lookup and the one after that are tried first, before searching all key frame times.
+     */
+    private int findKeyFrameIndex(long millis) {
+        int index = this.cursor;
+        if (!this.isInKeyFrame(index, millis)) {
+            index++;
+            if (index >= this.times.length || !this.isInKeyFrame(index, millis)) {
+                index = this.searchKeyFrameIndex(millis);
+            }
+            this.cursor = index;
+        }
+        return index;
+    }
+
+    /**
+     * Whether the given time is in between the key frame at the given index (inclusive) and the next one (exclusive).
+     * The first key frame also holds all times before it and the last key frame all times after it.
+     */
+    private boolean isInKeyFrame(int index, long millis) {
+        return (index == 0 || this.times[index] <= millis) && (index == this.times.length - 1 || millis < this.times[index + 1]);
+    }
+
+    private int searchKeyFrameIndex(long millis) {
+        int index = Arrays.binarySearch(this.times, millis);
+        if (index < 0) {
+            // Not a direct hit: take the key frame before the insertion point.
+            index = Math.max(0, -index - 2);
+        }
+        return index;
+    }
+
+    /**
+     * The millis since start, brought within the key frame times in loop mode.
+     */
+    private long getKeyFramesMillis() {
         long millisSinceStart = this.getMillisSinceStart();
-        Vector3D location;
         if (this.loop) {
             // Calculate the modulo to get a value within the frame times. (use floorMod instead of % to always get a positive value)
-            millisSinceStart = Math.floorMod(millisSinceStart, this.keyFrames.lastKey());
+            millisSinceStart = Math.floorMod(millisSinceStart, this.times[this.times.length - 1]);
+        }
+        return millisSinceStart;
+    }
+
+    /**
+     * Sample the given dynamic location into key frames: every interval millis from time 0 until the duration and at the duration itself.
+     * The dynamic location is played from time 0 for this, so it should not be in use already.
+     * In loop mode, the last key frame gets the location of the first one, so the path is closed (the duration should be the time
+     * the path needs for one loop).
+     */
+    public static KeyFramesDynamicLocation sample(DynamicLocation location, long durationMillis, long intervalMillis, boolean loop) {
+        if (durationMillis <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("Duration and interval must be positive");
+        }
+        SortedMap<Long, Vector3D> keyFrames = new TreeMap<>();
+        location.nextPlaybackStarted(0);
+        for (long millis = 0; millis < durationMillis; millis += intervalMillis) {
+            location.nextStep(millis);
+            keyFrames.put(millis, location.getCurrentValue());
         }
-        if (this.keyFrames.containsKey(millisSinceStart)) {
-            // Special case: direct hit.
-            location = this.keyFrames.get(millisSinceStart);
-        } else if (millisSinceStart < this.keyFrames.firstKey()) {
-            // Special case: before first key frame. Use value of first key frame.
-            location = this.keyFrames.get(this.keyFrames.firstKey());
-        } else if (millisSinceStart > this.keyFrames.lastKey()) {
-            // Special case: after last key frame. Use value of last key frame.
-            location = this.keyFrames.get(this.keyFrames.lastKey());
+        if (loop) {
+            keyFrames.put(durationMillis, keyFrames.get(0L));
         } else {
-            Long millisKeyFrameBefore = this.keyFrames.headMap(millisSinceStart).lastKey();
-            Vector3D vectorKeyFrameBefore = this.keyFrames.get(millisKeyFrameBefore);
-            Long millisKeyFrameAfter = this.keyFrames.tailMap(millisSinceStart).firstKey();
-            Vector3D vectorKeyFrameAfter = this.keyFrames.get(millisKeyFrameAfter);
-
-            double distance = millisKeyFrameAfter - millisKeyFrameBefore;
-            double fraction = (millisSinceStart - millisKeyFrameBefore) / distance;
-
-            double locationX = calculateValueInRange(vectorKeyFrameBefore.getX(), vectorKeyFrameAfter.getX(), fraction);
-            double locationY = calculateValueInRange(vectorKeyFrameBefore.getY(), vectorKeyFrameAfter.getY(), fraction);
-            double locationZ = calculateValueInRange(vectorKeyFrameBefore.getZ(), vectorKeyFrameAfter.getZ(), fraction);
-            location = new Vector3D(locationX, locationY, locationZ);
+            location.nextStep(durationMillis);
+            keyFrames.put(durationMillis, location.getCurrentValue());
         }
-        return location;
+        return new KeyFramesDynamicLocation(keyFrames, loop);
     }
 
     public static Factory<DynamicLocation> keyFrames(SortedMap<Long, Vector3D> keyFrames) {
@@ -104,4 +222,15 @@ public class KeyFramesDynamicLocation extends AbstractDynamicData<Vector3D> impl
         };
     }
 
+    public static Factory<DynamicLocation> sampled(Factory<DynamicLocation> location, long durationMillis, long intervalMillis, boolean loop) {
+        return new Factory<DynamicLocation>() {
+            private static final long serialVersionUID = Serialization.VERSION;
+
+            @Override
+            public DynamicLocation create() {
+                return sample(location.create(), durationMillis, intervalMillis, loop);
+            }
+        };
+    }
+
 }
@@ -2,12 +2,8 @@ package com.programyourhome.immerse.toolbox.speakers.algorithms.normalize;
 
 import com.programyourhome.immerse.domain.Factory;
 import com.programyourhome.immerse.domain.Serialization;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumes;
 import com.programyourhome.immerse.domain.speakers.algorithms.normalize.NormalizeAlgorithm;
 
-import one.util.streamex.EntryStream;
-
 /**
  * Max sum normalize algorithm that takes the ratio between the input volumes
  * and tunes that down until all values summed are equal to the max sum.
@@ -26,12 +22,12 @@ public class MaxSumNormalizeAlgorithm implements NormalizeAlgorithm {
     }
 
     @Override
-    public SpeakerVolumes calculateVolumes(SpeakerVolumeRatios speakerVolumeRatios) {
-        double divisionFactor = this.getRatioSum(speakerVolumeRatios) / this.maxSum;
-        return new SpeakerVolumes(EntryStream.of(speakerVolumeRatios.getVolumeRatioMap())
-                // Cut off at max volume of 1, to not get distortions.
-                .mapValues(volumeRatio -> Math.min(1, volumeRatio / divisionFactor))
-                .toMap());
+    public void calculateVolumes(double[] volumeRatios, double[] volumes) {
+        double divisionFactor = this.getRatioSum(volumeRatios) / this.maxSum;
+        for (int speakerIndex = 0; speakerIndex < volumeRatios.length; speakerIndex++) {
+            // Cut off at max volume of 1, to not get distortions.
+            volumes[speakerIndex] = Math.min(1, volumeRatios[speakerIndex] / divisionFactor);
+        }
     }
 
     public static Factory<NormalizeAlgorithm> maxSum(double maxSum) {
@@ -8,6 +8,16 @@ import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
 import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
 import com.programyourhome.immerse.domain.speakers.algorithms.volumeratios.VolumeRatiosAlgorithm;
 
+/**
+ * Base class for volume ratios algorithms that calculate the volume ratios from the source and listener location.
+ *
+ * The volume ratios are only calculated again when one of the locations changed: as long as the versions of both dynamic locations
+ * stay the same, the last calculated volume ratios are reused. That makes the calculation nearly free for static sources.
+ * If a dynamic location does not support change detection, the volume ratios are calculated every time.
+ *
+ * The volume ratios are calculated into an array by speaker index, that is reused for every calculation. The current value
+ * as speaker volume ratios object is only created when asked for.
+ */
 public abstract class AbstractLocationBasedVolumeRatiosAlgorithm extends AbstractDynamicData<SpeakerVolumeRatios> implements VolumeRatiosAlgorithm {
 
     private static final long serialVersionUID = Serialization.VERSION;
@@ -15,6 +25,13 @@ public abstract class AbstractLocationBasedVolumeRatiosAlgorithm extends Abstrac
     private final Room room;
     private final DynamicLocation sourceLocation;
     private final DynamicLocation listenerLocation;
+    // The last calculated volume ratios by speaker index, together with the versions of the locations they were calculated with.
+    private transient double[] volumeRatios;
+    private transient SpeakerVolumeRatios currentValue;
+    private transient long sourceVersion;
+    private transient long listenerVersion;
+    // The version of the volume ratios, increased every time they are calculated.
+    private transient long version;
 
     public AbstractLocationBasedVolumeRatiosAlgorithm(Room room, DynamicLocation sourceLocation, DynamicLocation listenerLocation) {
         this.room = room;
@@ -23,27 +40,73 @@ public abstract class AbstractLocationBasedVolumeRatiosAlgorithm extends Abstrac
     }
 
     @Override
-    public void nextStep() {
-        super.nextStep();
-        this.sourceLocation.nextStep();
-        this.listenerLocation.nextStep();
+    public void nextStep(long currentMillis) {
+        super.nextStep(currentMillis);
+        this.sourceLocation.nextStep(currentMillis);
+        this.listenerLocation.nextStep(currentMillis);
     }
 
     @Override
-    public void nextPlaybackStarted() {
-        super.nextPlaybackStarted();
-        this.sourceLocation.nextPlaybackStarted();
-        this.listenerLocation.nextPlaybackStarted();
+    public void nextPlaybackStarted(long currentMillis) {
+        super.nextPlaybackStarted(currentMillis);
+        this.sourceLocation.nextPlaybackStarted(currentMillis);
+        this.listenerLocation.nextPlaybackStarted(currentMillis);
     }
 
     @Override
     public SpeakerVolumeRatios getCurrentValue() {
-        // Get the source and listener location from the configured dynamic location objects.
-        Vector3D source = this.sourceLocation.getCurrentValue();
-        Vector3D listener = this.listenerLocation.getCurrentValue();
-        return this.calculateVolumeRatios(this.room, source, listener);
+        this.updateVolumeRatios();
+        if (this.currentValue == null) {
+            // Copy the volume ratios, since the array will be reused for the next calculation.
+            this.currentValue = new SpeakerVolumeRatios(this.room.getSpeakerIds(), this.volumeRatios.clone());
+        }
+        return this.currentValue;
     }
 
-    protected abstract SpeakerVolumeRatios calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation);
+    @Override
+    public void writeCurrentValue(double[] volumeRatios) {
+        this.updateVolumeRatios();
+        System.arraycopy(this.volumeRatios, 0, volumeRatios, 0, this.volumeRatios.length);
+    }
+
+    /**
+     * Calculate the volume ratios again, unless the versions of both locations are known and the same as in the last calculation.
+     */
+    private void updateVolumeRatios() {
+        long currentSourceVersion = this.sourceLocation.getVersion();
+        long currentListenerVersion = this.listenerLocation.getVersion();
+        if (this.volumeRatios == null || currentSourceVersion == UNKNOWN_VERSION || currentListenerVersion == UNKNOWN_VERSION
+                || currentSourceVersion != this.sourceVersion || currentListenerVersion != this.listenerVersion) {
+            if (this.volumeRatios == null) {
+                this.volumeRatios = new double[this.room.getNumberOfSpeakers()];
+            }
+            // Get the source and listener location from the configured dynamic location objects.
+            Vector3D source = this.sourceLocation.getCurrentValue();
+            Vector3D listener = this.listenerLocation.getCurrentValue();
+            this.calculateVolumeRatios(this.room, source, listener, this.volumeRatios);
+            this.currentValue = null;
+            this.sourceVersion = currentSourceVersion;
+            this.listenerVersion = currentListenerVersion;
+            this.version++;
+        }
+    }
+
+    /**
+     * The version is only known if the versions of both locations are known. In that case, the volume ratios are calculated
+     * (if not done already) to know if the version has changed.
+     */
+    @Override
+    public long getVersion() {
+        if (this.sourceLocation.getVersion() == UNKNOWN_VERSION || this.listenerLocation.getVersion() == UNKNOWN_VERSION) {
+            return UNKNOWN_VERSION;
+        }
+        this.updateVolumeRatios();
+        return this.version;
+    }
+
+    /**
+     * Calculate the volume ratios for the given source and listener location into the given array, by speaker index of the room.
+     */
+    protected abstract void calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation, double[] volumeRatios);
 
 }
@@ -5,12 +5,9 @@ import com.programyourhome.immerse.domain.Room;
 import com.programyourhome.immerse.domain.Serialization;
 import com.programyourhome.immerse.domain.location.Vector3D;
 import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
 import com.programyourhome.immerse.domain.speakers.algorithms.volumeratios.VolumeRatiosAlgorithm;
 import com.programyourhome.immerse.toolbox.util.MathUtil;
 
-import one.util.streamex.EntryStream;
-
 /**
  * Volume ratios algorithm that takes a certain 'field of hearing': a cone shaped area
  * with the tip at the listener and in the direction of the source with a certain 'cutoff' angle.
@@ -40,13 +37,15 @@ public class FieldOfHearingVolumeRatiosAlgorithm extends AbstractLocationBasedVo
     }
 
     @Override
-    protected SpeakerVolumeRatios calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation) {
-        return new SpeakerVolumeRatios(EntryStream.of(room.getSpeakers())
-                .mapValues(speaker -> MathUtil.calculateAngleInDegrees(sourceLocation, listenerLocation, speaker))
-                // For speakers inside the 'field of hearing', a low angle should be a high volume ratio and vice versa.
-                // For speakers not inside the 'field of hearing', it's just 0.
-                .mapValues(angle -> angle <= this.cutoffAngle ? this.cutoffAngle - angle : 0.0)
-                .toMap());
+    protected void calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation, double[] volumeRatios) {
+        // The angles of all speakers are calculated into the volume ratios array first and then turned into volume ratios in place.
+        MathUtil.calculateAnglesInDegrees(sourceLocation, listenerLocation, room, volumeRatios);
+        for (int speakerIndex = 0; speakerIndex < volumeRatios.length; speakerIndex++) {
+            double angle = volumeRatios[speakerIndex];
+            // For speakers inside the 'field of hearing', a low angle should be a high volume ratio and vice versa.
+            // For speakers not inside the 'field of hearing', it's just 0.
+            volumeRatios[speakerIndex] = angle <= this.cutoffAngle ? this.cutoffAngle - angle : 0.0;
+        }
     }
 
     public static Factory<VolumeRatiosAlgorithm> fieldOfHearing(Room room, Factory<DynamicLocation> sourceLocation, Factory<DynamicLocation> listenerLocation) {
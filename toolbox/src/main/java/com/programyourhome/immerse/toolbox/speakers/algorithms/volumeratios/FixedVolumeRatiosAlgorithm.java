@@ -28,6 +28,11 @@ public class FixedVolumeRatiosAlgorithm extends AbstractDynamicData<SpeakerVolum
         return this.speakerVolumeRatios;
     }
 
+    @Override
+    public long getVersion() {
+        return 0;
+    }
+
     public static Factory<VolumeRatiosAlgorithm> fixed(SpeakerVolumeRatios speakerVolumeRatios) {
         return new Factory<VolumeRatiosAlgorithm>() {
             private static final long serialVersionUID = Serialization.VERSION;
@@ -1,20 +1,13 @@
 package com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios;
 
-import java.util.Map;
-import java.util.Map.Entry;
-
 import com.programyourhome.immerse.domain.Factory;
 import com.programyourhome.immerse.domain.Room;
 import com.programyourhome.immerse.domain.Serialization;
 import com.programyourhome.immerse.domain.location.Vector3D;
 import com.programyourhome.immerse.domain.location.dynamic.DynamicLocation;
-import com.programyourhome.immerse.domain.speakers.SpeakerVolumeRatios;
 import com.programyourhome.immerse.domain.speakers.algorithms.volumeratios.VolumeRatiosAlgorithm;
 import com.programyourhome.immerse.toolbox.util.MathUtil;
 
-import one.util.streamex.EntryStream;
-import one.util.streamex.StreamEx;
-
 /**
  * Volume ratios algorithm that gives volume only to the speaker closest to the sound source (measured in angle).
  * The other speakers will be silent.
@@ -29,13 +22,21 @@ public class OnlyClosestVolumeRatiosAlgorithm extends AbstractLocationBasedVolum
     }
 
     @Override
-    protected SpeakerVolumeRatios calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation) {
-        Map<Integer, Double> speakerAngles = EntryStream.of(room.getSpeakers())
-                .mapValues(speaker -> MathUtil.calculateAngleInDegrees(sourceLocation, listenerLocation, speaker))
-                .toMap();
-        int speakerIdOfMinAngle = EntryStream.of(speakerAngles).minBy(Entry::getValue).get().getKey();
-        return new SpeakerVolumeRatios(
-                StreamEx.of(room.getSpeakers().keySet()).toMap(speakerId -> speakerId == speakerIdOfMinAngle ? 1.0 : 0.0));
+    protected void calculateVolumeRatios(Room room, Vector3D sourceLocation, Vector3D listenerLocation, double[] volumeRatios) {
+        int speakerIndexOfMinAngle = 0;
+        double minAngle = Double.MAX_VALUE;
+        // The angles of all speakers are calculated into the volume ratios array first and then replaced by the volume ratios.
+        MathUtil.calculateAnglesInDegrees(sourceLocation, listenerLocation, room, volumeRatios);
+        for (int speakerIndex = 0; speakerIndex < volumeRatios.length; speakerIndex++) {
+            double angle = volumeRatios[speakerIndex];
+            // Only a smaller angle counts, so in case of multiple speakers at the same angle, the first one (lowest id) is taken.
+            if (angle < minAngle) {
+                minAngle = angle;
+                speakerIndexOfMinAngle = speakerIndex;
+            }
+            volumeRatios[speakerIndex] = 0.0;
+        }
+        volumeRatios[speakerIndexOfMinAngle] = 1.0;
     }
 
     public static Factory<VolumeRatiosAlgorithm> onlyClosest(Room room, Factory<DynamicLocation> sourceLocation, Factory<DynamicLocation> listenerLocation) {
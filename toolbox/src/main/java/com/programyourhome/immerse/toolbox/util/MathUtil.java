@@ -1,66 +1,112 @@
 package com.programyourhome.immerse.toolbox.util;
 
-import org.la4j.Vector;
-
+import com.programyourhome.immerse.domain.Room;
 import com.programyourhome.immerse.domain.location.Vector3D;
 import com.programyourhome.immerse.domain.speakers.Speaker;
 
 /**
  * Math utility functions.
+ * The 3D functions work on the separate coordinates, so they do not create any objects.
  */
 public class MathUtil {
 
+    // The angle for all speakers if the listener is 'in' the source: all speakers are equal.
+    private static final double ANGLE_LISTENER_AT_SOURCE = 0;
+    // The angle for a speaker if the listener is 'in' the speaker: 'disable' that speaker by giving it the max angle.
+    private static final double ANGLE_LISTENER_AT_SPEAKER = 180;
+
     private MathUtil() {
     }
 
     /**
      * Calculate the angle (in degrees) between the line listener->source and listener->speaker.
      */
-    public static double calculateAngleInDegrees(Vector3D sourceLocation, Vector3D listenerLocation, Speaker speakerPojo) {
-        Vector listener = listenerLocation.toLa4j();
-        Vector source = sourceLocation.toLa4j();
-        Vector speaker = speakerPojo.getPosition().toLa4j();
-        double angle = calculateAngleInDegrees(listener, source, speaker);
+    public static double calculateAngleInDegrees(Vector3D sourceLocation, Vector3D listenerLocation, Speaker speaker) {
+        Vector3D speakerLocation = speaker.getPosition();
+        double angle = calculateAngleInDegrees(
+                sourceLocation.getX() - listenerLocation.getX(),
+                sourceLocation.getY() - listenerLocation.getY(),
+                sourceLocation.getZ() - listenerLocation.getZ(),
+                speakerLocation.getX() - listenerLocation.getX(),
+                speakerLocation.getY() - listenerLocation.getY(),
+                speakerLocation.getZ() - listenerLocation.getZ());
         // In case of the listener being at exactly the same position as either the source or the speaker,
         // there is no angle (NaN), so fall back to a default value.
-        if (angle == Double.NaN) {
-            if (listener.equals(source)) {
-                // If the listener is 'in' the source, all speakers are equal.
-                angle = 0;
+        if (Double.isNaN(angle)) {
+            angle = listenerLocation.equals(sourceLocation) ? ANGLE_LISTENER_AT_SOURCE : ANGLE_LISTENER_AT_SPEAKER;
+        }
+        return angle;
+    }
+
+    /**
+     * Calculate the angle (in degrees) between the line listener->source and listener->speaker for all speakers in the room.
+     * The angles are stored in the given array by speaker index.
+     * This gives the same angles as calculating them per speaker, but the direction of the source is only calculated once.
+     */
+    public static void calculateAnglesInDegrees(Vector3D sourceLocation, Vector3D listenerLocation, Room room, double[] angles) {
+        double listenerX = listenerLocation.getX();
+        double listenerY = listenerLocation.getY();
+        double listenerZ = listenerLocation.getZ();
+        double sourceX = sourceLocation.getX() - listenerX;
+        double sourceY = sourceLocation.getY() - listenerY;
+        double sourceZ = sourceLocation.getZ() - listenerZ;
+        double sourceLength = length(sourceX, sourceY, sourceZ);
+        int numberOfSpeakers = room.getNumberOfSpeakers();
+        if (sourceLength == 0) {
+            for (int speakerIndex = 0; speakerIndex < numberOfSpeakers; speakerIndex++) {
+                angles[speakerIndex] = ANGLE_LISTENER_AT_SOURCE;
+            }
+            return;
+        }
+        for (int speakerIndex = 0; speakerIndex < numberOfSpeakers; speakerIndex++) {
+            double speakerX = room.getSpeakerX(speakerIndex) - listenerX;
+            double speakerY = room.getSpeakerY(speakerIndex) - listenerY;
+            double speakerZ = room.getSpeakerZ(speakerIndex) - listenerZ;
+            double speakerLength = length(speakerX, speakerY, speakerZ);
+            if (speakerLength == 0) {
+                angles[speakerIndex] = ANGLE_LISTENER_AT_SPEAKER;
             } else {
-                // If the listener is 'in' the speaker, 'disable' that speaker by giving it the max angle.
-                angle = 180;
+                double cosine = dotProduct(sourceX, sourceY, sourceZ, speakerX, speakerY, speakerZ) / (sourceLength * speakerLength);
+                angles[speakerIndex] = Math.toDegrees(Math.acos(clampCosine(cosine)));
             }
         }
-        return angle;
     }
 
     /**
-     * Calculate the angle (in degrees) between the vectors base->target1 and base->target2.
+     * Calculate the angle (in degrees) between the vectors (x1, y1, z1) and (x2, y2, z2).
+     * If one of the vectors has length 0, there is no angle and the result is NaN.
      */
-    public static double calculateAngleInDegrees(Vector base, Vector target1, Vector target2) {
-        Vector baseToTarget1 = target1.subtract(base);
-        Vector baseToTarget1Direction = normalize(baseToTarget1);
-        Vector baseToTarget2 = target2.subtract(base);
-        Vector baseToTarget2Direction = normalize(baseToTarget2);
-        double dotProduct = safeDotProduct(baseToTarget1Direction, baseToTarget2Direction);
-        double angleInRadians = Math.acos(dotProduct);
-        return Math.toDegrees(angleInRadians);
+    public static double calculateAngleInDegrees(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double cosine = dotProduct(x1, y1, z1, x2, y2, z2) / (length(x1, y1, z1) * length(x2, y2, z2));
+        return Math.toDegrees(Math.acos(clampCosine(cosine)));
     }
 
     /**
-     * Calculate the dot product of 2 vectors.
-     * Correct for double imprecision if the result is out of bounds, so acos will always work on the result.
+     * Calculate the dot product of the vectors (x1, y1, z1) and (x2, y2, z2).
      */
-    public static double safeDotProduct(Vector v1, Vector v2) {
-        double dotProduct = v1.innerProduct(v2);
-        if (dotProduct > 1) {
-            dotProduct = 1;
+    public static double dotProduct(double x1, double y1, double z1, double x2, double y2, double z2) {
+        return x1 * x2 + y1 * y2 + z1 * z2;
+    }
+
+    /**
+     * Calculate the length of the vector (x, y, z).
+     */
+    public static double length(double x, double y, double z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * Correct a cosine for double imprecision if it is out of bounds, so acos will always work on the result.
+     * NaN stays NaN.
+     */
+    private static double clampCosine(double cosine) {
+        if (cosine > 1) {
+            return 1;
         }
-        if (dotProduct < -1) {
-            dotProduct = -1;
+        if (cosine < -1) {
+            return -1;
         }
-        return dotProduct;
+        return cosine;
     }
 
     /**
@@ -99,13 +145,6 @@ public class MathUtil {
         return calculateValueInRange(toMin, toMax, calculateFractionInRange(fromMin, fromMax, fromValue));
     }
 
-    /**
-     * Calculate the normalized form of a vector (with length 1).
-     */
-    public static Vector normalize(Vector input) {
-        return input.divide(input.euclideanNorm());
-    }
-
     /**
      * Reverse an angle (in degrees).
      */
@@ -98,4 +98,14 @@ public class TestData {
                 .build();
     }
 
+    public static SoundCard multiChannelSoundCard(int id, String physicalPort, int... speakerIds) {
+        return SoundCard.builder()
+                .id(id)
+                .name("SoundCard " + id)
+                .description("Description of sound card " + id)
+                .physicalPort(physicalPort)
+                .speakerIds(speakerIds)
+                .build();
+    }
+
 }
@@ -23,6 +23,11 @@ public class FixedDynamicVolume extends AbstractDynamicData<Double> implements D
         return this.volume;
     }
 
+    @Override
+    public long getVersion() {
+        return 0;
+    }
+
     public static Factory<DynamicVolume> full() {
         return fixed(1);
     }
@@ -9,7 +9,7 @@ class ForeverPlaybackSpec extends Specification {
         def playback = new ForeverPlayback()
 
         then:
-        !playback.shouldStop()
+        !playback.shouldStop(0)
     }
 
     def "Forever playback should not stop after audio start and end of stream"() {
@@ -17,11 +17,11 @@ class ForeverPlaybackSpec extends Specification {
         def playback = new ForeverPlayback()
 
         when:
-        playback.audioStarted()
+        playback.audioStarted(1000)
 
         then:
-        !playback.shouldStop()
+        !playback.shouldStop(1000)
         playback.endOfStream()
-        !playback.shouldStop()
+        !playback.shouldStop(Long.MAX_VALUE)
     }
 }
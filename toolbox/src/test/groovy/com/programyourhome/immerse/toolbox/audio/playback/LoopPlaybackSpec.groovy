@@ -9,10 +9,10 @@ class LoopPlaybackSpec extends Specification {
         def playback = new LoopPlayback(5)
 
         when:
-        playback.audioStarted()
+        playback.audioStarted(0)
 
         then:
-        !playback.shouldStop()
+        !playback.shouldStop(0)
         playback.endOfStream()
         playback.endOfStream()
         playback.endOfStream()
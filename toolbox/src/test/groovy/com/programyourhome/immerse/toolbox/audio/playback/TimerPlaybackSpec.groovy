@@ -2,7 +2,6 @@ package com.programyourhome.immerse.toolbox.audio.playback
 
 import spock.lang.Specification
 
-// Slightly tricky to test timer logic in unit tests, but should be stable with the right boundary settings
 class TimerPlaybackSpec extends Specification {
 
     def "Times playback of 100 millis should not stop directly after audio start"() {
@@ -10,22 +9,44 @@ class TimerPlaybackSpec extends Specification {
         def playback = new TimerPlayback(100)
 
         when:
-        playback.audioStarted()
+        playback.audioStarted(1000)
 
         then:
-        !playback.shouldStop()
+        !playback.shouldStop(1000)
+        !playback.shouldStop(1099)
     }
 
-    def "Times playback of 100 millis should stop after 105 millis"() {
+    def "Times playback of 100 millis should stop after 100 millis"() {
         given:
         def playback = new TimerPlayback(100)
 
         when:
-        playback.audioStarted()
-        Thread.sleep(105)
+        playback.audioStarted(1000)
 
         then:
-        playback.shouldStop()
+        playback.shouldStop(1100)
+        playback.shouldStop(1105)
+    }
+
+    def "Times playback should not stop before audio start"() {
+        when:
+        def playback = new TimerPlayback(100)
+
+        then:
+        !playback.shouldStop(1000)
+    }
+
+    def "Times playback should keep the start time of the first loop"() {
+        given:
+        def playback = new TimerPlayback(100)
+
+        when:
+        playback.audioStarted(1000)
+        playback.endOfStream()
+        playback.audioStarted(1080)
+
+        then:
+        playback.shouldStop(1100)
     }
 
     def "Timer playback of -1 should throw an exception"() {
@@ -0,0 +1,125 @@
+package com.programyourhome.immerse.toolbox.location.dynamic
+
+import static com.programyourhome.immerse.domain.DynamicData.UNKNOWN_VERSION
+
+import com.programyourhome.immerse.domain.location.Vector3D
+
+import spock.lang.Specification
+
+class KeyFramesDynamicLocationSpec extends Specification {
+
+    def "Version should stay the same while standing still and be unknown while moving"() {
+        given:
+        def keyFrames = new TreeMap([(0L): new Vector3D(0, 0, 0), (100L): new Vector3D(0, 0, 0), (200L): new Vector3D(10, 0, 0)])
+        def location = new KeyFramesDynamicLocation(keyFrames, loop)
+
+        when:
+        location.nextPlaybackStarted(0)
+        location.nextStep(millis)
+
+        then:
+        location.getVersion() == version
+
+        where:
+        loop  | millis || version
+        false | 0      || 0                // first key frame
+        false | 50     || 0                // standing still between first and second key frame
+        false | 100    || UNKNOWN_VERSION  // start of moving
+        false | 150    || UNKNOWN_VERSION  // moving
+        false | 200    || 200              // last key frame
+        false | 500    || 200              // after last key frame
+    }
+
+    def "Version should be the same when looping back to the same still part"() {
+        given:
+        def keyFrames = new TreeMap([(0L): new Vector3D(0, 0, 0), (100L): new Vector3D(0, 0, 0),
+                                     (200L): new Vector3D(10, 0, 0), (300L): new Vector3D(0, 0, 0)])
+        def location = new KeyFramesDynamicLocation(keyFrames, true)
+        location.nextPlaybackStarted(0)
+
+        when:
+        location.nextStep(50)
+        def firstVersion = location.getVersion()
+        location.nextStep(350)
+        def loopedVersion = location.getVersion()
+
+        then:
+        firstVersion == loopedVersion
+        location.getCurrentValue() == new Vector3D(0, 0, 0)
+    }
+
+    def "Location should be interpolated between key frames, also when jumping back and forth in time"() {
+        given:
+        def keyFrames = new TreeMap([(0L): new Vector3D(0, 0, 0), (100L): new Vector3D(10, 0, 0),
+                                     (200L): new Vector3D(10, 20, 0), (300L): new Vector3D(10, 20, 30)])
+        def location = new KeyFramesDynamicLocation(keyFrames)
+        location.nextPlaybackStarted(0)
+
+        expect:
+        [0L, 50L, 100L, 150L, 250L, 300L, 400L, 120L, 30L, 280L].collect { millis ->
+            location.nextStep(millis)
+            location.getCurrentValue()
+        } == [new Vector3D(0, 0, 0), new Vector3D(5, 0, 0), new Vector3D(10, 0, 0), new Vector3D(10, 10, 0), new Vector3D(10, 20, 15),
+              new Vector3D(10, 20, 30), new Vector3D(10, 20, 30), new Vector3D(10, 4, 0), new Vector3D(3, 0, 0), new Vector3D(10, 20, 24)]
+    }
+
+    def "Sampled location should be equal to the sampled location at the key frames and close the loop"() {
+        given:
+        def circle = new HorizontalCircleDynamicLocation(new Vector3D(5, 5, 0), 0, 5, true, 1000)
+        def sampled = KeyFramesDynamicLocation.sample(new HorizontalCircleDynamicLocation(new Vector3D(5, 5, 0), 0, 5, true, 1000), 1000, 10, true)
+        circle.nextPlaybackStarted(0)
+        sampled.nextPlaybackStarted(0)
+
+        when:
+        circle.nextStep(circleMillis)
+        sampled.nextStep(millis)
+
+        then:
+        sampled.getCurrentValue() == circle.getCurrentValue()
+
+        where:
+        millis | circleMillis
+        0      | 0
+        10     | 10
+        250    | 250
+        990    | 990
+        1000   | 0      // looped back to the exact first key frame
+        1500   | 500
+    }
+
+    def "Changing the given key frames afterwards should not change the location, also not after deserialization"() {
+        given:
+        def keyFrames = new TreeMap([(0L): new Vector3D(0, 0, 0), (100L): new Vector3D(10, 0, 0)])
+        def location = new KeyFramesDynamicLocation(keyFrames)
+
+        when:
+        keyFrames.put(50L, new Vector3D(0, 20, 0))
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable { it.writeObject(location) }
+        def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withCloseable { it.readObject() }
+        [location, copy].each {
+            it.nextPlaybackStarted(0)
+            it.nextStep(50)
+        }
+
+        then:
+        location.getCurrentValue() == new Vector3D(5, 0, 0)
+        copy.getCurrentValue() == new Vector3D(5, 0, 0)
+    }
+
+    def "Key frames should be compiled again after deserialization"() {
+        given:
+        def keyFrames = new TreeMap([(0L): new Vector3D(0, 0, 0), (100L): new Vector3D(10, 0, 0), (200L): new Vector3D(0, 0, 0)])
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable { it.writeObject(new KeyFramesDynamicLocation(keyFrames, true)) }
+
+        when:
+        def location = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withCloseable { it.readObject() }
+        location.nextPlaybackStarted(0)
+        location.nextStep(250)
+
+        then:
+        location.getCurrentValue() == new Vector3D(5, 0, 0)
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.programyourhome.immerse.toolbox.util
+
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.FieldOfHearingVolumeRatiosAlgorithm.fieldOfHearing
+import static com.programyourhome.immerse.toolbox.speakers.algorithms.volumeratios.OnlyClosestVolumeRatiosAlgorithm.onlyClosest
+import static com.programyourhome.immerse.toolbox.util.TestData.room
+import static com.programyourhome.immerse.toolbox.util.TestData.speaker
+
+import com.programyourhome.immerse.domain.location.Vector3D
+import com.programyourhome.immerse.toolbox.location.dynamic.FixedDynamicLocation
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MathUtilSpec extends Specification {
+
+    // The angle between an axis and the diagonal of a cube.
+    static final double CUBE_DIAGONAL = Math.toDegrees(Math.acos(1 / Math.sqrt(3)))
+    // The angle between straight down and the corners of the 10x10 floor, seen from 10 above the center.
+    static final double CORNER = Math.toDegrees(Math.acos(10 / Math.sqrt(150)))
+
+    @Unroll
+    def "Angle between (#x1, #y1, #z1) and (#x2, #y2, #z2) should be #angle degrees"() {
+        expect:
+        Math.abs(MathUtil.calculateAngleInDegrees(x1, y1, z1, x2, y2, z2) - angle) < 1e-9
+
+        where:
+        x1  | y1  | z1  | x2  | y2  | z2  || angle
+        1   | 0   | 0   | 2   | 0   | 0   || 0     // same direction
+        0.1 | 0.2 | 0.3 | 0.3 | 0.6 | 0.9 || 0     // same direction, cosine slightly above 1 without the correction
+        1   | 0   | 0   | -3  | 0   | 0   || 180   // opposite direction
+        1   | 2   | 3   | -2  | -4  | -6  || 180   // opposite direction, not on an axis
+        1   | 0   | 0   | 0   | 1   | 0   || 90    // perpendicular
+        1   | 1   | 0   | 1   | 0   | 0   || 45
+        1   | 1   | 1   | 1   | 1   | -1  || Math.toDegrees(Math.acos(1d / 3))
+    }
+
+    def "Angle with a vector of length 0 should be NaN"() {
+        expect:
+        Double.isNaN(MathUtil.calculateAngleInDegrees(0, 0, 0, 1, 2, 3))
+        Double.isNaN(MathUtil.calculateAngleInDegrees(1, 2, 3, 0, 0, 0))
+    }
+
+    @Unroll
+    def "Angles for all speakers should be equal to the angle per speaker for source #source and listener #listener"() {
+        given:
+        def room = room(speaker(1, 0, 0, 0), speaker(2, 10, 0, 0), speaker(3, 10, 10, 0), speaker(4, 0, 10, 0), speaker(5, 5, 5, 5))
+        double[] angles = new double[room.getNumberOfSpeakers()]
+
+        when:
+        MathUtil.calculateAnglesInDegrees(source, listener, room, angles)
+
+        then:
+        angles as List == (0..<room.getNumberOfSpeakers()).collect { MathUtil.calculateAngleInDegrees(source, listener, room.getSpeakerAtIndex(it)) }
+        (0..<room.getNumberOfSpeakers()).every { Math.abs(angles[it] - expectedAngles[it]) < 1e-9 }
+
+        where:
+        source                 | listener               || expectedAngles
+        new Vector3D(5, 5, 0)  | new Vector3D(5, 5, 0)  || [0, 0, 0, 0, 0]                     // listener at the source: all equal
+        new Vector3D(10, 0, 0) | new Vector3D(0, 0, 0)  || [180, 0, 45, 90, CUBE_DIAGONAL]     // listener at speaker 1: that one gets 180
+        new Vector3D(5, 5, 0)  | new Vector3D(5, 5, 10) || [CORNER, CORNER, CORNER, CORNER, 0] // ties: all corners at the same angle
+    }
+
+    def "Only closest should take the speaker with the lowest index in case of equal angles"() {
+        given:
+        // Speakers 1 and 3 are at exactly the same angle from the source, speaker 2 is further away.
+        def room = room(speaker(3, 10, 0, 1), speaker(1, 10, 0, -1), speaker(2, 0, 10, 0))
+        def algorithm = onlyClosest(room, FixedDynamicLocation.fixed(10, 0, 0), FixedDynamicLocation.fixed(0, 0, 0)).create()
+
+        when:
+        algorithm.nextPlaybackStarted(0)
+        algorithm.nextStep(0)
+
+        then:
+        algorithm.getCurrentValue().getVolumeRatioMap() == [1: 1d, 2: 0d, 3: 0d]
+    }
+
+    @Unroll
+    def "Field of hearing should give the volume ratios #expectedRatios for source #source and listener #listener"() {
+        given:
+        def room = room(speaker(1, 1, 0, 0), speaker(2, 0, 1, 0), speaker(3, Math.sqrt(3), 1, 0), speaker(4, 0, 0, 0))
+        def algorithm = fieldOfHearing(room, FixedDynamicLocation.fixed(source), FixedDynamicLocation.fixed(listener)).create()
+
+        when:
+        algorithm.nextPlaybackStarted(0)
+        algorithm.nextStep(0)
+        def volumeRatios = algorithm.getCurrentValue()
+
+        then:
+        (1..4).every { Math.abs(volumeRatios.getVolumeRatio(it) - expectedRatios[it - 1]) < 1e-9 }
+
+        where:
+        source                 | listener              || expectedRatios
+        new Vector3D(1, 0, 0)  | new Vector3D(1, 0, 0) || [45, 45, 45, 45] // listener at the source and at speaker 1: all equal
+        new Vector3D(10, 0, 0) | new Vector3D(0, 0, 0) || [45, 0, 15, 0]   // listener at speaker 4, so that one gets 0
+        new Vector3D(-1, 0, 0) | new Vector3D(0, 0, 0) || [0, 0, 0, 0]     // all speakers outside of the field of hearing
+    }
+
+}